@@ -0,0 +1,16 @@
+package com.ordermanagement.api;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the server rejects an update with HTTP 409 because the order
+ * changed since it was read. Reload the order and retry.
+ */
+public class ConflictException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
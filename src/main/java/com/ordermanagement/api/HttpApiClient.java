@@ -8,9 +8,12 @@ import com.ordermanagement.dto.*;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -59,6 +62,24 @@ public class HttpApiClient {
         return get("/api/products/category/" + category, new TypeReference<List<ProductDto>>() {});
     }
     
+    /**
+     * Fetches one page of products; pass null for the first page and then
+     * the previous page's nextCursor.
+     */
+    public PageDto<ProductDto> getProductsPage(String cursor, int pageSize) throws IOException {
+        return get("/api/products" + pageQuery(cursor, pageSize), new TypeReference<PageDto<ProductDto>>() {});
+    }
+    
+    public List<ProductDto> searchProducts(String query) throws IOException {
+        return get("/api/products/search?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8),
+            new TypeReference<List<ProductDto>>() {});
+    }
+    
+    public List<ProductDto> suggestProducts(String prefix) throws IOException {
+        return get("/api/products/suggest?prefix=" + URLEncoder.encode(prefix, StandardCharsets.UTF_8),
+            new TypeReference<List<ProductDto>>() {});
+    }
+    
     public ProductDto getProductById(Long id) throws IOException {
         return get("/api/products/" + id, ProductDto.class);
     }
@@ -100,6 +121,41 @@ public class HttpApiClient {
         return get("/api/orders/customer/" + customerId, new TypeReference<List<OrderDto>>() {});
     }
     
+    public PageDto<OrderDto> getOrdersByCustomerPage(Long customerId, String cursor, int pageSize) throws IOException {
+        return get("/api/orders/customer/" + customerId + pageQuery(cursor, pageSize),
+            new TypeReference<PageDto<OrderDto>>() {});
+    }
+    
+    // Order headers without items, for list views
+    public List<OrderSummaryDto> getOrderSummariesByCustomer(Long customerId) throws IOException {
+        return get("/api/orders/customer/" + customerId + "?fields=summary",
+            new TypeReference<List<OrderSummaryDto>>() {});
+    }
+    
+    public List<OrderItemDto> getOrderItems(Long orderId) throws IOException {
+        return get("/api/orders/" + orderId + "/items", new TypeReference<List<OrderItemDto>>() {});
+    }
+    
+    // Only the customer's most recent orders, oldest first
+    public List<OrderDto> getLatestOrdersByCustomer(Long customerId, int limit) throws IOException {
+        return get("/api/orders/customer/" + customerId + "?limit=" + limit, new TypeReference<List<OrderDto>>() {});
+    }
+    
+    // Orders created in [from, to), either bound may be null; status is optional
+    public List<OrderDto> getOrdersCreatedBetween(LocalDateTime from, LocalDateTime to, String status) throws IOException {
+        StringBuilder query = new StringBuilder("/api/orders?");
+        if (from != null) {
+            query.append("from=").append(from).append('&');
+        }
+        if (to != null) {
+            query.append("to=").append(to).append('&');
+        }
+        if (status != null) {
+            query.append("status=").append(URLEncoder.encode(status, StandardCharsets.UTF_8));
+        }
+        return get(query.toString(), new TypeReference<List<OrderDto>>() {});
+    }
+    
     public OrderDto getOrderById(Long orderId) throws IOException {
         return get("/api/orders/" + orderId, OrderDto.class);
     }
@@ -117,6 +173,14 @@ public class HttpApiClient {
     }
     
     // Generic HTTP methods
+    private String pageQuery(String cursor, int pageSize) {
+        String query = "?pageSize=" + pageSize;
+        if (cursor != null) {
+            query += "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8);
+        }
+        return query;
+    }
+    
     private <T> T get(String endpoint, Class<T> responseType) throws IOException {
         try {
             HttpRequest request = HttpRequest.newBuilder()
@@ -183,6 +247,9 @@ public class HttpApiClient {
     }
     
     private void handleErrorResponse(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() == 409) {
+            throw new ConflictException("HTTP 409: " + response.body());
+        }
         try {
             Map<String, String> errorBody = objectMapper.readValue(response.body(), Map.class);
             String errorMessage = errorBody.get("error");
@@ -1,6 +1,7 @@
 package com.ordermanagement.api;
 
 import com.ordermanagement.dto.*;
+import com.ordermanagement.storage.LongObjectMap;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -13,9 +14,9 @@ import java.util.concurrent.atomic.AtomicLong;
 public class MockApiServer {
     
     private final AtomicLong idGenerator = new AtomicLong(1);
-    private final Map<Long, CustomerDto> customers = new HashMap<>();
-    private final Map<Long, ProductDto> products = new HashMap<>();
-    private final Map<Long, OrderDto> orders = new HashMap<>();
+    private final LongObjectMap<CustomerDto> customers = new LongObjectMap<>();
+    private final LongObjectMap<ProductDto> products = new LongObjectMap<>();
+    private final LongObjectMap<OrderDto> orders = new LongObjectMap<>();
     
     public MockApiServer() {
         initializeMockData();
@@ -54,6 +55,11 @@ public class MockApiServer {
         System.out.println("Mock API Server initialized with " + products.size() + " products");
     }
     
+    // Ids come from callers and may be missing
+    private static <T> T find(LongObjectMap<T> map, Long id) {
+        return id != null ? map.get(id) : null;
+    }
+    
     // Simulate API endpoints
     
     public CustomerDto loginCustomer(String email, String password) throws ApiException {
@@ -93,7 +99,7 @@ public class MockApiServer {
     }
     
     public ProductDto getProductById(Long id) throws ApiException {
-        ProductDto product = products.get(id);
+        ProductDto product = find(products, id);
         if (product == null) {
             throw new ApiException("Product not found");
         }
@@ -101,7 +107,7 @@ public class MockApiServer {
     }
     
     public OrderDto createOrder(Long customerId, AddressDto deliveryAddress) throws ApiException {
-        CustomerDto customer = customers.get(customerId);
+        CustomerDto customer = find(customers, customerId);
         if (customer == null) {
             throw new ApiException("Customer not found");
         }
@@ -123,7 +129,7 @@ public class MockApiServer {
     }
     
     public OrderDto addItemToOrder(Long orderId, Long productId, int quantity, String observations) throws ApiException {
-        OrderDto order = orders.get(orderId);
+        OrderDto order = find(orders, orderId);
         if (order == null) {
             throw new ApiException("Order not found");
         }
@@ -132,7 +138,7 @@ public class MockApiServer {
             throw new ApiException("Cannot modify order that is not waiting");
         }
         
-        ProductDto product = products.get(productId);
+        ProductDto product = find(products, productId);
         if (product == null) {
             throw new ApiException("Product not found");
         }
@@ -146,7 +152,7 @@ public class MockApiServer {
     }
     
     public OrderDto finalizeOrder(Long orderId, String paymentMethod, BigDecimal deliveryFee) throws ApiException {
-        OrderDto order = orders.get(orderId);
+        OrderDto order = find(orders, orderId);
         if (order == null) {
             throw new ApiException("Order not found");
         }
@@ -162,7 +168,7 @@ public class MockApiServer {
     }
     
     public OrderDto cancelOrder(Long orderId, String reason) throws ApiException {
-        OrderDto order = orders.get(orderId);
+        OrderDto order = find(orders, orderId);
         if (order == null) {
             throw new ApiException("Order not found");
         }
@@ -179,7 +185,7 @@ public class MockApiServer {
     }
     
     public List<OrderDto> getOrdersByCustomer(Long customerId) throws ApiException {
-        CustomerDto customer = customers.get(customerId);
+        CustomerDto customer = find(customers, customerId);
         if (customer == null) {
             throw new ApiException("Customer not found");
         }
@@ -195,7 +201,7 @@ public class MockApiServer {
     }
     
     public OrderDto getOrderById(Long orderId) throws ApiException {
-        OrderDto order = orders.get(orderId);
+        OrderDto order = find(orders, orderId);
         if (order == null) {
             throw new ApiException("Order not found");
         }
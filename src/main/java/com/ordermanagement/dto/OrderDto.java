@@ -1,8 +1,12 @@
 package com.ordermanagement.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.ordermanagement.model.ItemList;
+import com.ordermanagement.model.Money;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -10,10 +14,16 @@ public class OrderDto {
     private Long id;
     private Long customerId;
     private String customerName;
-    private List<OrderItemDto> items;
+    // Keeps the subtotal in cents as items come and go
+    private Items items;
     private String status;
     private AddressDto deliveryAddress;
+    // Each amount in cents, null when Money cannot hold it exactly, and as
+    // its getter gives it. A two-decimal amount set from cents is left null
+    // until first asked for, then kept; the totals use the cents
+    private Money deliveryFeeMoney;
     private BigDecimal deliveryFee;
+    private Money discountAmountMoney;
     private BigDecimal discountAmount;
     private String couponCode;
     private String observations;
@@ -22,6 +32,7 @@ public class OrderDto {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String cancellationReason;
+    private Long version;
     
     public OrderDto() {}
     
@@ -36,7 +47,16 @@ public class OrderDto {
     public void setCustomerName(String customerName) { this.customerName = customerName; }
     
     public List<OrderItemDto> getItems() { return items; }
-    public void setItems(List<OrderItemDto> items) { this.items = items; }
+    // Any other list than an order's own is copied, which keeps the subtotal, so
+    // later changes to the list passed in do not reach the order; change getItems()
+    // instead. Items left only in the replaced list stop pointing at it
+    public void setItems(List<OrderItemDto> items) {
+        Items previous = this.items;
+        this.items = items == null || items instanceof Items ? (Items) items : new Items(items);
+        if (previous != null && previous != this.items) {
+            previous.detach();
+        }
+    }
     
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
@@ -44,11 +64,75 @@ public class OrderDto {
     public AddressDto getDeliveryAddress() { return deliveryAddress; }
     public void setDeliveryAddress(AddressDto deliveryAddress) { this.deliveryAddress = deliveryAddress; }
     
-    public BigDecimal getDeliveryFee() { return deliveryFee; }
-    public void setDeliveryFee(BigDecimal deliveryFee) { this.deliveryFee = deliveryFee; }
+    public BigDecimal getDeliveryFee() {
+        // Racing readers build equal immutable values, so either one may stay
+        if (deliveryFee == null && deliveryFeeMoney != null) {
+            deliveryFee = deliveryFeeMoney.toBigDecimal();
+        }
+        return deliveryFee;
+    }
+
+    public void setDeliveryFee(BigDecimal deliveryFee) {
+        this.deliveryFeeMoney = deliveryFee != null ? Money.exact(deliveryFee) : null;
+        this.deliveryFee = deliveryFee;
+    }
+
+    @JsonIgnore
+    public Money getDeliveryFeeMoney() { return deliveryFeeMoney; }
+
+    // From cents, as the storage layer reads it; the BigDecimal view has two decimals
+    @JsonIgnore
+    public void setDeliveryFeeMoney(Money deliveryFeeMoney) {
+        setDeliveryFeeMoney(deliveryFeeMoney, 2);
+    }
+
+    @JsonIgnore
+    public void setDeliveryFeeMoney(Money deliveryFeeMoney, int scale) {
+        this.deliveryFeeMoney = deliveryFeeMoney;
+        this.deliveryFee = viewOf(deliveryFeeMoney, scale);
+    }
+
+    // Scale of getDeliveryFee, which the total keeps
+    public int deliveryFeeScale() {
+        return scaleOf(deliveryFeeMoney, deliveryFee);
+    }
     
-    public BigDecimal getDiscountAmount() { return discountAmount; }
-    public void setDiscountAmount(BigDecimal discountAmount) { this.discountAmount = discountAmount; }
+    public BigDecimal getDiscountAmount() {
+        if (discountAmount == null && discountAmountMoney != null) {
+            discountAmount = discountAmountMoney.toBigDecimal();
+        }
+        return discountAmount;
+    }
+
+    public void setDiscountAmount(BigDecimal discountAmount) {
+        this.discountAmountMoney = discountAmount != null ? Money.exact(discountAmount) : null;
+        this.discountAmount = discountAmount;
+    }
+
+    @JsonIgnore
+    public Money getDiscountAmountMoney() { return discountAmountMoney; }
+
+    @JsonIgnore
+    public void setDiscountAmountMoney(Money discountAmountMoney, int scale) {
+        this.discountAmountMoney = discountAmountMoney;
+        this.discountAmount = viewOf(discountAmountMoney, scale);
+    }
+
+    public int discountAmountScale() {
+        return scaleOf(discountAmountMoney, discountAmount);
+    }
+
+    // Only the BigDecimal keeps a scale other than two; two decimals are built on first use
+    private static BigDecimal viewOf(Money money, int scale) {
+        if (scale < 0 || scale > 2) {
+            throw new IllegalArgumentException("scale must be 0, 1 or 2");
+        }
+        return money != null && scale != 2 ? money.toBigDecimal(scale) : null;
+    }
+
+    private static int scaleOf(Money money, BigDecimal amount) {
+        return amount != null ? amount.scale() : money != null ? 2 : 0;
+    }
     
     public String getCouponCode() { return couponCode; }
     public void setCouponCode(String couponCode) { this.couponCode = couponCode; }
@@ -71,20 +155,66 @@ public class OrderDto {
     public String getCancellationReason() { return cancellationReason; }
     public void setCancellationReason(String cancellationReason) { this.cancellationReason = cancellationReason; }
     
+    // Incremented on every stored update; used for optimistic concurrency checks
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
     public BigDecimal getSubtotal() {
         if (items == null) return BigDecimal.ZERO;
+        BigDecimal sum = sumInCents(false);
+        if (sum != null) return sum;
         return items.stream()
                    .map(OrderItemDto::getSubtotal)
                    .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
     
     public BigDecimal getTotal() {
+        BigDecimal sum = sumInCents(true);
+        if (sum != null) return sum;
         BigDecimal subtotal = getSubtotal();
-        BigDecimal delivery = deliveryFee != null ? deliveryFee : BigDecimal.ZERO;
-        BigDecimal discount = discountAmount != null ? discountAmount : BigDecimal.ZERO;
+        BigDecimal delivery = getDeliveryFee() != null ? getDeliveryFee() : BigDecimal.ZERO;
+        BigDecimal discount = getDiscountAmount() != null ? getDiscountAmount() : BigDecimal.ZERO;
         return subtotal.add(delivery).subtract(discount);
     }
 
+    /*
+     * The subtotal the item list keeps in cents, or the total with the fee and
+     * discount, without walking the items.
+     * The result has the largest scale of its terms, like BigDecimal addition,
+     * so it equals what the BigDecimal formula gives. Null when some amount
+     * has more than two decimals or the cents overflow.
+     */
+    private BigDecimal sumInCents(boolean withFees) {
+        long cents = 0;
+        int scale = 0;
+        if (items != null) {
+            if (!items.hasExactSubtotal()) {
+                return null;
+            }
+            cents = items.subtotalCents();
+            scale = items.subtotalScale();
+        }
+        try {
+            if (withFees) {
+                if (deliveryFeeMoney != null) {
+                    cents = Math.addExact(cents, deliveryFeeMoney.cents());
+                    scale = Math.max(scale, deliveryFeeScale());
+                } else if (deliveryFee != null) {
+                    return null;
+                }
+                if (discountAmountMoney != null) {
+                    cents = Math.subtractExact(cents, discountAmountMoney.cents());
+                    scale = Math.max(scale, discountAmountScale());
+                } else if (discountAmount != null) {
+                    return null;
+                }
+            }
+        } catch (ArithmeticException overflow) {
+            return null;
+        }
+        return Money.ofCents(cents).toBigDecimal(scale);
+    }
+
     // Method to calculate sequential order number per customer
     public static int getUserOrderNumber(List<OrderDto> userOrders, Long orderId) {
         // Sort orders by creation date
@@ -100,4 +230,43 @@ public class OrderDto {
         }
         return 1; // Fallback
     }
-}
\ No newline at end of file
+
+    // The item list of an order; each item points back at the list holding it
+    static final class Items extends ItemList<OrderItemDto> {
+        Items(Collection<? extends OrderItemDto> items) {
+            super(items);
+        }
+
+        @Override
+        protected boolean claim(OrderItemDto item) {
+            if (item.owner == this) {
+                return false;
+            }
+            if (item.owner != null) {
+                item.owner.untrack();
+            }
+            item.owner = this;
+            return true;
+        }
+
+        @Override
+        protected void release(OrderItemDto item) {
+            if (item.owner == this) {
+                item.owner = null;
+            }
+        }
+
+        // For a list its order dropped: its items no longer report to it
+        void detach() {
+            for (OrderItemDto item : this) {
+                if (item != null) {
+                    release(item);
+                }
+            }
+            untrack();
+        }
+
+        void changing(OrderItemDto item) { beforeChange(item); }
+        void changed(OrderItemDto item) { afterChange(item); }
+    }
+}
@@ -1,21 +1,30 @@
 package com.ordermanagement.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ordermanagement.model.ItemList;
+import com.ordermanagement.model.Money;
 import java.math.BigDecimal;
 
-public class OrderItemDto {
+public class OrderItemDto implements ItemList.Item {
     private Long id;
     private ProductDto product;
     private int quantity;
+    // The price in cents; null when there is no price or Money cannot hold it exactly
+    private Money unitPriceMoney;
+    // The price as getUnitPrice gives it. A two-decimal price set from cents
+    // is left null until first asked for, then kept; the sums use the cents
     private BigDecimal unitPrice;
     private String observations;
+    // The order's item list holding this item, which follows its price and quantity
+    OrderDto.Items owner;
     
     public OrderItemDto() {}
     
     public OrderItemDto(ProductDto product, int quantity, String observations) {
         this.product = product;
         this.quantity = quantity;
-        this.unitPrice = product.getPrice();
+        setUnitPrice(product.getPrice());
         this.observations = observations;
     }
     
@@ -27,17 +36,75 @@ public class OrderItemDto {
     public void setProduct(ProductDto product) { this.product = product; }
     
     public int getQuantity() { return quantity; }
-    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public void setQuantity(int quantity) {
+        if (owner != null) owner.changing(this);
+        this.quantity = quantity;
+        if (owner != null) owner.changed(this);
+    }
     
-    public BigDecimal getUnitPrice() { return unitPrice; }
-    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+    public BigDecimal getUnitPrice() {
+        // Racing readers build equal immutable values, so either one may stay
+        if (unitPrice == null && unitPriceMoney != null) {
+            unitPrice = unitPriceMoney.toBigDecimal();
+        }
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        if (owner != null) owner.changing(this);
+        this.unitPriceMoney = unitPrice != null ? Money.exact(unitPrice) : null;
+        this.unitPrice = unitPrice;
+        if (owner != null) owner.changed(this);
+    }
+
+    @JsonIgnore
+    @Override
+    public Money getUnitPriceMoney() { return unitPriceMoney; }
+
+    /**
+     * Sets the price from cents, as the storage layer reads it; the BigDecimal
+     * view has two decimals.
+     */
+    @JsonIgnore
+    public void setUnitPriceMoney(Money unitPriceMoney) {
+        setUnitPriceMoney(unitPriceMoney, 2);
+    }
+
+    /**
+     * Sets the price from cents with the scale, 0 to 2, of its BigDecimal view.
+     */
+    @JsonIgnore
+    public void setUnitPriceMoney(Money unitPriceMoney, int scale) {
+        if (scale < 0 || scale > 2) {
+            throw new IllegalArgumentException("scale must be 0, 1 or 2");
+        }
+        if (owner != null) owner.changing(this);
+        this.unitPriceMoney = unitPriceMoney;
+        // Only the BigDecimal keeps a scale other than two
+        this.unitPrice = unitPriceMoney != null && scale != 2 ? unitPriceMoney.toBigDecimal(scale) : null;
+        if (owner != null) owner.changed(this);
+    }
+
+    // Scale of the BigDecimal price, which its subtotal keeps
+    @Override
+    public int unitPriceScale() {
+        return unitPrice != null ? unitPrice.scale() : unitPriceMoney != null ? 2 : 0;
+    }
     
     public String getObservations() { return observations; }
     public void setObservations(String observations) { this.observations = observations; }
     
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     public BigDecimal getSubtotal() {
-        if (unitPrice == null) return BigDecimal.ZERO;
-        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        if (unitPriceMoney != null) {
+            try {
+                return unitPriceMoney.times(quantity).toBigDecimal(unitPriceScale());
+            } catch (ArithmeticException overflow) {
+                // Past a long count of cents; BigDecimal has no limit
+            }
+        }
+        BigDecimal price = getUnitPrice();
+        if (price == null) return BigDecimal.ZERO;
+        return price.multiply(BigDecimal.valueOf(quantity));
     }
 }
\ No newline at end of file
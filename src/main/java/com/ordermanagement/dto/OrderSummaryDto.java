@@ -0,0 +1,98 @@
+package com.ordermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Header of an order for list views: everything but the items, which are
+ * reduced to their count and subtotal. Fetch the items themselves from
+ * /api/orders/{id}/items when they are needed.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OrderSummaryDto {
+    private Long id;
+    private Long customerId;
+    private String customerName;
+    private String status;
+    private int itemCount;
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    private BigDecimal deliveryFee;
+    private BigDecimal discountAmount;
+    private String paymentMethod;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private String cancellationReason;
+    private Long version;
+
+    public OrderSummaryDto() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
+    public String getCustomerName() { return customerName; }
+    public void setCustomerName(String customerName) { this.customerName = customerName; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getItemCount() { return itemCount; }
+    public void setItemCount(int itemCount) { this.itemCount = itemCount; }
+
+    public BigDecimal getSubtotal() { return subtotal; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+
+    public BigDecimal getDeliveryFee() { return deliveryFee; }
+    public void setDeliveryFee(BigDecimal deliveryFee) { this.deliveryFee = deliveryFee; }
+
+    public BigDecimal getDiscountAmount() { return discountAmount; }
+    public void setDiscountAmount(BigDecimal discountAmount) { this.discountAmount = discountAmount; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public String getCancellationReason() { return cancellationReason; }
+    public void setCancellationReason(String cancellationReason) { this.cancellationReason = cancellationReason; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    // Same formula as OrderDto.getTotal
+    public BigDecimal getTotal() {
+        BigDecimal sum = subtotal != null ? subtotal : BigDecimal.ZERO;
+        BigDecimal delivery = deliveryFee != null ? deliveryFee : BigDecimal.ZERO;
+        BigDecimal discount = discountAmount != null ? discountAmount : BigDecimal.ZERO;
+        return sum.add(delivery).subtract(discount);
+    }
+
+    /**
+     * The header of a fully loaded order.
+     */
+    public static OrderSummaryDto of(OrderDto order) {
+        OrderSummaryDto summary = new OrderSummaryDto();
+        summary.setId(order.getId());
+        summary.setCustomerId(order.getCustomerId());
+        summary.setCustomerName(order.getCustomerName());
+        summary.setStatus(order.getStatus());
+        summary.setItemCount(order.getItems() != null ? order.getItems().size() : 0);
+        summary.setSubtotal(order.getSubtotal());
+        summary.setDeliveryFee(order.getDeliveryFee());
+        summary.setDiscountAmount(order.getDiscountAmount());
+        summary.setPaymentMethod(order.getPaymentMethod());
+        summary.setCreatedAt(order.getCreatedAt());
+        summary.setUpdatedAt(order.getUpdatedAt());
+        summary.setCancellationReason(order.getCancellationReason());
+        summary.setVersion(order.getVersion());
+        return summary;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ordermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. nextCursor is passed back as
+ * ?cursor= to fetch the following page and is null on the last page.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PageDto<T> {
+    private List<T> items = new ArrayList<>();
+    private String nextCursor;
+    
+    public PageDto() {}
+    
+    public PageDto(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean hasNext() { return nextCursor != null; }
+}
@@ -0,0 +1,257 @@
+package com.ordermanagement.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * The items of an order, keeping their subtotal in cents as items are added,
+ * replaced and removed, so an order reads its subtotal in O(1) instead of
+ * summing every item. Every list operation, including iterator removal and
+ * sublists, goes through add, set and remove, so the sum always follows the
+ * contents.
+ *
+ * Each order class subclasses it next to its item class, which keeps a
+ * package-private reference to the list holding it: claim and release set
+ * that reference, and the item's price and quantity setters call back
+ * through it around the update, so the list takes out the old amount and
+ * adds the new one. An item is tracked by one list at a time. A list that
+ * holds an item twice, or loses one of its items to another list, stops
+ * tracking until it is cleared, and its owner sums the items instead.
+ *
+ * The subtotal carries the largest scale of the item prices, like
+ * BigDecimal addition. It is not exact when some item has no price in whole
+ * cents or the sum overflows; owners then fall back to BigDecimal.
+ * Not thread-safe, like the orders that hold it.
+ */
+public abstract class ItemList<E extends ItemList.Item> extends AbstractList<E> implements RandomAccess {
+
+    /**
+     * What the list needs from an item.
+     */
+    public interface Item {
+        /**
+         * The unit price in cents, or null when it is missing or has more than two decimals.
+         */
+        Money getUnitPriceMoney();
+
+        /**
+         * Scale of the unit price as a BigDecimal, between 0 and 2 when getUnitPriceMoney is not null.
+         */
+        int unitPriceScale();
+
+        int getQuantity();
+    }
+
+    private final ArrayList<E> items;
+    private long cents;
+    // Items in cents per price scale, so the subtotal scale is the largest one in use
+    private final int[] itemsByScale = new int[3];
+    // Items that cannot be summed in cents
+    private int inexact;
+    // Set when the sum left the long range; the next write sums the items again
+    private boolean overflowed;
+    // Set when an item is held twice or taken by another list; cleared with the list
+    private boolean untracked;
+
+    protected ItemList() {
+        items = new ArrayList<>();
+    }
+
+    /**
+     * A list with the items of source. Later changes to source do not reach
+     * this list, nor the other way round.
+     */
+    protected ItemList(Collection<? extends E> source) {
+        items = new ArrayList<>(source.size());
+        for (E item : source) {
+            add(item);
+        }
+    }
+
+    /**
+     * Points the item at this list. Returns false when it already did, as
+     * for an item added twice. An item held by another list is taken from
+     * it, after calling untrack on that list.
+     */
+    protected abstract boolean claim(E item);
+
+    /**
+     * Clears the item's reference if it points at this list.
+     */
+    protected abstract void release(E item);
+
+    /**
+     * Called through the item's reference before its price or quantity changes.
+     */
+    protected final void beforeChange(E item) {
+        if (!untracked) {
+            subtractAmount(item);
+        }
+    }
+
+    /**
+     * Called through the item's reference after its price or quantity changed.
+     */
+    protected final void afterChange(E item) {
+        if (!untracked) {
+            addAmount(item);
+            resumIfOverflowed();
+        }
+    }
+
+    /**
+     * Stops following the amounts, for a list that lost an item to another one.
+     */
+    protected final void untrack() {
+        untracked = true;
+    }
+
+    @Override
+    public E get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public void add(int index, E item) {
+        items.add(index, item);
+        modCount++;
+        enter(item);
+        resumIfOverflowed();
+    }
+
+    @Override
+    public E set(int index, E item) {
+        E previous = items.set(index, item);
+        leave(previous);
+        enter(item);
+        resumIfOverflowed();
+        return previous;
+    }
+
+    @Override
+    public E remove(int index) {
+        E previous = items.remove(index);
+        modCount++;
+        leave(previous);
+        resumIfOverflowed();
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        for (E item : items) {
+            if (item != null) {
+                release(item);
+            }
+        }
+        items.clear();
+        modCount++;
+        cents = 0;
+        Arrays.fill(itemsByScale, 0);
+        inexact = 0;
+        overflowed = false;
+        untracked = false;
+    }
+
+    /**
+     * True when subtotalCents and subtotalScale give the exact subtotal.
+     */
+    public boolean hasExactSubtotal() {
+        return !untracked && inexact == 0 && !overflowed;
+    }
+
+    public long subtotalCents() {
+        return cents;
+    }
+
+    public int subtotalScale() {
+        for (int scale = itemsByScale.length - 1; scale > 0; scale--) {
+            if (itemsByScale[scale] > 0) {
+                return scale;
+            }
+        }
+        return 0;
+    }
+
+    private void enter(E item) {
+        if (item == null) {
+            inexact++;
+            return;
+        }
+        if (!claim(item)) {
+            untracked = true;
+        }
+        if (!untracked) {
+            addAmount(item);
+        }
+    }
+
+    private void leave(E item) {
+        if (item == null) {
+            inexact--;
+            return;
+        }
+        release(item);
+        if (!untracked) {
+            subtractAmount(item);
+        }
+    }
+
+    private void addAmount(E item) {
+        Money price = item.getUnitPriceMoney();
+        if (price == null) {
+            inexact++;
+            return;
+        }
+        itemsByScale[item.unitPriceScale()]++;
+        if (!overflowed) {
+            try {
+                cents = Math.addExact(cents, Math.multiplyExact(price.cents(), item.getQuantity()));
+            } catch (ArithmeticException e) {
+                overflowed = true;
+            }
+        }
+    }
+
+    private void subtractAmount(E item) {
+        Money price = item.getUnitPriceMoney();
+        if (price == null) {
+            inexact--;
+            return;
+        }
+        itemsByScale[item.unitPriceScale()]--;
+        if (!overflowed) {
+            try {
+                cents = Math.subtractExact(cents, Math.multiplyExact(price.cents(), item.getQuantity()));
+            } catch (ArithmeticException e) {
+                overflowed = true;
+            }
+        }
+    }
+
+    // An overflowed sum is lost; it is rebuilt from the items until it fits again
+    private void resumIfOverflowed() {
+        if (!overflowed || untracked) {
+            return;
+        }
+        cents = 0;
+        Arrays.fill(itemsByScale, 0);
+        inexact = 0;
+        overflowed = false;
+        for (E item : items) {
+            if (item == null) {
+                inexact++;
+            } else {
+                addAmount(item);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ordermanagement.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of cents. Sums and products of
+ * prices are long arithmetic instead of a BigDecimal per step; the
+ * arithmetic throws ArithmeticException on overflow rather than wrapping.
+ * Amounts are converted to BigDecimal only where one is handed out, such as
+ * DTO getters that Jackson serializes.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final long[] SCALE_DIVISORS = {100, 10, 1};
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * The amount rounded half up to cents.
+     */
+    public static Money of(BigDecimal amount) {
+        Money exact = exact(amount);
+        return exact != null ? exact : ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * The amount if it has at most two decimals (a scale of 0, 1 or 2) and
+     * fits in a long count of cents, else null. toBigDecimal(amount.scale())
+     * gives back an equal BigDecimal.
+     */
+    public static Money exact(BigDecimal amount) {
+        int scale = amount.scale();
+        // Up to 16 integer digits leave room for the cents in a long
+        if (scale < 0 || scale > 2 || amount.precision() - scale > 16) {
+            return null;
+        }
+        return ofCents(amount.movePointRight(2).longValue());
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    public Money plus(Money other) {
+        return other.cents == 0 ? this : ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return other.cents == 0 ? this : ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long quantity) {
+        return quantity == 1 ? this : ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    /**
+     * The amount with two decimals.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * The amount at a scale of 0, 1 or 2, such as the scale of the BigDecimal
+     * it came from. Throws ArithmeticException if that would drop digits.
+     */
+    public BigDecimal toBigDecimal(int scale) {
+        if (scale < 0 || scale > 2) {
+            throw new IllegalArgumentException("scale must be 0, 1 or 2");
+        }
+        long divisor = SCALE_DIVISORS[scale];
+        if (cents % divisor != 0) {
+            throw new ArithmeticException("Rounding necessary");
+        }
+        return BigDecimal.valueOf(cents / divisor, scale);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money && ((Money) o).cents == cents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -4,16 +4,21 @@ import com.ordermanagement.enums.OrderStatus;
 import com.ordermanagement.enums.PaymentMethod;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.ArrayList;
 
 public class Order {
     private Long id;
     private Customer customer;
-    private List<OrderItem> items;
+    // Keeps the subtotal in cents as items come and go
+    private Items items;
     private OrderStatus status;
     private Address deliveryAddress;
+    // Each amount as set, and in cents for the totals; the cents are null
+    // when Money cannot hold the amount exactly
+    private Money deliveryFeeMoney;
     private BigDecimal deliveryFee;
+    private Money discountAmountMoney;
     private BigDecimal discountAmount;
     private String couponCode;
     private String observations;
@@ -25,12 +30,12 @@ public class Order {
     private String cancellationReason;
     
     public Order() {
-        this.items = new ArrayList<>();
+        this.items = new Items();
         this.status = OrderStatus.WAITING;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
-        this.deliveryFee = BigDecimal.ZERO;
-        this.discountAmount = BigDecimal.ZERO;
+        setDeliveryFee(BigDecimal.ZERO);
+        setDiscountAmount(BigDecimal.ZERO);
     }
     
     public Order(Customer customer, Address deliveryAddress) {
@@ -46,7 +51,16 @@ public class Order {
     public void setCustomer(Customer customer) { this.customer = customer; }
     
     public List<OrderItem> getItems() { return items; }
-    public void setItems(List<OrderItem> items) { this.items = items; }
+    // Any other list than an order's own is copied, which keeps the subtotal, so
+    // later changes to the list passed in do not reach the order; change getItems()
+    // instead. Items left only in the replaced list stop pointing at it
+    public void setItems(List<OrderItem> items) {
+        Items previous = this.items;
+        this.items = items == null || items instanceof Items ? (Items) items : new Items(items);
+        if (previous != null && previous != this.items) {
+            previous.detach();
+        }
+    }
     
     public void addItem(OrderItem item) {
         this.items.add(item);
@@ -62,10 +76,18 @@ public class Order {
     public void setDeliveryAddress(Address deliveryAddress) { this.deliveryAddress = deliveryAddress; }
     
     public BigDecimal getDeliveryFee() { return deliveryFee; }
-    public void setDeliveryFee(BigDecimal deliveryFee) { this.deliveryFee = deliveryFee; }
+
+    public void setDeliveryFee(BigDecimal deliveryFee) {
+        this.deliveryFeeMoney = deliveryFee != null ? Money.exact(deliveryFee) : null;
+        this.deliveryFee = deliveryFee;
+    }
     
     public BigDecimal getDiscountAmount() { return discountAmount; }
-    public void setDiscountAmount(BigDecimal discountAmount) { this.discountAmount = discountAmount; }
+
+    public void setDiscountAmount(BigDecimal discountAmount) {
+        this.discountAmountMoney = discountAmount != null ? Money.exact(discountAmount) : null;
+        this.discountAmount = discountAmount;
+    }
     
     public String getCouponCode() { return couponCode; }
     public void setCouponCode(String couponCode) { this.couponCode = couponCode; }
@@ -92,15 +114,87 @@ public class Order {
     public void setCancellationReason(String cancellationReason) { this.cancellationReason = cancellationReason; }
     
     public BigDecimal getSubtotal() {
+        BigDecimal sum = sumInCents(false);
+        if (sum != null) return sum;
         return items.stream()
                    .map(OrderItem::getSubtotal)
                    .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
     
     public BigDecimal getTotal() {
+        BigDecimal sum = sumInCents(true);
+        if (sum != null) return sum;
         return getSubtotal()
-               .add(deliveryFee)
-               .subtract(discountAmount);
+               .add(getDeliveryFee())
+               .subtract(getDiscountAmount());
+    }
+
+    /*
+     * The subtotal the item list keeps in cents, or the total with the fee and
+     * discount, at the largest scale of its terms, so it equals the BigDecimal
+     * formula in O(1) however many items the order has.
+     * Null when some amount is missing or has more than two decimals, or the
+     * cents overflow; the BigDecimal formula then decides.
+     */
+    private BigDecimal sumInCents(boolean withFees) {
+        if (!items.hasExactSubtotal()) {
+            return null;
+        }
+        long cents = items.subtotalCents();
+        int scale = items.subtotalScale();
+        try {
+            if (withFees) {
+                if (deliveryFeeMoney == null || discountAmountMoney == null) {
+                    return null;
+                }
+                cents = Math.subtractExact(Math.addExact(cents, deliveryFeeMoney.cents()), discountAmountMoney.cents());
+                scale = Math.max(scale, Math.max(deliveryFee.scale(), discountAmount.scale()));
+            }
+        } catch (ArithmeticException overflow) {
+            return null;
+        }
+        return Money.ofCents(cents).toBigDecimal(scale);
+    }
+    
+    // The item list of an order; each item points back at the list holding it
+    static final class Items extends ItemList<OrderItem> {
+        Items() {}
+
+        Items(Collection<? extends OrderItem> items) {
+            super(items);
+        }
+
+        @Override
+        protected boolean claim(OrderItem item) {
+            if (item.owner == this) {
+                return false;
+            }
+            if (item.owner != null) {
+                item.owner.untrack();
+            }
+            item.owner = this;
+            return true;
+        }
+
+        @Override
+        protected void release(OrderItem item) {
+            if (item.owner == this) {
+                item.owner = null;
+            }
+        }
+
+        // For a list its order dropped: its items no longer report to it
+        void detach() {
+            for (OrderItem item : this) {
+                if (item != null) {
+                    release(item);
+                }
+            }
+            untrack();
+        }
+
+        void changing(OrderItem item) { beforeChange(item); }
+        void changed(OrderItem item) { afterChange(item); }
     }
     
     public boolean canBeCancelled() {
@@ -2,19 +2,24 @@ package com.ordermanagement.model;
 
 import java.math.BigDecimal;
 
-public class OrderItem {
+public class OrderItem implements ItemList.Item {
     private Long id;
     private Product product;
     private int quantity;
+    // The price as set, and in cents for the sums; the cents are null when
+    // there is no price or Money cannot hold it exactly
     private BigDecimal unitPrice;
+    private Money unitPriceMoney;
     private String observations;
+    // The order's item list holding this item, which follows its price and quantity
+    Order.Items owner;
     
     public OrderItem() {}
     
     public OrderItem(Product product, int quantity, String observations) {
         this.product = product;
         this.quantity = quantity;
-        this.unitPrice = product.getPrice();
+        setUnitPrice(product.getPrice());
         this.observations = observations;
     }
     
@@ -25,15 +30,41 @@ public class OrderItem {
     public void setProduct(Product product) { this.product = product; }
     
     public int getQuantity() { return quantity; }
-    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public void setQuantity(int quantity) {
+        if (owner != null) owner.changing(this);
+        this.quantity = quantity;
+        if (owner != null) owner.changed(this);
+    }
     
     public BigDecimal getUnitPrice() { return unitPrice; }
-    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        if (owner != null) owner.changing(this);
+        this.unitPriceMoney = unitPrice != null ? Money.exact(unitPrice) : null;
+        this.unitPrice = unitPrice;
+        if (owner != null) owner.changed(this);
+    }
+
+    @Override
+    public Money getUnitPriceMoney() { return unitPriceMoney; }
+
+    @Override
+    public int unitPriceScale() {
+        return unitPrice != null ? unitPrice.scale() : 0;
+    }
+
     
     public String getObservations() { return observations; }
     public void setObservations(String observations) { this.observations = observations; }
     
     public BigDecimal getSubtotal() {
-        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        if (unitPriceMoney != null) {
+            try {
+                return unitPriceMoney.times(quantity).toBigDecimal(unitPriceScale());
+            } catch (ArithmeticException overflow) {
+                // Past a long count of cents; BigDecimal has no limit
+            }
+        }
+        return getUnitPrice().multiply(BigDecimal.valueOf(quantity));
     }
 }
\ No newline at end of file
@@ -0,0 +1,288 @@
+package com.ordermanagement.repository;
+
+import com.ordermanagement.model.Product;
+import com.ordermanagement.model.Seller;
+import com.ordermanagement.enums.ProductCategory;
+import com.ordermanagement.storage.FuzzyIndex;
+import com.ordermanagement.storage.LongArrayMultimap;
+import com.ordermanagement.storage.TrigramIndex;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory ProductRepository that keeps one bitmap per category and one
+ * for availability. Each product owns a dense slot number, and filters
+ * like "available SNACKS" are a single AND over the bitmaps instead of a
+ * scan. Slots of deleted products are reused, so the bitmaps stay as
+ * small as the catalog. Results come back in slot order.
+ *
+ * Names and descriptions are also kept in a trigram index, so name
+ * searches look at the products sharing the query's trigrams instead of
+ * every product. Name words also go into a BK-tree for typo-tolerant
+ * lookups, and product ids are grouped by seller id.
+ */
+public class InMemoryProductRepository implements ProductRepository {
+
+    private static final long NO_SELLER = Long.MIN_VALUE;
+
+    private final List<Product> slots = new ArrayList<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final BitSet occupied = new BitSet();
+    private final BitSet available = new BitSet();
+    private final EnumMap<ProductCategory, BitSet> byCategory = new EnumMap<>(ProductCategory.class);
+    private final TrigramIndex text = new TrigramIndex();
+    private final FuzzyIndex names = new FuzzyIndex();
+    private final LongArrayMultimap productsBySeller = new LongArrayMultimap();
+    // Seller id each slot is filed under in productsBySeller, NO_SELLER if none
+    private long[] sellerBySlot = new long[16];
+    private long lastId;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public InMemoryProductRepository() {
+        for (ProductCategory category : ProductCategory.values()) {
+            byCategory.put(category, new BitSet());
+        }
+    }
+
+    @Override
+    public Product save(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (product.getId() == null) {
+                product.setId(++lastId);
+            } else {
+                lastId = Math.max(lastId, product.getId());
+            }
+            Integer slot = slotById.get(product.getId());
+            if (slot == null) {
+                slot = occupied.nextClearBit(0);
+                slotById.put(product.getId(), slot);
+                if (slot == slots.size()) {
+                    slots.add(product);
+                } else {
+                    slots.set(slot, product);
+                }
+                occupied.set(slot);
+            } else {
+                slots.set(slot, product);
+                clearBits(slot);
+                unfileSeller(slot, product.getId());
+            }
+            // Bits follow the product's state at save time
+            if (product.getCategory() != null) {
+                byCategory.get(product.getCategory()).set(slot);
+            }
+            available.set(slot, product.isAvailable());
+            text.put(product.getId(), product.getName(), product.getDescription());
+            names.put(product.getId(), product.getName());
+            fileSeller(slot, product);
+            return product;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void fileSeller(int slot, Product product) {
+        if (slot >= sellerBySlot.length) {
+            sellerBySlot = Arrays.copyOf(sellerBySlot, Math.max(slot + 1, sellerBySlot.length * 2));
+        }
+        Seller seller = product.getSeller();
+        if (seller != null && seller.getId() != null) {
+            productsBySeller.put(seller.getId(), product.getId());
+            sellerBySlot[slot] = seller.getId();
+        } else {
+            sellerBySlot[slot] = NO_SELLER;
+        }
+    }
+
+    private void unfileSeller(int slot, long productId) {
+        if (sellerBySlot[slot] != NO_SELLER) {
+            productsBySeller.remove(sellerBySlot[slot], productId);
+            sellerBySlot[slot] = NO_SELLER;
+        }
+    }
+
+    private void clearBits(int slot) {
+        for (BitSet bits : byCategory.values()) {
+            bits.clear(slot);
+        }
+        available.clear(slot);
+    }
+
+    @Override
+    public Optional<Product> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            return slot != null ? Optional.of(slots.get(slot)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findAll() {
+        lock.readLock().lock();
+        try {
+            return collect(occupied);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByCategory(ProductCategory category) {
+        if (category == null) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return collect(byCategory.get(category));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByAvailable(boolean isAvailable) {
+        lock.readLock().lock();
+        try {
+            return collect(availability(isAvailable));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByCategoryAndAvailable(ProductCategory category, boolean isAvailable) {
+        if (category == null) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) byCategory.get(category).clone();
+            if (isAvailable) {
+                matches.and(available);
+            } else {
+                matches.andNot(available);
+            }
+            return collect(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet availability(boolean isAvailable) {
+        if (isAvailable) {
+            return available;
+        }
+        BitSet unavailable = (BitSet) occupied.clone();
+        unavailable.andNot(available);
+        return unavailable;
+    }
+
+    @Override
+    public List<Product> findBySeller(Seller seller) {
+        List<Product> result = new ArrayList<>();
+        if (seller == null) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            if (seller.getId() != null) {
+                BitSet matches = new BitSet();
+                for (long productId : productsBySeller.get(seller.getId())) {
+                    matches.set(slotById.get(productId));
+                }
+                return collect(matches);
+            }
+            // Sellers without an id can only be matched by instance
+            for (Product product : collect(occupied)) {
+                if (product.getSeller() == seller) {
+                    result.add(product);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByNameContaining(String name) {
+        List<Product> result = new ArrayList<>();
+        if (name == null) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            if (name.trim().isEmpty()) {
+                for (Product product : collect(occupied)) {
+                    if (product.getName() != null) {
+                        result.add(product);
+                    }
+                }
+                return result;
+            }
+            // The index matches names and descriptions; keep the name hits
+            String needle = TrigramIndex.normalize(name.trim());
+            BitSet matches = new BitSet();
+            for (long id : text.search(name, Integer.MAX_VALUE)) {
+                int slot = slotById.get(id);
+                String productName = slots.get(slot).getName();
+                if (productName != null && TrigramIndex.normalize(productName).contains(needle)) {
+                    matches.set(slot);
+                }
+            }
+            return collect(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products whose name words are each within maxEditDistance edits of a
+     * query word, closest first.
+     */
+    @Override
+    public List<Product> findByNameSimilarTo(String name, int maxEditDistance) {
+        List<Product> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long id : names.search(name, maxEditDistance)) {
+                result.add(slots.get(slotById.get(id)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                clearBits(slot);
+                unfileSeller(slot, id);
+                text.remove(id);
+                names.remove(id);
+                occupied.clear(slot);
+                slots.set(slot, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Product> collect(BitSet bits) {
+        List<Product> result = new ArrayList<>(bits.cardinality());
+        for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+            result.add(slots.get(slot));
+        }
+        return result;
+    }
+}
@@ -13,6 +13,8 @@ public interface ProductRepository {
     List<Product> findByCategory(ProductCategory category);
     List<Product> findBySeller(Seller seller);
     List<Product> findByAvailable(boolean available);
+    List<Product> findByCategoryAndAvailable(ProductCategory category, boolean available);
     List<Product> findByNameContaining(String name);
+    List<Product> findByNameSimilarTo(String name, int maxEditDistance);
     void deleteById(Long id);
 }
\ No newline at end of file
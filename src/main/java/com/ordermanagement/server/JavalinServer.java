@@ -1,32 +1,49 @@
 package com.ordermanagement.server;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.ordermanagement.dto.*;
+import com.ordermanagement.enums.ProductCategory;
 import com.ordermanagement.storage.CsvDataManager;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 import io.javalin.json.JavalinJackson;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 public class JavalinServer {
     
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int SEARCH_LIMIT = 50;
+    private static final int MAX_SUGGESTIONS = 10;
+    
     private final CsvDataManager dataManager;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    // Streamed responses flush when the buffer fills, not after every order
+    private final ObjectWriter streamWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     
     private Javalin app;
     
     public JavalinServer() {
-        this.dataManager = new CsvDataManager();
+        this(new CsvDataManager());
+    }
+    
+    public JavalinServer(CsvDataManager dataManager) {
+        this.dataManager = dataManager;
     }
     
     public void start(int port) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        
         app = Javalin.create(config -> {
             config.jsonMapper(new JavalinJackson(objectMapper));
         }).start(port);
@@ -45,6 +62,7 @@ public class JavalinServer {
         if (app != null) {
             app.stop();
         }
+        dataManager.close();
     }
     
     
@@ -56,18 +74,24 @@ public class JavalinServer {
         
         // Product endpoints
         app.get("/api/products", this::getAllProducts);
+        app.get("/api/products/category/{category}", this::getProductsByCategory);
+        app.get("/api/products/search", this::searchProducts);
+        app.get("/api/products/suggest", this::suggestProducts);
         app.get("/api/products/{id}", this::getProductById);
         
         // Order endpoints
+        app.get("/api/orders", this::getOrdersCreatedBetween);
         app.post("/api/orders", this::createOrder);
         app.post("/api/orders/{id}/items", this::addItemToOrder);
         app.post("/api/orders/{id}/finalize", this::finalizeOrder);
         app.post("/api/orders/{id}/cancel", this::cancelOrder);
         app.get("/api/orders/customer/{customerId}", this::getOrdersByCustomer);
         app.get("/api/orders/{id}", this::getOrderById);
+        app.get("/api/orders/{id}/items", this::getOrderItems);
         
         // Health check
         app.get("/health", ctx -> ctx.json(Map.of("status", "OK")));
+        app.get("/metrics/email-filter", ctx -> ctx.json(dataManager.getEmailFilterMetrics()));
     }
     
     private void registerCustomer(Context ctx) {
@@ -117,7 +141,125 @@ public class JavalinServer {
     }
     
     private void getAllProducts(Context ctx) {
-        ctx.json(dataManager.loadProducts());
+        if (!isPaged(ctx)) {
+            ctx.json(dataManager.loadProducts());
+            return;
+        }
+        try {
+            Long cursor = cursorParam(ctx);
+            int pageSize = pageSizeParam(ctx);
+            ctx.json(dataManager.pageProducts(cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Listings stay plain arrays unless the client asks for a page
+    private boolean isPaged(Context ctx) {
+        return ctx.queryParam("pageSize") != null || ctx.queryParam("cursor") != null;
+    }
+    
+    private Long cursorParam(Context ctx) {
+        String cursor = ctx.queryParam("cursor");
+        if (cursor == null || cursor.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cursor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    private int pageSizeParam(Context ctx) {
+        String pageSize = ctx.queryParam("pageSize");
+        if (pageSize == null || pageSize.trim().isEmpty()) {
+            return MAX_PAGE_SIZE;
+        }
+        int size;
+        try {
+            size = Integer.parseInt(pageSize.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid pageSize");
+        }
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+    
+    private int limitParam(Context ctx) {
+        String limit = ctx.queryParam("limit");
+        if (limit == null || limit.trim().isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        int value;
+        try {
+            value = Integer.parseInt(limit.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a positive integer");
+        }
+        if (value <= 0) {
+            throw new IllegalArgumentException("limit must be greater than zero");
+        }
+        return value;
+    }
+    
+    private void getProductsByCategory(Context ctx) {
+        ProductCategory category;
+        try {
+            category = ProductCategory.valueOf(ctx.pathParam("category").trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of("error", "Invalid category"));
+            return;
+        }
+        // ?available=true narrows to products that can be ordered right now
+        boolean availableOnly = Boolean.parseBoolean(ctx.queryParam("available"));
+        ctx.json(dataManager.findProductsByCategory(category, availableOnly));
+    }
+    
+    private void searchProducts(Context ctx) {
+        String query = ctx.queryParam("q");
+        if (query == null || query.trim().isEmpty()) {
+            ctx.status(400).json(Map.of("error", "q is required"));
+            return;
+        }
+        int limit = SEARCH_LIMIT;
+        String limitParam = ctx.queryParam("limit");
+        if (limitParam != null && !limitParam.trim().isEmpty()) {
+            try {
+                limit = Integer.parseInt(limitParam.trim());
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+            if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+                ctx.status(400).json(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+                return;
+            }
+        }
+        ctx.json(dataManager.searchProducts(query, limit));
+    }
+    
+    private void suggestProducts(Context ctx) {
+        String prefix = ctx.queryParam("prefix");
+        if (prefix == null || prefix.trim().isEmpty()) {
+            ctx.status(400).json(Map.of("error", "prefix is required"));
+            return;
+        }
+        int limit = MAX_SUGGESTIONS;
+        String limitParam = ctx.queryParam("limit");
+        if (limitParam != null && !limitParam.trim().isEmpty()) {
+            try {
+                limit = Integer.parseInt(limitParam.trim());
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+            if (limit <= 0 || limit > MAX_SUGGESTIONS) {
+                ctx.status(400).json(Map.of("error", "limit must be between 1 and " + MAX_SUGGESTIONS));
+                return;
+            }
+        }
+        ctx.json(dataManager.suggestProducts(prefix, limit));
     }
     
     private void getProductById(Context ctx) {
@@ -147,10 +289,7 @@ public class JavalinServer {
             Long customerId = Long.parseLong(body.get("customerId").toString().trim());
             Map<String, Object> addressMap = (Map<String, Object>) body.get("deliveryAddress");
             
-            List<CustomerDto> customers = dataManager.loadCustomers();
-            CustomerDto customer = customers.stream()
-                .filter(c -> c.getId().equals(customerId))
-                .findFirst().orElse(null);
+            CustomerDto customer = dataManager.findCustomerById(customerId);
             
             if (customer == null) {
                 ctx.status(404).json(Map.of("error", "Customer not found"));
@@ -221,6 +360,10 @@ public class JavalinServer {
                 ctx.status(404).json(Map.of("error", "Order not found"));
                 return;
             }
+            if (isStale(body, order)) {
+                respondConflict(ctx);
+                return;
+            }
             
             ProductDto product = dataManager.findProductById(productId);
             if (product == null) {
@@ -235,9 +378,14 @@ public class JavalinServer {
             item.setUnitPrice(product.getPrice());
             
             order.getItems().add(item);
-            dataManager.updateOrder(order);
+            if (!dataManager.updateOrderIfVersion(order, versionOf(order))) {
+                respondConflict(ctx);
+                return;
+            }
             
             ctx.json(order);
+        } catch (UncheckedIOException e) {
+            respondWriteFailure(ctx, e);
         } catch (Exception e) {
             System.err.println("Detailed error adding item: " + e.getClass().getName() + ": " + e.getMessage());
             e.printStackTrace();
@@ -265,14 +413,23 @@ public class JavalinServer {
                 ctx.status(404).json(Map.of("error", "Order not found"));
                 return;
             }
+            if (isStale(body, order)) {
+                respondConflict(ctx);
+                return;
+            }
             
             order.setPaymentMethod(paymentMethod);
             order.setDeliveryFee(deliveryFee);
             order.setStatus("CONFIRMED");
             
-            dataManager.updateOrder(order);
+            if (!dataManager.updateOrderIfVersion(order, versionOf(order))) {
+                respondConflict(ctx);
+                return;
+            }
             
             ctx.json(order);
+        } catch (UncheckedIOException e) {
+            respondWriteFailure(ctx, e);
         } catch (Exception e) {
             ctx.status(400).json(Map.of("error", "Error finalizing order: " + e.getMessage()));
         }
@@ -289,6 +446,10 @@ public class JavalinServer {
                 ctx.status(404).json(Map.of("error", "Order not found"));
                 return;
             }
+            if (isStale(body, order)) {
+                respondConflict(ctx);
+                return;
+            }
             
             if ("DELIVERED".equals(order.getStatus()) || "CANCELLED".equals(order.getStatus())) {
                 ctx.status(400).json(Map.of("error", "Order cannot be cancelled"));
@@ -298,23 +459,144 @@ public class JavalinServer {
             order.setStatus("CANCELLED");
             order.setCancellationReason(reason);
             
-            dataManager.updateOrder(order);
+            // Fails if the status changed after it was checked above
+            if (!dataManager.updateOrderIfVersion(order, versionOf(order))) {
+                respondConflict(ctx);
+                return;
+            }
             
             ctx.json(order);
+        } catch (UncheckedIOException e) {
+            respondWriteFailure(ctx, e);
         } catch (Exception e) {
             ctx.status(400).json(Map.of("error", "Error cancelling order: " + e.getMessage()));
         }
     }
     
+    // Clients may send the version they last read; a different one means they are out of date
+    private boolean isStale(Map<String, Object> body, OrderDto order) {
+        Object expected = body.get("version");
+        if (expected == null || expected.toString().trim().isEmpty()) {
+            return false;
+        }
+        return Long.parseLong(expected.toString().trim()) != versionOf(order);
+    }
+    
+    private long versionOf(OrderDto order) {
+        return order.getVersion() != null ? order.getVersion() : 0L;
+    }
+    
+    private void respondConflict(Context ctx) {
+        ctx.status(409).json(Map.of("error", "Order was modified by another request, reload it and retry"));
+    }
+    
+    // The update was not stored, so the order is unchanged and the client may retry
+    private void respondWriteFailure(Context ctx, UncheckedIOException e) {
+        System.err.println(e.getMessage());
+        ctx.status(500).json(Map.of("error", "Order could not be saved, retry later"));
+    }
+    
     private void getOrdersByCustomer(Context ctx) {
         try {
             Long customerId = Long.parseLong(ctx.pathParam("customerId"));
+            boolean summary = summaryParam(ctx);
+            
+            if (isPaged(ctx)) {
+                if (ctx.queryParam("limit") != null) {
+                    ctx.status(400).json(Map.of("error", "Use either limit or pageSize"));
+                    return;
+                }
+                Long cursor = cursorParam(ctx);
+                int pageSize = pageSizeParam(ctx);
+                ctx.json(summary
+                    ? dataManager.pageOrderSummariesByCustomerId(customerId, cursor, pageSize)
+                    : dataManager.pageOrdersByCustomerId(customerId, cursor, pageSize));
+                return;
+            }
+            
+            // Optional ?limit=N returns only the N most recent orders
+            int limit = limitParam(ctx);
             
-            List<OrderDto> customerOrders = dataManager.findOrdersByCustomerId(customerId);
+            if (summary) {
+                ctx.json(dataManager.findOrderSummariesByCustomerId(customerId, limit));
+                return;
+            }
+            List<OrderDto> customerOrders = dataManager.findOrdersByCustomerId(customerId, limit);
                 
             ctx.json(customerOrders);
         } catch (NumberFormatException e) {
             ctx.status(400).json(Map.of("error", "Invalid ID"));
+        } catch (IllegalArgumentException e) {
+            // Bad cursor, page size, limit or fields
+            ctx.status(400).json(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // ?from=&to= (ISO date or date-time, to exclusive) and optional ?status=
+    private void getOrdersCreatedBetween(Context ctx) {
+        LocalDateTime from;
+        LocalDateTime to;
+        boolean summary;
+        try {
+            from = timeParam(ctx, "from");
+            to = timeParam(ctx, "to");
+            summary = summaryParam(ctx);
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of("error", e.getMessage()));
+            return;
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            ctx.status(400).json(Map.of("error", "from must be before to"));
+            return;
+        }
+        String status = ctx.queryParam("status");
+        status = status == null || status.trim().isEmpty() ? null : status.trim();
+        
+        // Written while the index is walked, so the history is never held in memory
+        ctx.contentType("application/json");
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(ctx.outputStream())) {
+            json.writeStartArray();
+            Consumer<Object> write = order -> {
+                try {
+                    streamWriter.writeValue(json, order);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            if (summary) {
+                dataManager.forEachOrderSummaryCreatedBetween(from, to, status, write::accept);
+            } else {
+                dataManager.forEachOrderCreatedBetween(from, to, status, write::accept);
+            }
+            json.writeEndArray();
+        } catch (IOException | UncheckedIOException e) {
+            // The client went away mid-response; there is no one left to tell
+            System.err.println("Order stream aborted: " + e.getMessage());
+        }
+    }
+    
+    // ?fields=summary lists order headers only, without items
+    private boolean summaryParam(Context ctx) {
+        String fields = ctx.queryParam("fields");
+        if (fields == null || fields.trim().isEmpty()) {
+            return false;
+        }
+        if (!"summary".equalsIgnoreCase(fields.trim())) {
+            throw new IllegalArgumentException("fields must be summary");
+        }
+        return true;
+    }
+    
+    private LocalDateTime timeParam(Context ctx, String name) {
+        String value = ctx.queryParam(name);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String trimmed = value.trim();
+            return trimmed.length() == 10 ? LocalDate.parse(trimmed).atStartOfDay() : LocalDateTime.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + ", expected e.g. 2024-01-31 or 2024-01-31T18:00:00");
         }
     }
     
@@ -332,6 +614,20 @@ public class JavalinServer {
         }
     }
 
+    private void getOrderItems(Context ctx) {
+        try {
+            Long orderId = Long.parseLong(ctx.pathParam("id"));
+            List<OrderItemDto> items = dataManager.findOrderItems(orderId);
+            if (items == null) {
+                ctx.status(404).json(Map.of("error", "Order not found"));
+                return;
+            }
+            ctx.json(items);
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(Map.of("error", "Invalid ID"));
+        }
+    }
+
     private void findCustomerByEmail(Context ctx) {
         try {
             String email = ctx.pathParam("email");
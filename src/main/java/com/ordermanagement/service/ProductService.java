@@ -9,10 +9,21 @@ import java.util.List;
 import java.util.Optional;
 
 public class ProductService {
+    private static final int DEFAULT_MAX_EDIT_DISTANCE = 2;
+    
     private ProductRepository productRepository;
+    private final int maxEditDistance;
     
     public ProductService(ProductRepository productRepository) {
+        this(productRepository, DEFAULT_MAX_EDIT_DISTANCE);
+    }
+    
+    public ProductService(ProductRepository productRepository, int maxEditDistance) {
+        if (maxEditDistance < 0) {
+            throw new IllegalArgumentException("maxEditDistance must not be negative");
+        }
         this.productRepository = productRepository;
+        this.maxEditDistance = maxEditDistance;
     }
     
     public List<Product> getAllProducts() {
@@ -23,6 +34,10 @@ public class ProductService {
         return productRepository.findByCategory(category);
     }
     
+    public List<Product> getAvailableProductsByCategory(ProductCategory category) {
+        return productRepository.findByCategoryAndAvailable(category, true);
+    }
+    
     public List<Product> getProductsBySeller(Seller seller) {
         return productRepository.findBySeller(seller);
     }
@@ -31,6 +46,11 @@ public class ProductService {
         return productRepository.findByNameContaining(name);
     }
     
+    // Tolerates typos like "margerita" or "x-burguer", up to maxEditDistance per word
+    public List<Product> fuzzySearchProducts(String name) {
+        return productRepository.findByNameSimilarTo(name, maxEditDistance);
+    }
+    
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
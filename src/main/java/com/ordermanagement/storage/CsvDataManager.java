@@ -1,99 +1,331 @@
 package com.ordermanagement.storage;
 
 import com.ordermanagement.dto.*;
+import com.ordermanagement.enums.ProductCategory;
 import java.io.*;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class CsvDataManager {
+
+    /**
+     * How orders are served. INDEXED keeps every order on the heap; MAPPED
+     * keeps orders.csv and order_items.csv memory-mapped and decodes an order
+     * when it is read, for files too large to hold in memory.
+     */
+    public enum ReadMode {
+        INDEXED,
+        MAPPED
+    }
+
+    /**
+     * How created_at is written. TEXT is yyyy-MM-dd HH:mm:ss; EPOCH_MILLIS
+     * writes milliseconds since 1970-01-01T00:00, which is shorter to store
+     * and cheaper to decode. Either is read back regardless of the setting,
+     * so a data directory can switch formats without being rewritten.
+     */
+    public enum TimestampFormat {
+        TEXT,
+        EPOCH_MILLIS
+    }
+    
+    private static final String DEFAULT_DATA_DIR = "data";
+
+    private static final long COMPACTION_INTERVAL_SECONDS = 30;
+
+    private static final long CHECKPOINT_INTERVAL_SECONDS = 60;
+
+    private final String dataDir;
+    private final String customersFile;
+    private final String productsFile;
+    private final String ordersFile;
+    private final String orderItemsFile;
+    private final String snapshotFile;
+
+    private final IdAllocator customerIds;
+    private final IdAllocator productIds;
+    private final IdAllocator orderIds;
+
+    // Reads are answered from here; every write goes to the CSV files first
+    private final IndexedStore store = new IndexedStore();
     
-    private static final String DATA_DIR = "data";
-    private static final String CUSTOMERS_FILE = DATA_DIR + "/customers.csv";
-    private static final String PRODUCTS_FILE = DATA_DIR + "/products.csv";
-    private static final String ORDERS_FILE = DATA_DIR + "/orders.csv";
-    private static final String ORDER_ITEMS_FILE = DATA_DIR + "/order_items.csv";
-    private static final String CUSTOMER_IDS_FILE = DATA_DIR + "/customer_ids.csv";
-    private static final String PRODUCT_IDS_FILE = DATA_DIR + "/product_ids.csv";
-    private static final String ORDER_IDS_FILE = DATA_DIR + "/order_ids.csv";
+    // All file writes go through this thread so concurrent saves share a write
+    private final GroupCommitWriter writer;
+
+    private final OrderLog orderLog;
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final ReadMode readMode;
+    private final TimestampFormat timestampFormat;
+    // Serves orders in MAPPED mode; orders are not kept in the store then
+    private MappedOrderReader mappedOrders;
 
-    private final AtomicLong customerIdGenerator;
-    private final AtomicLong productIdGenerator;
-    private final AtomicLong orderIdGenerator;
+    // Writes share the read side; a checkpoint takes the write side so the
+    // file lengths it records match the data it copies
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean changedSinceCheckpoint = new AtomicBoolean();
+    
+    // Runs the background compaction of the order log and the periodic checkpoints
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "csv-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     public CsvDataManager() {
+        this(DEFAULT_DATA_DIR);
+    }
+
+    public CsvDataManager(String dataDir) {
+        this(dataDir, GroupCommitWriter.Durability.NONE);
+    }
+
+    public CsvDataManager(String dataDir, GroupCommitWriter.Durability durability) {
+        this(dataDir, durability, ReadMode.INDEXED);
+    }
+
+    public CsvDataManager(String dataDir, GroupCommitWriter.Durability durability, ReadMode readMode) {
+        this(dataDir, durability, readMode, TimestampFormat.TEXT);
+    }
+
+    public CsvDataManager(String dataDir, GroupCommitWriter.Durability durability, ReadMode readMode,
+                          TimestampFormat timestampFormat) {
+        this.dataDir = dataDir;
+        this.readMode = readMode;
+        this.timestampFormat = timestampFormat;
+        this.customersFile = dataDir + "/customers.csv";
+        this.productsFile = dataDir + "/products.csv";
+        this.ordersFile = dataDir + "/orders.csv";
+        this.orderItemsFile = dataDir + "/order_items.csv";
+        this.snapshotFile = dataDir + "/snapshot.bin";
+        this.writer = new GroupCommitWriter(durability);
+        this.orderLog = new OrderLog(Paths.get(ordersFile), Paths.get(orderItemsFile), writer, timestampFormat);
         createDataDirectory();
-        this.customerIdGenerator = new AtomicLong(loadLastId(CUSTOMER_IDS_FILE));
-        this.productIdGenerator = new AtomicLong(loadLastId(PRODUCT_IDS_FILE));
-        this.orderIdGenerator = new AtomicLong(loadLastId(ORDER_IDS_FILE));
+        this.customerIds = new IdAllocator(Paths.get(dataDir, "customer_ids.csv"));
+        this.productIds = new IdAllocator(Paths.get(dataDir, "product_ids.csv"));
+        this.orderIds = new IdAllocator(Paths.get(dataDir, "order_ids.csv"));
         initializeDefaultData();
+        loadStore();
+        advanceIdsPastLoadedData();
+        maintenance.scheduleWithFixedDelay(this::compactOrderLogIfNeeded,
+            COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::checkpointIfChanged,
+            CHECKPOINT_INTERVAL_SECONDS, CHECKPOINT_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
     
+    // The ids files only hold reserved bounds; ids already in the data must
+    // never come back, even when one of those files was lost or damaged
+    private void advanceIdsPastLoadedData() {
+        long maxCustomerId = 0;
+        for (CustomerDto customer : store.customers()) {
+            maxCustomerId = Math.max(maxCustomerId, customer.getId());
+        }
+        long maxProductId = 0;
+        for (ProductDto product : store.products()) {
+            maxProductId = Math.max(maxProductId, product.getId());
+        }
+        customerIds.advancePast(maxCustomerId);
+        productIds.advancePast(maxProductId);
+        orderIds.advancePast(orderLog.maxOrderId());
+    }
+
     private void createDataDirectory() {
         try {
-            Path dataPath = Paths.get(DATA_DIR);
+            Path dataPath = Paths.get(dataDir);
             if (!Files.exists(dataPath)) {
                 Files.createDirectories(dataPath);
-                System.out.println("📁 Data directory created: " + DATA_DIR);
+                System.out.println("📁 Data directory created: " + dataDir);
             }
         } catch (IOException e) {
             System.err.println("Error creating data directory: " + e.getMessage());
         }
     }
     
-    private long loadLastId(String idsFile) {
-        try {
-            Path idsPath = Paths.get(idsFile);
-            if (Files.exists(idsPath)) {
-                List<String> lines = Files.readAllLines(idsPath);
-                if (!lines.isEmpty()) {
-                    return Long.parseLong(lines.get(0));
-                }
+    public long generateCustomerId() {
+        return customerIds.nextId();
+    }
+
+    public long generateProductId() {
+        return productIds.nextId();
+    }
+
+    public long generateOrderId() {
+        return orderIds.nextId();
+    }
+    
+    // Starts from the latest snapshot when it still matches the CSV files and
+    // replays only the rows appended after it; otherwise parses every file.
+    // Afterwards the store is kept current by the write methods.
+    private void loadStore() {
+        store.clear();
+        StoreSnapshot snapshot = readSnapshot();
+        long customersOffset = 0;
+        long ordersOffset = 0;
+        long orderItemsOffset = 0;
+        List<ProductDto> products = null;
+
+        if (snapshot != null) {
+            for (CustomerDto customer : snapshot.getCustomers()) {
+                store.putCustomer(customer);
             }
-        } catch (IOException | NumberFormatException e) {
-            System.out.println("⚠️ Creating initial IDs file: " + idsFile);
+            customersOffset = snapshot.getCustomersMark().getLength();
+            ordersOffset = snapshot.getOrdersMark().getLength();
+            orderItemsOffset = snapshot.getOrderItemsMark().getLength();
+            // products.csv is rewritten rather than appended, so it has to be unchanged
+            if (fileMatches(snapshot.getProductsMark(), productsFile)
+                    && fileLength(productsFile) == snapshot.getProductsMark().getLength()) {
+                products = snapshot.getProducts();
+            }
+        }
+        for (CustomerDto customer : readCustomers(customersOffset)) {
+            store.putCustomer(customer);
+        }
+
+        if (products == null) {
+            products = readProducts();
+        }
+        store.replaceProducts(products);
+        Map<Long, ProductDto> productsById = new HashMap<>();
+        for (ProductDto product : products) {
+            productsById.put(product.getId(), product);
         }
-        return 0L;
+
+        if (readMode == ReadMode.MAPPED) {
+            loadMappedOrders(productsById);
+        } else {
+            loadIndexedOrders(snapshot, productsById, ordersOffset, orderItemsOffset);
+        }
+        changedSinceCheckpoint.set(snapshot == null || !snapshotCoversFiles(snapshot));
     }
-    
-    private void saveLastId(String idsFile, AtomicLong generator) {
+
+    private void loadIndexedOrders(StoreSnapshot snapshot, Map<Long, ProductDto> productsById,
+                                   long ordersOffset, long orderItemsOffset) {
+        Map<Long, OrderDto> orders = new LinkedHashMap<>();
+        if (snapshot != null) {
+            for (OrderDto order : snapshot.getOrders()) {
+                resolveSnapshotItems(order, productsById);
+                order.setVersion(snapshot.getOrderVersion(order.getId()));
+                orders.put(order.getId(), order);
+                orderLog.recordLoaded(order.getId(), order.getVersion(), order.getItems().size());
+            }
+            orderLog.recordDeadRows(snapshot.getDeadOrderRows());
+        }
+        for (OrderDto order : readOrders(productsById, orders, ordersOffset, orderItemsOffset)) {
+            store.putLoadedOrder(order);
+        }
+    }
+
+    // Points items at the loaded products and drops those whose product is
+    // gone, as a CSV load does; the snapshot may predate a products.csv change
+    // or hold items of products removed before it was written
+    private static void resolveSnapshotItems(OrderDto order, Map<Long, ProductDto> productsById) {
+        Iterator<OrderItemDto> items = order.getItems().iterator();
+        while (items.hasNext()) {
+            OrderItemDto item = items.next();
+            ProductDto product = productsById.get(item.getProduct().getId());
+            if (product == null) {
+                items.remove();
+            } else {
+                item.setProduct(product);
+            }
+        }
+    }
+
+    // Orders stay in the mapped files; only their offsets are kept on the heap
+    private void loadMappedOrders(Map<Long, ProductDto> productsById) {
+        boolean legacyFormat = isLegacyOrderFile();
+        if (legacyFormat) {
+            // One-time migration to the versioned format goes through the regular loader
+            readOrders(productsById, new LinkedHashMap<>(), 0, 0);
+        }
+        mappedOrders = new MappedOrderReader(Paths.get(ordersFile), Paths.get(orderItemsFile), store::productSnapshot);
+        refreshMappedOrders();
+        if (!legacyFormat) {
+            mappedOrders.forEachOrder(orderLog::recordLoaded);
+            mappedOrders.forEachOrphanedItems((id, version, rows) -> orderLog.recordOrphanedItems(id, version));
+            orderLog.recordDeadRows(mappedOrders.getRowCount() - orderLog.getLiveRows());
+        }
+    }
+
+    private boolean isLegacyOrderFile() {
+        if (!Files.exists(Paths.get(ordersFile))) {
+            return false;
+        }
+        try (CsvReader csv = CsvReader.open(Paths.get(ordersFile))) {
+            return csv.next() && !csv.fieldEquals(csv.fieldCount() - 1, "version");
+        } catch (IOException e) {
+            System.err.println("Error loading orders: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void refreshMappedOrders() {
         try {
-            Files.write(Paths.get(idsFile),
-                       Collections.singletonList(String.valueOf(generator.get())));
+            mappedOrders.refresh();
         } catch (IOException e) {
-            System.err.println("Error saving last ID: " + e.getMessage());
+            System.err.println("Error mapping order files: " + e.getMessage());
         }
     }
-    
-    public long generateCustomerId() {
-        long id = customerIdGenerator.incrementAndGet();
-        saveLastId(CUSTOMER_IDS_FILE, customerIdGenerator);
-        return id;
+
+    // Returns the snapshot only if the append-only files still extend what it recorded
+    private StoreSnapshot readSnapshot() {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            StoreSnapshot snapshot = StoreSnapshot.read(path);
+            if (fileMatches(snapshot.getCustomersMark(), customersFile)
+                    && fileMatches(snapshot.getOrdersMark(), ordersFile)
+                    && fileMatches(snapshot.getOrderItemsMark(), orderItemsFile)) {
+                return snapshot;
+            }
+            System.out.println("⚠️ Snapshot is out of date, loading from CSV");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading snapshot: " + e.getMessage());
+        }
+        return null;
     }
 
-    public long generateProductId() {
-        long id = productIdGenerator.incrementAndGet();
-        saveLastId(PRODUCT_IDS_FILE, productIdGenerator);
-        return id;
+    private boolean fileMatches(StoreSnapshot.FileMark mark, String file) {
+        try {
+            return mark.matches(Paths.get(file));
+        } catch (IOException e) {
+            return false;
+        }
     }
 
-    public long generateOrderId() {
-        long id = orderIdGenerator.incrementAndGet();
-        saveLastId(ORDER_IDS_FILE, orderIdGenerator);
-        return id;
+    private boolean snapshotCoversFiles(StoreSnapshot snapshot) {
+        boolean coversCatalog = fileLength(customersFile) == snapshot.getCustomersMark().getLength()
+            && fileLength(productsFile) == snapshot.getProductsMark().getLength();
+        if (readMode == ReadMode.MAPPED) {
+            return coversCatalog;
+        }
+        return coversCatalog
+            && fileLength(ordersFile) == snapshot.getOrdersMark().getLength()
+            && fileLength(orderItemsFile) == snapshot.getOrderItemsMark().getLength();
+    }
+
+    private long fileLength(String file) {
+        try {
+            return Files.exists(Paths.get(file)) ? Files.size(Paths.get(file)) : 0;
+        } catch (IOException e) {
+            return -1;
+        }
     }
     
     private void initializeDefaultData() {
-        if (!Files.exists(Paths.get(PRODUCTS_FILE))) {
+        if (!Files.exists(Paths.get(productsFile))) {
             System.out.println("🌱 Initializing default data...");
             
             // Initial products
@@ -122,52 +354,53 @@ public class CsvDataManager {
     
     // Customer operations
     public void saveCustomer(CustomerDto customer) {
+        checkpointLock.readLock().lock();
         try {
-            boolean fileExists = Files.exists(Paths.get(CUSTOMERS_FILE));
-            try (FileWriter writer = new FileWriter(CUSTOMERS_FILE, true)) {
-                if (!fileExists) {
-                    writer.write("id,email,name,phone,created_at\n");
-                }
-                writer.write(String.format("%d,%s,%s,%s,%s\n",
-                    customer.getId(), customer.getEmail(), customer.getName(),
-                    customer.getPhone(), customer.getCreatedAt().format(DATE_FORMATTER)));
-            }
+            byte[] row = CsvRowEncoder.pooled()
+                .field(customer.getId()).quoted(customer.getEmail()).quoted(customer.getName())
+                .quoted(customer.getPhone()).timestamp(customer.getCreatedAt(), timestampFormat).endRow()
+                .toByteArray();
+            GroupCommitWriter.await(writer.append(Paths.get(customersFile), "id,email,name,phone,created_at", row));
+            store.putCustomer(customer);
+            changedSinceCheckpoint.set(true);
             System.out.println("💾 Customer saved: " + customer.getName());
         } catch (IOException e) {
             System.err.println("Error saving customer: " + e.getMessage());
+        } finally {
+            checkpointLock.readLock().unlock();
         }
     }
     
     public List<CustomerDto> loadCustomers() {
+        return store.customers();
+    }
+    
+    // Reads customer rows starting at a byte offset; offset 0 also skips the header
+    private List<CustomerDto> readCustomers(long offset) {
         List<CustomerDto> customers = new ArrayList<>();
-        try {
-            if (!Files.exists(Paths.get(CUSTOMERS_FILE))) {
-                return customers;
+        if (!Files.exists(Paths.get(customersFile))) {
+            return customers;
+        }
+        try (CsvReader csv = CsvReader.open(Paths.get(customersFile), offset)) {
+            if (offset == 0) {
+                csv.next(); // Skip header
             }
-            
-            List<String> lines = Files.readAllLines(Paths.get(CUSTOMERS_FILE));
-            for (int i = 1; i < lines.size(); i++) { // Skip header
-                String line = lines.get(i);
-                // Skip empty lines
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                String[] parts = line.split(",", -1);
-                if (parts.length >= 5) {
-                    CustomerDto customer = new CustomerDto();
-                    if (parts[0].trim().isEmpty()) {
+            while (csv.next()) {
+                if (csv.fieldCount() >= 5) {
+                    if (csv.isEmpty(0)) {
                         continue; // Skip line with empty ID
                     }
-                    customer.setId(Long.parseLong(parts[0].trim()));
-                    customer.setEmail(parts[1]);
-                    customer.setName(parts[2]);
-                    customer.setPhone(parts[3]);
+                    CustomerDto customer = new CustomerDto();
+                    customer.setId(csv.getLong(0));
+                    customer.setEmail(csv.getString(1));
+                    customer.setName(csv.getString(2));
+                    customer.setPhone(csv.getString(3));
                     
                     // Validation before date parsing
-                    if (parts[4].trim().isEmpty()) {
+                    if (csv.isEmpty(4)) {
                         customer.setCreatedAt(LocalDateTime.now()); // Use current date as fallback
                     } else {
-                        customer.setCreatedAt(LocalDateTime.parse(parts[4], DATE_FORMATTER));
+                        customer.setCreatedAt(csv.getTimestamp(4));
                     }
                     customers.add(customer);
                 }
@@ -179,59 +412,77 @@ public class CsvDataManager {
     }
     
     public CustomerDto findCustomerByEmail(String email) {
-        return loadCustomers().stream()
-            .filter(customer -> customer.getEmail().equals(email))
-            .findFirst()
-            .orElse(null);
+        return store.findCustomerByEmail(email);
+    }
+    
+    /**
+     * Metrics of the Bloom filter in front of email lookups.
+     */
+    public Map<String, Object> getEmailFilterMetrics() {
+        return store.emailFilterMetrics();
+    }
+    
+    public CustomerDto findCustomerById(Long id) {
+        return store.findCustomerById(id);
     }
     
     // Product operations
     public void saveProducts(List<ProductDto> products) {
+        checkpointLock.readLock().lock();
         try {
-            try (FileWriter writer = new FileWriter(PRODUCTS_FILE, false)) {
-                writer.write("id,name,description,price,category,seller_name\n");
-                for (ProductDto product : products) {
-                    writer.write(String.format(Locale.US, "%d,\"%s\",\"%s\",%.2f,%s,\"%s\"\n",
-                        product.getId(), 
-                        product.getName().replace("\"", "\"\""), 
-                        product.getDescription().replace("\"", "\"\""),
-                        product.getPrice(), 
-                        product.getCategory(), 
-                        product.getSellerName().replace("\"", "\"\"")));
-                }
+            CsvRowEncoder content = CsvRowEncoder.pooled().raw("id,name,description,price,category,seller_name\n");
+            for (ProductDto product : products) {
+                content.field(product.getId())
+                    .quoted(product.getName())
+                    .quoted(product.getDescription())
+                    .money(product.getPrice())
+                    .field(product.getCategory())
+                    .quoted(product.getSellerName())
+                    .endRow();
             }
+            GroupCommitWriter.await(writer.replace(Paths.get(productsFile), content.toByteArray()));
+            store.replaceProducts(products);
+            changedSinceCheckpoint.set(true);
             System.out.println("💾 " + products.size() + " products saved to CSV");
         } catch (IOException e) {
             System.err.println("Error saving products: " + e.getMessage());
+        } finally {
+            checkpointLock.readLock().unlock();
         }
     }
     
     public List<ProductDto> loadProducts() {
+        return store.products();
+    }
+    
+    /**
+     * One page of products by ascending id, starting after the product
+     * afterId (from the first one when null).
+     */
+    public PageDto<ProductDto> pageProducts(Long afterId, int pageSize) {
+        // One extra row tells whether another page follows
+        return toPage(store.productsAfter(afterId, pageSize + 1), pageSize, ProductDto::getId);
+    }
+    
+    private List<ProductDto> readProducts() {
         List<ProductDto> products = new ArrayList<>();
-        try {
-            if (!Files.exists(Paths.get(PRODUCTS_FILE))) {
-                return products;
-            }
-            
-            List<String> lines = Files.readAllLines(Paths.get(PRODUCTS_FILE));
-            for (int i = 1; i < lines.size(); i++) { // Skip header
-                String line = lines.get(i);
-                // Skip empty lines
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                String[] parts = parseCSVLine(line);
-                if (parts.length >= 6) {
-                    ProductDto product = new ProductDto(
-                        parts[1].replace("\"\"", "\""), // Remove quotes
-                        parts[2].replace("\"\"", "\""), 
-                        new BigDecimal(parts[3]), 
-                        parts[4]);
-                    if (parts[0].trim().isEmpty()) {
+        if (!Files.exists(Paths.get(productsFile))) {
+            return products;
+        }
+        try (CsvReader csv = CsvReader.open(Paths.get(productsFile))) {
+            csv.next(); // Skip header
+            while (csv.next()) {
+                if (csv.fieldCount() >= 6) {
+                    if (csv.isEmpty(0)) {
                         continue; // Skip line with empty ID
                     }
-                    product.setId(Long.parseLong(parts[0].trim()));
-                    product.setSellerName(parts[5].replace("\"\"", "\""));
+                    ProductDto product = new ProductDto(
+                        csv.getString(1),
+                        csv.getString(2),
+                        csv.getBigDecimal(3),
+                        csv.getString(4));
+                    product.setId(csv.getLong(0));
+                    product.setSellerName(csv.getString(5));
                     products.add(product);
                 }
             }
@@ -241,237 +492,367 @@ public class CsvDataManager {
         return products;
     }
     
+    public List<ProductDto> findProductsByCategory(ProductCategory category, boolean availableOnly) {
+        return store.findProductsByCategory(category, availableOnly);
+    }
+    
+    /**
+     * Up to limit products whose name or description contains the query,
+     * served from the in-memory trigram index.
+     */
+    public List<ProductDto> searchProducts(String query, int limit) {
+        return store.searchProducts(query, limit);
+    }
+    
+    /**
+     * Autocomplete for product names, most ordered first.
+     */
+    public List<ProductDto> suggestProducts(String prefix, int limit) {
+        return store.suggestProducts(prefix, limit);
+    }
+    
     public ProductDto findProductById(Long id) {
-        return loadProducts().stream()
-            .filter(product -> product.getId().equals(id))
-            .findFirst()
-            .orElse(null);
+        return store.findProductById(id);
     }
     
     // Order operations
     public void saveOrder(OrderDto order) {
+        checkpointLock.readLock().lock();
         try {
-            boolean fileExists = Files.exists(Paths.get(ORDERS_FILE));
-            try (FileWriter writer = new FileWriter(ORDERS_FILE, true)) {
-                if (!fileExists) {
-                    writer.write("id,customer_id,customer_name,status,delivery_fee,payment_method,created_at,cancellation_reason,delivery_address\n");
-                }
-                
-                String deliveryAddress = "";
-                if (order.getDeliveryAddress() != null) {
-                    AddressDto addr = order.getDeliveryAddress();
-                    deliveryAddress = String.format("%s|%s|%s|%s|%s|%s", 
-                        addr.getStreet(), addr.getNumber(), addr.getNeighborhood(),
-                        addr.getCity(), addr.getState(), addr.getZipCode());
-                }
-                
-                writer.write(String.format(Locale.US, "%d,%d,%s,%s,%.2f,%s,%s,%s,\"%s\"\n",
-                    order.getId(), order.getCustomerId(), order.getCustomerName(),
-                    order.getStatus(),
-                    order.getDeliveryFee() != null ? order.getDeliveryFee() : BigDecimal.ZERO,
-                    order.getPaymentMethod() != null ? order.getPaymentMethod() : "",
-                    order.getCreatedAt().format(DATE_FORMATTER),
-                    order.getCancellationReason() != null ? order.getCancellationReason() : "",
-                    deliveryAddress));
-            }
-            
-            // Save order items
-            if (order.getItems() != null && !order.getItems().isEmpty()) {
-                saveOrderItems(order.getId(), order.getItems());
-            }
-            
+            orderLog.append(order, () -> onOrderAppended(order));
+            changedSinceCheckpoint.set(true);
             System.out.println("💾 Order saved: #" + order.getId());
         } catch (IOException e) {
             System.err.println("Error saving order: " + e.getMessage());
+        } finally {
+            checkpointLock.readLock().unlock();
         }
     }
     
-    private void saveOrderItems(Long orderId, List<OrderItemDto> items) {
-        try {
-            boolean fileExists = Files.exists(Paths.get(ORDER_ITEMS_FILE));
-            try (FileWriter writer = new FileWriter(ORDER_ITEMS_FILE, true)) {
-                if (!fileExists) {
-                    writer.write("order_id,product_id,product_name,quantity,unit_price,observations\n");
-                }
-                
-                for (OrderItemDto item : items) {
-                    writer.write(String.format(Locale.US, "%d,%d,%s,%d,%.2f,%s\n",
-                        orderId, item.getProduct().getId(), item.getProduct().getName(),
-                        item.getQuantity(), item.getUnitPrice(),
-                        item.getObservations() != null ? item.getObservations() : ""));
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving order items: " + e.getMessage());
+    public List<OrderDto> loadOrders() {
+        if (mappedOrders != null) {
+            return new ArrayList<>(mappedOrders.orders());
         }
+        return store.orders();
     }
     
-    public List<OrderDto> loadOrders() {
-        List<OrderDto> orders = new ArrayList<>();
-        try {
-            if (!Files.exists(Paths.get(ORDERS_FILE))) {
-                return orders;
-            }
-            
-            List<String> lines = Files.readAllLines(Paths.get(ORDERS_FILE));
-            for (int i = 1; i < lines.size(); i++) { // Skip header
-                String line = lines.get(i);
-                // Skip empty lines
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                // Handle quoted delivery address
-                String[] parts = parseCSVLine(line);
-                
-                if (parts.length >= 9) {
-                    OrderDto order = new OrderDto();
-                    // Validation before parsing
-                    if (parts[0].trim().isEmpty() || parts[1].trim().isEmpty()) {
-                        continue; // Skip line with empty required fields
-                    }
-                    order.setId(Long.parseLong(parts[0].trim()));
-                    order.setCustomerId(Long.parseLong(parts[1].trim()));
-                    order.setCustomerName(parts[2]);
-                    order.setStatus(parts[3]);
-                    // Handle Brazilian decimal comma format
-                    String deliveryFeeStr = parts[4].replace(",", ".");
-                    order.setDeliveryFee(new BigDecimal(deliveryFeeStr));
-                    order.setPaymentMethod(parts[5]);
-                    
-                    // Validation before date parsing
-                    if (parts[6].trim().isEmpty() || parts[6].trim().equals("00")) {
-                        order.setCreatedAt(LocalDateTime.now()); // Use current date as fallback
-                    } else {
-                        try {
-                            order.setCreatedAt(LocalDateTime.parse(parts[6], DATE_FORMATTER));
-                        } catch (Exception dateParseException) {
-                            System.err.println("Error parsing date '" + parts[6] + "', using current date");
-                            order.setCreatedAt(LocalDateTime.now());
-                        }
-                    }
-                    if (!parts[7].isEmpty()) {
-                        order.setCancellationReason(parts[7]);
-                    }
-                    
-                    // Parse delivery address
-                    if (!parts[8].isEmpty()) {
-                        String[] addrParts = parts[8].split("\\|");
-                        if (addrParts.length >= 6) {
-                            AddressDto address = new AddressDto(
-                                addrParts[0], addrParts[1], addrParts[2],
-                                addrParts[3], addrParts[4], addrParts[5]);
-                            order.setDeliveryAddress(address);
-                        }
+    /**
+     * Every order without its items; item rows are never parsed for these.
+     */
+    public List<OrderSummaryDto> loadOrderSummaries() {
+        if (mappedOrders != null) {
+            return new ArrayList<>(mappedOrders.orderSummaries());
+        }
+        return store.orderSummaries();
+    }
+
+    // Runs once the order's rows are written, still inside the order log
+    private void onOrderAppended(OrderDto order) {
+        if (mappedOrders != null) {
+            refreshMappedOrders();
+        } else {
+            store.putOrder(order);
+        }
+    }
+    
+    // Reads orders.csv and order_items.csv once each from the given byte offsets
+    // and joins items to orders by id; the rows read supersede the loaded orders
+    private List<OrderDto> readOrders(Map<Long, ProductDto> productsById, Map<Long, OrderDto> loaded,
+                                      long ordersOffset, long orderItemsOffset) {
+        // Later rows of the same order supersede earlier ones
+        Map<Long, OrderDto> latest = new LinkedHashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        long orderRows = 0;
+        boolean legacyFormat = false;
+        if (!Files.exists(Paths.get(ordersFile))) {
+            return new ArrayList<>(loaded.values());
+        }
+        try (CsvReader csv = CsvReader.open(Paths.get(ordersFile), ordersOffset)) {
+            // Snapshots are only written once the files carry version columns
+            legacyFormat = ordersOffset == 0
+                && (!csv.next() || !csv.fieldEquals(csv.fieldCount() - 1, "version"));
+            while (csv.next()) {
+                OrderDto order = OrderRowParser.parseOrder(csv);
+                if (order != null) {
+                    long version = !legacyFormat && csv.fieldCount() >= 10 ? csv.getLong(9) : 0L;
+                    orderRows++;
+                    Long current = versions.get(order.getId());
+                    if (current == null || version >= current) {
+                        latest.put(order.getId(), order);
+                        versions.put(order.getId(), version);
                     }
-                    
-                    // Load order items
-                    order.setItems(loadOrderItems(order.getId()));
-                    orders.add(order);
                 }
             }
         } catch (IOException | NumberFormatException e) {
             System.err.println("Error loading orders: " + e.getMessage());
         }
-        return orders;
-    }
-    
-    private String[] parseCSVLine(String line) {
-        List<String> result = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder current = new StringBuilder();
         
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                    // Handle escaped quote ("")
-                    current.append('"');
-                    i++; // Skip next quote
-                } else {
-                    inQuotes = !inQuotes;
-                }
-            } else if (c == ',' && !inQuotes) {
-                result.add(current.toString().trim());
-                current = new StringBuilder();
-            } else {
-                current.append(c);
+        Map<Long, List<OrderItemDto>> itemsByOrder = readOrderItems(versions, productsById, orderItemsOffset);
+        for (OrderDto order : latest.values()) {
+            List<OrderItemDto> items = itemsByOrder.getOrDefault(order.getId(), new ArrayList<>());
+            order.setItems(items);
+            order.setVersion(versions.get(order.getId()));
+            orderLog.recordLoaded(order.getId(), order.getVersion(), items.size());
+            loaded.put(order.getId(), order);
+        }
+        orderLog.recordDeadRows(orderRows - latest.size());
+        
+        List<OrderDto> orders = new ArrayList<>(loaded.values());
+        if (legacyFormat) {
+            // Rewrite files from before the order log with version columns
+            try {
+                orderLog.compact(() -> orders);
+            } catch (IOException e) {
+                System.err.println("Error migrating order files: " + e.getMessage());
             }
         }
-        result.add(current.toString().trim());
-        return result.toArray(new String[0]);
+        return orders;
     }
     
-    private List<OrderItemDto> loadOrderItems(Long orderId) {
-        List<OrderItemDto> items = new ArrayList<>();
-        try {
-            if (!Files.exists(Paths.get(ORDER_ITEMS_FILE))) {
-                return items;
-            }
-            
-            List<String> lines = Files.readAllLines(Paths.get(ORDER_ITEMS_FILE));
-            for (int i = 1; i < lines.size(); i++) { // Skip header
-                String line = lines.get(i);
-                // Skip empty lines
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                String[] parts = line.split(",", -1);
-                if (parts.length >= 6 && parts[0].equals(orderId.toString())) {
-                    // Validation before parsing
-                    if (parts[1].trim().isEmpty() || parts[3].trim().isEmpty()) {
-                        continue; // Skip line with empty required fields
+    // Groups item rows by order, keeping only rows of each order's latest version
+    private Map<Long, List<OrderItemDto>> readOrderItems(Map<Long, Long> versions,
+                                                         Map<Long, ProductDto> productsById, long offset) {
+        Map<Long, List<OrderItemDto>> itemsByOrder = new HashMap<>();
+        if (!Files.exists(Paths.get(orderItemsFile))) {
+            return itemsByOrder;
+        }
+        try (CsvReader csv = CsvReader.open(Paths.get(orderItemsFile), offset)) {
+            // Files without a version column predate the order log
+            boolean versioned = offset > 0
+                || (csv.next() && csv.fieldEquals(csv.fieldCount() - 1, "order_version"));
+            while (csv.next()) {
+                if (OrderRowParser.isValidItem(csv)) {
+                    Long orderId = csv.getLong(0);
+                    long itemVersion = versioned ? csv.getLong(csv.fieldCount() - 1) : 0L;
+                    Long version = versions.get(orderId);
+                    if (version == null || version != itemVersion) {
+                        orderLog.recordDeadRows(1); // Superseded or orphaned row
+                        if (version == null || itemVersion > version) {
+                            orderLog.recordOrphanedItems(orderId, itemVersion);
+                        }
+                        continue;
                     }
-                    ProductDto product = findProductById(Long.parseLong(parts[1].trim()));
+                    ProductDto product = productsById.get(csv.getLong(1));
                     if (product != null) {
-                        OrderItemDto item = new OrderItemDto();
-                        item.setProduct(product);
-                        item.setQuantity(Integer.parseInt(parts[3].trim()));
-                        // Handle Brazilian decimal comma format
-                        String unitPriceStr = parts[4].replace(",", ".");
-                        item.setUnitPrice(new BigDecimal(unitPriceStr));
-                        if (!parts[5].isEmpty() && !parts[5].equals("00")) {
-                            item.setObservations(parts[5]);
-                        }
-                        items.add(item);
+                        itemsByOrder.computeIfAbsent(orderId, k -> new ArrayList<>())
+                            .add(OrderRowParser.parseItem(csv, product));
                     }
                 }
             }
         } catch (IOException | NumberFormatException e) {
             System.err.println("Error loading order items: " + e.getMessage());
         }
-        return items;
+        return itemsByOrder;
     }
     
+    // Both read paths keep a per-customer index ordered by creation time
     public List<OrderDto> findOrdersByCustomerId(Long customerId) {
-        return loadOrders().stream()
-            .filter(order -> order.getCustomerId().equals(customerId))
-            .sorted((o1, o2) -> o1.getCreatedAt().compareTo(o2.getCreatedAt()))
-            .collect(Collectors.toList());
+        return findOrdersByCustomerId(customerId, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Returns the customer's latest orders, at most limit of them, oldest first.
+     */
+    public List<OrderDto> findOrdersByCustomerId(Long customerId, int limit) {
+        if (mappedOrders != null) {
+            return mappedOrders.findLatestOrdersByCustomerId(customerId, limit);
+        }
+        return store.findLatestOrdersByCustomerId(customerId, limit);
+    }
+    
+    /**
+     * One page of the customer's orders, oldest first, starting after the
+     * order afterOrderId (from the oldest when null).
+     *
+     * @throws IllegalArgumentException if afterOrderId is not a known order
+     */
+    public PageDto<OrderDto> pageOrdersByCustomerId(Long customerId, Long afterOrderId, int pageSize) {
+        List<OrderDto> rows = mappedOrders != null
+            ? mappedOrders.findOrdersByCustomerIdAfter(customerId, afterOrderId, pageSize + 1)
+            : store.findOrdersByCustomerIdAfter(customerId, afterOrderId, pageSize + 1);
+        return toPage(rows, pageSize, OrderDto::getId);
+    }
+    
+    /**
+     * Header-only variants of findOrdersByCustomerId and pageOrdersByCustomerId,
+     * for list views; fetch the items of one order with findOrderItems.
+     */
+    public List<OrderSummaryDto> findOrderSummariesByCustomerId(Long customerId, int limit) {
+        if (mappedOrders != null) {
+            return mappedOrders.findLatestOrderSummariesByCustomerId(customerId, limit);
+        }
+        return store.findLatestOrderSummariesByCustomerId(customerId, limit);
+    }
+    
+    public PageDto<OrderSummaryDto> pageOrderSummariesByCustomerId(Long customerId, Long afterOrderId, int pageSize) {
+        List<OrderSummaryDto> rows = mappedOrders != null
+            ? mappedOrders.findOrderSummariesByCustomerIdAfter(customerId, afterOrderId, pageSize + 1)
+            : store.findOrderSummariesByCustomerIdAfter(customerId, afterOrderId, pageSize + 1);
+        return toPage(rows, pageSize, OrderSummaryDto::getId);
+    }
+    
+    /**
+     * The items of one order, or null if there is no such order.
+     */
+    public List<OrderItemDto> findOrderItems(Long orderId) {
+        OrderDto order = findOrderById(orderId);
+        return order != null ? order.getItems() : null;
+    }
+    
+    private static <T> PageDto<T> toPage(List<T> rows, int pageSize, Function<T, Long> key) {
+        if (rows.size() <= pageSize) {
+            return new PageDto<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new PageDto<>(items, String.valueOf(key.apply(items.get(pageSize - 1))));
+    }
+    
+    /**
+     * Passes the orders created in [from, to) to the action, oldest first,
+     * optionally only those with the given status. A null bound leaves that
+     * end open. Both read paths go through an index of orders per hour of
+     * creation and hand orders over a chunk at a time, never the whole history.
+     */
+    public void forEachOrderCreatedBetween(LocalDateTime from, LocalDateTime to, String status,
+                                           Consumer<OrderDto> action) {
+        if (mappedOrders != null) {
+            mappedOrders.forEachOrderCreatedBetween(from, to, status, action);
+        } else {
+            store.forEachOrderCreatedBetween(from, to, status, action);
+        }
+    }
+    
+    public void forEachOrderSummaryCreatedBetween(LocalDateTime from, LocalDateTime to, String status,
+                                                  Consumer<OrderSummaryDto> action) {
+        if (mappedOrders != null) {
+            mappedOrders.forEachOrderSummaryCreatedBetween(from, to, status, action);
+        } else {
+            store.forEachOrderSummaryCreatedBetween(from, to, status, action);
+        }
     }
     
     public OrderDto findOrderById(Long orderId) {
-        return loadOrders().stream()
-            .filter(order -> order.getId().equals(orderId))
-            .findFirst()
-            .orElse(null);
+        if (mappedOrders != null) {
+            return mappedOrders.findOrderById(orderId);
+        }
+        return store.findOrderById(orderId);
     }
     
     public void updateOrder(OrderDto order) {
-        // To update, we load all orders, replace the specific order and save everything again
-        List<OrderDto> orders = loadOrders();
-        orders.removeIf(o -> o.getId().equals(order.getId()));
-        orders.add(order);
-        
-        // Rewrite orders file
+        // Appends the new version; the previous rows stay until the next compaction
+        checkpointLock.readLock().lock();
         try {
-            Files.deleteIfExists(Paths.get(ORDERS_FILE));
-            Files.deleteIfExists(Paths.get(ORDER_ITEMS_FILE));
+            orderLog.append(order, () -> onOrderAppended(order));
+            changedSinceCheckpoint.set(true);
+            System.out.println("💾 Order updated: #" + order.getId());
         } catch (IOException e) {
-            System.err.println("Error deleting old files: " + e.getMessage());
+            System.err.println("Error updating order: " + e.getMessage());
+        } finally {
+            checkpointLock.readLock().unlock();
         }
-        
-        for (OrderDto o : orders) {
-            saveOrder(o);
+    }
+    
+    /**
+     * Compare-and-set variant of updateOrder: the update is written only if the
+     * order is still at expectedVersion. Returns false when another update got
+     * there first; the caller should reload the order and retry.
+     * Throws UncheckedIOException when the rows could not be written, leaving
+     * the order at expectedVersion.
+     */
+    public boolean updateOrderIfVersion(OrderDto order, long expectedVersion) {
+        checkpointLock.readLock().lock();
+        try {
+            if (orderLog.appendIfVersion(order, expectedVersion, () -> onOrderAppended(order)) < 0) {
+                return false;
+            }
+            changedSinceCheckpoint.set(true);
+            System.out.println("💾 Order updated: #" + order.getId());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error updating order #" + order.getId() + ": " + e.getMessage(), e);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        return true;
+    }
+    
+    public void compactOrderLog() {
+        checkpointLock.readLock().lock();
+        try {
+            if (mappedOrders != null) {
+                // Streams the rewrite from the mapped files, then maps the new ones
+                orderLog.compact(mappedOrders::orders);
+                refreshMappedOrders();
+            } else {
+                orderLog.compact(store::orders);
+            }
+            changedSinceCheckpoint.set(true);
+        } catch (IOException e) {
+            System.err.println("Error compacting order log: " + e.getMessage());
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+    
+    private void compactOrderLogIfNeeded() {
+        if (orderLog.needsCompaction()) {
+            compactOrderLog();
+            // The rewrite invalidated the previous snapshot
+            checkpoint();
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of the current data, so the next startup only
+     * replays the CSV rows appended after this point. Writes are held back
+     * while the data is copied, not while the snapshot file is written.
+     */
+    public synchronized void checkpoint() {
+        StoreSnapshot snapshot;
+        checkpointLock.writeLock().lock();
+        try {
+            changedSinceCheckpoint.set(false);
+            boolean mapped = mappedOrders != null;
+            // In MAPPED mode the snapshot covers no orders, so they are always read from their files
+            List<OrderDto> orders = mapped ? new ArrayList<>() : store.orders();
+            Map<Long, Long> versions = new HashMap<>();
+            for (OrderDto order : orders) {
+                versions.put(order.getId(), orderLog.getVersion(order.getId()));
+            }
+            snapshot = new StoreSnapshot(
+                StoreSnapshot.FileMark.of(Paths.get(customersFile)),
+                StoreSnapshot.FileMark.of(Paths.get(productsFile)),
+                mapped ? StoreSnapshot.FileMark.NONE : StoreSnapshot.FileMark.of(Paths.get(ordersFile)),
+                mapped ? StoreSnapshot.FileMark.NONE : StoreSnapshot.FileMark.of(Paths.get(orderItemsFile)),
+                store.customers(), store.products(), orders, versions, mapped ? 0 : orderLog.getDeadRows());
+        } catch (IOException e) {
+            changedSinceCheckpoint.set(true);
+            System.err.println("Error saving snapshot: " + e.getMessage());
+            return;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+
+        try {
+            snapshot.write(Paths.get(snapshotFile), writer.getDurability());
+            System.out.println("💾 Snapshot saved: " + snapshot.getOrders().size() + " orders");
+        } catch (IOException e) {
+            changedSinceCheckpoint.set(true);
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+
+    private void checkpointIfChanged() {
+        if (changedSinceCheckpoint.get()) {
+            checkpoint();
+        }
+    }
+    
+    public void close() {
+        maintenance.shutdownNow();
+        checkpointIfChanged();
+        writer.close();
+        if (mappedOrders != null) {
+            mappedOrders.close();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,360 @@
+package com.ordermanagement.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import com.ordermanagement.model.Money;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180 reader that parses one record at a time into reusable
+ * buffers. Quoted fields may contain commas, doubled quotes and line breaks.
+ * Fields are exposed as offsets into the record buffer; typed getters decode
+ * them in place, so only the values a caller asks for are allocated.
+ * Surrounding whitespace is trimmed from unquoted fields, and blank lines
+ * are skipped.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+
+    // Unescaped characters of the current record and the bounds of each field
+    private char[] record = new char[256];
+    private int recordLength;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+
+    private final FieldView view = new FieldView();
+
+    public CsvReader(Reader reader) {
+        this(reader, BUFFER_SIZE);
+    }
+
+    // Smaller buffers suit short inputs such as a single decoded row
+    CsvReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(1, bufferSize)];
+    }
+
+    public static CsvReader open(Path file) throws IOException {
+        return new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens the file positioned at a byte offset, which must be the start of a record.
+     */
+    public static CsvReader open(Path file, long offset) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new CsvReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Advances to the next non-blank record.
+     * Returns false at the end of the input.
+     */
+    public boolean next() throws IOException {
+        while (readRecord()) {
+            if (fieldCount > 1 || fieldEnds[0] > fieldStarts[0]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean readRecord() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        boolean started = false;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        int fieldStart = 0;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                if (!started) {
+                    return false;
+                }
+                endField(fieldStart, quoted);
+                return true;
+            }
+            char c = buffer[position++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            started = true;
+
+            if (inQuotes) {
+                if (c == '"') {
+                    if (position == limit && !fill()) {
+                        endField(fieldStart, quoted);
+                        return true;
+                    }
+                    if (buffer[position] == '"') {
+                        // Escaped quote ("")
+                        append('"');
+                        position++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    append(c);
+                }
+            } else if (c == ',') {
+                endField(fieldStart, quoted);
+                fieldStart = recordLength;
+                quoted = false;
+            } else if (c == '\n' || c == '\r') {
+                skipLineFeed = c == '\r';
+                endField(fieldStart, quoted);
+                return true;
+            } else if (c == '"' && recordLength == fieldStart && !quoted) {
+                quoted = true;
+                inQuotes = true;
+            } else {
+                append(c);
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private void endField(int start, boolean quoted) {
+        int end = recordLength;
+        if (!quoted) {
+            while (start < end && Character.isWhitespace(record[start])) start++;
+            while (end > start && Character.isWhitespace(record[end - 1])) end--;
+        }
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isEmpty(int field) {
+        return fieldEnds[field] == fieldStarts[field];
+    }
+
+    /**
+     * Returns a view of the field that stays valid until the next call to
+     * field() or next(). Use getString() to keep the value.
+     */
+    public CharSequence field(int field) {
+        view.start = fieldStarts[field];
+        view.end = fieldEnds[field];
+        return view;
+    }
+
+    public boolean fieldEquals(int field, String value) {
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (record[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getString(int field) {
+        return new String(record, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    public long getLong(int field) {
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (i == end) {
+            throw new NumberFormatException("Empty numeric field");
+        }
+        boolean negative = record[i] == '-';
+        if (negative || record[i] == '+') {
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return Long.parseLong(getString(field));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes a decimal, accepting either '.' or the Brazilian ',' as separator.
+     */
+    public BigDecimal getBigDecimal(int field) {
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (i == end) {
+            throw new NumberFormatException("Empty numeric field");
+        }
+        boolean negative = record[i] == '-';
+        if (negative || record[i] == '+') {
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char c = record[i];
+            if ((c == '.' || c == ',') && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            if (++digits > 18) {
+                return new BigDecimal(getString(field).replace(',', '.'));
+            }
+            unscaled = unscaled * 10 + digit;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    /**
+     * Decodes an amount written with exactly two decimals, the way the write
+     * paths store money, as cents. Returns null for any other layout; read
+     * those with getBigDecimal, which keeps their scale.
+     */
+    public Money getMoney(int field) {
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = i < end && record[i] == '-';
+        if (negative || (i < end && record[i] == '+')) {
+            i++;
+        }
+        int point = end - 3;
+        // At most 16 integer digits, so the cents fit in a long
+        if (point <= i || point - i > 16 || (record[point] != '.' && record[point] != ',')) {
+            return null;
+        }
+        long cents = 0;
+        for (; i < end; i++) {
+            if (i == point) {
+                continue;
+            }
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            cents = cents * 10 + digit;
+        }
+        return Money.ofCents(negative ? -cents : cents);
+    }
+
+    public LocalDateTime getTimestamp(int field, DateTimeFormatter formatter) {
+        return LocalDateTime.parse(field(field), formatter);
+    }
+
+    /**
+     * Decodes a stored timestamp, yyyy-MM-dd HH:mm:ss or epoch milliseconds,
+     * without going through a DateTimeFormatter for well-formed values.
+     */
+    public LocalDateTime getTimestamp(int field) {
+        return TimestampCodec.parse(field(field));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private final class FieldView implements CharSequence {
+        private int start;
+        private int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("index " + index);
+            }
+            return record[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(record, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(record, start, end - start);
+        }
+    }
+}
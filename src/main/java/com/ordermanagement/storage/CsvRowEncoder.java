@@ -0,0 +1,308 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.model.Money;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Writes CSV rows as UTF-8 straight into a reusable byte buffer, replacing
+ * String.format on the write paths: numbers, money (two decimals, rounded
+ * half up like %.2f) and timestamps (yyyy-MM-dd HH:mm:ss) are encoded digit
+ * by digit without boxing or intermediate strings. Fields are separated
+ * automatically; endRow() closes the row.
+ *
+ * Each thread reuses one encoder from pooled(). Rows are copied out with
+ * toByteArray() or streamed to a channel with flushTo().
+ * Not thread-safe.
+ */
+final class CsvRowEncoder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Buffers grown past this by a big rewrite are not kept in the pool
+    private static final int MAX_POOLED_CAPACITY = 1 << 20;
+
+    private static final ThreadLocal<CsvRowEncoder> POOL = ThreadLocal.withInitial(CsvRowEncoder::new);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+    private boolean rowStart = true;
+
+    /**
+     * The calling thread's encoder, emptied. Not to be used again after
+     * another call to pooled() on the same thread.
+     */
+    static CsvRowEncoder pooled() {
+        CsvRowEncoder encoder = POOL.get();
+        encoder.reset();
+        return encoder;
+    }
+
+    CsvRowEncoder reset() {
+        if (buffer.length > MAX_POOLED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        size = 0;
+        rowStart = true;
+        return this;
+    }
+
+    int size() {
+        return size;
+    }
+
+    CsvRowEncoder field(long value) {
+        separate();
+        writeLong(value);
+        return this;
+    }
+
+    /**
+     * An unquoted field, for values that never hold commas, quotes or line
+     * breaks (enum names, status codes). Null is written as an empty field.
+     */
+    CsvRowEncoder field(String value) {
+        separate();
+        if (value != null) {
+            writeChars(value, false);
+        }
+        return this;
+    }
+
+    /**
+     * An RFC 4180 quoted field with inner quotes doubled; null is written
+     * as "".
+     */
+    CsvRowEncoder quoted(String value) {
+        separate();
+        write('"');
+        if (value != null) {
+            writeChars(value, true);
+        }
+        write('"');
+        return this;
+    }
+
+    /**
+     * Quoted unless null, which leaves the field empty.
+     */
+    CsvRowEncoder optionalQuoted(String value) {
+        return value == null ? field((String) null) : quoted(value);
+    }
+
+    /**
+     * One quoted field of the parts joined by an ASCII separator other than
+     * the quote, with null parts written as "null" as String.format's %s does.
+     */
+    CsvRowEncoder quotedJoin(char separator, String... parts) {
+        separate();
+        write('"');
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                write(separator);
+            }
+            writeChars(parts[i] != null ? parts[i] : "null", true);
+        }
+        write('"');
+        return this;
+    }
+
+    /**
+     * The amount with two decimals, rounded half up; null leaves the field empty.
+     */
+    CsvRowEncoder money(BigDecimal amount) {
+        separate();
+        if (amount == null) {
+            return this;
+        }
+        // Stored amounts already have scale 2, which makes setScale a no-op
+        BigDecimal scaled = amount.scale() == 2 ? amount : amount.setScale(2, RoundingMode.HALF_UP);
+        if (scaled.precision() > 18) {
+            writeChars(scaled.toPlainString(), false);
+            return this;
+        }
+        writeCents(scaled.unscaledValue().longValue());
+        return this;
+    }
+
+    /**
+     * The amount with two decimals; null leaves the field empty.
+     */
+    CsvRowEncoder money(Money amount) {
+        separate();
+        if (amount != null) {
+            writeCents(amount.cents());
+        }
+        return this;
+    }
+
+    /**
+     * yyyy-MM-dd HH:mm:ss, the format of every created_at column.
+     */
+    CsvRowEncoder timestamp(LocalDateTime time) {
+        separate();
+        if (time == null) {
+            return this;
+        }
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            // Out of the 4-digit range; let the formatter decide
+            writeChars(time.format(TimestampCodec.FORMATTER), false);
+            return this;
+        }
+        writeDigits(year, 4);
+        write('-');
+        writeDigits(time.getMonthValue(), 2);
+        write('-');
+        writeDigits(time.getDayOfMonth(), 2);
+        write(' ');
+        writeDigits(time.getHour(), 2);
+        write(':');
+        writeDigits(time.getMinute(), 2);
+        write(':');
+        writeDigits(time.getSecond(), 2);
+        return this;
+    }
+
+    /**
+     * The time in the given storage format. Times before 1970 are written as
+     * text even in EPOCH_MILLIS, since readers take a bare run of digits for
+     * epoch milliseconds and a minus sign for text.
+     */
+    CsvRowEncoder timestamp(LocalDateTime time, CsvDataManager.TimestampFormat format) {
+        if (time == null || format == CsvDataManager.TimestampFormat.TEXT) {
+            return timestamp(time);
+        }
+        long millis = TimestampCodec.toEpochMillis(time);
+        return millis >= 0 ? field(millis) : timestamp(time);
+    }
+
+    CsvRowEncoder endRow() {
+        write('\n');
+        rowStart = true;
+        return this;
+    }
+
+    /**
+     * Appends raw text, such as a header line.
+     */
+    CsvRowEncoder raw(String text) {
+        writeChars(text, false);
+        return this;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Writes out everything encoded so far and empties the buffer.
+     */
+    void flushTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, size);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        size = 0;
+    }
+
+    private void separate() {
+        if (rowStart) {
+            rowStart = false;
+        } else {
+            write(',');
+        }
+    }
+
+    private void writeCents(long cents) {
+        if (cents == Long.MIN_VALUE) {
+            writeChars(BigDecimal.valueOf(cents, 2).toPlainString(), false);
+            return;
+        }
+        if (cents < 0) {
+            write('-');
+            cents = -cents;
+        }
+        writeLong(cents / 100);
+        write('.');
+        write((char) ('0' + cents % 100 / 10));
+        write((char) ('0' + cents % 10));
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeChars(Long.toString(value), false);
+            return;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        ensure(digits);
+        for (int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+    }
+
+    // Zero-padded to width digits
+    private void writeDigits(int value, int width) {
+        ensure(width);
+        for (int i = size + width - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += width;
+    }
+
+    private void writeChars(String text, boolean doubleQuotes) {
+        int length = text.length();
+        // Worst case: every char doubled or 3 bytes of UTF-8
+        ensure(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' && doubleQuotes) {
+                    buffer[size++] = '"';
+                }
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xC0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, replaced like String.getBytes does
+                buffer[size++] = '?';
+            } else {
+                buffer[size++] = (byte) (0xE0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void write(char c) {
+        ensure(1);
+        buffer[size++] = (byte) c;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ordermanagement.storage;
+
+import java.util.Arrays;
+
+/**
+ * Secondary index from customer id to that customer's order ids, kept
+ * sorted by a creation-time key (ties broken by order id). Lookups cost
+ * O(k) in the customer's orders, or O(limit) for the latest ones.
+ * Not thread-safe: the owning store guards it with its own lock.
+ */
+final class CustomerOrderIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final LongObjectMap<TimeOrderedIds> byCustomer = new LongObjectMap<>();
+
+    void add(long customerId, long orderId, long timeKey) {
+        byCustomer.computeIfAbsent(customerId, k -> new TimeOrderedIds()).add(timeKey, orderId);
+    }
+
+    void remove(long customerId, long orderId, long timeKey) {
+        TimeOrderedIds orders = byCustomer.get(customerId);
+        if (orders != null && orders.remove(timeKey, orderId) && orders.size == 0) {
+            byCustomer.remove(customerId);
+        }
+    }
+
+    /**
+     * All order ids of the customer, oldest first.
+     */
+    long[] orderIds(long customerId) {
+        return latestOrderIds(customerId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The customer's newest order ids, at most limit of them, oldest first.
+     */
+    long[] latestOrderIds(long customerId, int limit) {
+        TimeOrderedIds orders = byCustomer.get(customerId);
+        if (orders == null || limit <= 0) {
+            return NO_IDS;
+        }
+        int from = Math.max(0, orders.size - limit);
+        return Arrays.copyOfRange(orders.ids, from, orders.size);
+    }
+
+    /**
+     * Up to limit order ids that come after (timeKey, orderId), oldest first.
+     * The position does not have to be in the index, so a cursor stays valid
+     * even if its order moved to another customer.
+     */
+    long[] orderIdsAfter(long customerId, long timeKey, long orderId, int limit) {
+        TimeOrderedIds orders = byCustomer.get(customerId);
+        if (orders == null || limit <= 0) {
+            return NO_IDS;
+        }
+        int found = orders.search(timeKey, orderId);
+        int from = found >= 0 ? found + 1 : -(found + 1);
+        int to = (int) Math.min((long) from + limit, orders.size);
+        return Arrays.copyOfRange(orders.ids, from, to);
+    }
+
+    void clear() {
+        byCustomer.clear();
+    }
+}
@@ -0,0 +1,255 @@
+package com.ordermanagement.storage;
+
+import java.util.*;
+
+/**
+ * Typo-tolerant lookup of documents by the words of a short text, such as
+ * a product name. Words are normalized like {@link TrigramIndex} and kept
+ * in a BK-tree keyed by Levenshtein distance, so a query only computes
+ * distances along the branches the triangle inequality cannot rule out,
+ * never against every word.
+ *
+ * A document matches when every query word is within the allowed distance
+ * of one of its words. Short words allow fewer edits (one per three
+ * characters), so "x" does not match every two-letter word.
+ * Not thread-safe: owners guard it with their own lock.
+ */
+public class FuzzyIndex {
+
+    private static final int MIN_NODES_FOR_REBUILD = 1024;
+
+    private final Map<String, Node> nodesByWord = new HashMap<>();
+    private final Map<Long, String[]> wordsById = new HashMap<>();
+    private Node root;
+    private int emptyNodes;
+
+    /**
+     * Indexes the words of text under the id, replacing any previous text.
+     */
+    public void put(long id, String text) {
+        String[] words = words(text);
+        String[] previous = wordsById.get(id);
+        if (previous != null && Arrays.equals(previous, words)) {
+            return;
+        }
+        remove(id);
+        wordsById.put(id, words);
+        for (String word : words) {
+            Node node = nodesByWord.get(word);
+            if (node == null) {
+                node = insert(word);
+            } else if (node.ids.isEmpty()) {
+                emptyNodes--;
+            }
+            node.ids.add(id);
+        }
+    }
+
+    public void remove(long id) {
+        String[] words = wordsById.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Node node = nodesByWord.get(word);
+            if (node.ids.remove(id) && node.ids.isEmpty()) {
+                // Kept in place: its subtree is still routed through it
+                emptyNodes++;
+            }
+        }
+        if (emptyNodes > Math.max(MIN_NODES_FOR_REBUILD, nodesByWord.size() - emptyNodes)) {
+            rebuild();
+        }
+    }
+
+    public int size() {
+        return wordsById.size();
+    }
+
+    public void clear() {
+        nodesByWord.clear();
+        wordsById.clear();
+        root = null;
+        emptyNodes = 0;
+    }
+
+    /**
+     * Ids of documents matching every word of the query within maxDistance
+     * edits, closest first (ties by id).
+     */
+    public long[] search(String query, int maxDistance) {
+        String[] words = words(query == null ? "" : query);
+        if (words.length == 0 || root == null || maxDistance < 0) {
+            return new long[0];
+        }
+        Map<Long, Integer> totals = null;
+        for (String word : words) {
+            Map<Long, Integer> matches = match(word, Math.min(maxDistance, word.length() / 3));
+            if (totals == null) {
+                totals = matches;
+            } else {
+                totals.keySet().retainAll(matches.keySet());
+                for (Map.Entry<Long, Integer> entry : totals.entrySet()) {
+                    entry.setValue(entry.getValue() + matches.get(entry.getKey()));
+                }
+            }
+            if (totals.isEmpty()) {
+                return new long[0];
+            }
+        }
+        Map<Long, Integer> distances = totals;
+        return distances.keySet().stream()
+            .sorted(Comparator.<Long>comparingInt(distances::get).thenComparing(Comparator.naturalOrder()))
+            .mapToLong(Long::longValue)
+            .toArray();
+    }
+
+    // Best distance per document for one query word
+    private Map<Long, Integer> match(String word, int maxDistance) {
+        Map<Long, Integer> matches = new HashMap<>();
+        Levenshtein levenshtein = new Levenshtein(word);
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            // Beyond the farthest child plus maxDistance the exact value no longer matters
+            int cutoff = maxDistance + (node.childCount == 0 ? 0 : node.keys[node.childCount - 1]);
+            int distance = levenshtein.distanceTo(node.word, cutoff);
+            if (distance <= maxDistance) {
+                for (Long id : node.ids) {
+                    matches.merge(id, distance, Math::min);
+                }
+            }
+            // Only children at distance d +- maxDistance from this node can match
+            for (int i = 0; i < node.childCount; i++) {
+                if (Math.abs(node.keys[i] - distance) <= maxDistance) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private Node insert(String word) {
+        Node created = new Node(word);
+        nodesByWord.put(word, created);
+        if (root == null) {
+            root = created;
+            return created;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word);
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, created);
+                return created;
+            }
+            node = child;
+        }
+    }
+
+    // Drops the empty nodes by re-inserting every live document
+    private void rebuild() {
+        Map<Long, String[]> documents = new HashMap<>(wordsById);
+        clear();
+        for (Map.Entry<Long, String[]> document : documents.entrySet()) {
+            wordsById.put(document.getKey(), document.getValue());
+            for (String word : document.getValue()) {
+                Node node = nodesByWord.get(word);
+                if (node == null) {
+                    node = insert(word);
+                }
+                node.ids.add(document.getKey());
+            }
+        }
+    }
+
+    private static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String normalized = TrigramIndex.normalize(text).trim();
+        return normalized.isEmpty() ? new String[0]
+            : Arrays.stream(normalized.split("\\s+")).distinct().toArray(String[]::new);
+    }
+
+    /**
+     * Levenshtein distance between a and b.
+     */
+    static int distance(String a, String b) {
+        return new Levenshtein(a).distanceTo(b, Integer.MAX_VALUE);
+    }
+
+    // Distances from one query word, reusing the two DP rows across calls
+    private static final class Levenshtein {
+        private final String word;
+        private int[] previous;
+        private int[] current;
+
+        Levenshtein(String word) {
+            this.word = word;
+            this.previous = new int[word.length() + 1];
+            this.current = new int[word.length() + 1];
+        }
+
+        // Exact distance, or some value above cutoff once it must exceed it
+        int distanceTo(String other, int cutoff) {
+            int n = word.length();
+            if (Math.abs(n - other.length()) > cutoff) {
+                return cutoff + 1;
+            }
+            for (int j = 0; j <= n; j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= other.length(); i++) {
+                current[0] = i;
+                int rowMin = i;
+                char c = other.charAt(i - 1);
+                for (int j = 1; j <= n; j++) {
+                    int substitution = previous[j - 1] + (c == word.charAt(j - 1) ? 0 : 1);
+                    current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                    rowMin = Math.min(rowMin, current[j]);
+                }
+                if (rowMin > cutoff) {
+                    return cutoff + 1;
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[n];
+        }
+    }
+
+    private static final class Node {
+        private final String word;
+        private final Set<Long> ids = new HashSet<>();
+        // Children sorted by their distance to this node's word
+        private int[] keys = new int[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        Node(String word) {
+            this.word = word;
+        }
+
+        Node child(int distance) {
+            int i = Arrays.binarySearch(keys, 0, childCount, distance);
+            return i >= 0 ? children[i] : null;
+        }
+
+        void addChild(int distance, Node child) {
+            int i = -(Arrays.binarySearch(keys, 0, childCount, distance) + 1);
+            if (childCount == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(2, childCount * 2));
+                children = Arrays.copyOf(children, keys.length);
+            }
+            System.arraycopy(keys, i, keys, i + 1, childCount - i);
+            System.arraycopy(children, i, children, i + 1, childCount - i);
+            keys[i] = distance;
+            children[i] = child;
+            childCount++;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.ordermanagement.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Single writer thread for the CSV files.
+ * Callers enqueue rows and get a future back; the thread drains everything
+ * pending and writes each file's rows with one write call, so concurrent
+ * saves share one write (and one sync) instead of opening the file each.
+ * Whole-file tasks (product rewrites, compaction) run in queue order and
+ * act as barriers for the appends around them.
+ *
+ * A failed write is cut back off the file, so the next append starts on a
+ * row boundary, and every append of that file in the batch fails with it.
+ * An append may name rows it depends on (an order row on its item rows);
+ * it is written after them and fails without writing when they fail.
+ */
+public class GroupCommitWriter implements Closeable {
+
+    public enum Durability {
+        /** Leave flushing to the operating system. */
+        NONE,
+        /** Sync each file once per batch of records. */
+        SYNC_PER_BATCH,
+        /** Sync after every record. */
+        SYNC_PER_RECORD
+    }
+
+    /** Work that rewrites files on the writer thread. */
+    public interface FileTask {
+        void run() throws IOException;
+    }
+
+    private static final int MAX_BATCH = 1024;
+
+    private final Durability durability;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Map<Path, FileChannel> channels = new HashMap<>();
+    private final Thread thread;
+    private boolean closed;
+
+    public GroupCommitWriter(Durability durability) {
+        this.durability = durability;
+        this.thread = new Thread(this::run, "csv-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Appends rows to the file, writing the header first when the file is
+     * new or empty. The future completes once the rows are written (and
+     * synced, depending on the durability mode).
+     */
+    public CompletableFuture<Void> append(Path file, String header, String rows) {
+        return append(file, header, rows.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Like append(Path, String, String) for rows already encoded as UTF-8.
+     * The array is written as is, so it must not change afterwards.
+     */
+    public CompletableFuture<Void> append(Path file, String header, byte[] rows) {
+        return append(file, header, rows, null);
+    }
+
+    /**
+     * Like append(Path, String, byte[]), but written only once the append
+     * behind after has been written; if that one failed, this one fails too
+     * and nothing is written. After may be null.
+     */
+    public CompletableFuture<Void> append(Path file, String header, byte[] rows, CompletableFuture<Void> after) {
+        return enqueue(new Append(file, header, rows, after));
+    }
+
+    /**
+     * Replaces the whole file through a temp file and an atomic move. Unless
+     * the durability mode is NONE, the temp file is synced before the move and
+     * the directory after it, so a crash leaves either the old or the new file.
+     */
+    public CompletableFuture<Void> replace(Path file, String content) {
+        return replace(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public CompletableFuture<Void> replace(Path file, byte[] content) {
+        return submit(() -> {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, ByteBuffer.wrap(content));
+                forceRewrite(channel);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(file);
+        });
+    }
+
+    /**
+     * Syncs a rewritten file before it is moved over the old one, unless the
+     * durability mode leaves flushing to the operating system.
+     */
+    void forceRewrite(FileChannel channel) throws IOException {
+        if (durability != Durability.NONE) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Syncs the directory of a file that was just moved into place, so the
+     * move itself survives a crash. Skipped for Durability.NONE and on
+     * platforms that cannot open a directory.
+     */
+    void syncDirectory(Path file) {
+        Path dir = file.toAbsolutePath().getParent();
+        if (durability == Durability.NONE || dir == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported everywhere (e.g. Windows); the file itself is synced
+        }
+    }
+
+    public CompletableFuture<Void> submit(FileTask task) {
+        return enqueue(new Task(task));
+    }
+
+    // Synchronized with close() so nothing is queued behind the close marker
+    private synchronized CompletableFuture<Void> enqueue(Request request) {
+        if (closed) {
+            request.done.completeExceptionally(new IOException("Writer is closed"));
+            return request.done;
+        }
+        queue.add(request);
+        return request.done;
+    }
+
+    /**
+     * Waits for a write and rethrows its failure as an IOException.
+     */
+    public static void await(CompletableFuture<Void> write) throws IOException {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            running = process(batch);
+            batch.clear();
+        }
+        closeChannels();
+    }
+
+    // Returns false once the close marker has been processed
+    private boolean process(List<Request> batch) {
+        Map<Path, List<Append>> pending = new LinkedHashMap<>();
+        boolean running = true;
+        for (Request request : batch) {
+            if (request instanceof Append) {
+                Append append = (Append) request;
+                pending.computeIfAbsent(append.file, k -> new ArrayList<>()).add(append);
+            } else {
+                flush(pending);
+                pending.clear();
+                if (request instanceof Close) {
+                    running = false;
+                }
+                runTask((Task) request);
+            }
+        }
+        flush(pending);
+        return running;
+    }
+
+    private void flush(Map<Path, List<Append>> pending) {
+        // Files whose rows wait on rows of another file in the batch go after it
+        List<Path> files = new ArrayList<>(pending.keySet());
+        while (!files.isEmpty()) {
+            Path next = files.get(0);
+            for (Path file : files) {
+                if (dependenciesDone(pending.get(file))) {
+                    next = file;
+                    break;
+                }
+            }
+            files.remove(next);
+            write(next, pending.get(next));
+        }
+    }
+
+    private static boolean dependenciesDone(List<Append> appends) {
+        for (Append append : appends) {
+            if (append.after != null && !append.after.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(Path file, List<Append> appends) {
+        List<Append> writable = new ArrayList<>(appends.size());
+        for (Append append : appends) {
+            Throwable failure = failureOf(append.after);
+            if (failure != null) {
+                append.done.completeExceptionally(new IOException("Rows this append depends on were not written", failure));
+            } else {
+                writable.add(append);
+            }
+        }
+        if (writable.isEmpty()) {
+            return;
+        }
+
+        FileChannel channel = null;
+        long start = -1;
+        try {
+            channel = channel(file);
+            start = channel.size();
+            if (start == 0) {
+                writeFully(channel, ByteBuffer.wrap((writable.get(0).header + "\n").getBytes(StandardCharsets.UTF_8)));
+            }
+            if (durability == Durability.SYNC_PER_RECORD) {
+                for (Append append : writable) {
+                    writeFully(channel, ByteBuffer.wrap(append.data));
+                    channel.force(false);
+                }
+            } else {
+                int size = 0;
+                for (Append append : writable) {
+                    size += append.data.length;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(size);
+                for (Append append : writable) {
+                    buffer.put(append.data);
+                }
+                buffer.flip();
+                writeFully(channel, buffer);
+                if (durability == Durability.SYNC_PER_BATCH) {
+                    channel.force(false);
+                }
+            }
+            for (Append append : writable) {
+                append.done.complete(null);
+            }
+        } catch (IOException e) {
+            if (start >= 0) {
+                truncate(file, channel, start, e);
+            }
+            closeChannel(file);
+            for (Append append : writable) {
+                append.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Cuts off a partly written batch, so no torn row is left for the next append to follow
+    private void truncate(Path file, FileChannel channel, long size, IOException cause) {
+        try {
+            channel.truncate(size);
+            if (durability != Durability.NONE) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            System.err.println("Error truncating " + file + " after a failed write: " + e.getMessage());
+        }
+    }
+
+    // The failure of a finished write, or null if it succeeded, is pending or is absent
+    private static Throwable failureOf(CompletableFuture<Void> write) {
+        if (write == null || !write.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            write.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause();
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private void runTask(Task task) {
+        // Tasks may move files, so cached channels would point at replaced files
+        closeChannels();
+        try {
+            task.task.run();
+            task.done.complete(null);
+        } catch (IOException | RuntimeException e) {
+            task.done.completeExceptionally(e);
+        }
+    }
+
+    private FileChannel channel(Path file) throws IOException {
+        FileChannel channel = channels.get(file);
+        if (channel == null) {
+            channel = open(file);
+            channels.put(file, channel);
+        }
+        return channel;
+    }
+
+    // Overridden by tests to make writes fail part-way
+    FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeChannel(Path file) {
+        FileChannel channel = channels.remove(file);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeChannels() {
+        for (Path file : new ArrayList<>(channels.keySet())) {
+            closeChannel(file);
+        }
+    }
+
+    /**
+     * Writes everything already queued, then stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(new Close());
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private abstract static class Request {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+    }
+
+    private static final class Append extends Request {
+        final Path file;
+        final String header;
+        final byte[] data;
+        // Written before this one, or null
+        final CompletableFuture<Void> after;
+
+        Append(Path file, String header, byte[] data, CompletableFuture<Void> after) {
+            this.file = file;
+            this.header = header;
+            this.data = data;
+            this.after = after;
+        }
+    }
+
+    private static class Task extends Request {
+        final FileTask task;
+
+        Task(FileTask task) {
+            this.task = task;
+        }
+    }
+
+    private static final class Close extends Task {
+        Close() {
+            super(() -> {});
+        }
+    }
+}
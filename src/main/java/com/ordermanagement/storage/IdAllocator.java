@@ -0,0 +1,129 @@
+package com.ordermanagement.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hi/lo id allocator backed by a *_ids.csv file.
+ * The file stores the upper bound of the reserved block, so it is only
+ * written when a block runs out; ids inside the block come from an
+ * AtomicLong with no I/O. After a restart the unused part of the last
+ * block is skipped, which leaves gaps but never repeats an id.
+ * The bound is written to a temporary file, synced and moved over the old
+ * one, so a crash leaves either the old or the new bound.
+ */
+public class IdAllocator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final Path idsFile;
+    private final int blockSize;
+    private final AtomicLong lastId;
+    private volatile long reservedUpTo;
+
+    public IdAllocator(Path idsFile) {
+        this(idsFile, DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdAllocator(Path idsFile, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.idsFile = idsFile;
+        this.blockSize = blockSize;
+        long persisted = loadUpperBound();
+        this.lastId = new AtomicLong(persisted);
+        this.reservedUpTo = persisted;
+    }
+
+    private long loadUpperBound() {
+        try {
+            if (Files.exists(idsFile)) {
+                List<String> lines = Files.readAllLines(idsFile);
+                if (!lines.isEmpty()) {
+                    return Long.parseLong(lines.get(0).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("⚠️ Creating initial IDs file: " + idsFile);
+        }
+        return 0L;
+    }
+
+    public long nextId() {
+        long id = lastId.incrementAndGet();
+        if (id > reservedUpTo) {
+            reserveThrough(id);
+        }
+        return id;
+    }
+
+    /**
+     * Makes sure no id up to usedId is handed out, for ids found in the data
+     * that a damaged ids file no longer covers.
+     */
+    public void advancePast(long usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+        if (usedId > reservedUpTo) {
+            reserveThrough(usedId);
+        }
+    }
+
+    // Slow path: persist the new bound before any id above the old one is returned
+    private synchronized void reserveThrough(long id) {
+        if (id <= reservedUpTo) {
+            return;
+        }
+        long bound = reservedUpTo;
+        while (bound < id) {
+            bound += blockSize;
+        }
+        try {
+            writeUpperBound(bound);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error saving last ID: " + e.getMessage(), e);
+        }
+        reservedUpTo = bound;
+    }
+
+    private void writeUpperBound(long bound) throws IOException {
+        Path tmp = idsFile.resolveSibling(idsFile.getFileName() + ".tmp");
+        byte[] content = (bound + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, idsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    // Makes the move itself survive a crash; not supported everywhere (e.g. Windows)
+    private void syncDirectory() {
+        Path dir = idsFile.toAbsolutePath().getParent();
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The file itself is synced
+        }
+    }
+
+    public long getReservedUpTo() {
+        return reservedUpTo;
+    }
+}
@@ -0,0 +1,733 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.*;
+import com.ordermanagement.enums.ProductCategory;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of the CSV files, indexed by id, email, customer id
+ * (ordered by creation time) and hour of order creation.
+ * CsvDataManager loads it once at startup and keeps it in sync on every write,
+ * so lookups never touch the disk.
+ * Entities are copied on the way in and out, so callers can't change the
+ * stored state without going through CsvDataManager. The catalog and
+ * stored order items share one product per product version, kept by
+ * ProductSnapshots while any of them holds it, instead of a product copy
+ * each; the copies handed out carry products of their own.
+ */
+public class IndexedStore {
+
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int MIN_EMAIL_FILTER_CAPACITY = 1024;
+    private static final double EMAIL_FILTER_FALSE_POSITIVE_RATE = 0.01;
+    private static final long NANOS_PER_HOUR = 3_600_000_000_000L;
+    private static final int ORDER_STREAM_CHUNK = 256;
+
+    private final Map<Long, CustomerDto> customersById = new LinkedHashMap<>();
+    private final Map<String, CustomerDto> customersByEmail = new HashMap<>();
+    // Answers lookups of unregistered emails without taking the lock
+    private volatile BloomFilter emailFilter = new BloomFilter(MIN_EMAIL_FILTER_CAPACITY, EMAIL_FILTER_FALSE_POSITIVE_RATE);
+    private int emailsInFilter;
+    private int staleEmails;
+    private final AtomicLong emailChecks = new AtomicLong();
+    private final AtomicLong emailFilterNegatives = new AtomicLong();
+    private final AtomicLong emailFalsePositives = new AtomicLong();
+    private final AtomicLong emailFilterRebuilds = new AtomicLong();
+    // Current catalog, as the snapshots order items share
+    private final Map<Long, ProductDto> productsById = new LinkedHashMap<>();
+    private final ProductSnapshots productSnapshots = new ProductSnapshots();
+    // Product ids in ascending order, for keyset pagination
+    private long[] sortedProductIds = new long[0];
+    // Positions in sortedProductIds per category and for available products
+    private final EnumMap<ProductCategory, BitSet> productsByCategory = new EnumMap<>(ProductCategory.class);
+    private final BitSet availableProducts = new BitSet();
+    // Names and descriptions, for substring search
+    private final TrigramIndex productText = new TrigramIndex();
+    // Name prefixes ranked by units ordered, for autocomplete
+    private final SuggestionTrie productSuggestions = new SuggestionTrie(MAX_SUGGESTIONS);
+    private final Map<Long, Long> unitsOrdered = new HashMap<>();
+    private final LongObjectMap<OrderDto> ordersById = new LongObjectMap<>();
+    private final CustomerOrderIndex ordersByCustomer = new CustomerOrderIndex();
+    private final OrderTimeIndex ordersByTime = new OrderTimeIndex(NANOS_PER_HOUR);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Customers
+    public void putCustomer(CustomerDto customer) {
+        CustomerDto stored = copyOf(customer);
+        lock.writeLock().lock();
+        try {
+            CustomerDto previous = customersById.put(stored.getId(), stored);
+            if (previous != null && previous.getEmail() != null
+                    && customersByEmail.get(previous.getEmail()) == previous) {
+                customersByEmail.remove(previous.getEmail());
+            }
+            if (stored.getEmail() != null && !customersByEmail.containsKey(stored.getEmail())) {
+                // In the filter before the map, so a lock-free miss is never wrong
+                emailFilter.add(stored.getEmail());
+                emailsInFilter++;
+                // Keep the first registration for an email, like a top-down file scan would
+                customersByEmail.put(stored.getEmail(), stored);
+            }
+            if (previous != null && previous.getEmail() != null
+                    && !customersByEmail.containsKey(previous.getEmail())) {
+                staleEmails++;
+            }
+            BloomFilter filter = emailFilter;
+            if (emailsInFilter > filter.capacity() || staleEmails > filter.capacity() / 2) {
+                rebuildEmailFilter();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Resized to twice the live emails, which also drops the stale ones
+    private void rebuildEmailFilter() {
+        BloomFilter filter = new BloomFilter(Math.max(MIN_EMAIL_FILTER_CAPACITY, customersByEmail.size() * 2),
+            EMAIL_FILTER_FALSE_POSITIVE_RATE);
+        for (String email : customersByEmail.keySet()) {
+            filter.add(email);
+        }
+        emailFilter = filter;
+        emailsInFilter = customersByEmail.size();
+        staleEmails = 0;
+        emailFilterRebuilds.incrementAndGet();
+    }
+
+    public CustomerDto findCustomerByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        emailChecks.incrementAndGet();
+        if (!emailFilter.mightContain(email)) {
+            emailFilterNegatives.incrementAndGet();
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            CustomerDto customer = customersByEmail.get(email);
+            if (customer == null) {
+                emailFalsePositives.incrementAndGet();
+            }
+            return copyOf(customer);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sizing and hit counts of the email Bloom filter. The observed false
+     * positive rate is the share of unregistered emails that got past it.
+     */
+    public Map<String, Object> emailFilterMetrics() {
+        lock.readLock().lock();
+        try {
+            BloomFilter filter = emailFilter;
+            long falsePositives = emailFalsePositives.get();
+            long misses = emailFilterNegatives.get() + falsePositives;
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("capacity", filter.capacity());
+            metrics.put("bits", filter.bitCount());
+            metrics.put("hashFunctions", filter.hashCount());
+            metrics.put("entries", emailsInFilter);
+            metrics.put("staleEntries", staleEmails);
+            metrics.put("expectedFalsePositiveRate", filter.expectedFalsePositiveRate());
+            metrics.put("checks", emailChecks.get());
+            metrics.put("definiteNegatives", emailFilterNegatives.get());
+            metrics.put("falsePositives", falsePositives);
+            metrics.put("observedFalsePositiveRate", misses == 0 ? 0.0 : (double) falsePositives / misses);
+            metrics.put("rebuilds", emailFilterRebuilds.get());
+            return metrics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public CustomerDto findCustomerById(Long id) {
+        lock.readLock().lock();
+        try {
+            return copyOf(customersById.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<CustomerDto> customers() {
+        lock.readLock().lock();
+        try {
+            return customersById.values().stream()
+                .map(IndexedStore::copyOf)
+                .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Products
+    public void replaceProducts(List<ProductDto> products) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> removed = new HashSet<>(productsById.keySet());
+            // Released once the new catalog holds its versions, so unchanged ones stay
+            List<ProductDto> previous = new ArrayList<>(productsById.values());
+            productsById.clear();
+            for (ProductDto product : products) {
+                productSnapshots.release(productsById.put(product.getId(), productSnapshots.acquire(product)));
+                if (product.getId() != null) {
+                    removed.remove(product.getId());
+                    // Unchanged texts are skipped by the index itself
+                    productText.put(product.getId(), product.getName(), product.getDescription());
+                    productSuggestions.put(product.getId(), product.getName(),
+                        unitsOrdered.getOrDefault(product.getId(), 0L));
+                }
+            }
+            for (Long id : removed) {
+                if (id != null) {
+                    productText.remove(id);
+                    productSuggestions.remove(id);
+                }
+            }
+            previous.forEach(productSnapshots::release);
+            sortedProductIds = productsById.keySet().stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+            indexProductBitmaps();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexProductBitmaps() {
+        productsByCategory.clear();
+        availableProducts.clear();
+        for (int i = 0; i < sortedProductIds.length; i++) {
+            ProductDto product = productsById.get(sortedProductIds[i]);
+            ProductCategory category = categoryOf(product);
+            if (category != null) {
+                productsByCategory.computeIfAbsent(category, k -> new BitSet()).set(i);
+            }
+            if (product.isAvailable()) {
+                availableProducts.set(i);
+            }
+        }
+    }
+
+    // Categories are stored as text; unknown ones are simply not indexed
+    private static ProductCategory categoryOf(ProductDto product) {
+        if (product.getCategory() == null) {
+            return null;
+        }
+        try {
+            return ProductCategory.valueOf(product.getCategory().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Products of the category by ascending id, optionally only the available ones.
+     */
+    public List<ProductDto> findProductsByCategory(ProductCategory category, boolean availableOnly) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = productsByCategory.get(category);
+            if (matches == null) {
+                return new ArrayList<>();
+            }
+            if (availableOnly) {
+                matches = (BitSet) matches.clone();
+                matches.and(availableProducts);
+            }
+            List<ProductDto> products = new ArrayList<>(matches.cardinality());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                products.add(copyOf(productsById.get(sortedProductIds[i])));
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit products whose name or description contains the query,
+     * ignoring case and accents.
+     */
+    public List<ProductDto> searchProducts(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            long[] ids = productText.search(query, limit);
+            List<ProductDto> products = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                products.add(copyOf(productsById.get(id)));
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit products (at most ten) with a name word
+     * starting with the prefix, most ordered first. Popularity comes from
+     * the orders held here, so it is not tracked in the mapped read mode.
+     */
+    public List<ProductDto> suggestProducts(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            long[] ids = productSuggestions.suggest(prefix, limit);
+            List<ProductDto> products = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                products.add(copyOf(productsById.get(id)));
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ProductDto findProductById(Long id) {
+        lock.readLock().lock();
+        try {
+            return copyOf(productsById.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Product versions kept for the catalog and the stored items
+    int productVersions() {
+        lock.readLock().lock();
+        try {
+            return productSnapshots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The catalog product as stored order items share it, without a copy.
+     * Not for callers outside the store, which get copies, and never changed.
+     */
+    ProductDto productSnapshot(Long id) {
+        lock.readLock().lock();
+        try {
+            return productsById.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<ProductDto> products() {
+        lock.readLock().lock();
+        try {
+            return productsById.values().stream()
+                .map(IndexedStore::copyOf)
+                .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit products with an id greater than afterId (all of them when
+     * afterId is null), by ascending id.
+     */
+    public List<ProductDto> productsAfter(Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = 0;
+            if (afterId != null) {
+                int found = Arrays.binarySearch(sortedProductIds, afterId);
+                from = found >= 0 ? found + 1 : -(found + 1);
+            }
+            int to = (int) Math.min((long) from + limit, sortedProductIds.length);
+            List<ProductDto> page = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                page.add(copyOf(productsById.get(sortedProductIds[i])));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Orders
+    public void putOrder(OrderDto order) {
+        putLoadedOrder(copyOf(order));
+    }
+
+    // Takes ownership of an order built by the loader, skipping the defensive copy
+    void putLoadedOrder(OrderDto stored) {
+        lock.writeLock().lock();
+        try {
+            shareProducts(stored);
+            OrderDto previous = ordersById.put(stored.getId(), stored);
+            // Updates rarely change the customer or creation time, so the index usually stays put
+            if (previous != null && previous.getCustomerId() != null
+                    && !(previous.getCustomerId().equals(stored.getCustomerId())
+                         && timeKey(previous) == timeKey(stored))) {
+                ordersByCustomer.remove(previous.getCustomerId(), previous.getId(), timeKey(previous));
+            }
+            if (stored.getCustomerId() != null) {
+                ordersByCustomer.add(stored.getCustomerId(), stored.getId(), timeKey(stored));
+            }
+            if (previous != null && previous.getCreatedAt() != null && timeKey(previous) != timeKey(stored)) {
+                ordersByTime.remove(previous.getId(), timeKey(previous));
+            }
+            if (stored.getCreatedAt() != null) {
+                ordersByTime.add(stored.getId(), timeKey(stored));
+            }
+            countUnits(previous, -1);
+            countUnits(stored, 1);
+            releaseProducts(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Points the items at the shared products, dropping their own product copies
+    private void shareProducts(OrderDto order) {
+        if (order.getItems() == null) {
+            return;
+        }
+        for (OrderItemDto item : order.getItems()) {
+            if (item != null) {
+                item.setProduct(productSnapshots.acquire(item.getProduct()));
+            }
+        }
+    }
+
+    // Lets go of the products of a replaced order, so versions only it held are dropped
+    private void releaseProducts(OrderDto order) {
+        if (order == null || order.getItems() == null) {
+            return;
+        }
+        for (OrderItemDto item : order.getItems()) {
+            if (item != null) {
+                productSnapshots.release(item.getProduct());
+            }
+        }
+    }
+
+    private void countUnits(OrderDto order, int sign) {
+        if (order == null || order.getItems() == null) {
+            return;
+        }
+        for (OrderItemDto item : order.getItems()) {
+            Long productId = item.getProduct() != null ? item.getProduct().getId() : null;
+            if (productId != null) {
+                long units = unitsOrdered.merge(productId, (long) sign * item.getQuantity(), Long::sum);
+                productSuggestions.setWeight(productId, units);
+            }
+        }
+    }
+
+    private static long timeKey(OrderDto order) {
+        LocalDateTime createdAt = order.getCreatedAt();
+        return createdAt == null ? Long.MIN_VALUE : timeKey(createdAt);
+    }
+
+    // Nanoseconds since the epoch, which fits a long from 1677 to 2262;
+    // times outside that saturate, so far-off query bounds still compare right
+    private static long timeKey(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        if (seconds >= Long.MAX_VALUE / 1_000_000_000L) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= Long.MIN_VALUE / 1_000_000_000L) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * 1_000_000_000L + time.getNano();
+    }
+
+    public OrderDto findOrderById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return copyOf(ordersById.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The customer's orders, oldest first.
+     */
+    public List<OrderDto> findOrdersByCustomerId(Long customerId) {
+        return findLatestOrdersByCustomerId(customerId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The customer's newest orders, at most limit of them, oldest first.
+     */
+    public List<OrderDto> findLatestOrdersByCustomerId(Long customerId, int limit) {
+        return latestOrdersByCustomer(customerId, limit, IndexedStore::copyOf);
+    }
+
+    /**
+     * Headers of the customer's newest orders; items are never copied.
+     */
+    public List<OrderSummaryDto> findLatestOrderSummariesByCustomerId(Long customerId, int limit) {
+        return latestOrdersByCustomer(customerId, limit, OrderSummaryDto::of);
+    }
+
+    private <T> List<T> latestOrdersByCustomer(Long customerId, int limit, Function<OrderDto, T> view) {
+        if (customerId == null) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            long[] ids = ordersByCustomer.latestOrderIds(customerId, limit);
+            List<T> orders = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                orders.add(view.apply(ordersById.get(id)));
+            }
+            return orders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit of the customer's orders created after the order afterOrderId
+     * (from the oldest when it is null), oldest first.
+     *
+     * @throws IllegalArgumentException if afterOrderId is not a known order
+     */
+    public List<OrderDto> findOrdersByCustomerIdAfter(Long customerId, Long afterOrderId, int limit) {
+        return ordersByCustomerAfter(customerId, afterOrderId, limit, IndexedStore::copyOf);
+    }
+
+    /**
+     * Headers of the orders findOrdersByCustomerIdAfter would return.
+     */
+    public List<OrderSummaryDto> findOrderSummariesByCustomerIdAfter(Long customerId, Long afterOrderId, int limit) {
+        return ordersByCustomerAfter(customerId, afterOrderId, limit, OrderSummaryDto::of);
+    }
+
+    private <T> List<T> ordersByCustomerAfter(Long customerId, Long afterOrderId, int limit,
+                                              Function<OrderDto, T> view) {
+        if (customerId == null) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            long afterTime = Long.MIN_VALUE;
+            long afterId = Long.MIN_VALUE;
+            if (afterOrderId != null) {
+                OrderDto after = ordersById.get(afterOrderId);
+                if (after == null) {
+                    throw new IllegalArgumentException("Unknown order cursor: " + afterOrderId);
+                }
+                afterTime = timeKey(after);
+                afterId = afterOrderId;
+            }
+            long[] ids = ordersByCustomer.orderIdsAfter(customerId, afterTime, afterId, limit);
+            List<T> orders = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                orders.add(view.apply(ordersById.get(id)));
+            }
+            return orders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes the orders created in [from, to) to the action, oldest first,
+     * only those whose status matches (ignoring case) when status is not null.
+     * A null bound leaves that end of the range open; orders without a
+     * creation time are never included. Orders are copied a chunk at a time
+     * under the read lock and handed over outside it, so a slow consumer
+     * neither blocks writers nor makes the store hold more than one chunk.
+     */
+    public void forEachOrderCreatedBetween(LocalDateTime from, LocalDateTime to, String status,
+                                           Consumer<OrderDto> action) {
+        forEachCreatedBetween(from, to, status, IndexedStore::copyOf, action);
+    }
+
+    /**
+     * Headers of the orders forEachOrderCreatedBetween would pass on.
+     */
+    public void forEachOrderSummaryCreatedBetween(LocalDateTime from, LocalDateTime to, String status,
+                                                  Consumer<OrderSummaryDto> action) {
+        forEachCreatedBetween(from, to, status, OrderSummaryDto::of, action);
+    }
+
+    private <T> void forEachCreatedBetween(LocalDateTime from, LocalDateTime to, String status,
+                                           Function<OrderDto, T> view, Consumer<? super T> action) {
+        long fromKey = from != null ? timeKey(from) : Long.MIN_VALUE;
+        long toKey = to != null ? timeKey(to) : Long.MAX_VALUE;
+        long afterTime = Long.MIN_VALUE;
+        long afterId = Long.MIN_VALUE;
+        List<T> chunk = new ArrayList<>(ORDER_STREAM_CHUNK);
+        long[] ids;
+        do {
+            lock.readLock().lock();
+            try {
+                ids = ordersByTime.orderIdsBetween(fromKey, toKey, afterTime, afterId, ORDER_STREAM_CHUNK);
+                for (long id : ids) {
+                    OrderDto order = ordersById.get(id);
+                    if (status == null || status.equalsIgnoreCase(order.getStatus())) {
+                        chunk.add(view.apply(order));
+                    }
+                }
+                if (ids.length > 0) {
+                    afterId = ids[ids.length - 1];
+                    afterTime = timeKey(ordersById.get(afterId));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            chunk.forEach(action);
+            chunk.clear();
+        } while (ids.length == ORDER_STREAM_CHUNK);
+    }
+
+    public List<OrderDto> orders() {
+        lock.readLock().lock();
+        try {
+            return ordersById.values().stream()
+                .map(IndexedStore::copyOf)
+                .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<OrderSummaryDto> orderSummaries() {
+        lock.readLock().lock();
+        try {
+            return ordersById.values().stream()
+                .map(OrderSummaryDto::of)
+                .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            customersById.clear();
+            customersByEmail.clear();
+            emailFilter = new BloomFilter(MIN_EMAIL_FILTER_CAPACITY, EMAIL_FILTER_FALSE_POSITIVE_RATE);
+            emailsInFilter = 0;
+            staleEmails = 0;
+            productsById.clear();
+            productSnapshots.clear();
+            sortedProductIds = new long[0];
+            productsByCategory.clear();
+            availableProducts.clear();
+            productText.clear();
+            productSuggestions.clear();
+            unitsOrdered.clear();
+            ordersById.clear();
+            ordersByCustomer.clear();
+            ordersByTime.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Copies
+    static CustomerDto copyOf(CustomerDto source) {
+        if (source == null) return null;
+        CustomerDto copy = new CustomerDto();
+        copy.setId(source.getId());
+        copy.setEmail(source.getEmail());
+        copy.setName(source.getName());
+        copy.setPhone(source.getPhone());
+        copy.setAddresses(source.getAddresses() != null ? new ArrayList<>(source.getAddresses()) : null);
+        copy.setPaymentCards(source.getPaymentCards() != null ? new ArrayList<>(source.getPaymentCards()) : null);
+        copy.setCreatedAt(source.getCreatedAt());
+        return copy;
+    }
+
+    static ProductDto copyOf(ProductDto source) {
+        if (source == null) return null;
+        ProductDto copy = new ProductDto();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setPrice(source.getPrice());
+        copy.setCategory(source.getCategory());
+        copy.setImageUrl(source.getImageUrl());
+        copy.setAvailable(source.isAvailable());
+        copy.setSellerName(source.getSellerName());
+        copy.setCreatedAt(source.getCreatedAt());
+        return copy;
+    }
+
+    static OrderItemDto copyOf(OrderItemDto source) {
+        return source == null ? null : copyOf(source, copyOf(source.getProduct()));
+    }
+
+    // Stored items share products; callers get a copy of their own, passed in
+    private static OrderItemDto copyOf(OrderItemDto source, ProductDto product) {
+        OrderItemDto copy = new OrderItemDto();
+        copy.setId(source.getId());
+        copy.setProduct(product);
+        copy.setQuantity(source.getQuantity());
+        // Prices in cents are copied as cents; getUnitPrice would build a BigDecimal
+        if (source.getUnitPriceMoney() != null) {
+            copy.setUnitPriceMoney(source.getUnitPriceMoney(), source.unitPriceScale());
+        } else {
+            copy.setUnitPrice(source.getUnitPrice());
+        }
+        copy.setObservations(source.getObservations());
+        return copy;
+    }
+
+    static OrderDto copyOf(OrderDto source) {
+        if (source == null) return null;
+        OrderDto copy = new OrderDto();
+        copy.setId(source.getId());
+        copy.setCustomerId(source.getCustomerId());
+        copy.setCustomerName(source.getCustomerName());
+        if (source.getItems() != null) {
+            copy.setItems(Collections.emptyList());
+            List<OrderItemDto> items = copy.getItems();
+            // One copy per product, which the order's items of that product share
+            Map<ProductDto, ProductDto> products = new IdentityHashMap<>();
+            for (OrderItemDto item : source.getItems()) {
+                items.add(item == null ? null
+                    : copyOf(item, products.computeIfAbsent(item.getProduct(), IndexedStore::copyOf)));
+            }
+        }
+        copy.setStatus(source.getStatus());
+        copy.setDeliveryAddress(source.getDeliveryAddress());
+        if (source.getDeliveryFeeMoney() != null) {
+            copy.setDeliveryFeeMoney(source.getDeliveryFeeMoney(), source.deliveryFeeScale());
+        } else {
+            copy.setDeliveryFee(source.getDeliveryFee());
+        }
+        if (source.getDiscountAmountMoney() != null) {
+            copy.setDiscountAmountMoney(source.getDiscountAmountMoney(), source.discountAmountScale());
+        } else {
+            copy.setDiscountAmount(source.getDiscountAmount());
+        }
+        copy.setCouponCode(source.getCouponCode());
+        copy.setObservations(source.getObservations());
+        copy.setPaymentMethod(source.getPaymentMethod());
+        copy.setDeliveryPersonName(source.getDeliveryPersonName());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        copy.setCancellationReason(source.getCancellationReason());
+        copy.setVersion(source.getVersion());
+        return copy;
+    }
+}
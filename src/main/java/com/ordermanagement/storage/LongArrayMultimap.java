@@ -0,0 +1,110 @@
+package com.ordermanagement.storage;
+
+import java.util.Arrays;
+
+/**
+ * Multimap from long keys to long values, each key's values kept in one
+ * growable long[] in insertion order. Built on {@link LongObjectMap}, so
+ * neither keys nor values are boxed.
+ * Not thread-safe.
+ */
+public class LongArrayMultimap {
+
+    private static final long[] NO_VALUES = new long[0];
+
+    private final LongObjectMap<Values> map;
+
+    public LongArrayMultimap() {
+        this(16);
+    }
+
+    public LongArrayMultimap(int expectedKeys) {
+        map = new LongObjectMap<>(expectedKeys);
+    }
+
+    public void put(long key, long value) {
+        map.computeIfAbsent(key, k -> new Values()).add(value);
+    }
+
+    /**
+     * Removes the first occurrence of value under key; the key goes away
+     * with its last value.
+     */
+    public boolean remove(long key, long value) {
+        Values values = map.get(key);
+        if (values == null || !values.remove(value)) {
+            return false;
+        }
+        if (values.size == 0) {
+            map.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Copy of the key's values, empty when there are none.
+     */
+    public long[] get(long key) {
+        Values values = map.get(key);
+        return values == null ? NO_VALUES : Arrays.copyOf(values.items, values.size);
+    }
+
+    public long[] removeAll(long key) {
+        Values values = map.remove(key);
+        return values == null ? NO_VALUES : Arrays.copyOf(values.items, values.size);
+    }
+
+    public boolean containsKey(long key) {
+        return map.containsKey(key);
+    }
+
+    public int valueCount(long key) {
+        Values values = map.get(key);
+        return values == null ? 0 : values.size;
+    }
+
+    /**
+     * Number of keys.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public interface KeyValuesConsumer {
+        void accept(long key, long[] values);
+    }
+
+    /**
+     * Visits each key with a copy of its values.
+     */
+    public void forEach(KeyValuesConsumer consumer) {
+        map.forEach((key, values) -> consumer.accept(key, Arrays.copyOf(values.items, values.size)));
+    }
+
+    private static final class Values {
+        private long[] items = new long[2];
+        private int size;
+
+        void add(long value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        boolean remove(long value) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == value) {
+                    System.arraycopy(items, i + 1, items, i, size - i - 1);
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
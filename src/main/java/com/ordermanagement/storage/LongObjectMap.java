@@ -0,0 +1,263 @@
+package com.ordermanagement.storage;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+
+/**
+ * Map from primitive long keys to non-null values, without boxed keys or
+ * per-entry node objects. Entries are appended to parallel key and value
+ * arrays, and an open-addressing table of entry positions (linear probing)
+ * finds them. That keeps about 20 bytes of overhead per entry, against
+ * roughly 50 for a HashMap<Long, V>, and iterates in insertion order like
+ * a LinkedHashMap. Removal leaves a hole that the next resize compacts.
+ * Not thread-safe, and not to be modified while iterating.
+ */
+public class LongObjectMap<V> {
+
+    /**
+     * Receives the entries of {@link #forEach}.
+     */
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private Object[] values;
+    // Entry position + 1, EMPTY or TOMBSTONE
+    private int[] table;
+    private int shift;
+    private int used;
+    private int size;
+    private int tombstones;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        int capacity = Math.max(4, expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        allocateTable(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = find(key);
+        return slot >= 0 ? (V) values[table[slot] - 1] : null;
+    }
+
+    /**
+     * Associates the value with the key, keeping the key's position if it
+     * was already present. Returns the previous value or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("LongObjectMap does not hold null values");
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            int entry = table[slot] - 1;
+            V previous = (V) values[entry];
+            values[entry] = value;
+            return previous;
+        }
+        if (used == keys.length) {
+            resize();
+        }
+        keys[used] = key;
+        values[used] = value;
+        insertSlot(key, used);
+        used++;
+        size++;
+        return null;
+    }
+
+    public V computeIfAbsent(long key, LongFunction<? extends V> create) {
+        V value = get(key);
+        if (value == null) {
+            value = create.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        int entry = table[slot] - 1;
+        V previous = (V) values[entry];
+        values[entry] = null;
+        table[slot] = TOMBSTONE;
+        tombstones++;
+        size--;
+        if (size == 0) {
+            clear();
+        }
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, used, null);
+        Arrays.fill(table, EMPTY);
+        used = 0;
+        size = 0;
+        tombstones = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * The keys in insertion order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Live view of the values in insertion order.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<V>() {
+                    private int next = skipHoles(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < used;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public V next() {
+                        if (next >= used) {
+                            throw new NoSuchElementException();
+                        }
+                        V value = (V) values[next];
+                        next = skipHoles(next + 1);
+                        return value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int skipHoles(int from) {
+        while (from < used && values[from] == null) {
+            from++;
+        }
+        return from;
+    }
+
+    // Table slot holding the key, or -1
+    private int find(long key) {
+        int mask = table.length - 1;
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != TOMBSTONE && keys[entry - 1] == key) {
+                return slot;
+            }
+        }
+    }
+
+    private void insertSlot(long key, int entry) {
+        int mask = table.length - 1;
+        int slot = slotOf(key);
+        while (table[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (table[slot] == TOMBSTONE) {
+            tombstones--;
+        }
+        table[slot] = entry + 1;
+    }
+
+    private int slotOf(long key) {
+        return (int) ((key * GOLDEN) >>> shift);
+    }
+
+    // Entry arrays are full: compact away the holes, growing if still crowded
+    private void resize() {
+        int capacity = size * 2 > keys.length ? keys.length * 2 : keys.length;
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if (oldValues[i] != null) {
+                keys[n] = oldKeys[i];
+                values[n] = oldValues[i];
+                n++;
+            }
+        }
+        used = n;
+        rehash(capacity);
+    }
+
+    private void rehash(int capacity) {
+        allocateTable(capacity);
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                insertSlot(keys[i], i);
+            }
+        }
+    }
+
+    // Twice the entry capacity, so probes always reach an empty slot quickly;
+    // tombstones only ever take the place of entries counted in used
+    private void allocateTable(int capacity) {
+        int length = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        table = new int[length];
+        shift = 64 - Integer.numberOfTrailingZeros(length);
+        tombstones = 0;
+    }
+}
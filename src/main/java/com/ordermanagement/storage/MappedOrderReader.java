@@ -0,0 +1,830 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.OrderDto;
+import com.ordermanagement.dto.OrderItemDto;
+import com.ordermanagement.dto.OrderSummaryDto;
+import com.ordermanagement.dto.ProductDto;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Read path over orders.csv and order_items.csv that keeps the files
+ * memory-mapped instead of loading them. One scan builds an index from
+ * order id to the byte range of its latest row and of that version's item
+ * rows; orders are decoded from the mapped bytes only when asked for, so
+ * heap use grows with the number of orders, not with the size of the files.
+ * The scan also keeps each item's product id and amount, so order summaries
+ * are decoded from the order row alone.
+ * Expects the versioned format written by OrderLog.
+ */
+public class MappedOrderReader implements Closeable {
+
+    // Files are mapped in chunks, since one mapping cannot exceed 2 GB
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final int CREATED_AT_FIELD = 6;
+    private static final int QUANTITY_FIELD = 3;
+    private static final int UNIT_PRICE_FIELD = 4;
+    // createdAt keys are its digits, yyyyMMddHHmmss, so an hour spans mmss
+    private static final long KEYS_PER_HOUR = 10_000;
+    private static final int ORDER_STREAM_CHUNK = 256;
+
+    /** Receives the indexed state of each order. */
+    public interface OrderVisitor {
+        void visit(long orderId, long version, int itemCount);
+    }
+
+    private final MappedFile orders;
+    private final MappedFile items;
+    private final Function<Long, ProductDto> products;
+
+    // Latest row of each order, in file order
+    private final LongObjectMap<Entry> index = new LongObjectMap<>();
+    // Order ids per customer, ordered by creation time
+    private final CustomerOrderIndex ordersByCustomer = new CustomerOrderIndex();
+    // Order ids per hour of creation
+    private final OrderTimeIndex ordersByTime = new OrderTimeIndex(KEYS_PER_HOUR);
+    // Item rows seen before the order row of their version, as
+    // (version, offset, length, productId, amountCents) tuples
+    private final LongArrayMultimap pendingItems = new LongArrayMultimap();
+    private long orderRows;
+    private long itemRows;
+    // Rows skipped because a number they need does not fit
+    private long malformedRows;
+
+    /**
+     * @param products resolves item product ids; items whose product is
+     *                 unknown are skipped, as in the regular loader, and
+     *                 each decoded order gets a copy of the products of its
+     *                 items
+     */
+    public MappedOrderReader(Path ordersFile, Path orderItemsFile, Function<Long, ProductDto> products) {
+        this(ordersFile, orderItemsFile, products, DEFAULT_CHUNK_SIZE);
+    }
+
+    MappedOrderReader(Path ordersFile, Path orderItemsFile, Function<Long, ProductDto> products, int chunkSize) {
+        this.orders = new MappedFile(ordersFile, chunkSize);
+        this.items = new MappedFile(orderItemsFile, chunkSize);
+        this.products = products;
+    }
+
+    /**
+     * Maps and indexes rows appended since the last call. A file that was
+     * replaced (e.g. by compaction) is re-indexed from the start. Rows still
+     * being written are left for the next call.
+     */
+    public synchronized void refresh() throws IOException {
+        boolean ordersReplaced = orders.remap();
+        boolean itemsReplaced = items.remap();
+        if (ordersReplaced || itemsReplaced) {
+            index.clear();
+            ordersByCustomer.clear();
+            ordersByTime.clear();
+            pendingItems.clear();
+            orderRows = 0;
+            itemRows = 0;
+            malformedRows = 0;
+            orders.reset();
+            items.reset();
+            orders.remap();
+            items.remap();
+        }
+        orders.scannedTo = scan(orders, orders.scannedTo, true);
+        items.scannedTo = scan(items, items.scannedTo, false);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Order and item rows indexed so far, including superseded ones.
+     */
+    public synchronized long getRowCount() {
+        return orderRows + itemRows;
+    }
+
+    /**
+     * Rows left out of the index because an id, the version, a quantity, a
+     * price or an item amount overflowed.
+     */
+    public synchronized long getMalformedRows() {
+        return malformedRows;
+    }
+
+    public synchronized void forEachOrder(OrderVisitor visitor) {
+        index.forEach((id, order) -> visitor.visit(id, order.version, order.itemCount));
+    }
+
+    /**
+     * Visits orders with item rows of a version above the order's, the rows an
+     * append left behind when its order row failed, with the highest such
+     * version and how many rows it has.
+     */
+    public synchronized void forEachOrphanedItems(OrderVisitor visitor) {
+        pendingItems.forEach((id, pending) -> {
+            long version = 0;
+            int rows = 0;
+            for (int i = 0; i < pending.length; i += 5) {
+                if (pending[i] > version) {
+                    version = pending[i];
+                    rows = 0;
+                }
+                if (pending[i] == version) {
+                    rows++;
+                }
+            }
+            visitor.visit(id, version, rows);
+        });
+    }
+
+    public OrderDto findOrderById(Long orderId) {
+        if (orderId == null) {
+            return null;
+        }
+        String rows;
+        synchronized (this) {
+            Entry entry = index.get(orderId);
+            if (entry == null) {
+                return null;
+            }
+            rows = entry.read(orders, items);
+        }
+        return decode(rows);
+    }
+
+    /**
+     * The order without its items, which are summed from the amounts kept by
+     * the scan instead of being decoded. Items whose product is unknown are
+     * left out, as in findOrderById.
+     */
+    public OrderSummaryDto findOrderSummaryById(Long orderId) {
+        if (orderId == null) {
+            return null;
+        }
+        String row;
+        long[] productIds;
+        long[] amounts;
+        synchronized (this) {
+            Entry entry = index.get(orderId);
+            if (entry == null) {
+                return null;
+            }
+            row = orders.string(entry.offset, entry.length);
+            productIds = Arrays.copyOf(entry.itemProductIds, entry.itemCount);
+            amounts = Arrays.copyOf(entry.itemAmounts, entry.itemCount);
+        }
+        OrderDto order = decode(row + '\n');
+        if (order == null) {
+            return null;
+        }
+        OrderSummaryDto summary = OrderSummaryDto.of(order);
+        int itemCount = 0;
+        long subtotalCents = 0;
+        // Takes over once the cents no longer fit in a long
+        BigDecimal bigSubtotal = null;
+        for (int i = 0; i < productIds.length; i++) {
+            if (products.apply(productIds[i]) != null) {
+                itemCount++;
+                if (bigSubtotal == null) {
+                    try {
+                        subtotalCents = Math.addExact(subtotalCents, amounts[i]);
+                        continue;
+                    } catch (ArithmeticException e) {
+                        bigSubtotal = BigDecimal.valueOf(subtotalCents, 2);
+                    }
+                }
+                bigSubtotal = bigSubtotal.add(BigDecimal.valueOf(amounts[i], 2));
+            }
+        }
+        summary.setItemCount(itemCount);
+        summary.setSubtotal(bigSubtotal != null ? bigSubtotal : BigDecimal.valueOf(subtotalCents, 2));
+        return summary;
+    }
+
+    /**
+     * The customer's orders, oldest first.
+     */
+    public List<OrderDto> findOrdersByCustomerId(Long customerId) {
+        return findLatestOrdersByCustomerId(customerId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The customer's newest orders, at most limit of them, oldest first.
+     */
+    public List<OrderDto> findLatestOrdersByCustomerId(Long customerId, int limit) {
+        return decodeAll(latestOrderIds(customerId, limit), this::findOrderById);
+    }
+
+    /**
+     * Headers of the customer's newest orders; item rows are not read.
+     */
+    public List<OrderSummaryDto> findLatestOrderSummariesByCustomerId(Long customerId, int limit) {
+        return decodeAll(latestOrderIds(customerId, limit), this::findOrderSummaryById);
+    }
+
+    private synchronized long[] latestOrderIds(Long customerId, int limit) {
+        return customerId == null ? new long[0] : ordersByCustomer.latestOrderIds(customerId, limit);
+    }
+
+    private static <T> List<T> decodeAll(long[] ids, LongFunction<T> decode) {
+        List<T> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            T order = decode.apply(id);
+            if (order != null) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Up to limit of the customer's orders created after the order afterOrderId
+     * (from the oldest when it is null), oldest first.
+     *
+     * @throws IllegalArgumentException if afterOrderId is not an indexed order
+     */
+    public List<OrderDto> findOrdersByCustomerIdAfter(Long customerId, Long afterOrderId, int limit) {
+        return decodeAll(orderIdsAfter(customerId, afterOrderId, limit), this::findOrderById);
+    }
+
+    /**
+     * Headers of the orders findOrdersByCustomerIdAfter would return.
+     */
+    public List<OrderSummaryDto> findOrderSummariesByCustomerIdAfter(Long customerId, Long afterOrderId, int limit) {
+        return decodeAll(orderIdsAfter(customerId, afterOrderId, limit), this::findOrderSummaryById);
+    }
+
+    private synchronized long[] orderIdsAfter(Long customerId, Long afterOrderId, int limit) {
+        if (customerId == null) {
+            return new long[0];
+        }
+        long afterTime = Long.MIN_VALUE;
+        long afterId = Long.MIN_VALUE;
+        if (afterOrderId != null) {
+            Entry after = index.get(afterOrderId);
+            if (after == null) {
+                throw new IllegalArgumentException("Unknown order cursor: " + afterOrderId);
+            }
+            afterTime = after.createdAt;
+            afterId = afterOrderId;
+        }
+        return ordersByCustomer.orderIdsAfter(customerId, afterTime, afterId, limit);
+    }
+
+    /**
+     * Passes the orders created in [from, to) to the action, oldest first,
+     * only those whose status matches (ignoring case) when status is not null.
+     * A null bound leaves that end of the range open. Ids are taken from the
+     * index a chunk at a time and decoded outside the lock.
+     */
+    public void forEachOrderCreatedBetween(LocalDateTime from, LocalDateTime to, String status,
+                                           Consumer<OrderDto> action) {
+        forEachCreatedBetween(from, to, status, this::findOrderById, OrderDto::getStatus, action);
+    }
+
+    /**
+     * Headers of the orders forEachOrderCreatedBetween would pass on.
+     */
+    public void forEachOrderSummaryCreatedBetween(LocalDateTime from, LocalDateTime to, String status,
+                                                  Consumer<OrderSummaryDto> action) {
+        forEachCreatedBetween(from, to, status, this::findOrderSummaryById, OrderSummaryDto::getStatus, action);
+    }
+
+    private <T> void forEachCreatedBetween(LocalDateTime from, LocalDateTime to, String status,
+                                           LongFunction<T> decode, Function<T, String> statusOf,
+                                           Consumer<? super T> action) {
+        long fromKey = from != null ? timeKey(from) : Long.MIN_VALUE;
+        long toKey = to != null ? timeKey(to) : Long.MAX_VALUE;
+        long afterTime = Long.MIN_VALUE;
+        long afterId = Long.MIN_VALUE;
+        long[] ids;
+        do {
+            synchronized (this) {
+                ids = ordersByTime.orderIdsBetween(fromKey, toKey, afterTime, afterId, ORDER_STREAM_CHUNK);
+                if (ids.length > 0) {
+                    afterId = ids[ids.length - 1];
+                    afterTime = index.get(afterId).createdAt;
+                }
+            }
+            for (long id : ids) {
+                T order = decode.apply(id);
+                if (order != null && (status == null || status.equalsIgnoreCase(statusOf.apply(order)))) {
+                    action.accept(order);
+                }
+            }
+        } while (ids.length == ORDER_STREAM_CHUNK);
+    }
+
+    // Same digits as the scanned createdAt; rows keep whole seconds, so a
+    // bound inside a second starts from the next one
+    private static long timeKey(LocalDateTime time) {
+        long key = TimestampCodec.digitKey(time);
+        return time.getNano() > 0 ? key + 1 : key;
+    }
+
+    /**
+     * View of all indexed orders that decodes each one as it is iterated.
+     */
+    public Collection<OrderDto> orders() {
+        return view(this::findOrderById);
+    }
+
+    /**
+     * Like orders(), decoding only the headers.
+     */
+    public Collection<OrderSummaryDto> orderSummaries() {
+        return view(this::findOrderSummaryById);
+    }
+
+    private <T> Collection<T> view(LongFunction<T> decode) {
+        long[] ids;
+        synchronized (this) {
+            ids = index.keys();
+        }
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    private int position;
+                    private T next = advance();
+
+                    private T advance() {
+                        while (position < ids.length) {
+                            T order = decode.apply(ids[position++]);
+                            if (order != null) {
+                                return order;
+                            }
+                        }
+                        return null;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public T next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        T current = next;
+                        next = advance();
+                        return current;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+        };
+    }
+
+    // The order row comes first, followed by its item rows
+    private OrderDto decode(String rows) {
+        try (CsvReader csv = new CsvReader(new StringReader(rows), rows.length())) {
+            if (!csv.next()) {
+                return null;
+            }
+            OrderDto order = OrderRowParser.parseOrder(csv);
+            if (order == null) {
+                return null;
+            }
+            order.setVersion(csv.getLong(csv.fieldCount() - 1));
+            // Filled in place, so the order's list keeps the subtotal as items arrive
+            order.setItems(Collections.emptyList());
+            List<OrderItemDto> orderItems = order.getItems();
+            // The lookup gives shared instances; the order gets one copy per product,
+            // which its items of that product share, as they would after a load
+            Map<Long, ProductDto> copies = new HashMap<>();
+            while (csv.next()) {
+                if (OrderRowParser.isValidItem(csv)) {
+                    ProductDto product = copies.computeIfAbsent(csv.getLong(1), id -> IndexedStore.copyOf(products.apply(id)));
+                    if (product != null) {
+                        orderItems.add(OrderRowParser.parseItem(csv, product));
+                    }
+                }
+            }
+            return order;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error decoding mapped order: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * Walks complete records from the given offset, tracking quotes so line
+     * breaks inside quoted fields do not end a record. Only the id fields,
+     * the trailing version, the digits of created_at (yyyyMMddHHmmss, which
+     * sorts like the timestamp; epoch milliseconds are converted to the same
+     * digits) and an item's quantity and unit price are decoded, with their
+     * sign. Item rows whose quantity or price the scan cannot decode (quoted,
+     * comma decimals, a '+' sign) are parsed with OrderRowParser instead. A
+     * record whose decoded numbers overflow, or whose amount does not fit in
+     * a long, is reported and skipped. Returns the offset after the
+     * last complete record.
+     */
+    private long scan(MappedFile file, long from, boolean orderFile) {
+        long end = file.size;
+        long recordStart = from;
+        long fieldStart = from;
+        boolean inQuotes = false;
+        int fieldCount = 0;
+        long value = 0;
+        boolean numeric = true;
+        // Only digits, one point and a leading minus, which toCents can take
+        boolean plain = true;
+        boolean empty = true;
+        boolean negative = false;
+        // The digits of the current field do not fit in a long
+        boolean overflow = false;
+        boolean lastOverflowed = false;
+        boolean malformed = false;
+        long first = -1;
+        long second = -1;
+        long last = -1;
+        long createdAt = 0;
+        long quantity = 0;
+        boolean hasQuantity = false;
+        long unitPriceCents = 0;
+        boolean hasUnitPrice = false;
+        // The quantity or price needs the full parser
+        boolean undecoded = false;
+        // Digits seen after the decimal point, or -1 before it
+        int fractionDigits = -1;
+
+        for (long position = from; position < end; position++) {
+            byte b = file.get(position);
+            if (inQuotes) {
+                if (b == '"') {
+                    inQuotes = false;
+                }
+                continue;
+            }
+            if (b == ',' || b == '\n') {
+                long fieldValue = numeric && !empty && !overflow ? (negative ? -value : value) : -1;
+                if (fieldCount == 0) {
+                    first = fieldValue;
+                    malformed |= overflow;
+                } else if (fieldCount == 1) {
+                    second = fieldValue;
+                    malformed |= overflow;
+                } else if (orderFile && fieldCount == CREATED_AT_FIELD) {
+                    if (empty || negative || overflow || (fieldValue == 0 && position - fieldStart == 2)) {
+                        // No time, as for the old "00" placeholder; a lone 0 is the epoch
+                        createdAt = TimestampCodec.NO_TIME;
+                    } else if (fieldValue >= 0) {
+                        // A bare number is epoch milliseconds
+                        createdAt = TimestampCodec.epochMillisDigitKey(fieldValue);
+                    }
+                } else if (!orderFile && fieldCount == QUANTITY_FIELD) {
+                    undecoded |= position > fieldStart && !numeric;
+                    hasQuantity = numeric && !empty && !overflow;
+                    quantity = fieldValue;
+                    // The loader reads quantities as ints
+                    malformed |= overflow || (hasQuantity && (int) quantity != quantity);
+                } else if (!orderFile && fieldCount == UNIT_PRICE_FIELD && position > fieldStart && !plain) {
+                    undecoded = true;
+                } else if (!orderFile && fieldCount == UNIT_PRICE_FIELD && !empty) {
+                    hasUnitPrice = !overflow;
+                    if (hasUnitPrice) {
+                        try {
+                            unitPriceCents = toCents(value, fractionDigits);
+                        } catch (ArithmeticException e) {
+                            hasUnitPrice = false;
+                            overflow = true;
+                        }
+                        unitPriceCents = negative ? -unitPriceCents : unitPriceCents;
+                    }
+                    malformed |= overflow;
+                }
+                last = fieldValue;
+                lastOverflowed = overflow;
+                fractionDigits = -1;
+                fieldCount++;
+                fieldStart = position + 1;
+                value = 0;
+                numeric = true;
+                plain = true;
+                empty = true;
+                negative = false;
+                overflow = false;
+                if (b == '\n') {
+                    int length = (int) (position - recordStart);
+                    // The last field is the version
+                    malformed |= lastOverflowed;
+                    long amount = 0;
+                    // Headers have no order id and are not items
+                    if (!orderFile && undecoded && !malformed && first >= 0) {
+                        try {
+                            amount = parsedAmount(file, recordStart, length);
+                        } catch (ArithmeticException | NumberFormatException | IOException e) {
+                            malformed = true;
+                        }
+                    } else if (!orderFile && hasQuantity && hasUnitPrice) {
+                        try {
+                            amount = Math.multiplyExact(quantity, unitPriceCents);
+                        } catch (ArithmeticException e) {
+                            malformed = true;
+                        }
+                    }
+                    if (malformed) {
+                        reportMalformed(file, recordStart, orderFile);
+                    } else if (orderFile) {
+                        indexOrder(first, second, fieldCount, last, createdAt, recordStart, length);
+                    } else {
+                        indexItem(first, second, fieldCount, last, recordStart, length, amount);
+                    }
+                    recordStart = position + 1;
+                    fieldCount = 0;
+                    createdAt = 0;
+                    hasQuantity = false;
+                    hasUnitPrice = false;
+                    undecoded = false;
+                    malformed = false;
+                }
+                continue;
+            }
+            if (b == '"') {
+                inQuotes = true;
+                numeric = false;
+                plain = false;
+            } else if (b >= '0' && b <= '9') {
+                int digit = b - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    overflow = true;
+                } else {
+                    value = value * 10 + digit;
+                }
+                empty = false;
+                if (fieldCount == CREATED_AT_FIELD) {
+                    createdAt = createdAt * 10 + (b - '0');
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.') {
+                plain &= fractionDigits < 0;
+                fractionDigits = 0;
+                numeric = false;
+            } else if (b == '-' && empty && !negative && fractionDigits < 0) {
+                negative = true;
+            } else if (b != ' ' && b != '\r' && b != '\t') {
+                numeric = false;
+                plain = false;
+            }
+        }
+        return recordStart;
+    }
+
+    // The digits of a decimal, with fractionDigits of them after the point, in cents;
+    // throws ArithmeticException when the cents overflow
+    private static long toCents(long digits, int fractionDigits) {
+        int fraction = Math.max(0, fractionDigits);
+        for (; fraction < 2; fraction++) {
+            digits = Math.multiplyExact(digits, 10);
+        }
+        for (; fraction > 2; fraction--) {
+            digits /= 10;
+        }
+        return digits;
+    }
+
+    // The amount of an item row the scan could not decode, read the way the loaders read it
+    private static long parsedAmount(MappedFile file, long offset, int length) throws IOException {
+        String row = file.string(offset, length);
+        try (CsvReader csv = new CsvReader(new StringReader(row + '\n'), row.length() + 1)) {
+            if (!csv.next() || !OrderRowParser.isValidItem(csv)) {
+                return 0;
+            }
+            return OrderRowParser.parseItemAmountCents(csv);
+        }
+    }
+
+    private void reportMalformed(MappedFile file, long offset, boolean orderFile) {
+        malformedRows++;
+        System.err.println("Skipping malformed " + (orderFile ? "order" : "order item") + " row at offset "
+            + offset + " of " + file.path + ": a number does not fit or cannot be read");
+    }
+
+    private void indexOrder(long orderId, long customerId, int fieldCount, long version, long createdAt,
+                            long offset, int length) {
+        // Headers, blank lines and rows without ids or version are not orders
+        if (fieldCount < 10 || orderId < 0 || customerId < 0 || version < 0) {
+            return;
+        }
+        orderRows++;
+        Entry current = index.get(orderId);
+        if (current != null && version < current.version) {
+            return;
+        }
+        Entry entry = new Entry(offset, length, version, customerId, createdAt);
+        if (current != null && current.version == version) {
+            entry.copyItems(current);
+        }
+        long[] pending = pendingItems.removeAll(orderId);
+        for (int i = 0; i < pending.length; i += 5) {
+            if (pending[i] == version) {
+                entry.addItem(pending[i + 1], (int) pending[i + 2], pending[i + 3], pending[i + 4]);
+            } else if (pending[i] > version) {
+                addPendingItem(orderId, pending[i], pending[i + 1], (int) pending[i + 2], pending[i + 3], pending[i + 4]);
+            }
+        }
+        index.put(orderId, entry);
+        if (current != null && (current.customerId != customerId || current.createdAt != createdAt)) {
+            ordersByCustomer.remove(current.customerId, orderId, current.createdAt);
+        }
+        ordersByCustomer.add(customerId, orderId, createdAt);
+        if (current != null && current.createdAt != createdAt) {
+            ordersByTime.remove(orderId, current.createdAt);
+        }
+        // Rows without a timestamp have no place in time
+        if (createdAt != TimestampCodec.NO_TIME) {
+            ordersByTime.add(orderId, createdAt);
+        }
+    }
+
+    private void indexItem(long orderId, long productId, int fieldCount, long version, long offset, int length,
+                           long amountCents) {
+        if (fieldCount < 7 || orderId < 0 || version < 0) {
+            return;
+        }
+        itemRows++;
+        Entry entry = index.get(orderId);
+        if (entry != null && entry.version == version) {
+            entry.addItem(offset, length, productId, amountCents);
+        } else if (entry == null || version > entry.version) {
+            addPendingItem(orderId, version, offset, length, productId, amountCents);
+        }
+    }
+
+    private void addPendingItem(long orderId, long version, long offset, int length, long productId,
+                                long amountCents) {
+        pendingItems.put(orderId, version);
+        pendingItems.put(orderId, offset);
+        pendingItems.put(orderId, length);
+        pendingItems.put(orderId, productId);
+        pendingItems.put(orderId, amountCents);
+    }
+
+    @Override
+    public synchronized void close() {
+        // Mappings are released once the buffers are garbage collected
+        index.clear();
+        ordersByCustomer.clear();
+        ordersByTime.clear();
+        pendingItems.clear();
+        orders.reset();
+        items.reset();
+    }
+
+    private static final class Entry {
+        final long offset;
+        final int length;
+        final long version;
+        final long customerId;
+        final long createdAt;
+        long[] itemOffsets = new long[0];
+        int[] itemLengths = new int[0];
+        long[] itemProductIds = new long[0];
+        long[] itemAmounts = new long[0];
+        int itemCount;
+
+        Entry(long offset, int length, long version, long customerId, long createdAt) {
+            this.offset = offset;
+            this.length = length;
+            this.version = version;
+            this.customerId = customerId;
+            this.createdAt = createdAt;
+        }
+
+        void addItem(long itemOffset, int itemLength, long productId, long amountCents) {
+            if (itemCount == itemOffsets.length) {
+                int capacity = Math.max(4, itemCount * 2);
+                itemOffsets = Arrays.copyOf(itemOffsets, capacity);
+                itemLengths = Arrays.copyOf(itemLengths, capacity);
+                itemProductIds = Arrays.copyOf(itemProductIds, capacity);
+                itemAmounts = Arrays.copyOf(itemAmounts, capacity);
+            }
+            itemOffsets[itemCount] = itemOffset;
+            itemLengths[itemCount] = itemLength;
+            itemProductIds[itemCount] = productId;
+            itemAmounts[itemCount] = amountCents;
+            itemCount++;
+        }
+
+        void copyItems(Entry other) {
+            for (int i = 0; i < other.itemCount; i++) {
+                addItem(other.itemOffsets[i], other.itemLengths[i], other.itemProductIds[i], other.itemAmounts[i]);
+            }
+        }
+
+        // Copies the order row and its item rows out of the mapped files
+        String read(MappedFile orders, MappedFile items) {
+            StringBuilder rows = new StringBuilder(length * (1 + itemCount));
+            rows.append(orders.string(offset, length)).append('\n');
+            for (int i = 0; i < itemCount; i++) {
+                rows.append(items.string(itemOffsets[i], itemLengths[i])).append('\n');
+            }
+            return rows.toString();
+        }
+    }
+
+    private static final class MappedFile {
+        private final Path path;
+        private final int chunkSize;
+        private final List<MappedByteBuffer> chunks = new ArrayList<>();
+        private Object fileKey;
+        private long size;
+        private long scannedTo;
+
+        MappedFile(Path path, int chunkSize) {
+            this.path = path;
+            this.chunkSize = chunkSize;
+        }
+
+        void reset() {
+            chunks.clear();
+            fileKey = null;
+            size = 0;
+            scannedTo = 0;
+        }
+
+        /**
+         * Extends the mapping to the current file size.
+         * Returns true if the file was replaced or truncated since it was mapped.
+         */
+        boolean remap() throws IOException {
+            if (!Files.exists(path)) {
+                return size > 0;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long newSize = attributes.size();
+            if (size > 0 && (newSize < size
+                    || (fileKey != null && !fileKey.equals(attributes.fileKey())))) {
+                return true;
+            }
+            fileKey = attributes.fileKey();
+            if (newSize == size) {
+                return false;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // The last chunk may have been mapped while still partial
+                int first = (int) (size / chunkSize);
+                while (chunks.size() > first) {
+                    chunks.remove(chunks.size() - 1);
+                }
+                for (long start = (long) first * chunkSize; start < newSize; start += chunkSize) {
+                    chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, newSize - start)));
+                }
+            }
+            size = newSize;
+            return false;
+        }
+
+        byte get(long position) {
+            return chunks.get((int) (position / chunkSize)).get((int) (position % chunkSize));
+        }
+
+        String string(long position, int length) {
+            byte[] bytes = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                long at = position + copied;
+                ByteBuffer chunk = chunks.get((int) (at / chunkSize)).duplicate();
+                chunk.position((int) (at % chunkSize));
+                int count = Math.min(length - copied, chunk.remaining());
+                chunk.get(bytes, copied, count);
+                copied += count;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
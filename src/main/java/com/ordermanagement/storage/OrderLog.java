@@ -0,0 +1,341 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.AddressDto;
+import com.ordermanagement.dto.OrderDto;
+import com.ordermanagement.dto.OrderItemDto;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Append-only log over orders.csv and order_items.csv.
+ * Every save or update appends one order row plus its item rows, tagged with
+ * a per-order version; readers keep only the latest version of each order.
+ * Superseded rows are dropped by compact(), which rewrites both files.
+ *
+ * A version counts only once both its item rows and its order row are
+ * written. If either write fails, the order, the log and the caller's view
+ * stay at the previous version, which is also what a reload reads: any item
+ * rows that did reach the file carry a version no order row ever gets.
+ */
+public class OrderLog {
+
+    static final String ORDERS_HEADER =
+        "id,customer_id,customer_name,status,delivery_fee,payment_method,created_at,cancellation_reason,delivery_address,version";
+    static final String ORDER_ITEMS_HEADER =
+        "order_id,product_id,product_name,quantity,unit_price,observations,order_version";
+
+    // Compaction only pays off once enough dead rows have piled up
+    private static final long MIN_DEAD_ROWS_FOR_COMPACTION = 1000;
+
+    private static final long ANY_VERSION = -1;
+
+    // Encoded rows are handed to the channel in chunks of about this size
+    private static final int COMPACT_FLUSH_BYTES = 64 * 1024;
+
+    private final Path ordersFile;
+    private final Path orderItemsFile;
+    private final GroupCommitWriter writer;
+    private final CsvDataManager.TimestampFormat timestampFormat;
+
+    // Latest written version and row count (order row + item rows) per order
+    private final Map<Long, Long> versions = new HashMap<>();
+    private final Map<Long, Integer> rowCounts = new HashMap<>();
+    // Versions of failed appends, never reused: their item rows may be in the file
+    private final Map<Long, Long> failedVersions = new HashMap<>();
+    // One append per order at a time, from taking the version to writing the rows
+    private final StripedLock orderLocks = new StripedLock();
+    private long liveRows;
+    private long deadRows;
+    private int pendingAppends;
+
+    public OrderLog(Path ordersFile, Path orderItemsFile, GroupCommitWriter writer) {
+        this(ordersFile, orderItemsFile, writer, CsvDataManager.TimestampFormat.TEXT);
+    }
+
+    public OrderLog(Path ordersFile, Path orderItemsFile, GroupCommitWriter writer,
+                    CsvDataManager.TimestampFormat timestampFormat) {
+        this.ordersFile = ordersFile;
+        this.orderItemsFile = orderItemsFile;
+        this.writer = writer;
+        this.timestampFormat = timestampFormat;
+    }
+
+    /**
+     * Registers the latest version of an order found while loading the files.
+     * A version replayed after a snapshot turns the snapshot's rows dead.
+     */
+    public synchronized void recordLoaded(long orderId, long version, int itemCount) {
+        versions.put(orderId, version);
+        Integer previousRows = rowCounts.put(orderId, 1 + itemCount);
+        if (previousRows != null) {
+            liveRows -= previousRows;
+            deadRows += previousRows;
+        }
+        liveRows += 1 + itemCount;
+    }
+
+    /**
+     * Registers rows found while loading that belong to superseded versions.
+     */
+    public synchronized void recordDeadRows(long rows) {
+        deadRows += rows;
+    }
+
+    /**
+     * Registers item rows found while loading whose order row was never
+     * written, so later appends of the order skip their version.
+     */
+    public synchronized void recordOrphanedItems(long orderId, long version) {
+        failedVersions.merge(orderId, version, Math::max);
+    }
+
+    public synchronized long getVersion(long orderId) {
+        return versions.getOrDefault(orderId, 0L);
+    }
+
+    /**
+     * The largest order id found in the files, including orders whose only
+     * rows are orphaned items; 0 when there are none.
+     */
+    public synchronized long maxOrderId() {
+        long max = 0;
+        for (Long id : versions.keySet()) {
+            max = Math.max(max, id);
+        }
+        for (Long id : failedVersions.keySet()) {
+            max = Math.max(max, id);
+        }
+        return max;
+    }
+
+    public synchronized long getDeadRows() {
+        return deadRows;
+    }
+
+    public synchronized long getLiveRows() {
+        return liveRows;
+    }
+
+    /**
+     * Appends the next version of the order and runs onAppended once its rows
+     * are written. The order row is written only after its item rows, and the
+     * new version is recorded, and set on the order, only once both are; a
+     * failed write throws and leaves everything at the previous version.
+     * The rows are written by the group-commit thread, so appends to different
+     * orders share one write instead of holding the log while each one hits
+     * the disk.
+     */
+    public long append(OrderDto order, Runnable onAppended) throws IOException {
+        return append(order, ANY_VERSION, onAppended);
+    }
+
+    /**
+     * Like append, but only if the order is still at expectedVersion.
+     * Returns -1 without writing anything when another version got there first.
+     */
+    public long appendIfVersion(OrderDto order, long expectedVersion, Runnable onAppended) throws IOException {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Expected version must not be negative");
+        }
+        return append(order, expectedVersion, onAppended);
+    }
+
+    private long append(OrderDto order, long expectedVersion, Runnable onAppended) throws IOException {
+        Lock orderLock = orderLocks.forKey(order.getId());
+        orderLock.lock();
+        try {
+            return appendLocked(order, expectedVersion, onAppended);
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    private long appendLocked(OrderDto order, long expectedVersion, Runnable onAppended) throws IOException {
+        CompletableFuture<Void> itemsWritten = CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> orderWritten;
+        long version;
+        int itemCount;
+        synchronized (this) {
+            long current = versions.getOrDefault(order.getId(), 0L);
+            if (expectedVersion != ANY_VERSION && current != expectedVersion) {
+                return -1;
+            }
+            version = Math.max(current, failedVersions.getOrDefault(order.getId(), 0L)) + 1;
+            List<OrderItemDto> items = order.getItems();
+            itemCount = items != null ? items.size() : 0;
+
+            CsvRowEncoder encoder = CsvRowEncoder.pooled();
+            if (itemCount > 0) {
+                for (OrderItemDto item : items) {
+                    encodeItemRow(encoder, order.getId(), item, version);
+                }
+                itemsWritten = writer.append(orderItemsFile, ORDER_ITEMS_HEADER, encoder.toByteArray());
+                encoder.reset();
+            }
+            // The order row is only written once its item rows are
+            orderWritten = writer.append(ordersFile, ORDERS_HEADER,
+                encodeOrderRow(encoder, order, version, timestampFormat).toByteArray(), itemsWritten);
+            pendingAppends++;
+        }
+
+        boolean written = false;
+        try {
+            GroupCommitWriter.await(itemsWritten);
+            GroupCommitWriter.await(orderWritten);
+            written = true;
+            synchronized (this) {
+                Integer previousRows = rowCounts.put(order.getId(), 1 + itemCount);
+                if (previousRows != null) {
+                    liveRows -= previousRows;
+                    deadRows += previousRows;
+                }
+                liveRows += 1 + itemCount;
+                versions.put(order.getId(), version);
+                failedVersions.remove(order.getId());
+                order.setVersion(version);
+                onAppended.run();
+            }
+        } finally {
+            synchronized (this) {
+                if (!written) {
+                    failedVersions.put(order.getId(), version);
+                }
+                pendingAppends--;
+                notifyAll();
+            }
+        }
+        return version;
+    }
+
+    public synchronized boolean needsCompaction() {
+        return deadRows >= MIN_DEAD_ROWS_FOR_COMPACTION && deadRows >= liveRows;
+    }
+
+    /**
+     * Rewrites both files with only the latest version of each order.
+     * The snapshot is taken under the log lock and written on the writer
+     * thread, after every append queued before it. Versions are kept, so a
+     * crash between the two file moves leaves a readable pair of files.
+     */
+    public void compact(Supplier<Collection<OrderDto>> latestOrders) throws IOException {
+        CompletableFuture<Void> written;
+        int orderCount;
+        synchronized (this) {
+            // Appends still waiting on the writer have not reached latestOrders yet
+            while (pendingAppends > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for pending appends", e);
+                }
+            }
+            Collection<OrderDto> orders = latestOrders.get();
+            Map<Long, Long> snapshotVersions = new HashMap<>(versions);
+            orderCount = orders.size();
+            written = writer.submit(() -> writeCompacted(orders, snapshotVersions));
+
+            long rows = 0;
+            for (OrderDto order : orders) {
+                rows += 1 + (order.getItems() != null ? order.getItems().size() : 0);
+            }
+            liveRows = rows;
+            deadRows = 0;
+        }
+        GroupCommitWriter.await(written);
+        System.out.println("🧹 Order log compacted: " + orderCount + " orders");
+    }
+
+    private void writeCompacted(Collection<OrderDto> orders, Map<Long, Long> snapshotVersions) throws IOException {
+        Path ordersTmp = ordersFile.resolveSibling(ordersFile.getFileName() + ".compact");
+        Path itemsTmp = orderItemsFile.resolveSibling(orderItemsFile.getFileName() + ".compact");
+
+        CsvRowEncoder orderRows = new CsvRowEncoder().raw(ORDERS_HEADER + "\n");
+        CsvRowEncoder itemRows = new CsvRowEncoder().raw(ORDER_ITEMS_HEADER + "\n");
+        try (FileChannel orderChannel = openForRewrite(ordersTmp);
+             FileChannel itemChannel = openForRewrite(itemsTmp)) {
+            for (OrderDto order : orders) {
+                long version = snapshotVersions.getOrDefault(order.getId(), 0L);
+                encodeOrderRow(orderRows, order, version, timestampFormat);
+                if (order.getItems() != null) {
+                    for (OrderItemDto item : order.getItems()) {
+                        encodeItemRow(itemRows, order.getId(), item, version);
+                    }
+                }
+                if (orderRows.size() >= COMPACT_FLUSH_BYTES) {
+                    orderRows.flushTo(orderChannel);
+                }
+                if (itemRows.size() >= COMPACT_FLUSH_BYTES) {
+                    itemRows.flushTo(itemChannel);
+                }
+            }
+            orderRows.flushTo(orderChannel);
+            itemRows.flushTo(itemChannel);
+            writer.forceRewrite(orderChannel);
+            writer.forceRewrite(itemChannel);
+        }
+
+        Files.move(itemsTmp, orderItemsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer.syncDirectory(orderItemsFile);
+        Files.move(ordersTmp, ordersFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer.syncDirectory(ordersFile);
+    }
+
+    private static FileChannel openForRewrite(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // Same columns as ORDERS_HEADER; the address is one quoted field of |-separated parts
+    static CsvRowEncoder encodeOrderRow(CsvRowEncoder encoder, OrderDto order, long version,
+                                        CsvDataManager.TimestampFormat timestampFormat) {
+        encoder.field(order.getId())
+            .field(order.getCustomerId())
+            .quoted(order.getCustomerName())
+            .field(order.getStatus());
+        if (order.getDeliveryFeeMoney() != null) {
+            encoder.money(order.getDeliveryFeeMoney());
+        } else {
+            encoder.money(order.getDeliveryFee() != null ? order.getDeliveryFee() : BigDecimal.ZERO);
+        }
+        encoder.field(order.getPaymentMethod())
+            .timestamp(order.getCreatedAt(), timestampFormat)
+            .optionalQuoted(order.getCancellationReason());
+        AddressDto addr = order.getDeliveryAddress();
+        if (addr != null) {
+            encoder.quotedJoin('|', addr.getStreet(), addr.getNumber(), addr.getNeighborhood(),
+                addr.getCity(), addr.getState(), addr.getZipCode());
+        } else {
+            encoder.quoted("");
+        }
+        return encoder.field(version).endRow();
+    }
+
+    // Prices held in cents are written without building a BigDecimal
+    static CsvRowEncoder encodeItemRow(CsvRowEncoder encoder, long orderId, OrderItemDto item, long version) {
+        encoder.field(orderId)
+            .field(item.getProduct().getId())
+            .quoted(item.getProduct().getName())
+            .field(item.getQuantity());
+        if (item.getUnitPriceMoney() != null) {
+            encoder.money(item.getUnitPriceMoney());
+        } else {
+            encoder.money(item.getUnitPrice());
+        }
+        return encoder.optionalQuoted(item.getObservations())
+            .field(version)
+            .endRow();
+    }
+}
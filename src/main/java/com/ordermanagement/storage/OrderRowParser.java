@@ -0,0 +1,107 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.AddressDto;
+import com.ordermanagement.dto.OrderDto;
+import com.ordermanagement.dto.OrderItemDto;
+import com.ordermanagement.dto.ProductDto;
+import com.ordermanagement.model.Money;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * Decodes rows of orders.csv and order_items.csv from a CsvReader
+ * positioned on a record. Shared by the streaming loader and the mapped
+ * read path so both accept exactly the same rows.
+ */
+final class OrderRowParser {
+
+    private OrderRowParser() {}
+
+    /**
+     * Returns null for rows missing the required id fields.
+     */
+    static OrderDto parseOrder(CsvReader csv) {
+        if (csv.fieldCount() < 9) {
+            return null;
+        }
+        // Validation before parsing
+        if (csv.isEmpty(0) || csv.isEmpty(1)) {
+            return null; // Skip line with empty required fields
+        }
+        OrderDto order = new OrderDto();
+        order.setId(csv.getLong(0));
+        order.setCustomerId(csv.getLong(1));
+        order.setCustomerName(csv.getString(2));
+        order.setStatus(csv.getString(3));
+        Money deliveryFee = csv.getMoney(4);
+        if (deliveryFee != null) {
+            order.setDeliveryFeeMoney(deliveryFee);
+        } else {
+            order.setDeliveryFee(csv.getBigDecimal(4));
+        }
+        order.setPaymentMethod(csv.getString(5));
+
+        // Validation before date parsing
+        if (csv.isEmpty(6) || csv.fieldEquals(6, "00")) {
+            order.setCreatedAt(LocalDateTime.now()); // Use current date as fallback
+        } else {
+            try {
+                order.setCreatedAt(csv.getTimestamp(6));
+            } catch (Exception dateParseException) {
+                System.err.println("Error parsing date '" + csv.getString(6) + "', using current date");
+                order.setCreatedAt(LocalDateTime.now());
+            }
+        }
+        if (!csv.isEmpty(7)) {
+            order.setCancellationReason(csv.getString(7));
+        }
+
+        // Parse delivery address
+        if (!csv.isEmpty(8)) {
+            String[] addrParts = csv.getString(8).split("\\|");
+            if (addrParts.length >= 6) {
+                AddressDto address = new AddressDto(
+                    addrParts[0], addrParts[1], addrParts[2],
+                    addrParts[3], addrParts[4], addrParts[5]);
+                order.setDeliveryAddress(address);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * True when the item row has the fields parseItem needs.
+     */
+    static boolean isValidItem(CsvReader csv) {
+        return csv.fieldCount() >= 6 && !csv.isEmpty(0) && !csv.isEmpty(1) && !csv.isEmpty(3);
+    }
+
+    static OrderItemDto parseItem(CsvReader csv, ProductDto product) {
+        OrderItemDto item = new OrderItemDto();
+        item.setProduct(product);
+        item.setQuantity(csv.getInt(3));
+        Money unitPrice = csv.getMoney(4);
+        if (unitPrice != null) {
+            item.setUnitPriceMoney(unitPrice);
+        } else {
+            item.setUnitPrice(csv.getBigDecimal(4));
+        }
+        if (!csv.isEmpty(5) && !csv.fieldEquals(5, "00")) {
+            item.setObservations(csv.getString(5));
+        }
+        return item;
+    }
+
+    /**
+     * The item's quantity times its unit price in cents, dropping digits
+     * beyond the cents like the mapped scan. Throws ArithmeticException when
+     * it does not fit in a long and NumberFormatException when a field is
+     * not a number.
+     */
+    static long parseItemAmountCents(CsvReader csv) {
+        Money unitPrice = csv.getMoney(4);
+        long cents = unitPrice != null ? unitPrice.cents()
+            : csv.getBigDecimal(4).movePointRight(2).setScale(0, RoundingMode.DOWN).longValueExact();
+        return Math.multiplyExact(cents, (long) csv.getInt(3));
+    }
+}
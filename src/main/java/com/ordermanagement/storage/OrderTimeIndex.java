@@ -0,0 +1,97 @@
+package com.ordermanagement.storage;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Secondary index from creation time to order ids, split into fixed-width
+ * buckets (an hour in practice) whose ids are sorted by (timeKey, orderId).
+ * A range query seeks to the bucket of its start and reads buckets in order
+ * until its end, so it costs O(log b + matches) instead of a pass over every
+ * order, and an order replayed out of time order only shifts its own bucket.
+ * Time keys are any encoding the owner keeps monotonic in time; bucketWidth
+ * is how many key units one bucket spans.
+ * Not thread-safe: the owning store guards it with its own lock.
+ */
+final class OrderTimeIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final long bucketWidth;
+    private final TreeMap<Long, TimeOrderedIds> buckets = new TreeMap<>();
+    private int size;
+
+    OrderTimeIndex(long bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth must be positive");
+        }
+        this.bucketWidth = bucketWidth;
+    }
+
+    void add(long orderId, long timeKey) {
+        TimeOrderedIds bucket = buckets.computeIfAbsent(bucketOf(timeKey), k -> new TimeOrderedIds());
+        int before = bucket.size;
+        bucket.add(timeKey, orderId);
+        size += bucket.size - before;
+    }
+
+    void remove(long orderId, long timeKey) {
+        long key = bucketOf(timeKey);
+        TimeOrderedIds bucket = buckets.get(key);
+        if (bucket != null && bucket.remove(timeKey, orderId)) {
+            size--;
+            if (bucket.size == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Up to limit ids of the orders with fromKey <= timeKey < toKey that come
+     * after (afterTime, afterId), oldest first. Pass the last order returned
+     * as the cursor to read the range in chunks; it does not have to still be
+     * in the index.
+     */
+    long[] orderIdsBetween(long fromKey, long toKey, long afterTime, long afterId, int limit) {
+        if (limit <= 0 || fromKey >= toKey) {
+            return NO_IDS;
+        }
+        if (afterTime < fromKey) {
+            // Just before the first possible entry at fromKey
+            afterTime = fromKey;
+            afterId = Long.MIN_VALUE;
+        }
+        long[] ids = new long[Math.min(limit, 64)];
+        int count = 0;
+        for (TimeOrderedIds bucket : buckets.subMap(bucketOf(afterTime), true, bucketOf(toKey - 1), true).values()) {
+            int found = bucket.search(afterTime, afterId);
+            for (int i = found >= 0 ? found + 1 : -(found + 1); i < bucket.size; i++) {
+                if (bucket.timeKeys[i] >= toKey || count == limit) {
+                    return Arrays.copyOf(ids, count);
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, (int) Math.min(limit, count * 2L));
+                }
+                ids[count++] = bucket.ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    void clear() {
+        buckets.clear();
+        size = 0;
+    }
+
+    private long bucketOf(long timeKey) {
+        return Math.floorDiv(timeKey, bucketWidth);
+    }
+}
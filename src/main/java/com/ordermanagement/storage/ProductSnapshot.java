@@ -0,0 +1,73 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.ProductDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * The content of a product at one version, fixed when it is taken. The
+ * catalog and the stored order items that refer to that version share its
+ * product(), one ProductDto for all of them. That instance stays inside the
+ * storage layer and is never changed there: orders and products handed out
+ * carry plain copies made by IndexedStore.copyOf. Matching goes by the
+ * fields kept here, so it does not depend on the shared instance.
+ */
+final class ProductSnapshot {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final String category;
+    private final String imageUrl;
+    private final boolean available;
+    private final String sellerName;
+    private final LocalDateTime createdAt;
+    private final int version;
+    private final ProductDto product;
+
+    ProductSnapshot(ProductDto source, int version) {
+        this.id = source.getId();
+        this.name = source.getName();
+        this.description = source.getDescription();
+        this.price = source.getPrice();
+        this.category = source.getCategory();
+        this.imageUrl = source.getImageUrl();
+        this.available = source.isAvailable();
+        this.sellerName = source.getSellerName();
+        this.createdAt = source.getCreatedAt();
+        this.version = version;
+        this.product = IndexedStore.copyOf(source);
+    }
+
+    /**
+     * Numbers the versions kept for this product id, newest highest, starting at 1.
+     */
+    int version() {
+        return version;
+    }
+
+    /**
+     * The product the catalog and stored items share for this version.
+     */
+    ProductDto product() {
+        return product;
+    }
+
+    /**
+     * True when the product has exactly this content, so it can share the snapshot.
+     */
+    boolean sameAs(ProductDto other) {
+        return Objects.equals(id, other.getId())
+            && Objects.equals(name, other.getName())
+            && Objects.equals(description, other.getDescription())
+            && Objects.equals(price, other.getPrice())
+            && Objects.equals(category, other.getCategory())
+            && Objects.equals(imageUrl, other.getImageUrl())
+            && available == other.isAvailable()
+            && Objects.equals(sellerName, other.getSellerName())
+            && Objects.equals(createdAt, other.getCreatedAt());
+    }
+}
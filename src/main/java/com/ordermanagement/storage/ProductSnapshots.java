@@ -0,0 +1,118 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.ProductDto;
+
+import java.util.Arrays;
+
+/**
+ * Interns product snapshots by (product id, content), so order items that
+ * refer to the same product content share one product instead of a copy
+ * each, and memory for order history grows with distinct products rather
+ * than with items.
+ * A version is kept while something holds it: acquire counts a holder and
+ * release drops it, and the last release forgets the version. IndexedStore
+ * holds the current catalog and every item of the stored orders, so only
+ * the catalog versions and the older ones live orders still point at are
+ * kept, and a product is matched against those few.
+ * Products without an id get a copy of their own, which is not counted.
+ * Not thread-safe; IndexedStore calls it under its write lock.
+ */
+final class ProductSnapshots {
+
+    private static final Version[] NONE = new Version[0];
+
+    // A snapshot and the number of holders sharing its product
+    private static final class Version {
+        final ProductSnapshot snapshot;
+        int holders;
+
+        Version(ProductSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    // Versions per product id, oldest first
+    private final LongObjectMap<Version[]> versionsById = new LongObjectMap<>();
+    private int size;
+
+    /**
+     * The shared product with the product's content, counting one more
+     * holder of it, or null for null.
+     */
+    ProductDto acquire(ProductDto product) {
+        if (product == null) {
+            return null;
+        }
+        if (product.getId() == null) {
+            return IndexedStore.copyOf(product);
+        }
+        long id = product.getId();
+        Version[] versions = versionsById.get(id);
+        if (versions == null) {
+            versions = NONE;
+        }
+        // Newest first: a catalog update is usually what items point at next
+        for (int i = versions.length - 1; i >= 0; i--) {
+            ProductSnapshot snapshot = versions[i].snapshot;
+            if (snapshot.product() == product || snapshot.sameAs(product)) {
+                versions[i].holders++;
+                return snapshot.product();
+            }
+        }
+        int number = versions.length > 0 ? versions[versions.length - 1].snapshot.version() + 1 : 1;
+        Version next = new Version(new ProductSnapshot(product, number));
+        next.holders = 1;
+        versions = Arrays.copyOf(versions, versions.length + 1);
+        versions[versions.length - 1] = next;
+        versionsById.put(id, versions);
+        size++;
+        return next.snapshot.product();
+    }
+
+    /**
+     * Drops one holder of a product acquire gave, forgetting its version
+     * when that was the last one. Other products are ignored.
+     */
+    void release(ProductDto shared) {
+        if (shared == null || shared.getId() == null) {
+            return;
+        }
+        long id = shared.getId();
+        Version[] versions = versionsById.get(id);
+        if (versions == null) {
+            return;
+        }
+        for (int i = 0; i < versions.length; i++) {
+            if (versions[i].snapshot.product() == shared) {
+                if (--versions[i].holders == 0) {
+                    forget(id, versions, i);
+                }
+                return;
+            }
+        }
+    }
+
+    private void forget(long id, Version[] versions, int index) {
+        size--;
+        if (versions.length == 1) {
+            versionsById.remove(id);
+            return;
+        }
+        Version[] kept = new Version[versions.length - 1];
+        System.arraycopy(versions, 0, kept, 0, index);
+        System.arraycopy(versions, index + 1, kept, index, kept.length - index);
+        versionsById.put(id, kept);
+    }
+
+    /**
+     * Number of versions kept, over all ids.
+     */
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        versionsById.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,606 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.AddressDto;
+import com.ordermanagement.dto.CustomerDto;
+import com.ordermanagement.dto.OrderDto;
+import com.ordermanagement.dto.OrderItemDto;
+import com.ordermanagement.dto.ProductDto;
+import com.ordermanagement.model.Money;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary checkpoint of the customers, products and orders held in memory.
+ * Alongside the data it records how far each CSV file had been written, so
+ * a later startup only has to parse the rows appended after the checkpoint.
+ * Values are stored in binary form (epoch seconds, unscaled decimals), which
+ * skips the date and decimal parsing that dominates a full CSV load.
+ * A CRC32 of everything before it ends the file, so a torn or damaged
+ * snapshot is rejected instead of loaded.
+ */
+public class StoreSnapshot {
+
+    private static final int MAGIC = 0x4F4D5331; // "OMS1"
+    // 2: the body is followed by its CRC32
+    private static final int FORMAT_VERSION = 2;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    // Decimal encodings
+    private static final byte NULL_VALUE = 0;
+    private static final byte LONG_DECIMAL = 1;
+    private static final byte TEXT_DECIMAL = 2;
+
+    /*
+     * Strings are dictionary-encoded: the first occurrence of a value is
+     * written in full and later ones as an index, which shrinks repeated
+     * statuses, names and addresses and lets the loaded orders share one
+     * String instance per value. The dictionary is bounded, after which new
+     * values are written literally.
+     */
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+    private static final int NULL_STRING = 0;
+    private static final int LITERAL_STRING = 1;
+    private static final int NEW_STRING = 2;
+    private static final int STRING_REFERENCE = 3;
+
+    /**
+     * Length of a CSV file at checkpoint time plus a checksum of the bytes
+     * just before that point, used to tell an appended-to file from one that
+     * was rewritten (compaction, product saves, manual edits).
+     */
+    public static final class FileMark {
+        private static final int CHECKSUM_WINDOW = 4096;
+
+        /** Covers no bytes, so the whole file is read at startup. */
+        public static final FileMark NONE = new FileMark(0, 0);
+
+        private final long length;
+        private final long checksum;
+
+        FileMark(long length, long checksum) {
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        public static FileMark of(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return new FileMark(0, 0);
+            }
+            long length = Files.size(file);
+            return new FileMark(length, checksum(file, length));
+        }
+
+        /**
+         * True when the file still starts with the bytes seen at checkpoint time.
+         */
+        public boolean matches(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return length == 0;
+            }
+            return Files.size(file) >= length && checksum(file, length) == checksum;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        private static long checksum(Path file, long length) throws IOException {
+            int window = (int) Math.min(length, CHECKSUM_WINDOW);
+            ByteBuffer buffer = ByteBuffer.allocate(window);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = length - window;
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position + buffer.position());
+                    if (read < 0) {
+                        break;
+                    }
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, buffer.position());
+            return crc.getValue();
+        }
+    }
+
+    private final FileMark customersMark;
+    private final FileMark productsMark;
+    private final FileMark ordersMark;
+    private final FileMark orderItemsMark;
+    private final List<CustomerDto> customers;
+    private final List<ProductDto> products;
+    private final List<OrderDto> orders;
+    private final Map<Long, Long> orderVersions;
+    private final long deadOrderRows;
+
+    public StoreSnapshot(FileMark customersMark, FileMark productsMark, FileMark ordersMark, FileMark orderItemsMark,
+                         List<CustomerDto> customers, List<ProductDto> products, List<OrderDto> orders,
+                         Map<Long, Long> orderVersions, long deadOrderRows) {
+        this.customersMark = customersMark;
+        this.productsMark = productsMark;
+        this.ordersMark = ordersMark;
+        this.orderItemsMark = orderItemsMark;
+        this.customers = customers;
+        this.products = products;
+        this.orders = orders;
+        this.orderVersions = orderVersions;
+        this.deadOrderRows = deadOrderRows;
+    }
+
+    public FileMark getCustomersMark() { return customersMark; }
+    public FileMark getProductsMark() { return productsMark; }
+    public FileMark getOrdersMark() { return ordersMark; }
+    public FileMark getOrderItemsMark() { return orderItemsMark; }
+    public List<CustomerDto> getCustomers() { return customers; }
+    public List<ProductDto> getProducts() { return products; }
+
+    /**
+     * Orders as checkpointed. Item products point at the snapshot's products;
+     * an item whose product is no longer listed gets a placeholder carrying
+     * only the id, so callers can resolve it against products.csv or drop it.
+     */
+    public List<OrderDto> getOrders() { return orders; }
+
+    public long getOrderVersion(long orderId) {
+        return orderVersions.getOrDefault(orderId, 0L);
+    }
+
+    public long getDeadOrderRows() { return deadOrderRows; }
+
+    /**
+     * Writes the snapshot to a temp file and moves it over the previous one.
+     */
+    public void write(Path file) throws IOException {
+        write(file, GroupCommitWriter.Durability.SYNC_PER_BATCH);
+    }
+
+    /**
+     * Like write(Path), syncing the temp file before the move unless the
+     * durability mode leaves flushing to the operating system.
+     */
+    public void write(Path file, GroupCommitWriter.Durability durability) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Output out = new Output(FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            for (FileMark mark : new FileMark[] {customersMark, productsMark, ordersMark, orderItemsMark}) {
+                out.writeLong(mark.length);
+                out.writeLong(mark.checksum);
+            }
+
+            out.writeInt(customers.size());
+            for (CustomerDto customer : customers) {
+                out.writeLong(customer.getId());
+                out.writeString(customer.getEmail());
+                out.writeString(customer.getName());
+                out.writeString(customer.getPhone());
+                out.writeTimestamp(customer.getCreatedAt());
+            }
+
+            out.writeInt(products.size());
+            for (ProductDto product : products) {
+                out.writeLong(product.getId());
+                out.writeString(product.getName());
+                out.writeString(product.getDescription());
+                out.writeDecimal(product.getPrice());
+                out.writeString(product.getCategory());
+                out.writeString(product.getSellerName());
+            }
+
+            out.writeLong(deadOrderRows);
+            out.writeInt(orders.size());
+            for (OrderDto order : orders) {
+                out.writeLong(order.getId());
+                out.writeLong(getOrderVersion(order.getId()));
+                out.writeLong(order.getCustomerId());
+                out.writeString(order.getCustomerName());
+                out.writeString(order.getStatus());
+                if (order.getDeliveryFeeMoney() != null) {
+                    out.writeMoney(order.getDeliveryFeeMoney(), order.deliveryFeeScale());
+                } else {
+                    out.writeDecimal(order.getDeliveryFee());
+                }
+                out.writeString(order.getPaymentMethod());
+                out.writeTimestamp(order.getCreatedAt());
+                out.writeString(order.getCancellationReason());
+
+                AddressDto address = order.getDeliveryAddress();
+                out.writeBoolean(address != null);
+                if (address != null) {
+                    out.writeString(address.getStreet());
+                    out.writeString(address.getNumber());
+                    out.writeString(address.getNeighborhood());
+                    out.writeString(address.getCity());
+                    out.writeString(address.getState());
+                    out.writeString(address.getZipCode());
+                }
+
+                List<OrderItemDto> items = order.getItems() != null ? order.getItems() : new ArrayList<>();
+                out.writeInt(items.size());
+                for (OrderItemDto item : items) {
+                    out.writeLong(item.getProduct().getId());
+                    out.writeInt(item.getQuantity());
+                    if (item.getUnitPriceMoney() != null) {
+                        out.writeMoney(item.getUnitPriceMoney(), item.unitPriceScale());
+                    } else {
+                        out.writeDecimal(item.getUnitPrice());
+                    }
+                    out.writeString(item.getObservations());
+                }
+            }
+            out.writeChecksum();
+            if (durability != GroupCommitWriter.Durability.NONE) {
+                out.force();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static StoreSnapshot read(Path file) throws IOException {
+        try (Input in = new Input(FileChannel.open(file, StandardOpenOption.READ))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            int formatVersion = in.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + formatVersion);
+            }
+            FileMark[] marks = new FileMark[4];
+            for (int i = 0; i < marks.length; i++) {
+                marks[i] = new FileMark(in.readLong(), in.readLong());
+            }
+
+            int customerCount = in.readInt();
+            List<CustomerDto> customers = new ArrayList<>(customerCount);
+            for (int i = 0; i < customerCount; i++) {
+                CustomerDto customer = new CustomerDto();
+                customer.setId(in.readLong());
+                customer.setEmail(in.readString());
+                customer.setName(in.readString());
+                customer.setPhone(in.readString());
+                customer.setCreatedAt(in.readTimestamp());
+                customers.add(customer);
+            }
+
+            int productCount = in.readInt();
+            List<ProductDto> products = new ArrayList<>(productCount);
+            Map<Long, ProductDto> productsById = new HashMap<>(productCount * 2);
+            for (int i = 0; i < productCount; i++) {
+                long id = in.readLong();
+                ProductDto product = new ProductDto(in.readString(), in.readString(), in.readDecimal(), in.readString());
+                product.setId(id);
+                product.setSellerName(in.readString());
+                products.add(product);
+                productsById.put(id, product);
+            }
+
+            long deadOrderRows = in.readLong();
+            int orderCount = in.readInt();
+            List<OrderDto> orders = new ArrayList<>(orderCount);
+            Map<Long, Long> versions = new HashMap<>(orderCount * 2);
+            for (int i = 0; i < orderCount; i++) {
+                OrderDto order = new OrderDto();
+                order.setId(in.readLong());
+                versions.put(order.getId(), in.readLong());
+                order.setCustomerId(in.readLong());
+                order.setCustomerName(in.readString());
+                order.setStatus(in.readString());
+                BigDecimal deliveryFee = in.readDecimal();
+                Money deliveryFeeCents = centsOf(deliveryFee);
+                if (deliveryFeeCents != null) {
+                    order.setDeliveryFeeMoney(deliveryFeeCents);
+                } else {
+                    order.setDeliveryFee(deliveryFee);
+                }
+                order.setPaymentMethod(in.readString());
+                order.setCreatedAt(in.readTimestamp());
+                order.setCancellationReason(in.readString());
+                if (in.readBoolean()) {
+                    order.setDeliveryAddress(new AddressDto(in.readString(), in.readString(), in.readString(),
+                        in.readString(), in.readString(), in.readString()));
+                }
+
+                int itemCount = in.readInt();
+                order.setItems(Collections.emptyList());
+                List<OrderItemDto> items = order.getItems();
+                for (int j = 0; j < itemCount; j++) {
+                    long productId = in.readLong();
+                    ProductDto product = productsById.get(productId);
+                    if (product == null) {
+                        product = new ProductDto();
+                        product.setId(productId);
+                    }
+                    OrderItemDto item = new OrderItemDto();
+                    item.setProduct(product);
+                    item.setQuantity(in.readInt());
+                    BigDecimal unitPrice = in.readDecimal();
+                    Money unitPriceCents = centsOf(unitPrice);
+                    if (unitPriceCents != null) {
+                        item.setUnitPriceMoney(unitPriceCents);
+                    } else {
+                        item.setUnitPrice(unitPrice);
+                    }
+                    item.setObservations(in.readString());
+                    items.add(item);
+                }
+                orders.add(order);
+            }
+            in.verifyChecksum();
+
+            return new StoreSnapshot(marks[0], marks[1], marks[2], marks[3],
+                customers, products, orders, versions, deadOrderRows);
+        }
+    }
+
+    // Two-decimal amounts are kept as cents alone, as the CSV loaders keep them
+    private static Money centsOf(BigDecimal amount) {
+        return amount != null && amount.scale() == 2 ? Money.exact(amount) : null;
+    }
+
+    // Buffered writer over a channel; DataOutputStream pays a call per byte
+    private static final class Output implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final CRC32 crc = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            ensure(1);
+            buffer.put((byte) (value ? 1 : 0));
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeInt(NULL_STRING);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeInt(STRING_REFERENCE + index);
+                return;
+            }
+            boolean remember = dictionary.size() < MAX_DICTIONARY_SIZE;
+            if (remember) {
+                dictionary.put(value, dictionary.size());
+            }
+            writeInt(remember ? NEW_STRING : LITERAL_STRING);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                crc.update(bytes);
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+                return;
+            }
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void writeDecimal(BigDecimal value) throws IOException {
+            ensure(13);
+            if (value == null) {
+                buffer.put(NULL_VALUE);
+            } else if (value.unscaledValue().bitLength() < 64) {
+                buffer.put(LONG_DECIMAL);
+                buffer.putInt(value.scale());
+                buffer.putLong(value.unscaledValue().longValue());
+            } else {
+                buffer.put(TEXT_DECIMAL);
+                writeString(value.toString());
+            }
+        }
+
+        // The same encoding as writeDecimal, without building the BigDecimal
+        void writeMoney(Money value, int scale) throws IOException {
+            ensure(13);
+            buffer.put(LONG_DECIMAL);
+            buffer.putInt(scale);
+            buffer.putLong(value.cents() / (scale == 2 ? 1 : scale == 1 ? 10 : 100));
+        }
+
+        void writeTimestamp(LocalDateTime value) throws IOException {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeLong(value.toEpochSecond(ZoneOffset.UTC));
+                writeInt(value.getNano());
+            }
+        }
+
+        // Ends the body with the CRC32 of everything written so far
+        void writeChecksum() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            flush();
+        }
+
+        void force() throws IOException {
+            flush();
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Buffered reader over a channel, refilled as the decoder advances
+    private static final class Input implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final List<String> dictionary = new ArrayList<>();
+        private final CRC32 crc = new CRC32();
+        // Start of the buffered bytes not yet added to crc
+        private int checksummedUpTo;
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            checksumConsumed();
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Truncated snapshot");
+                }
+            }
+            buffer.flip();
+            checksummedUpTo = 0;
+        }
+
+        private void checksumConsumed() {
+            crc.update(buffer.array(), checksummedUpTo, buffer.position() - checksummedUpTo);
+            checksummedUpTo = buffer.position();
+        }
+
+        void verifyChecksum() throws IOException {
+            checksumConsumed();
+            long expected = crc.getValue();
+            if (readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+        }
+
+        boolean readBoolean() throws IOException {
+            require(1);
+            return buffer.get() != 0;
+        }
+
+        int readInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            require(8);
+            return buffer.getLong();
+        }
+
+        String readString() throws IOException {
+            int tag = readInt();
+            if (tag == NULL_STRING) {
+                return null;
+            }
+            if (tag >= STRING_REFERENCE) {
+                int index = tag - STRING_REFERENCE;
+                if (index >= dictionary.size()) {
+                    throw new IOException("Corrupt string reference in snapshot");
+                }
+                return dictionary.get(index);
+            }
+            int length = readInt();
+            if (length < 0) {
+                throw new IOException("Corrupt string length in snapshot");
+            }
+            String value;
+            if (length > buffer.capacity()) {
+                checksumConsumed();
+                ByteBuffer large = ByteBuffer.allocate(length);
+                large.put(buffer);
+                checksummedUpTo = buffer.position();
+                while (large.hasRemaining()) {
+                    if (channel.read(large) < 0) {
+                        throw new EOFException("Truncated snapshot");
+                    }
+                }
+                crc.update(large.array());
+                value = new String(large.array(), StandardCharsets.UTF_8);
+            } else {
+                require(length);
+                value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+            if (tag == NEW_STRING) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+
+        BigDecimal readDecimal() throws IOException {
+            require(1);
+            byte kind = buffer.get();
+            switch (kind) {
+                case NULL_VALUE:
+                    return null;
+                case LONG_DECIMAL:
+                    int scale = readInt();
+                    return BigDecimal.valueOf(readLong(), scale);
+                case TEXT_DECIMAL:
+                    return new BigDecimal(readString());
+                default:
+                    throw new IOException("Corrupt decimal in snapshot");
+            }
+        }
+
+        LocalDateTime readTimestamp() throws IOException {
+            if (!readBoolean()) {
+                return null;
+            }
+            long seconds = readLong();
+            return LocalDateTime.ofEpochSecond(seconds, readInt(), ZoneOffset.UTC);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ordermanagement.storage;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks picked by key, so work on the same order (such as an
+ * OrderLog append, from taking the version to writing the rows) is
+ * serialized while different orders mostly land on different stripes and
+ * run in parallel. Memory stays constant no matter how many orders exist;
+ * two keys may share a stripe, which only costs some parallelism.
+ */
+public class StripedLock {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final Lock[] locks;
+    private final int mask;
+
+    public StripedLock() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public StripedLock(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        // Power of two so the stripe is a mask instead of a modulo
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public Lock forKey(long key) {
+        return locks[stripe(key)];
+    }
+
+    int stripe(long key) {
+        // Spread sequential ids across the stripes
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    public int getStripeCount() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,268 @@
+package com.ordermanagement.storage;
+
+import java.util.*;
+
+/**
+ * Radix trie over normalized product names for prefix autocomplete. Every
+ * name is inserted from each of its word starts, so "marg" suggests
+ * "Pizza Margherita". Each node caches the top k ids of its subtree by
+ * weight (then name, then id), so a lookup is a walk down the prefix plus
+ * a copy of at most k ids.
+ *
+ * Weight changes only mark the path to the root as stale; stale top-k
+ * lists are recomputed from their children on the next lookup that reaches
+ * them. A bulk load of weights therefore costs one pass over the trie
+ * instead of one per change.
+ * Lookups may recompute, so every method is synchronized.
+ */
+final class SuggestionTrie {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final int k;
+    private final Node root = new Node("", null);
+    private final Map<Long, String> namesById = new HashMap<>();
+    private final Map<Long, Long> weightsById = new HashMap<>();
+    private final Map<Long, List<Node>> nodesById = new HashMap<>();
+
+    SuggestionTrie(int k) {
+        this.k = k;
+    }
+
+    synchronized void put(long id, String name, long weight) {
+        String normalized = TrigramIndex.normalize(name == null ? "" : name).trim();
+        if (normalized.equals(namesById.get(id))) {
+            setWeight(id, weight);
+            return;
+        }
+        remove(id);
+        namesById.put(id, normalized);
+        weightsById.put(id, weight);
+        List<Node> terminals = new ArrayList<>();
+        for (int start = 0; start < normalized.length(); start++) {
+            boolean wordStart = start == 0 || Character.isWhitespace(normalized.charAt(start - 1));
+            if (wordStart && !Character.isWhitespace(normalized.charAt(start))) {
+                Node node = insert(normalized.substring(start));
+                node.ids.add(id);
+                terminals.add(node);
+                // Also covers nodes created or split by the insert, all on this path
+                markStale(node);
+            }
+        }
+        nodesById.put(id, terminals);
+    }
+
+    synchronized void setWeight(long id, long weight) {
+        Long previous = weightsById.get(id);
+        if (previous == null || previous == weight) {
+            return;
+        }
+        weightsById.put(id, weight);
+        for (Node node : nodesById.get(id)) {
+            markStale(node);
+        }
+    }
+
+    synchronized void remove(long id) {
+        List<Node> terminals = nodesById.remove(id);
+        if (terminals == null) {
+            return;
+        }
+        for (Node node : terminals) {
+            node.ids.remove(id);
+            markStale(node);
+            prune(node);
+        }
+        namesById.remove(id);
+        weightsById.remove(id);
+    }
+
+    synchronized void clear() {
+        root.children.clear();
+        root.ids.clear();
+        root.top = NO_IDS;
+        root.topWeights = NO_IDS;
+        root.stale = false;
+        namesById.clear();
+        weightsById.clear();
+        nodesById.clear();
+    }
+
+    /**
+     * Up to limit (at most k) ids whose name has a word starting with the
+     * prefix, best ranked first.
+     */
+    synchronized long[] suggest(String prefix, int limit) {
+        Node node = find(TrigramIndex.normalize(prefix == null ? "" : prefix).trim());
+        if (node == null || limit <= 0) {
+            return NO_IDS;
+        }
+        refresh(node);
+        return Arrays.copyOf(node.top, Math.min(limit, node.top.length));
+    }
+
+    // Node whose subtree holds exactly the keys starting with prefix
+    private Node find(String prefix) {
+        Node node = root;
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.child(prefix.charAt(matched));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, prefix, matched);
+            if (common < child.label.length() && matched + common < prefix.length()) {
+                return null;
+            }
+            matched += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private Node insert(String key) {
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) {
+                Node leaf = new Node(key.substring(matched), node);
+                node.children.add(leaf);
+                return leaf;
+            }
+            int common = commonPrefix(child.label, key, matched);
+            if (common < child.label.length()) {
+                child = split(child, common);
+            }
+            matched += common;
+            node = child;
+        }
+        return node;
+    }
+
+    // Cuts the edge into child after length chars, returning the new middle node
+    private Node split(Node child, int length) {
+        Node parent = child.parent;
+        Node middle = new Node(child.label.substring(0, length), parent);
+        parent.children.set(parent.children.indexOf(child), middle);
+        child.label = child.label.substring(length);
+        child.parent = middle;
+        middle.children.add(child);
+        return middle;
+    }
+
+    // Drops empty leaves and merges a pass-through node into its only child
+    private void prune(Node node) {
+        while (node != root && node.ids.isEmpty() && node.children.isEmpty()) {
+            node.parent.children.remove(node);
+            node = node.parent;
+        }
+        if (node != root && node.ids.isEmpty() && node.children.size() == 1) {
+            Node child = node.children.get(0);
+            child.label = node.label + child.label;
+            child.parent = node.parent;
+            node.parent.children.set(node.parent.children.indexOf(node), child);
+        }
+    }
+
+    private static void markStale(Node node) {
+        // A stale node's ancestors are already stale
+        while (node != null && !node.stale) {
+            node.stale = true;
+            node = node.parent;
+        }
+    }
+
+    // Merges the node's own ids with its children's top lists into its top k
+    private void refresh(Node node) {
+        if (!node.stale) {
+            return;
+        }
+        Ranking top = new Ranking();
+        for (long id : node.ids) {
+            top.offer(id, weightsById.get(id));
+        }
+        for (Node child : node.children) {
+            refresh(child);
+            for (int i = 0; i < child.top.length; i++) {
+                // Children's lists are sorted, so the rest can't make it either
+                if (!top.offer(child.top[i], child.topWeights[i])) {
+                    break;
+                }
+            }
+        }
+        node.top = Arrays.copyOf(top.ids, top.size);
+        node.topWeights = Arrays.copyOf(top.weights, top.size);
+        node.stale = false;
+    }
+
+    // The best k offers so far, in ranking order
+    private final class Ranking {
+        private final long[] ids = new long[k];
+        private final long[] weights = new long[k];
+        private int size;
+
+        // False when the entry ranks below a full list
+        boolean offer(long id, long weight) {
+            if (size == k && !before(id, weight, ids[k - 1], weights[k - 1])) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return true;
+                }
+            }
+            int position = size == k ? k - 1 : size++;
+            while (position > 0 && before(id, weight, ids[position - 1], weights[position - 1])) {
+                ids[position] = ids[position - 1];
+                weights[position] = weights[position - 1];
+                position--;
+            }
+            ids[position] = id;
+            weights[position] = weight;
+            return true;
+        }
+
+        // Heavier first, then by name, then by id
+        private boolean before(long id, long weight, long otherId, long otherWeight) {
+            if (weight != otherWeight) {
+                return weight > otherWeight;
+            }
+            int byName = namesById.get(id).compareTo(namesById.get(otherId));
+            return byName != 0 ? byName < 0 : id < otherId;
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private String label;
+        private Node parent;
+        private final List<Node> children = new ArrayList<>(2);
+        private final List<Long> ids = new ArrayList<>(1);
+        private long[] top = NO_IDS;
+        private long[] topWeights = NO_IDS;
+        private boolean stale;
+
+        Node(String label, Node parent) {
+            this.label = label;
+            this.parent = parent;
+        }
+
+        Node child(char first) {
+            for (Node child : children) {
+                if (child.label.charAt(0) == first) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ordermanagement.storage;
+
+import java.util.Arrays;
+
+/**
+ * Order ids kept sorted by (timeKey, orderId) in parallel arrays. Orders
+ * mostly arrive in creation order, so adding one is usually an append.
+ * Not thread-safe: the owning index is guarded by its store's lock.
+ */
+final class TimeOrderedIds {
+
+    long[] timeKeys = new long[4];
+    long[] ids = new long[4];
+    int size;
+
+    void add(long timeKey, long orderId) {
+        int position = size;
+        if (size > 0 && compare(timeKey, orderId, size - 1) <= 0) {
+            // Not newer than the newest entry, e.g. replayed out of order
+            int found = search(timeKey, orderId);
+            if (found >= 0) {
+                return;
+            }
+            position = -(found + 1);
+        }
+        if (size == ids.length) {
+            timeKeys = Arrays.copyOf(timeKeys, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(timeKeys, position, timeKeys, position + 1, size - position);
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        timeKeys[position] = timeKey;
+        ids[position] = orderId;
+        size++;
+    }
+
+    boolean remove(long timeKey, long orderId) {
+        int position = search(timeKey, orderId);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(timeKeys, position + 1, timeKeys, position, size - position - 1);
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    // Same contract as Arrays.binarySearch
+    int search(long timeKey, long orderId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(timeKey, orderId, mid);
+            if (cmp > 0) {
+                low = mid + 1;
+            } else if (cmp < 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int compare(long timeKey, long orderId, int index) {
+        int cmp = Long.compare(timeKey, timeKeys[index]);
+        return cmp != 0 ? cmp : Long.compare(orderId, ids[index]);
+    }
+}
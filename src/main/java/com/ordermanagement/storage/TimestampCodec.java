@@ -0,0 +1,130 @@
+package com.ordermanagement.storage;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Reads the timestamps stored in the CSV files without DateTimeFormatter.
+ * Two layouts are accepted: the fixed-width text yyyy-MM-dd HH:mm:ss, whose
+ * digits are read straight from the record, and epoch milliseconds (a bare
+ * run of digits, see CsvDataManager.TimestampFormat). Stored times carry no
+ * zone, so epoch milliseconds count from 1970-01-01T00:00 local time, i.e.
+ * as if the time were UTC.
+ *
+ * Anything the fast path does not recognize, such as an invalid date the
+ * formatter's SMART resolver would adjust, goes through the formatter, so
+ * the results and the exceptions are the same as before.
+ */
+final class TimestampCodec {
+
+    static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // yyyy-MM-dd HH:mm:ss
+    private static final int TEXT_LENGTH = 19;
+
+    // Above this many digits a number cannot be epoch milliseconds of a LocalDateTime
+    private static final int MAX_MILLIS_DIGITS = 15;
+    private static final long MAX_EPOCH_MILLIS = 999_999_999_999_999L;
+
+    // The digitKey of rows without a time; epoch 0 has a key of its own
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private TimestampCodec() {}
+
+    static LocalDateTime parse(CharSequence text) {
+        // Year 0 is left to the formatter, which rejects it as a year of era
+        if (text.length() == TEXT_LENGTH && hasTextLayout(text) && digits(text, 0, 4) > 0) {
+            try {
+                return LocalDateTime.of(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                    digits(text, 11, 2), digits(text, 14, 2), digits(text, 17, 2));
+            } catch (DateTimeException e) {
+                // Out of range for LocalDateTime.of; the formatter has the final word
+            }
+        } else if (text.length() > 0 && text.length() <= MAX_MILLIS_DIGITS && isDigits(text)) {
+            return fromEpochMillis(digitsAsLong(text, 0, text.length()));
+        }
+        return LocalDateTime.parse(text, FORMATTER);
+    }
+
+    static long toEpochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromEpochMillis(long millis) {
+        long seconds = Math.floorDiv(millis, 1000L);
+        int nanos = (int) Math.floorMod(millis, 1000L) * 1_000_000;
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    /**
+     * The yyyyMMddHHmmss digits of the time as one number, the key the mapped
+     * read path sorts and buckets orders by.
+     */
+    static long digitKey(LocalDateTime time) {
+        return time.getYear() * 10_000_000_000L + time.getMonthValue() * 100_000_000L
+            + time.getDayOfMonth() * 1_000_000L + time.getHour() * 10_000L
+            + time.getMinute() * 100L + time.getSecond();
+    }
+
+    /**
+     * digitKey of epoch milliseconds as parse reads them, 0 being
+     * 1970-01-01 00:00:00, or NO_TIME for numbers parse would not take.
+     */
+    static long epochMillisDigitKey(long millis) {
+        if (millis < 0 || millis > MAX_EPOCH_MILLIS) {
+            return NO_TIME;
+        }
+        return digitKey(fromEpochMillis(millis));
+    }
+
+    // Digits everywhere except the separators at their fixed positions
+    private static boolean hasTextLayout(CharSequence text) {
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            char c = text.charAt(i);
+            boolean ok;
+            switch (i) {
+                case 4:
+                case 7:
+                    ok = c == '-';
+                    break;
+                case 10:
+                    ok = c == ' ';
+                    break;
+                case 13:
+                case 16:
+                    ok = c == ':';
+                    break;
+                default:
+                    ok = c >= '0' && c <= '9';
+            }
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigits(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        return (int) digitsAsLong(text, start, count);
+    }
+
+    private static long digitsAsLong(CharSequence text, int start, int count) {
+        long value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+}
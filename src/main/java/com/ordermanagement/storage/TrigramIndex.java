@@ -0,0 +1,241 @@
+package com.ordermanagement.storage;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from character trigrams to documents, for substring
+ * search over short texts such as product names and descriptions.
+ * Text is normalized (lower case, accents removed), so "acai" finds
+ * "Açaí". A query is answered by intersecting the posting lists of its
+ * trigrams, smallest first, and verifying each candidate against the
+ * stored text; it stops as soon as enough matches are found.
+ *
+ * Every put gives the document a new slot number, so posting lists stay
+ * sorted appends and old slots are just marked dead. The index rebuilds
+ * itself once dead slots outnumber live ones.
+ * Not thread-safe: owners guard it with their own lock.
+ */
+public class TrigramIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MIN_SLOTS_FOR_REBUILD = 1024;
+
+    private final LongObjectMap<Postings> postings = new LongObjectMap<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private long[] ids = new long[16];
+    private String[] texts = new String[16];
+    private final BitSet live = new BitSet();
+    private int slotCount;
+
+    /**
+     * Indexes the document under its id, replacing any previous text.
+     */
+    public void put(long id, String... fields) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            if (field != null) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(field);
+            }
+        }
+        String normalized = normalize(text.toString());
+        Integer previous = slotById.get(id);
+        if (previous != null) {
+            if (texts[previous].equals(normalized)) {
+                return;
+            }
+            kill(previous);
+        }
+        add(id, normalized);
+        int liveCount = slotById.size();
+        if (slotCount - liveCount > Math.max(MIN_SLOTS_FOR_REBUILD, liveCount)) {
+            rebuild();
+        }
+    }
+
+    public void remove(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            kill(slot);
+        }
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    public void clear() {
+        postings.clear();
+        slotById.clear();
+        live.clear();
+        ids = new long[16];
+        texts = new String[16];
+        slotCount = 0;
+    }
+
+    /**
+     * Ids of up to limit documents containing the query, oldest put first.
+     * Queries shorter than three characters have no trigrams and fall back
+     * to scanning the stored texts.
+     */
+    public long[] search(String query, int limit) {
+        String needle = normalize(query == null ? "" : query.trim());
+        if (needle.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        if (needle.length() < 3) {
+            return scan(needle, limit);
+        }
+
+        // Distinct trigrams of the query, rarest first
+        Set<Postings> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i + 3 <= needle.length(); i++) {
+            Postings list = postings.get(key(needle, i));
+            if (list == null) {
+                return new long[0];
+            }
+            distinct.add(list);
+        }
+        Postings[] lists = distinct.toArray(new Postings[0]);
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        long[] result = new long[Math.min(limit, lists[0].size)];
+        int found = 0;
+        int[] cursors = new int[lists.length];
+        Postings smallest = lists[0];
+        candidates:
+        for (int i = 0; i < smallest.size && found < result.length; i++) {
+            int slot = smallest.slots[i];
+            if (!live.get(slot)) {
+                continue;
+            }
+            for (int j = 1; j < lists.length; j++) {
+                cursors[j] = lists[j].advance(cursors[j], slot);
+                if (cursors[j] == lists[j].size) {
+                    break candidates;
+                }
+                if (lists[j].slots[cursors[j]] != slot) {
+                    continue candidates;
+                }
+            }
+            // Trigrams can match out of order, so confirm the substring
+            if (texts[slot].contains(needle)) {
+                result[found++] = ids[slot];
+            }
+        }
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+
+    private long[] scan(String needle, int limit) {
+        long[] result = new long[Math.min(limit, slotById.size())];
+        int found = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0 && found < result.length; slot = live.nextSetBit(slot + 1)) {
+            if (texts[slot].contains(needle)) {
+                result[found++] = ids[slot];
+            }
+        }
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Lower case without accents, the form texts and queries are compared in.
+     */
+    public static String normalize(String text) {
+        if (isAscii(text)) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(long id, String normalized) {
+        int slot = slotCount++;
+        if (slot == ids.length) {
+            ids = Arrays.copyOf(ids, slot * 2);
+            texts = Arrays.copyOf(texts, slot * 2);
+        }
+        ids[slot] = id;
+        texts[slot] = normalized;
+        live.set(slot);
+        slotById.put(id, slot);
+
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            postings.computeIfAbsent(key(normalized, i), k -> new Postings()).add(slot);
+        }
+    }
+
+    private void kill(int slot) {
+        live.clear(slot);
+        texts[slot] = "";
+    }
+
+    // Renumbers live documents from zero, dropping dead slots from every list
+    private void rebuild() {
+        long[] oldIds = ids;
+        String[] oldTexts = texts;
+        BitSet oldLive = (BitSet) live.clone();
+        clear();
+        for (int slot = oldLive.nextSetBit(0); slot >= 0; slot = oldLive.nextSetBit(slot + 1)) {
+            add(oldIds[slot], oldTexts[slot]);
+        }
+    }
+
+    private static long key(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    // Ascending slot numbers; new slots are always the largest so far
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return; // Trigram repeated within the same text
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        // First position at or after from whose slot is >= target (galloping search)
+        int advance(int from, int target) {
+            if (from >= size || slots[from] >= target) {
+                return from;
+            }
+            int step = 1;
+            int low = from;
+            int high = from + 1;
+            while (high < size && slots[high] < target) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            high = Math.min(high, size);
+            // slots[low] < target, and slots[high] >= target or high == size
+            while (low + 1 < high) {
+                int mid = (low + high) >>> 1;
+                if (slots[mid] < target) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            return high;
+        }
+    }
+}
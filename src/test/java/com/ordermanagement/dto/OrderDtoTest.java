@@ -1,5 +1,7 @@
 package com.ordermanagement.dto;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.model.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -361,4 +363,119 @@ class OrderDtoTest {
         assertEquals(BigDecimal.ZERO, orderDto.getSubtotal());
         assertEquals(BigDecimal.ZERO, orderDto.getTotal());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should total in cents to the same BigDecimal as the BigDecimal formula")
+    void testTotalsMatchBigDecimalFormula() throws Exception {
+        String[][] cases = {
+            {"15.00", "2.5", "1"},
+            {"0.99", "10", "0.10"},
+            {"12.345", "5.00", "0"},
+            {"19.9", "0", "0.05"},
+            {"999999.99", "8", "1000000"}
+        };
+        for (String[] amounts : cases) {
+            OrderItemDto item = new OrderItemDto(testProduct, 3, null);
+            item.setUnitPrice(new BigDecimal(amounts[0]));
+            OrderItemDto free = new OrderItemDto(testProduct, 1, null);
+            free.setUnitPrice(null);
+            orderDto.setItems(Arrays.asList(item, testOrderItem, free));
+            orderDto.setDeliveryFee(new BigDecimal(amounts[1]));
+            orderDto.setDiscountAmount(new BigDecimal(amounts[2]));
+
+            BigDecimal subtotal = new BigDecimal(amounts[0]).multiply(BigDecimal.valueOf(3))
+                .add(new BigDecimal("30.00"));
+            assertEquals(subtotal, orderDto.getSubtotal(), amounts[0]);
+            assertEquals(subtotal.add(new BigDecimal(amounts[1])).subtract(new BigDecimal(amounts[2])),
+                orderDto.getTotal(), amounts[0]);
+        }
+
+        // Prices read from storage as cents look like two-decimal BigDecimals
+        OrderItemDto stored = new OrderItemDto();
+        stored.setProduct(testProduct);
+        stored.setQuantity(2);
+        stored.setUnitPriceMoney(Money.ofCents(1990));
+        orderDto.setItems(Arrays.asList(stored));
+        orderDto.setDeliveryFeeMoney(Money.ofCents(500));
+        orderDto.setDiscountAmount(null);
+        assertEquals(new BigDecimal("19.90"), stored.getUnitPrice());
+        assertEquals(new BigDecimal("39.80"), stored.getSubtotal());
+        assertEquals(new BigDecimal("5.00"), orderDto.getDeliveryFee());
+        assertEquals(new BigDecimal("44.80"), orderDto.getTotal());
+
+        String json = new ObjectMapper().findAndRegisterModules().writeValueAsString(orderDto);
+        assertTrue(json.contains("\"unitPrice\":19.90"), json);
+        assertTrue(json.contains("\"total\":44.80"), json);
+        assertFalse(json.contains("Money"), json);
+    }
+
+    @Test
+    @DisplayName("Should keep each amount in one place, whichever setter wrote it last")
+    void testAmountsHaveOneSource() {
+        OrderItemDto item = new OrderItemDto(testProduct, 2, null);
+        item.setUnitPrice(new BigDecimal("12.345"));
+        assertNull(item.getUnitPriceMoney());
+        item.setUnitPriceMoney(Money.ofCents(500));
+        assertEquals(new BigDecimal("5.00"), item.getUnitPrice());
+        assertEquals(new BigDecimal("10.00"), item.getSubtotal());
+        item.setUnitPrice(new BigDecimal("7.5"));
+        assertEquals(Money.ofCents(750), item.getUnitPriceMoney());
+        assertEquals(new BigDecimal("7.5"), item.getUnitPrice());
+        assertEquals(1, item.unitPriceScale());
+
+        orderDto.setItems(Arrays.asList(item));
+        orderDto.setDeliveryFee(new BigDecimal("0.125"));
+        orderDto.setDiscountAmount(new BigDecimal("1"));
+        assertEquals(new BigDecimal("14.125"), orderDto.getTotal());
+        orderDto.setDeliveryFeeMoney(Money.ofCents(300));
+        assertEquals(new BigDecimal("3.00"), orderDto.getDeliveryFee());
+        assertEquals(Money.ofCents(100), orderDto.getDiscountAmountMoney());
+        assertEquals(new BigDecimal("1"), orderDto.getDiscountAmount());
+        assertEquals(new BigDecimal("17.00"), orderDto.getTotal());
+        orderDto.setDeliveryFee(null);
+        assertNull(orderDto.getDeliveryFeeMoney());
+        assertNull(orderDto.getDeliveryFee());
+        assertThrows(IllegalArgumentException.class, () -> orderDto.setDiscountAmountMoney(Money.ZERO, 3));
+    }
+
+    @Test
+    @DisplayName("Should build the BigDecimal of an amount set from cents once, keeping its scale")
+    void testAmountGettersReuseTheirBigDecimal() {
+        OrderItemDto item = new OrderItemDto();
+        item.setUnitPriceMoney(Money.ofCents(1990));
+        assertSame(item.getUnitPrice(), item.getUnitPrice());
+        assertEquals(new BigDecimal("19.90"), item.getUnitPrice());
+        item.setUnitPriceMoney(Money.ofCents(1990), 1);
+        assertEquals(new BigDecimal("19.9"), item.getUnitPrice());
+        assertEquals(1, item.unitPriceScale());
+
+        BigDecimal fee = new BigDecimal("4.50");
+        orderDto.setDeliveryFee(fee);
+        assertSame(fee, orderDto.getDeliveryFee());
+        orderDto.setDiscountAmountMoney(Money.ofCents(200), 0);
+        assertSame(orderDto.getDiscountAmount(), orderDto.getDiscountAmount());
+        assertEquals(new BigDecimal("2"), orderDto.getDiscountAmount());
+        orderDto.setDeliveryFeeMoney(Money.ofCents(450));
+        assertEquals(2, orderDto.deliveryFeeScale());
+        assertSame(orderDto.getDeliveryFee(), orderDto.getDeliveryFee());
+    }
+
+    @Test
+    @DisplayName("Should copy a plain item list, so only getItems changes reach the order")
+    void testSetItemsCopiesPlainLists() {
+        List<OrderItemDto> plain = new ArrayList<>(Arrays.asList(testOrderItem));
+        orderDto.setItems(plain);
+        plain.add(new OrderItemDto(testProduct, 5, null));
+        assertEquals(1, orderDto.getItems().size());
+        assertEquals(new BigDecimal("30.00"), orderDto.getSubtotal());
+
+        orderDto.getItems().add(new OrderItemDto(testProduct, 1, null));
+        assertEquals(2, plain.size());
+        assertEquals(new BigDecimal("45.00"), orderDto.getSubtotal());
+
+        // An ItemList is kept as it is
+        List<OrderItemDto> kept = orderDto.getItems();
+        orderDto.setItems(kept);
+        assertSame(kept, orderDto.getItems());
+    }
+}
@@ -0,0 +1,48 @@
+package com.ordermanagement.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageDtoTest {
+
+    @Test
+    @DisplayName("Should create an empty last page with the default constructor")
+    void testDefaultConstructor() {
+        PageDto<String> page = new PageDto<>();
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    @DisplayName("Should report a next page when a cursor is set")
+    void testHasNext() {
+        PageDto<String> page = new PageDto<>(Arrays.asList("a", "b"), "2");
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.hasNext());
+
+        page.setNextCursor(null);
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    @DisplayName("Should round-trip through JSON")
+    void testJsonRoundTrip() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        ProductDto product = new ProductDto("Soda", "Can", null, "BEVERAGES");
+        product.setId(7L);
+        String json = mapper.writeValueAsString(new PageDto<>(Arrays.asList(product), "7"));
+
+        PageDto<ProductDto> page = mapper.readValue(json, new TypeReference<PageDto<ProductDto>>() {});
+        assertEquals(7L, page.getItems().get(0).getId());
+        assertEquals("7", page.getNextCursor());
+    }
+}
@@ -0,0 +1,186 @@
+package com.ordermanagement.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemListTest {
+
+    private static OrderItem item(String price, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setUnitPrice(new BigDecimal(price));
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    // The subtotal as BigDecimal arithmetic over the items gives it
+    private static BigDecimal expected(List<OrderItem> items) {
+        return items.stream().map(OrderItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static BigDecimal subtotal(ItemList<OrderItem> items) {
+        assertTrue(items.hasExactSubtotal());
+        return Money.ofCents(items.subtotalCents()).toBigDecimal(items.subtotalScale());
+    }
+
+    @Test
+    @DisplayName("Should keep the subtotal as items are added, replaced and removed")
+    void testListOperations() {
+        ItemList<OrderItem> items = new Order.Items();
+        assertEquals(BigDecimal.ZERO, subtotal(items));
+
+        items.add(item("25.90", 2));
+        items.add(item("10", 1));
+        items.add(0, item("3.5", 3));
+        assertEquals(expected(items), subtotal(items));
+
+        items.set(1, item("1.25", 4));
+        assertEquals(expected(items), subtotal(items));
+
+        items.remove(0);
+        items.addAll(List.of(item("7", 2), item("0.99", 10)));
+        assertEquals(expected(items), subtotal(items));
+
+        Iterator<OrderItem> it = items.iterator();
+        it.next();
+        it.remove();
+        items.subList(0, 1).clear();
+        assertEquals(expected(items), subtotal(items));
+
+        items.clear();
+        assertEquals(BigDecimal.ZERO, subtotal(items));
+    }
+
+    @Test
+    @DisplayName("Should drop the scale of a removed item like a fresh sum")
+    void testScaleAfterRemoval() {
+        ItemList<OrderItem> items = new Order.Items(List.of(item("10", 1), item("2.50", 1)));
+        assertEquals(new BigDecimal("12.50"), subtotal(items));
+
+        items.remove(1);
+        assertEquals(new BigDecimal("10"), subtotal(items));
+    }
+
+    @Test
+    @DisplayName("Should follow price and quantity changes of listed items")
+    void testItemChanges() {
+        OrderItem changed = item("4.00", 1);
+        ItemList<OrderItem> items = new Order.Items(List.of(changed, item("1.00", 1)));
+        assertEquals(new BigDecimal("5.00"), subtotal(items));
+
+        changed.setQuantity(3);
+        assertEquals(new BigDecimal("13.00"), subtotal(items));
+        changed.setUnitPrice(new BigDecimal("2.5"));
+        assertEquals(new BigDecimal("8.50"), subtotal(items));
+
+        items.remove(changed);
+        assertNull(changed.owner);
+        changed.setQuantity(10);
+        assertEquals(new BigDecimal("1.00"), subtotal(items));
+    }
+
+    @Test
+    @DisplayName("Should leave the subtotal of a list that lost an item to another one to its order")
+    void testItemTakenByAnotherList() {
+        OrderItem shared = item("4.00", 1);
+        ItemList<OrderItem> first = new Order.Items(List.of(shared, item("1.00", 1)));
+        ItemList<OrderItem> second = new Order.Items(List.of(shared));
+        assertFalse(first.hasExactSubtotal());
+        assertEquals(new BigDecimal("4.00"), subtotal(second));
+
+        shared.setQuantity(3);
+        assertEquals(new BigDecimal("12.00"), subtotal(second));
+
+        first.clear();
+        first.add(item("2", 1));
+        assertEquals(new BigDecimal("2"), subtotal(first));
+        assertSame(second, shared.owner);
+    }
+
+    @Test
+    @DisplayName("Should move the items to the list an order is given")
+    void testSetItemsMovesItems() {
+        OrderItem kept = item("4.00", 1);
+        OrderItem dropped = item("1.00", 1);
+        Order order = new Order();
+        order.addItem(kept);
+        order.addItem(dropped);
+        ItemList<OrderItem> previous = (ItemList<OrderItem>) order.getItems();
+
+        order.setItems(List.of(kept));
+        assertNull(dropped.owner);
+        assertFalse(previous.hasExactSubtotal());
+
+        kept.setQuantity(2);
+        dropped.setQuantity(5);
+        assertEquals(new BigDecimal("8.00"), subtotal((ItemList<OrderItem>) order.getItems()));
+        assertEquals(new BigDecimal("8.00"), order.getSubtotal());
+        assertEquals(new BigDecimal("13.00"), expected(previous));
+    }
+
+    @Test
+    @DisplayName("Should report an inexact subtotal until the items fit in cents again")
+    void testInexactItems() {
+        OrderItem fine = item("12.345", 2);
+        ItemList<OrderItem> items = new Order.Items(List.of(item("1.00", 1), fine));
+        assertFalse(items.hasExactSubtotal());
+
+        items.remove(fine);
+        assertEquals(new BigDecimal("1.00"), subtotal(items));
+
+        items.add(null);
+        assertFalse(items.hasExactSubtotal());
+        items.remove(1);
+        assertTrue(items.hasExactSubtotal());
+
+        OrderItem huge = item("90000000000000000", 1);
+        items.add(huge);
+        assertFalse(items.hasExactSubtotal());
+        items.add(item("9000000000000000", 1000));
+        items.remove(huge);
+        assertFalse(items.hasExactSubtotal());
+        items.remove(1);
+        assertEquals(new BigDecimal("1.00"), subtotal(items));
+    }
+
+    @Test
+    @DisplayName("Should leave the subtotal of a list holding an item twice to its order, until cleared")
+    void testRepeatedEntries() {
+        OrderItem twice = item("1.50", 1);
+        Order order = new Order();
+        order.setItems(List.of(twice, twice, item("0.5", 2)));
+        ItemList<OrderItem> items = (ItemList<OrderItem>) order.getItems();
+        assertFalse(items.hasExactSubtotal());
+        assertEquals(new BigDecimal("4.00"), order.getSubtotal());
+
+        twice.setQuantity(2);
+        assertEquals(new BigDecimal("7.00"), order.getSubtotal());
+        items.remove(twice);
+        assertEquals(new BigDecimal("4.00"), order.getSubtotal());
+
+        items.clear();
+        assertNull(twice.owner);
+        items.add(twice);
+        assertEquals(new BigDecimal("3.00"), subtotal(items));
+    }
+
+    @Test
+    @DisplayName("Should read the subtotal without changing the list")
+    void testReadsHaveNoSideEffects() {
+        ItemList<OrderItem> items = new Order.Items(List.of(item("10", 1), item("2.50", 2)));
+        items.remove(1);
+        long cents = items.subtotalCents();
+        int scale = items.subtotalScale();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(items.hasExactSubtotal());
+            assertEquals(cents, items.subtotalCents());
+            assertEquals(scale, items.subtotalScale());
+        }
+        assertEquals(new BigDecimal("10"), subtotal(items));
+    }
+}
@@ -0,0 +1,72 @@
+package com.ordermanagement.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    @DisplayName("Should convert amounts with up to two decimals exactly")
+    void testExact() {
+        assertEquals(2590, Money.exact(new BigDecimal("25.90")).cents());
+        assertEquals(-125, Money.exact(new BigDecimal("-1.25")).cents());
+        assertEquals(1000, Money.exact(new BigDecimal("10")).cents());
+        assertEquals(50, Money.exact(new BigDecimal("0.5")).cents());
+        assertSame(Money.ZERO, Money.exact(BigDecimal.ZERO));
+
+        assertNull(Money.exact(new BigDecimal("12.345")));
+        assertNull(Money.exact(new BigDecimal("1.500")));
+        assertNull(Money.exact(new BigDecimal("1E+2")));
+        assertNull(Money.exact(new BigDecimal("123456789012345678901234.50")));
+        assertEquals(9999999999999999_99L, Money.exact(new BigDecimal("9999999999999999.99")).cents());
+    }
+
+    @Test
+    @DisplayName("Should round other amounts half up to cents")
+    void testOf() {
+        assertEquals(1235, Money.of(new BigDecimal("12.345")).cents());
+        assertEquals(1234, Money.of(new BigDecimal("12.344")).cents());
+        assertEquals(-713, Money.of(new BigDecimal("-7.125")).cents());
+    }
+
+    @Test
+    @DisplayName("Should add, subtract and multiply in cents and fail on overflow")
+    void testArithmetic() {
+        Money price = Money.ofCents(1590);
+
+        assertEquals(Money.ofCents(4770), price.times(3));
+        assertEquals(Money.ofCents(2180), price.plus(Money.ofCents(590)));
+        assertEquals(Money.ofCents(-410), price.minus(Money.ofCents(2000)));
+        assertSame(price, price.plus(Money.ZERO));
+        assertTrue(Money.ofCents(0).isZero());
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE / 2).times(3));
+    }
+
+    @Test
+    @DisplayName("Should give back a BigDecimal at the requested scale")
+    void testToBigDecimal() {
+        Money amount = Money.ofCents(2500);
+
+        assertEquals(new BigDecimal("25.00"), amount.toBigDecimal());
+        assertEquals(new BigDecimal("25.0"), amount.toBigDecimal(1));
+        assertEquals(new BigDecimal("25"), amount.toBigDecimal(0));
+        assertEquals(BigDecimal.ZERO, Money.ZERO.toBigDecimal(0));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(2550).toBigDecimal(0));
+        assertThrows(IllegalArgumentException.class, () -> amount.toBigDecimal(3));
+        assertEquals("-0.05", Money.ofCents(-5).toString());
+    }
+
+    @Test
+    @DisplayName("Should compare and hash by cents")
+    void testEquality() {
+        assertEquals(Money.ofCents(100), Money.exact(new BigDecimal("1.00")));
+        assertEquals(Money.ofCents(100).hashCode(), Money.exact(new BigDecimal("1")).hashCode());
+        assertTrue(Money.ofCents(99).compareTo(Money.ofCents(100)) < 0);
+        assertNotEquals(Money.ofCents(1), Money.ofCents(2));
+    }
+}
@@ -213,4 +213,49 @@ class OrderTest {
         // getTotal() should still work as it uses BigDecimal.ZERO defaults
         assertDoesNotThrow(() -> order.getTotal());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should total in cents to the same BigDecimal as the BigDecimal formula")
+    void testTotalsMatchBigDecimalFormula() {
+        Product product = new Product();
+        product.setPrice(new BigDecimal("12.5"));
+        order.addItem(new OrderItem(product, 3, null));
+        OrderItem precise = new OrderItem(product, 2, null);
+        precise.setUnitPrice(new BigDecimal("0.125"));
+        order.setDeliveryFee(new BigDecimal("5.00"));
+        order.setDiscountAmount(new BigDecimal("2"));
+
+        assertEquals(new BigDecimal("37.5"), order.getSubtotal());
+        assertEquals(new BigDecimal("40.50"), order.getTotal());
+        assertEquals(Money.ofCents(1250), order.getItems().get(0).getUnitPriceMoney());
+
+        // An amount with more than two decimals takes the BigDecimal path
+        order.addItem(precise);
+        assertNull(precise.getUnitPriceMoney());
+        assertEquals(new BigDecimal("37.750"), order.getSubtotal());
+        assertEquals(new BigDecimal("40.750"), order.getTotal());
+    }
+
+    @Test
+    @DisplayName("Should keep totals current as items and amounts change")
+    void testTotalsFollowChanges() {
+        Product product = new Product();
+        product.setPrice(new BigDecimal("10.00"));
+        OrderItem first = new OrderItem(product, 1, null);
+        OrderItem second = new OrderItem(product, 2, null);
+        List<OrderItem> items = new ArrayList<>(List.of(first, second));
+        order.setItems(items);
+        assertEquals(new BigDecimal("30.00"), order.getSubtotal());
+
+        order.getItems().remove(0);
+        second.setQuantity(5);
+        assertEquals(new BigDecimal("50.00"), order.getSubtotal());
+
+        first.setUnitPrice(new BigDecimal("99.99"));
+        second.setUnitPrice(new BigDecimal("4"));
+        order.setDeliveryFee(new BigDecimal("3.5"));
+        order.setDiscountAmount(new BigDecimal("1.25"));
+        assertEquals(new BigDecimal("20"), order.getSubtotal());
+        assertEquals(new BigDecimal("22.25"), order.getTotal());
+    }
+}
@@ -0,0 +1,192 @@
+package com.ordermanagement.repository;
+
+import com.ordermanagement.model.Product;
+import com.ordermanagement.model.Seller;
+import com.ordermanagement.enums.ProductCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryProductRepositoryTest {
+
+    private InMemoryProductRepository repository;
+    private Seller seller;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryProductRepository();
+        seller = new Seller();
+        seller.setId(1L);
+        seller.setName("Test Seller");
+    }
+
+    private Product product(String name, ProductCategory category, boolean available) {
+        Product product = new Product(name, "Desc", new BigDecimal("10.00"), category, seller);
+        product.setAvailable(available);
+        return repository.save(product);
+    }
+
+    private List<String> names(List<Product> products) {
+        List<String> names = new ArrayList<>();
+        for (Product product : products) {
+            names.add(product.getName());
+        }
+        return names;
+    }
+
+    @Test
+    @DisplayName("Should assign ids and find saved products")
+    void testSaveAndFind() {
+        Product burger = product("Burger", ProductCategory.SNACKS, true);
+        Product soda = product("Soda", ProductCategory.BEVERAGES, true);
+
+        assertEquals(1L, burger.getId());
+        assertEquals(2L, soda.getId());
+        assertSame(soda, repository.findById(2L).orElseThrow());
+        assertTrue(repository.findById(3L).isEmpty());
+        assertEquals(2, repository.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Should answer category, availability and combined filters")
+    void testBitmapFilters() {
+        product("Burger", ProductCategory.SNACKS, true);
+        product("Fries", ProductCategory.SNACKS, false);
+        product("Soda", ProductCategory.BEVERAGES, true);
+        product("Pudding", ProductCategory.DESSERTS, false);
+
+        assertEquals(List.of("Burger", "Fries"), names(repository.findByCategory(ProductCategory.SNACKS)));
+        assertEquals(List.of("Burger", "Soda"), names(repository.findByAvailable(true)));
+        assertEquals(List.of("Fries", "Pudding"), names(repository.findByAvailable(false)));
+        assertEquals(List.of("Burger"),
+            names(repository.findByCategoryAndAvailable(ProductCategory.SNACKS, true)));
+        assertEquals(List.of("Fries"),
+            names(repository.findByCategoryAndAvailable(ProductCategory.SNACKS, false)));
+        assertTrue(repository.findByCategory(ProductCategory.OTHER).isEmpty());
+        assertTrue(repository.findByCategory(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should move bitmap bits when a saved product changes")
+    void testResaveUpdatesBitmaps() {
+        Product burger = product("Burger", ProductCategory.SNACKS, true);
+
+        burger.setCategory(ProductCategory.OTHER);
+        burger.setAvailable(false);
+        repository.save(burger);
+
+        assertTrue(repository.findByCategory(ProductCategory.SNACKS).isEmpty());
+        assertEquals(1, repository.findByCategoryAndAvailable(ProductCategory.OTHER, false).size());
+        assertTrue(repository.findByAvailable(true).isEmpty());
+        assertEquals(1, repository.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Should clear bits on delete and reuse the freed slot")
+    void testDeleteReusesSlot() {
+        Product burger = product("Burger", ProductCategory.SNACKS, true);
+        product("Soda", ProductCategory.BEVERAGES, true);
+
+        repository.deleteById(burger.getId());
+        assertTrue(repository.findById(burger.getId()).isEmpty());
+        assertTrue(repository.findByCategory(ProductCategory.SNACKS).isEmpty());
+        assertEquals(List.of("Soda"), names(repository.findByAvailable(true)));
+
+        product("Cake", ProductCategory.DESSERTS, true);
+        // The new product takes the deleted product's slot
+        assertEquals(List.of("Cake", "Soda"), names(repository.findAll()));
+        repository.deleteById(99L);
+        assertEquals(2, repository.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Should keep explicit ids and continue numbering after them")
+    void testExplicitIds() {
+        Product imported = new Product("Imported", "Desc", new BigDecimal("1.00"), ProductCategory.OTHER, seller);
+        imported.setId(10L);
+        repository.save(imported);
+
+        assertEquals(11L, product("Next", ProductCategory.OTHER, true).getId());
+    }
+
+    @Test
+    @DisplayName("Should find products by seller and by name")
+    void testSellerAndNameLookups() {
+        product("X-Burger", ProductCategory.SNACKS, true);
+        Seller other = new Seller();
+        other.setId(2L);
+        Product soda = new Product("Soda", "Desc", new BigDecimal("5.00"), ProductCategory.BEVERAGES, other);
+        repository.save(soda);
+
+        assertEquals(List.of("X-Burger"), names(repository.findBySeller(seller)));
+        assertEquals(List.of("Soda"), names(repository.findBySeller(other)));
+        assertEquals(List.of("X-Burger"), names(repository.findByNameContaining("burg")));
+        assertTrue(repository.findByNameContaining(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should move products between sellers on save and forget them on delete")
+    void testSellerIndexFollowsUpdates() {
+        Product burger = product("Burger", ProductCategory.SNACKS, true);
+        Product fries = product("Fries", ProductCategory.SNACKS, true);
+        Seller other = new Seller();
+        other.setId(2L);
+
+        burger.setSeller(other);
+        repository.save(burger);
+        assertEquals(List.of("Fries"), names(repository.findBySeller(seller)));
+        assertEquals(List.of("Burger"), names(repository.findBySeller(other)));
+
+        repository.deleteById(fries.getId());
+        assertTrue(repository.findBySeller(seller).isEmpty());
+
+        // A seller without an id still matches its own products
+        Seller unsaved = new Seller();
+        Product cake = new Product("Cake", "Desc", new BigDecimal("9.00"), ProductCategory.DESSERTS, unsaved);
+        repository.save(cake);
+        assertEquals(List.of("Cake"), names(repository.findBySeller(unsaved)));
+    }
+
+    @Test
+    @DisplayName("Should keep name search in step with saves and deletes")
+    void testNameSearchFollowsUpdates() {
+        Product acai = product("Açaí Bowl", ProductCategory.DESSERTS, true);
+        Product soda = product("Soda", ProductCategory.BEVERAGES, true);
+
+        assertEquals(List.of("Açaí Bowl"), names(repository.findByNameContaining("ACAI")));
+        // Descriptions are indexed but do not count as name matches
+        assertTrue(repository.findByNameContaining("desc").isEmpty());
+        assertEquals(2, repository.findByNameContaining("").size());
+
+        soda.setName("Soda Bowl");
+        repository.save(soda);
+        assertEquals(List.of("Açaí Bowl", "Soda Bowl"), names(repository.findByNameContaining("bowl")));
+
+        repository.deleteById(acai.getId());
+        assertEquals(List.of("Soda Bowl"), names(repository.findByNameContaining("bowl")));
+    }
+
+    @Test
+    @DisplayName("Should find products by name despite typos")
+    void testNameSimilarTo() {
+        Product margherita = product("Pizza Margherita", ProductCategory.OTHER, true);
+        product("X-Burger", ProductCategory.SNACKS, true);
+
+        assertEquals(List.of("Pizza Margherita"), names(repository.findByNameSimilarTo("margerita", 2)));
+        assertEquals(List.of("X-Burger"), names(repository.findByNameSimilarTo("x-burguer", 1)));
+        assertTrue(repository.findByNameSimilarTo("margerita", 0).isEmpty());
+
+        margherita.setName("Pizza Calabresa");
+        repository.save(margherita);
+        assertTrue(repository.findByNameSimilarTo("margerita", 2).isEmpty());
+        repository.deleteById(margherita.getId());
+        assertTrue(repository.findByNameSimilarTo("calabreza", 2).isEmpty());
+        assertTrue(repository.findByNameSimilarTo(null, 2).isEmpty());
+    }
+}
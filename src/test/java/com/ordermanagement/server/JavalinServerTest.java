@@ -4,6 +4,25 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import com.ordermanagement.api.ConflictException;
+import com.ordermanagement.api.HttpApiClient;
+import com.ordermanagement.dto.*;
+import com.ordermanagement.storage.CsvDataManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class JavalinServerTest {
@@ -45,6 +64,256 @@ class JavalinServerTest {
         assertNotNull(server);
     }
 
+    @Test
+    @DisplayName("Should keep every item when the same order is updated concurrently")
+    void testConcurrentItemsOnSameOrder(@TempDir Path tempDir) throws Exception {
+        server = new JavalinServer(new CsvDataManager(tempDir.toString()));
+        int testPort = 9999 + (int)(Math.random() * 1000);
+        server.start(testPort);
+        HttpApiClient client = new HttpApiClient("http://localhost:" + testPort);
+
+        CustomerDto customer = client.registerCustomer("concurrent@example.com", "secret", "Concurrent", "555-0000");
+        AddressDto address = new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000");
+        OrderDto order = client.createOrder(customer.getId(), address);
+        Long productId = client.getAllProducts().get(0).getId();
+
+        int requests = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OrderDto>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(pool.submit(() -> {
+                    // Conflicting updates are rejected with 409; the client retries them
+                    while (true) {
+                        try {
+                            return client.addItemToOrder(order.getId(), productId, 1, null);
+                        } catch (ConflictException e) {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+            for (Future<OrderDto> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        OrderDto stored = client.getOrderById(order.getId());
+        assertEquals(requests, stored.getItems().size());
+        assertEquals(requests + 1, stored.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should stream orders created in a time range")
+    void testOrdersCreatedBetween(@TempDir Path tempDir) throws Exception {
+        server = new JavalinServer(new CsvDataManager(tempDir.toString()));
+        int testPort = 9999 + (int)(Math.random() * 1000);
+        server.start(testPort);
+        HttpApiClient client = new HttpApiClient("http://localhost:" + testPort);
+
+        CustomerDto customer = client.registerCustomer("range@example.com", "secret", "Range", "555-0000");
+        AddressDto address = new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000");
+        OrderDto first = client.createOrder(customer.getId(), address);
+        OrderDto second = client.createOrder(customer.getId(), address);
+        client.cancelOrder(second.getId(), "changed my mind");
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderDto> all = client.getOrdersCreatedBetween(now.minusHours(1), now.plusHours(1), null);
+        assertEquals(2, all.size());
+        assertEquals(first.getId(), all.get(0).getId());
+        List<OrderDto> cancelled = client.getOrdersCreatedBetween(null, null, "CANCELLED");
+        assertEquals(1, cancelled.size());
+        assertEquals(second.getId(), cancelled.get(0).getId());
+        assertTrue(client.getOrdersCreatedBetween(now.plusHours(1), null, null).isEmpty());
+
+        HttpClient http = HttpClient.newHttpClient();
+        for (String query : new String[] {"from=yesterday", "from=2024-02-01&to=2024-01-01"}) {
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + testPort + "/api/orders?" + query))
+                .GET()
+                .build();
+            assertEquals(400, http.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+    }
+
+    @Test
+    @DisplayName("Should list order summaries and fetch items per order")
+    void testOrderSummariesAndItems(@TempDir Path tempDir) throws Exception {
+        server = new JavalinServer(new CsvDataManager(tempDir.toString()));
+        int testPort = 9999 + (int)(Math.random() * 1000);
+        server.start(testPort);
+        HttpApiClient client = new HttpApiClient("http://localhost:" + testPort);
+
+        CustomerDto customer = client.registerCustomer("summary@example.com", "secret", "Summary", "555-0000");
+        AddressDto address = new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000");
+        OrderDto order = client.createOrder(customer.getId(), address);
+        Long productId = client.getAllProducts().get(0).getId();
+        OrderDto withItem = client.addItemToOrder(order.getId(), productId, 3, null);
+
+        List<OrderSummaryDto> summaries = client.getOrderSummariesByCustomer(customer.getId());
+        assertEquals(1, summaries.size());
+        assertEquals(1, summaries.get(0).getItemCount());
+        assertEquals(0, withItem.getTotal().compareTo(summaries.get(0).getTotal()));
+
+        List<OrderItemDto> items = client.getOrderItems(order.getId());
+        assertEquals(1, items.size());
+        assertEquals(3, items.get(0).getQuantity());
+
+        HttpClient http = HttpClient.newHttpClient();
+        String base = "http://localhost:" + testPort;
+        HttpResponse<String> range = http.send(HttpRequest.newBuilder()
+            .uri(URI.create(base + "/api/orders?fields=summary")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(range.body().contains("\"itemCount\":1"));
+        assertFalse(range.body().contains("\"items\""));
+        for (String path : new String[] {"/api/orders/customer/" + customer.getId() + "?fields=everything",
+                                         "/api/orders/abc/items"}) {
+            HttpRequest request = HttpRequest.newBuilder().uri(URI.create(base + path)).GET().build();
+            assertEquals(400, http.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        HttpRequest missing = HttpRequest.newBuilder().uri(URI.create(base + "/api/orders/999999/items")).GET().build();
+        assertEquals(404, http.send(missing, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should reject a limit that is not a positive integer")
+    void testOrdersByCustomerLimit(@TempDir Path tempDir) throws Exception {
+        server = new JavalinServer(new CsvDataManager(tempDir.toString()));
+        int testPort = 9999 + (int)(Math.random() * 1000);
+        server.start(testPort);
+        HttpApiClient client = new HttpApiClient("http://localhost:" + testPort);
+
+        CustomerDto customer = client.registerCustomer("limit@example.com", "secret", "Limit", "555-0000");
+        AddressDto address = new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000");
+        client.createOrder(customer.getId(), address);
+        OrderDto latest = client.createOrder(customer.getId(), address);
+
+        HttpClient http = HttpClient.newHttpClient();
+        String base = "http://localhost:" + testPort + "/api/orders/customer/" + customer.getId() + "?limit=";
+        HttpResponse<String> one = http.send(HttpRequest.newBuilder().uri(URI.create(base + "1")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, one.statusCode());
+        assertTrue(one.body().contains("\"id\":" + latest.getId()));
+
+        HttpResponse<String> zero = http.send(HttpRequest.newBuilder().uri(URI.create(base + "0")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, zero.statusCode());
+        assertTrue(zero.body().contains("limit must be greater than zero"));
+
+        HttpResponse<String> text = http.send(HttpRequest.newBuilder().uri(URI.create(base + "abc")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, text.statusCode());
+        assertTrue(text.body().contains("limit must be a positive integer"));
+    }
+
+    @Test
+    @DisplayName("Should answer 409 when the client sends an outdated version")
+    void testStaleVersionConflict(@TempDir Path tempDir) throws Exception {
+        server = new JavalinServer(new CsvDataManager(tempDir.toString()));
+        int testPort = 9999 + (int)(Math.random() * 1000);
+        server.start(testPort);
+        HttpApiClient client = new HttpApiClient("http://localhost:" + testPort);
+
+        CustomerDto customer = client.registerCustomer("stale@example.com", "secret", "Stale", "555-0000");
+        AddressDto address = new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000");
+        OrderDto order = client.createOrder(customer.getId(), address);
+        OrderDto updated = client.addItemToOrder(order.getId(), client.getAllProducts().get(0).getId(), 1, null);
+        assertEquals(order.getVersion() + 1, updated.getVersion());
+
+        HttpRequest cancel = HttpRequest.newBuilder()
+            .uri(URI.create("http://localhost:" + testPort + "/api/orders/" + order.getId() + "/cancel"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"reason\":\"late\",\"version\":" + order.getVersion() + "}"))
+            .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(cancel, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(409, response.statusCode());
+        assertEquals("PENDING", client.getOrderById(order.getId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should answer 500 and keep the order when the update cannot be written")
+    void testWriteFailure(@TempDir Path tempDir) throws Exception {
+        CsvDataManager dataManager = new CsvDataManager(tempDir.toString());
+        server = new JavalinServer(dataManager);
+        int testPort = 9999 + (int)(Math.random() * 1000);
+        server.start(testPort);
+        HttpApiClient client = new HttpApiClient("http://localhost:" + testPort);
+
+        CustomerDto customer = client.registerCustomer("failing@example.com", "secret", "Failing", "555-0000");
+        AddressDto address = new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000");
+        OrderDto order = client.createOrder(customer.getId(), address);
+        // A closed writer fails every append
+        dataManager.close();
+
+        HttpRequest cancel = HttpRequest.newBuilder()
+            .uri(URI.create("http://localhost:" + testPort + "/api/orders/" + order.getId() + "/cancel"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"reason\":\"late\"}"))
+            .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(cancel, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(500, response.statusCode());
+        OrderDto stored = client.getOrderById(order.getId());
+        assertEquals("PENDING", stored.getStatus());
+        assertEquals(order.getVersion(), stored.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should page products and customer orders and filter by category")
+    void testKeysetPagination(@TempDir Path tempDir) throws Exception {
+        server = new JavalinServer(new CsvDataManager(tempDir.toString()));
+        int testPort = 9999 + (int)(Math.random() * 1000);
+        server.start(testPort);
+        HttpApiClient client = new HttpApiClient("http://localhost:" + testPort);
+
+        PageDto<ProductDto> products = client.getProductsPage(null, 3);
+        assertEquals(3, products.getItems().size());
+        PageDto<ProductDto> rest = client.getProductsPage(products.getNextCursor(), 3);
+        assertEquals(client.getAllProducts().size(), products.getItems().size() + rest.getItems().size());
+        assertFalse(rest.hasNext());
+
+        List<ProductDto> snacks = client.getProductsByCategory("snacks");
+        assertFalse(snacks.isEmpty());
+        assertTrue(snacks.stream().allMatch(product -> "SNACKS".equals(product.getCategory())));
+        assertThrows(IOException.class, () -> client.getProductsByCategory("furniture"));
+
+        List<ProductDto> pizzas = client.searchProducts("PIZZA");
+        assertFalse(pizzas.isEmpty());
+        assertTrue(pizzas.stream().allMatch(product ->
+            (product.getName() + product.getDescription()).toLowerCase().contains("pizza")));
+        assertTrue(client.searchProducts("no such dish").isEmpty());
+        assertThrows(IOException.class, () -> client.searchProducts(" "));
+
+        List<ProductDto> suggestions = client.suggestProducts("piz");
+        assertFalse(suggestions.isEmpty());
+        assertTrue(suggestions.size() <= 10);
+        assertTrue(suggestions.stream().allMatch(product -> product.getName().toLowerCase().contains("piz")));
+        assertTrue(client.suggestProducts("zzz").isEmpty());
+        assertThrows(IOException.class, () -> client.suggestProducts(""));
+
+        CustomerDto customer = client.registerCustomer("pages@example.com", "secret", "Pages", "555-0000");
+        assertThrows(IOException.class,
+            () -> client.registerCustomer("pages@example.com", "secret", "Pages", "555-0000"));
+        HttpRequest metrics = HttpRequest.newBuilder()
+            .uri(URI.create("http://localhost:" + testPort + "/metrics/email-filter"))
+            .GET()
+            .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(metrics, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"observedFalsePositiveRate\""));
+        assertTrue(response.body().contains("\"rebuilds\""));
+        AddressDto address = new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000");
+        client.createOrder(customer.getId(), address);
+        OrderDto second = client.createOrder(customer.getId(), address);
+
+        PageDto<OrderDto> firstPage = client.getOrdersByCustomerPage(customer.getId(), null, 1);
+        PageDto<OrderDto> secondPage = client.getOrdersByCustomerPage(customer.getId(), firstPage.getNextCursor(), 1);
+        assertEquals(second.getId(), secondPage.getItems().get(0).getId());
+        assertThrows(IOException.class, () -> client.getOrdersByCustomerPage(customer.getId(), "oops", 1));
+    }
+
     @AfterEach
     void tearDown() {
         if (server != null) {
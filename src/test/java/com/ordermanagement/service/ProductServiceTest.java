@@ -109,6 +109,19 @@ class ProductServiceTest {
         verify(productRepository, times(1)).findByCategory(ProductCategory.BEVERAGES);
     }
 
+    @Test
+    @DisplayName("Should get only available products of a category")
+    void testGetAvailableProductsByCategory() {
+        when(productRepository.findByCategoryAndAvailable(ProductCategory.SNACKS, true))
+            .thenReturn(List.of(product1));
+
+        List<Product> result = productService.getAvailableProductsByCategory(ProductCategory.SNACKS);
+
+        assertEquals(1, result.size());
+        verify(productRepository, times(1)).findByCategoryAndAvailable(ProductCategory.SNACKS, true);
+        verify(productRepository, never()).findByCategory(any());
+    }
+
     @Test
     @DisplayName("Should get products by seller")
     void testGetProductsBySeller() {
@@ -164,6 +177,18 @@ class ProductServiceTest {
         verify(productRepository, times(1)).findByNameContaining("Sushi");
     }
 
+    @Test
+    @DisplayName("Should fuzzy search with the configured edit distance")
+    void testFuzzySearchProducts() {
+        when(productRepository.findByNameSimilarTo("margerita", 2)).thenReturn(List.of(product1));
+        assertEquals(List.of(product1), productService.fuzzySearchProducts("margerita"));
+
+        ProductService strict = new ProductService(productRepository, 0);
+        strict.fuzzySearchProducts("margerita");
+        verify(productRepository, times(1)).findByNameSimilarTo("margerita", 0);
+        assertThrows(IllegalArgumentException.class, () -> new ProductService(productRepository, -1));
+    }
+
     @Test
     @DisplayName("Should get product by ID")
     void testGetProductById() {
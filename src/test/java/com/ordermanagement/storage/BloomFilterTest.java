@@ -0,0 +1,50 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should never miss a key that was added")
+    void testNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("customer" + i + "@example.com");
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("customer" + i + "@example.com"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep false positives near the target rate at capacity")
+    void testFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("customer" + i + "@example.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("someone" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    @DisplayName("Should size bits and hash functions from capacity and rate")
+    void testSizing() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        // About 9.6 bits and 7 hash functions per key for 1%
+        assertEquals(9600, filter.bitCount(), 64);
+        assertEquals(7, filter.hashCount());
+        assertEquals(1000, filter.capacity());
+        assertEquals(0.0, filter.expectedFalsePositiveRate());
+        assertFalse(filter.mightContain("anyone@example.com"));
+    }
+}
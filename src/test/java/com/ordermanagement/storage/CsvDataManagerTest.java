@@ -10,14 +10,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class CsvDataManagerTest {
 
     private CsvDataManager csvDataManager;
+    // Every manager a test opens, closed after it so no writer thread or executor outlives the test
+    private final List<CsvDataManager> managers = new ArrayList<>();
 
     @TempDir
     Path tempDir;
@@ -26,11 +32,19 @@ class CsvDataManagerTest {
     void setUp() {
         // Use a temporary directory for testing to avoid conflicts with real data
         System.setProperty("user.dir", tempDir.toString());
-        csvDataManager = new CsvDataManager();
+        csvDataManager = track(new CsvDataManager());
+    }
+
+    private CsvDataManager track(CsvDataManager manager) {
+        managers.add(manager);
+        return manager;
     }
 
     @AfterEach
     void tearDown() {
+        for (CsvDataManager manager : managers) {
+            manager.close();
+        }
         // Clean up temp files if they exist
         try {
             Files.deleteIfExists(Paths.get("data/customers.csv"));
@@ -40,6 +54,7 @@ class CsvDataManagerTest {
             Files.deleteIfExists(Paths.get("data/customer_ids.csv"));
             Files.deleteIfExists(Paths.get("data/product_ids.csv"));
             Files.deleteIfExists(Paths.get("data/order_ids.csv"));
+            Files.deleteIfExists(Paths.get("data/snapshot.bin"));
             Files.deleteIfExists(Paths.get("data"));
         } catch (IOException e) {
             // Ignore cleanup errors
@@ -318,6 +333,47 @@ class CsvDataManagerTest {
         List<OrderDto> customer2Orders = csvDataManager.findOrdersByCustomerId(customer2.getId());
         assertEquals(1, customer2Orders.size());
         assertEquals(order3.getId(), customer2Orders.get(0).getId());
+
+        List<OrderDto> latest = csvDataManager.findOrdersByCustomerId(customer1.getId(), 1);
+        assertEquals(1, latest.size());
+        assertEquals(order2.getId(), latest.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should walk products and customer orders page by page")
+    void testKeysetPages() {
+        List<ProductDto> products = csvDataManager.loadProducts();
+        List<Long> productIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageDto<ProductDto> page = csvDataManager.pageProducts(cursor != null ? Long.valueOf(cursor) : null, 3);
+            assertTrue(page.getItems().size() <= 3);
+            page.getItems().forEach(product -> productIds.add(product.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(products.size(), productIds.size());
+
+        LocalDateTime base = LocalDateTime.of(2024, 5, 10, 12, 0, 0);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OrderDto order = new OrderDto();
+            order.setId(csvDataManager.generateOrderId());
+            order.setCustomerId(42L);
+            order.setCustomerName("Pager");
+            order.setStatus("WAITING");
+            order.setCreatedAt(base.plusMinutes(i));
+            order.setItems(new ArrayList<>());
+            csvDataManager.saveOrder(order);
+            orderIds.add(order.getId());
+        }
+
+        PageDto<OrderDto> first = csvDataManager.pageOrdersByCustomerId(42L, null, 2);
+        assertEquals(orderIds.get(1).toString(), first.getNextCursor());
+        PageDto<OrderDto> second = csvDataManager.pageOrdersByCustomerId(42L, orderIds.get(1), 2);
+        assertEquals(orderIds.get(2), second.getItems().get(0).getId());
+        PageDto<OrderDto> last = csvDataManager.pageOrdersByCustomerId(42L, orderIds.get(3), 2);
+        assertEquals(1, last.getItems().size());
+        assertFalse(last.hasNext());
     }
 
     @Test
@@ -460,4 +516,487 @@ class CsvDataManagerTest {
         assertNotNull(foundProduct);
         assertEquals(0, new BigDecimal("15.50").compareTo(foundProduct.getPrice()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should reload written data from a custom data directory")
+    void testReloadFromCustomDataDirectory() {
+        String dataDir = tempDir.resolve("store").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+
+        CustomerDto customer = new CustomerDto("reload@example.com", "Reload Customer", "555-4444");
+        customer.setId(writer.generateCustomerId());
+        writer.saveCustomer(customer);
+
+        OrderDto order = new OrderDto();
+        order.setId(writer.generateOrderId());
+        order.setCustomerId(customer.getId());
+        order.setCustomerName(customer.getName());
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.now());
+        writer.saveOrder(order);
+
+        order.setStatus("CONFIRMED");
+        writer.updateOrder(order);
+
+        assertTrue(Files.exists(Paths.get(dataDir, "orders.csv")));
+
+        CsvDataManager reader = track(new CsvDataManager(dataDir));
+        assertEquals(customer.getId(), reader.findCustomerByEmail("reload@example.com").getId());
+        assertEquals(customer.getName(), reader.findCustomerById(customer.getId()).getName());
+        assertEquals("CONFIRMED", reader.findOrderById(order.getId()).getStatus());
+        assertEquals(1, reader.findOrdersByCustomerId(customer.getId()).size());
+        assertEquals(4, reader.loadProducts().size());
+    }
+
+    @Test
+    @DisplayName("Should restore a snapshot and replay rows written after it")
+    void testStartupFromSnapshotReplaysTail() {
+        String dataDir = tempDir.resolve("snapshot").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+        ProductDto product = writer.loadProducts().get(0);
+
+        CustomerDto first = new CustomerDto("first@example.com", "First", "555-0001");
+        first.setId(writer.generateCustomerId());
+        writer.saveCustomer(first);
+        OrderDto order = new OrderDto();
+        order.setId(writer.generateOrderId());
+        order.setCustomerId(first.getId());
+        order.setCustomerName(first.getName());
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, 0));
+        order.setItems(new ArrayList<>(Arrays.asList(new OrderItemDto(product, 2, "No onions"))));
+        writer.saveOrder(order);
+
+        writer.checkpoint();
+        assertTrue(Files.exists(Paths.get(dataDir, "snapshot.bin")));
+
+        // Written after the checkpoint, so only found by replaying the CSV tail
+        CustomerDto second = new CustomerDto("second@example.com", "Second", "555-0002");
+        second.setId(writer.generateCustomerId());
+        writer.saveCustomer(second);
+        order.setStatus("CONFIRMED");
+        writer.updateOrder(order);
+
+        CsvDataManager reader = track(new CsvDataManager(dataDir));
+        assertEquals(first.getId(), reader.findCustomerByEmail("first@example.com").getId());
+        assertEquals(second.getId(), reader.findCustomerByEmail("second@example.com").getId());
+        OrderDto loaded = reader.findOrderById(order.getId());
+        assertEquals("CONFIRMED", loaded.getStatus());
+        assertEquals(1, loaded.getItems().size());
+        assertEquals(product.getName(), loaded.getItems().get(0).getProduct().getName());
+        assertEquals("No onions", loaded.getItems().get(0).getObservations());
+        assertEquals(order.getCreatedAt(), loaded.getCreatedAt());
+        assertEquals(1, reader.loadOrders().size());
+    }
+
+    @Test
+    @DisplayName("Should serve orders from the mapped files in mapped read mode")
+    void testMappedReadMode() {
+        String dataDir = tempDir.resolve("mapped").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+        ProductDto product = writer.loadProducts().get(0);
+
+        OrderDto order = new OrderDto();
+        order.setId(writer.generateOrderId());
+        order.setCustomerId(7L);
+        order.setCustomerName("Mapped");
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, 0));
+        order.setItems(new ArrayList<>(Arrays.asList(new OrderItemDto(product, 2, "No onions"))));
+        writer.saveOrder(order);
+        writer.close();
+
+        CsvDataManager mapped = track(new CsvDataManager(dataDir, GroupCommitWriter.Durability.NONE,
+            CsvDataManager.ReadMode.MAPPED));
+        OrderDto loaded = mapped.findOrderById(order.getId());
+        assertEquals("WAITING", loaded.getStatus());
+        assertEquals("No onions", loaded.getItems().get(0).getObservations());
+
+        loaded.setStatus("CONFIRMED");
+        mapped.updateOrder(loaded);
+        assertEquals("CONFIRMED", mapped.findOrderById(order.getId()).getStatus());
+        assertEquals(1, mapped.findOrdersByCustomerId(7L).size());
+
+        mapped.compactOrderLog();
+        assertEquals(1, mapped.loadOrders().size());
+        assertEquals("CONFIRMED", mapped.findOrderById(order.getId()).getStatus());
+        mapped.close();
+
+        // Both read modes share the same files
+        CsvDataManager indexed = track(new CsvDataManager(dataDir));
+        assertEquals("CONFIRMED", indexed.findOrderById(order.getId()).getStatus());
+        assertEquals(1, indexed.findOrderById(order.getId()).getItems().size());
+    }
+
+    @Test
+    @DisplayName("Should share one product copy among an order's items of that product in both read modes")
+    void testOrderItemsShareTheirProductCopy() {
+        String dataDir = tempDir.resolve("sharedWithinOrder").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+        List<ProductDto> products = writer.loadProducts();
+        OrderDto order = new OrderDto();
+        order.setId(writer.generateOrderId());
+        order.setCustomerId(7L);
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30));
+        order.setItems(Arrays.asList(new OrderItemDto(products.get(0), 1, null),
+            new OrderItemDto(products.get(1), 1, null), new OrderItemDto(products.get(0), 2, null)));
+        writer.saveOrder(order);
+        writer.close();
+
+        for (CsvDataManager.ReadMode mode : CsvDataManager.ReadMode.values()) {
+            CsvDataManager reader = track(new CsvDataManager(dataDir, GroupCommitWriter.Durability.NONE, mode));
+            List<OrderItemDto> items = reader.findOrderById(order.getId()).getItems();
+            assertEquals(3, items.size(), mode.name());
+            assertSame(items.get(0).getProduct(), items.get(2).getProduct(), mode.name());
+            assertNotSame(items.get(0).getProduct(), items.get(1).getProduct(), mode.name());
+            assertNotSame(items.get(0).getProduct(),
+                reader.findOrderById(order.getId()).getItems().get(0).getProduct(), mode.name());
+            reader.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should give each loaded order item a product of its own in both read modes")
+    void testLoadedItemsOwnProducts() {
+        String dataDir = tempDir.resolve("shared").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+        ProductDto product = writer.loadProducts().get(0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            OrderDto order = new OrderDto();
+            order.setId(writer.generateOrderId());
+            order.setCustomerId(7L);
+            order.setStatus("WAITING");
+            order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, i));
+            order.setItems(new ArrayList<>(Arrays.asList(new OrderItemDto(product, 1 + i, null))));
+            writer.saveOrder(order);
+            ids.add(order.getId());
+        }
+        writer.close();
+
+        for (CsvDataManager.ReadMode mode : CsvDataManager.ReadMode.values()) {
+            CsvDataManager reader = track(new CsvDataManager(dataDir, GroupCommitWriter.Durability.NONE, mode));
+            ProductDto first = reader.findOrderById(ids.get(0)).getItems().get(0).getProduct();
+            ProductDto second = reader.findOrderById(ids.get(1)).getItems().get(0).getProduct();
+            assertNotSame(first, second, mode.name());
+            assertEquals(product.getName(), first.getName(), mode.name());
+            // Changing one does not reach the store or the other orders
+            first.setName("Changed");
+            assertEquals(product.getName(),
+                reader.findOrderById(ids.get(1)).getItems().get(0).getProduct().getName(), mode.name());
+            assertEquals(product.getName(),
+                reader.findOrderById(ids.get(0)).getItems().get(0).getProduct().getName(), mode.name());
+            reader.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should list order headers and fetch items per order in both read modes")
+    void testOrderSummariesAndItems() {
+        String dataDir = tempDir.resolve("summaries").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+        ProductDto product = writer.loadProducts().get(0);
+
+        OrderDto order = new OrderDto();
+        order.setId(writer.generateOrderId());
+        order.setCustomerId(7L);
+        order.setCustomerName("Summary");
+        order.setStatus("WAITING");
+        order.setDeliveryFee(new BigDecimal("4.00"));
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, 0));
+        order.setItems(new ArrayList<>(Arrays.asList(new OrderItemDto(product, 2, null),
+            new OrderItemDto(product, 1, "Extra"))));
+        writer.saveOrder(order);
+        BigDecimal total = order.getTotal();
+        writer.close();
+
+        for (CsvDataManager.ReadMode mode : CsvDataManager.ReadMode.values()) {
+            CsvDataManager manager = track(new CsvDataManager(dataDir, GroupCommitWriter.Durability.NONE, mode));
+            List<OrderSummaryDto> summaries = manager.findOrderSummariesByCustomerId(7L, Integer.MAX_VALUE);
+            assertEquals(1, summaries.size(), mode.name());
+            assertEquals(2, summaries.get(0).getItemCount(), mode.name());
+            assertEquals(0, total.compareTo(summaries.get(0).getTotal()), mode.name());
+            assertEquals(1, manager.pageOrderSummariesByCustomerId(7L, null, 10).getItems().size());
+            assertEquals(1, manager.loadOrderSummaries().size());
+
+            assertEquals(2, manager.findOrderItems(order.getId()).size());
+            assertEquals("Extra", manager.findOrderItems(order.getId()).get(1).getObservations());
+            assertNull(manager.findOrderItems(-1L));
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read back epoch-millis timestamps mixed with text ones in both read modes")
+    void testEpochMillisTimestamps() throws IOException {
+        String dataDir = tempDir.resolve("epoch").toString();
+        LocalDateTime textTime = LocalDateTime.of(2024, 5, 10, 12, 30, 0);
+        LocalDateTime epochTime = LocalDateTime.of(2024, 5, 10, 13, 45, 10);
+
+        CsvDataManager text = track(new CsvDataManager(dataDir));
+        OrderDto first = new OrderDto();
+        first.setId(text.generateOrderId());
+        first.setCustomerId(9L);
+        first.setCustomerName("Text");
+        first.setStatus("WAITING");
+        first.setCreatedAt(textTime);
+        first.setItems(new ArrayList<>());
+        text.saveOrder(first);
+        text.close();
+
+        CsvDataManager epoch = track(new CsvDataManager(dataDir, GroupCommitWriter.Durability.NONE,
+            CsvDataManager.ReadMode.INDEXED, CsvDataManager.TimestampFormat.EPOCH_MILLIS));
+        OrderDto second = new OrderDto();
+        second.setId(epoch.generateOrderId());
+        second.setCustomerId(9L);
+        second.setCustomerName("Epoch");
+        second.setStatus("WAITING");
+        second.setCreatedAt(epochTime);
+        second.setItems(new ArrayList<>());
+        epoch.saveOrder(second);
+        CustomerDto customer = new CustomerDto("epoch@example.com", "Epoch", "555");
+        customer.setId(epoch.generateCustomerId());
+        customer.setCreatedAt(epochTime);
+        epoch.saveCustomer(customer);
+        epoch.close();
+
+        String orders = Files.readString(Paths.get(dataDir, "orders.csv"));
+        assertTrue(orders.contains(",2024-05-10 12:30:00,"));
+        assertTrue(orders.contains("," + TimestampCodec.toEpochMillis(epochTime) + ","));
+
+        for (CsvDataManager.ReadMode mode : CsvDataManager.ReadMode.values()) {
+            CsvDataManager manager = track(new CsvDataManager(dataDir, GroupCommitWriter.Durability.NONE, mode));
+            assertEquals(textTime, manager.findOrderById(first.getId()).getCreatedAt(), mode.name());
+            assertEquals(epochTime, manager.findOrderById(second.getId()).getCreatedAt(), mode.name());
+            List<Long> inRange = new ArrayList<>();
+            manager.forEachOrderCreatedBetween(epochTime.minusMinutes(1), epochTime.plusMinutes(1), null,
+                order -> inRange.add(order.getId()));
+            assertEquals(List.of(second.getId()), inRange, mode.name());
+            assertTrue(manager.loadCustomers().stream()
+                .anyMatch(c -> c.getEmail().equals("epoch@example.com") && c.getCreatedAt().equals(epochTime)));
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the order files consistent under concurrent updates to different orders")
+    void testConcurrentUpdatesToDifferentOrders() throws Exception {
+        String dataDir = tempDir.resolve("concurrent").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+        ProductDto product = writer.loadProducts().get(0);
+
+        int threads = 8;
+        int ordersPerThread = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long customerId = t + 1;
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < ordersPerThread; i++) {
+                    OrderDto order = new OrderDto();
+                    order.setId(writer.generateOrderId());
+                    order.setCustomerId(customerId);
+                    order.setCustomerName("Customer " + customerId);
+                    order.setStatus("WAITING");
+                    order.setCreatedAt(LocalDateTime.now());
+                    order.setItems(new ArrayList<>());
+                    writer.saveOrder(order);
+
+                    order.getItems().add(new OrderItemDto(product, 1, "Note, with comma"));
+                    order.setStatus("CONFIRMED");
+                    writer.updateOrder(order);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+        writer.close();
+
+        CsvDataManager reader = track(new CsvDataManager(dataDir));
+        List<OrderDto> orders = reader.loadOrders();
+        assertEquals(threads * ordersPerThread, orders.size());
+        for (OrderDto order : orders) {
+            assertEquals("CONFIRMED", order.getStatus());
+            assertEquals(1, order.getItems().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject an update based on an outdated version")
+    void testUpdateOrderIfVersion() {
+        String dataDir = tempDir.resolve("versions").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+
+        OrderDto order = new OrderDto();
+        order.setId(writer.generateOrderId());
+        order.setCustomerId(1L);
+        order.setCustomerName("Versioned");
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, 0));
+        order.setItems(new ArrayList<>());
+        writer.saveOrder(order);
+        assertEquals(1L, writer.findOrderById(order.getId()).getVersion());
+
+        OrderDto first = writer.findOrderById(order.getId());
+        OrderDto second = writer.findOrderById(order.getId());
+        first.setStatus("CONFIRMED");
+        second.setStatus("CANCELLED");
+        assertTrue(writer.updateOrderIfVersion(first, 1L));
+        assertFalse(writer.updateOrderIfVersion(second, 1L));
+
+        OrderDto stored = writer.findOrderById(order.getId());
+        assertEquals("CONFIRMED", stored.getStatus());
+        assertEquals(2L, stored.getVersion());
+        writer.close();
+
+        // Versions come back from the snapshot and from the mapped files alike
+        assertTrue(Files.exists(Paths.get(dataDir, "snapshot.bin")));
+        assertEquals(2L, track(new CsvDataManager(dataDir)).findOrderById(order.getId()).getVersion());
+        CsvDataManager mapped = track(new CsvDataManager(dataDir, GroupCommitWriter.Durability.NONE,
+            CsvDataManager.ReadMode.MAPPED));
+        assertEquals(2L, mapped.findOrderById(order.getId()).getVersion());
+        mapped.close();
+    }
+
+    @Test
+    @DisplayName("Should fall back to the CSV files when they were rewritten after the snapshot")
+    void testRewrittenFilesInvalidateSnapshot() {
+        String dataDir = tempDir.resolve("stale").toString();
+        CsvDataManager writer = track(new CsvDataManager(dataDir));
+
+        OrderDto order = new OrderDto();
+        order.setId(writer.generateOrderId());
+        order.setCustomerId(1L);
+        order.setCustomerName("Stale Customer");
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.now());
+        writer.saveOrder(order);
+        writer.checkpoint();
+
+        order.setStatus("DELIVERED");
+        writer.updateOrder(order);
+        writer.compactOrderLog();
+        List<ProductDto> products = writer.loadProducts();
+        products.get(0).setName("Renamed Product");
+        writer.saveProducts(products);
+
+        CsvDataManager reader = track(new CsvDataManager(dataDir));
+        assertEquals("DELIVERED", reader.findOrderById(order.getId()).getStatus());
+        assertEquals("Renamed Product", reader.loadProducts().get(0).getName());
+        assertEquals(1, reader.loadOrders().size());
+    }
+
+    @Test
+    @DisplayName("Should not change stored orders through returned instances")
+    void testReturnedOrdersAreCopies() {
+        String dataDir = tempDir.resolve("copies").toString();
+        CsvDataManager manager = track(new CsvDataManager(dataDir));
+
+        OrderDto order = new OrderDto();
+        order.setId(manager.generateOrderId());
+        order.setCustomerId(1L);
+        order.setCustomerName("Copy Customer");
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.now());
+        manager.saveOrder(order);
+
+        OrderDto loaded = manager.findOrderById(order.getId());
+        loaded.setStatus("CANCELLED");
+
+        assertEquals("WAITING", manager.findOrderById(order.getId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should keep commas and quotes in customer and item text")
+    void testCommasInTextFields() {
+        String dataDir = tempDir.resolve("commas").toString();
+        CsvDataManager manager = track(new CsvDataManager(dataDir));
+
+        CustomerDto customer = new CustomerDto("silva@example.com", "Silva, Ana \"Aninha\"", "555-3333");
+        customer.setId(manager.generateCustomerId());
+        manager.saveCustomer(customer);
+
+        ProductDto product = manager.loadProducts().get(0);
+        OrderDto order = new OrderDto();
+        order.setId(manager.generateOrderId());
+        order.setCustomerId(customer.getId());
+        order.setCustomerName(customer.getName());
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.now());
+        order.setItems(Arrays.asList(new OrderItemDto(product, 1, "No onions, extra cheese")));
+        manager.saveOrder(order);
+        manager.close();
+
+        CsvDataManager reloaded = track(new CsvDataManager(dataDir));
+        assertEquals("Silva, Ana \"Aninha\"", reloaded.findCustomerByEmail("silva@example.com").getName());
+        OrderDto loadedOrder = reloaded.findOrderById(order.getId());
+        assertEquals("Silva, Ana \"Aninha\"", loadedOrder.getCustomerName());
+        assertEquals("No onions, extra cheese", loadedOrder.getItems().get(0).getObservations());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("Should not reissue ids in use when an ids file was emptied")
+    void testEmptyIdsFileKeepsIdsUnique() throws IOException {
+        String dataDir = tempDir.resolve("empty-ids").toString();
+        CsvDataManager manager = track(new CsvDataManager(dataDir));
+        CustomerDto customer = new CustomerDto("ids@example.com", "Ids Customer", "555-4444");
+        customer.setId(manager.generateCustomerId());
+        manager.saveCustomer(customer);
+        OrderDto order = new OrderDto();
+        order.setId(manager.generateOrderId());
+        order.setCustomerId(customer.getId());
+        order.setCustomerName(customer.getName());
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.now());
+        manager.saveOrder(order);
+        manager.close();
+
+        Files.write(Paths.get(dataDir, "customer_ids.csv"), new byte[0]);
+        Files.write(Paths.get(dataDir, "product_ids.csv"), new byte[0]);
+        Files.write(Paths.get(dataDir, "order_ids.csv"), "1".getBytes());
+
+        CsvDataManager reloaded = track(new CsvDataManager(dataDir));
+        assertTrue(reloaded.generateCustomerId() > customer.getId());
+        assertTrue(reloaded.generateOrderId() > order.getId());
+        long maxProductId = reloaded.loadProducts().stream().mapToLong(ProductDto::getId).max().getAsLong();
+        assertTrue(reloaded.generateProductId() > maxProductId);
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("Should drop items of removed products when loading from the snapshot, like a CSV load")
+    void testSnapshotDropsItemsOfRemovedProducts() throws IOException {
+        String dataDir = tempDir.resolve("removed-product").toString();
+        CsvDataManager manager = track(new CsvDataManager(dataDir));
+        List<ProductDto> products = manager.loadProducts();
+        ProductDto kept = products.get(0);
+        ProductDto removed = products.get(1);
+
+        OrderDto order = new OrderDto();
+        order.setId(manager.generateOrderId());
+        order.setCustomerId(1L);
+        order.setCustomerName("Removed Product Customer");
+        order.setStatus("WAITING");
+        order.setCreatedAt(LocalDateTime.now());
+        order.setItems(Arrays.asList(new OrderItemDto(kept, 1, null), new OrderItemDto(removed, 2, null)));
+        manager.saveOrder(order);
+        manager.saveProducts(new ArrayList<>(products.subList(0, 1)));
+        manager.close();
+        assertTrue(Files.exists(Paths.get(dataDir, "snapshot.bin")));
+
+        CsvDataManager fromSnapshot = track(new CsvDataManager(dataDir));
+        List<OrderItemDto> items = fromSnapshot.findOrderById(order.getId()).getItems();
+        assertEquals(1, items.size());
+        assertEquals(kept.getId(), items.get(0).getProduct().getId());
+        assertEquals(kept.getName(), items.get(0).getProduct().getName());
+        fromSnapshot.close();
+
+        Files.delete(Paths.get(dataDir, "snapshot.bin"));
+        CsvDataManager fromCsv = track(new CsvDataManager(dataDir));
+        assertEquals(1, fromCsv.findOrderById(order.getId()).getItems().size());
+    }
+}
@@ -0,0 +1,106 @@
+package com.ordermanagement.storage;
+
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares CsvReader with the String-per-field parser it replaced on order rows.
+ * Not part of the test suite; run its main method on the test classpath.
+ */
+public class CsvParserBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static void main(String[] args) throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= ROWS; i++) {
+            data.append(i).append(",").append(i % 1000).append(",\"Customer ").append(i % 1000)
+                .append("\",CONFIRMED,5.90,PIX,2024-05-10 12:30:00,,\"Street|1|Center|City|ST|12345\",1\n");
+        }
+        char[] chars = data.toString().toCharArray();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            report("legacy parseCSVLine", round, () -> legacy(chars));
+            report("CsvReader", round, () -> streaming(chars));
+        }
+    }
+
+    private interface Run {
+        long run() throws IOException;
+    }
+
+    private static void report(String name, int round, Run run) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf("round %d %-20s %,6d ms  %,5d ns/row  %,5d B/row  (checksum %d)%n",
+            round, name, nanos / 1_000_000, nanos / ROWS, bytes / ROWS, checksum);
+    }
+
+    private static long legacy(char[] chars) throws IOException {
+        long checksum = 0;
+        try (BufferedReader reader = new BufferedReader(new CharArrayReader(chars))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = parseCSVLine(line);
+                checksum += Long.parseLong(parts[0].trim());
+                checksum += new BigDecimal(parts[4].replace(",", ".")).unscaledValue().longValue();
+                checksum += LocalDateTime.parse(parts[6], DATE_FORMATTER).getMinute();
+                checksum += parts[2].length();
+            }
+        }
+        return checksum;
+    }
+
+    private static long streaming(char[] chars) throws IOException {
+        long checksum = 0;
+        try (CsvReader csv = new CsvReader(new CharArrayReader(chars))) {
+            while (csv.next()) {
+                checksum += csv.getLong(0);
+                checksum += csv.getBigDecimal(4).unscaledValue().longValue();
+                checksum += csv.getTimestamp(6, DATE_FORMATTER).getMinute();
+                checksum += csv.field(2).length();
+            }
+        }
+        return checksum;
+    }
+
+    // Copy of the parser CsvDataManager used before CsvReader
+    private static String[] parseCSVLine(String line) {
+        List<String> result = new ArrayList<>();
+        boolean inQuotes = false;
+        StringBuilder current = new StringBuilder();
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == ',' && !inQuotes) {
+                result.add(current.toString().trim());
+                current = new StringBuilder();
+            } else {
+                current.append(c);
+            }
+        }
+        result.add(current.toString().trim());
+        return result.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,176 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.model.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private CsvReader reader(String content) {
+        return new CsvReader(new StringReader(content));
+    }
+
+    @Test
+    @DisplayName("Should split plain records and trim unquoted fields")
+    void testPlainRecords() throws IOException {
+        CsvReader csv = reader("id,name\n1, Burger \n2,Soda");
+
+        assertTrue(csv.next());
+        assertEquals(2, csv.fieldCount());
+        assertEquals("name", csv.getString(1));
+        assertTrue(csv.next());
+        assertEquals(1L, csv.getLong(0));
+        assertEquals("Burger", csv.getString(1));
+        assertTrue(csv.next());
+        assertEquals("Soda", csv.getString(1));
+        assertFalse(csv.next());
+    }
+
+    @Test
+    @DisplayName("Should keep commas, doubled quotes and line breaks inside quoted fields")
+    void testQuotedFields() throws IOException {
+        CsvReader csv = reader("1,\"Silva, Ana\",\"Say \"\"hi\"\"\",\"line one\nline two\"\n");
+
+        assertTrue(csv.next());
+        assertEquals(4, csv.fieldCount());
+        assertEquals("Silva, Ana", csv.getString(1));
+        assertEquals("Say \"hi\"", csv.getString(2));
+        assertEquals("line one\nline two", csv.getString(3));
+        assertFalse(csv.next());
+    }
+
+    @Test
+    @DisplayName("Should handle CRLF line endings and skip blank lines")
+    void testLineEndings() throws IOException {
+        CsvReader csv = reader("a,b\r\n\r\n   \n\"\",x\r\nc,d");
+
+        assertTrue(csv.next());
+        assertEquals("b", csv.getString(1));
+        assertTrue(csv.next());
+        assertTrue(csv.isEmpty(0));
+        assertEquals("x", csv.getString(1));
+        assertTrue(csv.next());
+        assertEquals("c", csv.getString(0));
+        assertFalse(csv.next());
+    }
+
+    @Test
+    @DisplayName("Should keep empty trailing fields")
+    void testEmptyFields() throws IOException {
+        CsvReader csv = reader("1,,\n");
+
+        assertTrue(csv.next());
+        assertEquals(3, csv.fieldCount());
+        assertTrue(csv.isEmpty(1));
+        assertTrue(csv.isEmpty(2));
+    }
+
+    @Test
+    @DisplayName("Should decode numeric and timestamp fields in place")
+    void testTypedDecoders() throws IOException {
+        CsvReader csv = reader("-42,25.90,\"5,50\",7,2024-05-10 12:30:00,12345678901234567890.5\n");
+
+        assertTrue(csv.next());
+        assertEquals(-42L, csv.getLong(0));
+        assertEquals(new BigDecimal("25.90"), csv.getBigDecimal(1));
+        assertEquals(new BigDecimal("5.50"), csv.getBigDecimal(2));
+        assertEquals(7, csv.getInt(3));
+        assertEquals(LocalDateTime.of(2024, 5, 10, 12, 30, 0), csv.getTimestamp(4, DATE_FORMATTER));
+        assertEquals(new BigDecimal("12345678901234567890.5"), csv.getBigDecimal(5));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed numbers")
+    void testMalformedNumbers() throws IOException {
+        CsvReader csv = reader("abc,,1.2.3\n");
+
+        assertTrue(csv.next());
+        assertThrows(NumberFormatException.class, () -> csv.getLong(0));
+        assertThrows(NumberFormatException.class, () -> csv.getLong(1));
+        assertThrows(NumberFormatException.class, () -> csv.getBigDecimal(2));
+    }
+
+    @Test
+    @DisplayName("Should compare and view fields without copying")
+    void testFieldViews() throws IOException {
+        CsvReader csv = reader("id,version\n");
+
+        assertTrue(csv.next());
+        assertTrue(csv.fieldEquals(1, "version"));
+        assertFalse(csv.fieldEquals(1, "versions"));
+        CharSequence view = csv.field(1);
+        assertEquals(7, view.length());
+        assertEquals('v', view.charAt(0));
+        assertEquals("ver", view.subSequence(0, 3).toString());
+        assertEquals("version", view.toString());
+    }
+
+    @Test
+    @DisplayName("Should parse records that span buffer refills")
+    void testSmallReads() throws IOException {
+        // Hands out one character per read to exercise every refill boundary
+        Reader trickle = new Reader() {
+            private final StringReader source = new StringReader("1,\"a\"\"b\",\"c,d\"\r\n2,e,f\n");
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return source.read(buffer, offset, Math.min(1, length));
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+
+        try (CsvReader csv = new CsvReader(trickle)) {
+            assertTrue(csv.next());
+            assertEquals("a\"b", csv.getString(1));
+            assertEquals("c,d", csv.getString(2));
+            assertTrue(csv.next());
+            assertEquals(2L, csv.getLong(0));
+            assertEquals("f", csv.getString(2));
+            assertFalse(csv.next());
+        }
+    }
+
+    @Test
+    @DisplayName("Should grow buffers for wide records")
+    void testWideRecords() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) line.append(',');
+            line.append("field-").append(i).append("-with-some-padding");
+        }
+        CsvReader csv = reader(line.toString());
+
+        assertTrue(csv.next());
+        assertEquals(100, csv.fieldCount());
+        assertEquals("field-99-with-some-padding", csv.getString(99));
+    }
+
+    @Test
+    @DisplayName("Should decode two-decimal amounts as cents and leave other layouts to getBigDecimal")
+    void testMoney() throws IOException {
+        CsvReader csv = reader("25.90,-1.05,\"5,50\",5.9,7,12.345,,abc.de,99999999999999999.99\n");
+
+        assertTrue(csv.next());
+        assertEquals(Money.ofCents(2590), csv.getMoney(0));
+        assertEquals(Money.ofCents(-105), csv.getMoney(1));
+        assertEquals(Money.ofCents(550), csv.getMoney(2));
+        for (int field = 3; field < 9; field++) {
+            assertNull(csv.getMoney(field), "field " + field);
+        }
+    }
+}
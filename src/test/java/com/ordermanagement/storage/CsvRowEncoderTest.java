@@ -0,0 +1,152 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.AddressDto;
+import com.ordermanagement.dto.OrderDto;
+import com.ordermanagement.dto.OrderItemDto;
+import com.ordermanagement.dto.ProductDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRowEncoderTest {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // The quoting the rows were written with before CsvRowEncoder
+    private static String quote(String value) {
+        return value == null ? "\"\"" : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String encoded(CsvRowEncoder encoder) {
+        return new String(encoder.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should separate fields and end rows with a newline")
+    void testFieldsAndRows() {
+        CsvRowEncoder encoder = new CsvRowEncoder()
+            .field(1).field("PIX").field((String) null).endRow()
+            .field(-42).field(Long.MAX_VALUE).field(Long.MIN_VALUE).field(0).endRow();
+
+        assertEquals("1,PIX,\n-42,9223372036854775807,-9223372036854775808,0\n", encoded(encoder));
+    }
+
+    @Test
+    @DisplayName("Should quote fields so CsvReader reads them back")
+    void testQuoting() throws IOException {
+        String[] values = {"plain", "with, comma", "say \"hi\"", "two\nlines", ""};
+        for (String value : values) {
+            CsvReader csv = new CsvReader(new StringReader(encoded(new CsvRowEncoder().quoted(value).quoted(value))));
+            assertTrue(csv.next());
+            assertEquals(2, csv.fieldCount());
+            assertEquals(value, csv.getString(0));
+            assertEquals(value, csv.getString(1));
+        }
+        assertEquals("\"say \"\"hi\"\"\"", encoded(new CsvRowEncoder().quoted("say \"hi\"")));
+        assertEquals("\"\"", encoded(new CsvRowEncoder().quoted(null)));
+        assertEquals(",\"\",\"x\"", encoded(new CsvRowEncoder().optionalQuoted(null).optionalQuoted("").optionalQuoted("x")));
+        assertEquals("\"a|null|b\"\"c\"", encoded(new CsvRowEncoder().quotedJoin('|', "a", null, "b\"c")));
+    }
+
+    @Test
+    @DisplayName("Should encode text as UTF-8")
+    void testUtf8() {
+        String text = "Açaí — 日本 😀 ok";
+        assertArrayEquals(("\"" + text + "\"").getBytes(StandardCharsets.UTF_8), new CsvRowEncoder().quoted(text).toByteArray());
+        assertEquals("a?b", encoded(new CsvRowEncoder().field("a\uD800b")));
+    }
+
+    @Test
+    @DisplayName("Should round money to two decimals like %.2f")
+    void testMoney() {
+        String[] amounts = {"0", "5.9", "12.345", "12.344", "-0.5", "-7.125", "0.005", "1234567.89", "99999999999999999999.99"};
+        for (String amount : amounts) {
+            BigDecimal value = new BigDecimal(amount);
+            assertEquals(String.format(Locale.US, "%.2f", value), encoded(new CsvRowEncoder().money(value)), amount);
+        }
+        assertEquals("", encoded(new CsvRowEncoder().money((BigDecimal) null)));
+    }
+
+    @Test
+    @DisplayName("Should write timestamps as yyyy-MM-dd HH:mm:ss")
+    void testTimestamp() {
+        LocalDateTime[] times = {
+            LocalDateTime.of(2024, 5, 10, 12, 30, 0),
+            LocalDateTime.of(999, 1, 2, 3, 4, 5, 999_999_999),
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+            LocalDateTime.of(12345, 6, 7, 8, 9, 10)
+        };
+        for (LocalDateTime time : times) {
+            assertEquals(time.format(DATE_FORMATTER), encoded(new CsvRowEncoder().timestamp(time)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should encode order and item rows exactly as the String.format rows did")
+    void testOrderRowsMatchFormat() {
+        ProductDto product = new ProductDto("Pizza \"Grande\"", "desc", new BigDecimal("45.90"), "FOOD");
+        product.setId(7L);
+        OrderItemDto item = new OrderItemDto(product, 2, "no onions, please");
+        OrderDto order = new OrderDto();
+        order.setId(12L);
+        order.setCustomerId(3L);
+        order.setCustomerName("José, \"Zé\"");
+        order.setStatus("CONFIRMED");
+        order.setDeliveryFee(new BigDecimal("5.9"));
+        order.setPaymentMethod("PIX");
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, 15));
+        order.setCancellationReason("");
+        order.setDeliveryAddress(new AddressDto("Rua A", "10", null, "São Paulo", "SP", "01000-000"));
+
+        String address = String.format("%s|%s|%s|%s|%s|%s", "Rua A", "10", null, "São Paulo", "SP", "01000-000");
+        String orderRow = String.format(Locale.US, "%d,%d,%s,%s,%.2f,%s,%s,%s,%s,%d\n",
+            12L, 3L, quote(order.getCustomerName()), "CONFIRMED", order.getDeliveryFee(), "PIX",
+            order.getCreatedAt().format(DATE_FORMATTER), quote(""), quote(address), 4L);
+        String itemRow = String.format(Locale.US, "%d,%d,%s,%d,%.2f,%s,%d\n",
+            12L, 7L, quote(product.getName()), 2, item.getUnitPrice(),
+            quote(item.getObservations()), 4L);
+
+        assertEquals(orderRow,
+            encoded(OrderLog.encodeOrderRow(new CsvRowEncoder(), order, 4, CsvDataManager.TimestampFormat.TEXT)));
+        assertEquals(itemRow, encoded(OrderLog.encodeItemRow(new CsvRowEncoder(), 12L, item, 4)));
+
+        order.setDeliveryAddress(null);
+        order.setDeliveryFee(null);
+        order.setCancellationReason(null);
+        order.setPaymentMethod(null);
+        assertEquals("12,3," + quote(order.getCustomerName()) + ",CONFIRMED,0.00,,2024-05-10 12:30:15,,\"\",1\n",
+            encoded(OrderLog.encodeOrderRow(new CsvRowEncoder(), order, 1, CsvDataManager.TimestampFormat.TEXT)));
+    }
+
+    @Test
+    @DisplayName("Should reuse the pooled encoder and empty the buffer on flush")
+    void testPoolingAndFlush() throws IOException {
+        CsvRowEncoder first = CsvRowEncoder.pooled().field(1).endRow();
+        CsvRowEncoder second = CsvRowEncoder.pooled();
+        assertSame(first, second);
+        assertEquals(0, second.size());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        second.raw("a,b\n").field(1).field(2).endRow();
+        second.flushTo(Channels.newChannel(out));
+        assertEquals(0, second.size());
+        second.field(3).field(4).endRow();
+        second.flushTo(Channels.newChannel(out));
+        assertEquals("a,b\n1,2\n3,4\n", out.toString(StandardCharsets.UTF_8));
+
+        // A buffer grown by a big rewrite is dropped, not kept for the thread
+        second.reset().raw("x".repeat(2 << 20));
+        assertEquals(0, CsvRowEncoder.pooled().size());
+    }
+}
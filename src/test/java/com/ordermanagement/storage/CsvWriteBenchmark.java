@@ -0,0 +1,113 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.AddressDto;
+import com.ordermanagement.dto.OrderDto;
+import com.ordermanagement.dto.OrderItemDto;
+import com.ordermanagement.dto.ProductDto;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the String.format row formatting OrderLog used to do with
+ * CsvRowEncoder, encoding order rows and their item rows to UTF-8 bytes.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class CsvWriteBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static void main(String[] args) {
+        List<OrderDto> orders = new ArrayList<>(ROWS);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 1; i <= ROWS; i++) {
+            ProductDto product = new ProductDto("Product " + (i % 500), "desc", new BigDecimal((i % 9000) + ".90"), "FOOD");
+            product.setId((long) (i % 500));
+            OrderDto order = new OrderDto();
+            order.setId((long) i);
+            order.setCustomerId((long) (i % 1000));
+            order.setCustomerName("Customer " + (i % 1000));
+            order.setStatus("CONFIRMED");
+            order.setDeliveryFee(new BigDecimal("5.90"));
+            order.setPaymentMethod("PIX");
+            order.setCreatedAt(start.plusSeconds(i));
+            order.setDeliveryAddress(new AddressDto("Street", "1", "Center", "City", "ST", "12345"));
+            order.setItems(new ArrayList<>(List.of(new OrderItemDto(product, 1 + i % 3, i % 4 == 0 ? "extra" : null))));
+            orders.add(order);
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            report("String.format", round, () -> formatted(orders));
+            report("CsvRowEncoder", round, () -> encoded(orders));
+        }
+    }
+
+    private interface Run {
+        long run();
+    }
+
+    private static void report(String name, int round, Run run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf("round %d %-15s %,6d ms  %,5d ns/order  %,5d B/order  (checksum %d)%n",
+            round, name, nanos / 1_000_000, nanos / ROWS, bytes / ROWS, checksum);
+    }
+
+    // One order and its items per iteration, turned into bytes as the writer needs them
+    // The String-based quoting the formatted rows were written with
+    private static String quote(String value) {
+        return value == null ? "\"\"" : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static long formatted(List<OrderDto> orders) {
+        long checksum = 0;
+        for (OrderDto order : orders) {
+            StringBuilder rows = new StringBuilder();
+            for (OrderItemDto item : order.getItems()) {
+                rows.append(String.format(Locale.US, "%d,%d,%s,%d,%.2f,%s,%d\n",
+                    order.getId(), item.getProduct().getId(), quote(item.getProduct().getName()),
+                    item.getQuantity(), item.getUnitPrice(),
+                    item.getObservations() != null ? quote(item.getObservations()) : "", 1L));
+            }
+            checksum += rows.toString().getBytes(StandardCharsets.UTF_8).length;
+            AddressDto addr = order.getDeliveryAddress();
+            String address = String.format("%s|%s|%s|%s|%s|%s", addr.getStreet(), addr.getNumber(),
+                addr.getNeighborhood(), addr.getCity(), addr.getState(), addr.getZipCode());
+            String row = String.format(Locale.US, "%d,%d,%s,%s,%.2f,%s,%s,%s,%s,%d\n",
+                order.getId(), order.getCustomerId(), quote(order.getCustomerName()), order.getStatus(),
+                order.getDeliveryFee(), order.getPaymentMethod(), order.getCreatedAt().format(DATE_FORMATTER),
+                "", quote(address), 1L);
+            checksum += row.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return checksum;
+    }
+
+    private static long encoded(List<OrderDto> orders) {
+        long checksum = 0;
+        for (OrderDto order : orders) {
+            CsvRowEncoder encoder = CsvRowEncoder.pooled();
+            for (OrderItemDto item : order.getItems()) {
+                OrderLog.encodeItemRow(encoder, order.getId(), item, 1);
+            }
+            checksum += encoder.toByteArray().length;
+            encoder.reset();
+            checksum += OrderLog.encodeOrderRow(encoder, order, 1, CsvDataManager.TimestampFormat.TEXT).toByteArray().length;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerOrderIndexTest {
+
+    private CustomerOrderIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CustomerOrderIndex();
+    }
+
+    @Test
+    @DisplayName("Should keep order ids sorted by time even when added out of order")
+    void testOrdersByTime() {
+        index.add(1L, 10L, 300L);
+        index.add(1L, 11L, 100L);
+        index.add(1L, 12L, 200L);
+        index.add(1L, 13L, 400L);
+        index.add(2L, 20L, 50L);
+
+        assertArrayEquals(new long[] {11L, 12L, 10L, 13L}, index.orderIds(1L));
+        assertArrayEquals(new long[] {20L}, index.orderIds(2L));
+        assertArrayEquals(new long[0], index.orderIds(3L));
+    }
+
+    @Test
+    @DisplayName("Should break time ties by order id and ignore duplicates")
+    void testTiesAndDuplicates() {
+        index.add(1L, 12L, 100L);
+        index.add(1L, 10L, 100L);
+        index.add(1L, 11L, 100L);
+        index.add(1L, 10L, 100L);
+        index.add(1L, 12L, 100L);
+
+        assertArrayEquals(new long[] {10L, 11L, 12L}, index.orderIds(1L));
+    }
+
+    @Test
+    @DisplayName("Should return only the latest orders when limited")
+    void testLatestOrderIds() {
+        for (long id = 1; id <= 10; id++) {
+            index.add(1L, id, id * 10);
+        }
+
+        assertArrayEquals(new long[] {8L, 9L, 10L}, index.latestOrderIds(1L, 3));
+        assertEquals(10, index.latestOrderIds(1L, 50).length);
+        assertEquals(0, index.latestOrderIds(1L, 0).length);
+    }
+
+    @Test
+    @DisplayName("Should page through order ids after a cursor position")
+    void testOrderIdsAfter() {
+        for (long id = 1; id <= 5; id++) {
+            index.add(1L, id, id * 10);
+        }
+
+        assertArrayEquals(new long[] {1L, 2L}, index.orderIdsAfter(1L, Long.MIN_VALUE, Long.MIN_VALUE, 2));
+        assertArrayEquals(new long[] {3L, 4L}, index.orderIdsAfter(1L, 20L, 2L, 2));
+        assertArrayEquals(new long[] {5L}, index.orderIdsAfter(1L, 40L, 4L, 2));
+        assertEquals(0, index.orderIdsAfter(1L, 50L, 5L, 2).length);
+        // Positions that are not indexed still resume at the right place
+        assertArrayEquals(new long[] {3L, 4L, 5L}, index.orderIdsAfter(1L, 25L, 99L, 10));
+        assertEquals(0, index.orderIdsAfter(2L, 0L, 0L, 10).length);
+    }
+
+    @Test
+    @DisplayName("Should remove orders and drop empty customers")
+    void testRemove() {
+        index.add(1L, 10L, 100L);
+        index.add(1L, 11L, 200L);
+
+        index.remove(1L, 10L, 100L);
+        index.remove(1L, 11L, 999L); // Wrong time key, not found
+        assertArrayEquals(new long[] {11L}, index.orderIds(1L));
+
+        index.remove(1L, 11L, 200L);
+        assertEquals(0, index.orderIds(1L).length);
+
+        index.add(1L, 12L, 300L);
+        index.clear();
+        assertEquals(0, index.orderIds(1L).length);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyIndexTest {
+
+    private FuzzyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FuzzyIndex();
+        index.put(1L, "Pizza Margherita");
+        index.put(2L, "X-Burger");
+        index.put(3L, "Açaí na Tigela");
+        index.put(4L, "Pizza Calabresa");
+    }
+
+    @Test
+    @DisplayName("Should compute Levenshtein distances")
+    void testDistance() {
+        assertEquals(0, FuzzyIndex.distance("pizza", "pizza"));
+        assertEquals(1, FuzzyIndex.distance("margerita", "margherita"));
+        assertEquals(3, FuzzyIndex.distance("kitten", "sitting"));
+        assertEquals(5, FuzzyIndex.distance("", "pizza"));
+    }
+
+    @Test
+    @DisplayName("Should find names despite typos")
+    void testTypos() {
+        assertArrayEquals(new long[] {1L}, index.search("margerita", 2));
+        assertArrayEquals(new long[] {2L}, index.search("x-burguer", 2));
+        assertArrayEquals(new long[] {3L}, index.search("ACAI tijela", 2));
+        assertEquals(0, index.search("sushi", 2).length);
+    }
+
+    @Test
+    @DisplayName("Should require every query word and rank closer matches first")
+    void testRanking() {
+        assertArrayEquals(new long[] {1L, 4L}, index.search("piza", 2));
+        assertArrayEquals(new long[] {4L}, index.search("piza calabreza", 2));
+        index.put(5L, "Piza Margherita");
+        assertArrayEquals(new long[] {5L, 1L}, index.search("piza margherita", 2));
+    }
+
+    @Test
+    @DisplayName("Should respect the edit distance bound")
+    void testDistanceBound() {
+        assertEquals(0, index.search("margerita", 0).length);
+        assertArrayEquals(new long[] {1L}, index.search("margherita", 0));
+        assertEquals(0, index.search("mrgerita", 1).length);
+        assertArrayEquals(new long[] {1L}, index.search("mrgerita", 2));
+        // Short words allow fewer edits than the bound
+        assertArrayEquals(new long[] {3L}, index.search("na", 2));
+        assertEquals(0, index.search("xx", 2).length);
+        assertEquals(0, index.search("pizza", -1).length);
+    }
+
+    @Test
+    @DisplayName("Should follow updates and removals")
+    void testUpdateAndRemove() {
+        index.put(2L, "Cheese Burger");
+        assertEquals(0, index.search("x-burger", 0).length);
+        assertArrayEquals(new long[] {2L}, index.search("cheeze burger", 2));
+
+        index.remove(1L);
+        assertEquals(0, index.search("margherita", 2).length);
+        assertEquals(3, index.size());
+        index.put(1L, "Margherita");
+        assertArrayEquals(new long[] {1L}, index.search("margherita", 0));
+    }
+
+    @Test
+    @DisplayName("Should keep answering after many removals trigger a rebuild")
+    void testRebuild() {
+        for (long id = 100; id < 3100; id++) {
+            index.put(id, "dish" + id);
+        }
+        for (long id = 100; id < 3100; id++) {
+            index.remove(id);
+        }
+        assertEquals(4, index.size());
+        assertArrayEquals(new long[] {1L}, index.search("margerita", 2));
+        assertEquals(0, index.search("dish150", 1).length);
+        index.clear();
+        assertEquals(0, index.search("pizza", 2).length);
+    }
+}
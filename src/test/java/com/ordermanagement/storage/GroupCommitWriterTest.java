@@ -0,0 +1,307 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should write the header once and keep rows in queue order")
+    void testAppendWritesHeaderOnce() throws IOException {
+        Path file = tempDir.resolve("rows.csv");
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.NONE)) {
+            GroupCommitWriter.await(writer.append(file, "id,name", "1,a\n"));
+            CompletableFuture<Void> second = writer.append(file, "id,name", "2,b\n");
+            CompletableFuture<Void> third = writer.append(file, "id,name", "3,c\n");
+            GroupCommitWriter.await(CompletableFuture.allOf(second, third));
+        }
+
+        assertEquals(Arrays.asList("id,name", "1,a", "2,b", "3,c"), Files.readAllLines(file));
+    }
+
+    @Test
+    @DisplayName("Should not repeat the header when appending to an existing file")
+    void testAppendToExistingFile() throws IOException {
+        Path file = tempDir.resolve("rows.csv");
+        Files.write(file, "id,name\n1,a\n".getBytes(StandardCharsets.UTF_8));
+
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.SYNC_PER_BATCH)) {
+            GroupCommitWriter.await(writer.append(file, "id,name", "2,b\n"));
+        }
+
+        assertEquals(Arrays.asList("id,name", "1,a", "2,b"), Files.readAllLines(file));
+    }
+
+    @Test
+    @DisplayName("Should write UTF-8 regardless of the platform charset")
+    void testAppendWritesUtf8() throws IOException {
+        Path file = tempDir.resolve("rows.csv");
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.SYNC_PER_RECORD)) {
+            GroupCommitWriter.await(writer.append(file, "name", "João Ção\n"));
+        }
+
+        assertEquals(Arrays.asList("name", "João Ção"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should replace the whole file after earlier appends")
+    void testReplaceRunsAfterQueuedAppends() throws IOException {
+        Path file = tempDir.resolve("rows.csv");
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.NONE)) {
+            CompletableFuture<Void> appended = writer.append(file, "id", "1\n");
+            CompletableFuture<Void> replaced = writer.replace(file, "id\n9\n");
+            CompletableFuture<Void> appendedAfter = writer.append(file, "id", "10\n");
+            GroupCommitWriter.await(CompletableFuture.allOf(appended, replaced, appendedAfter));
+        }
+
+        assertEquals(Arrays.asList("id", "9", "10"), Files.readAllLines(file));
+        assertFalse(Files.exists(tempDir.resolve("rows.csv.tmp")));
+    }
+
+    @Test
+    @DisplayName("Should surface task failures as IOException")
+    void testTaskFailure() {
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.NONE)) {
+            CompletableFuture<Void> failed = writer.submit(() -> {
+                throw new IOException("disk full");
+            });
+
+            IOException error = assertThrows(IOException.class, () -> GroupCommitWriter.await(failed));
+            assertEquals("disk full", error.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail appends to a file that cannot be opened")
+    void testAppendFailure() throws IOException {
+        Path file = tempDir.resolve("missing").resolve("rows.csv");
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.NONE)) {
+            assertThrows(IOException.class, () -> GroupCommitWriter.await(writer.append(file, "id", "1\n")));
+
+            // The writer keeps serving other files
+            Path other = tempDir.resolve("other.csv");
+            GroupCommitWriter.await(writer.append(other, "id", "1\n"));
+            assertEquals(Arrays.asList("id", "1"), Files.readAllLines(other));
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail an append whose rows depend on a failed append without writing it")
+    void testDependentAppendFails() throws IOException {
+        Path items = tempDir.resolve("missing").resolve("items.csv");
+        Path orders = tempDir.resolve("orders.csv");
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.SYNC_PER_BATCH)) {
+            CompletableFuture<Void> itemsWritten = writer.append(items, "order_id", "1\n".getBytes(StandardCharsets.UTF_8));
+            CompletableFuture<Void> orderWritten = writer.append(orders, "id", "1\n".getBytes(StandardCharsets.UTF_8), itemsWritten);
+
+            assertThrows(IOException.class, () -> GroupCommitWriter.await(itemsWritten));
+            assertThrows(IOException.class, () -> GroupCommitWriter.await(orderWritten));
+            assertFalse(Files.exists(orders));
+
+            // Appends with a dependency that succeeded go through
+            CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+            GroupCommitWriter.await(writer.append(orders, "id", "2\n".getBytes(StandardCharsets.UTF_8), done));
+        }
+
+        assertEquals(Arrays.asList("id", "2"), Files.readAllLines(orders));
+    }
+
+    @Test
+    @DisplayName("Should cut a partly written batch off the file so the next append starts a new row")
+    void testFailedWriteIsTruncated() throws IOException {
+        Path file = tempDir.resolve("rows.csv");
+        AtomicBoolean failNextWrite = new AtomicBoolean();
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.SYNC_PER_BATCH) {
+            @Override
+            FileChannel open(Path path) throws IOException {
+                return new FailingChannel(super.open(path), failNextWrite);
+            }
+        }) {
+            GroupCommitWriter.await(writer.append(file, "id,name", "1,a\n"));
+            failNextWrite.set(true);
+            assertThrows(IOException.class, () -> GroupCommitWriter.await(writer.append(file, "id,name", "2,bbbbbbbb\n")));
+            GroupCommitWriter.await(writer.append(file, "id,name", "3,c\n"));
+        }
+
+        assertEquals(Arrays.asList("id,name", "1,a", "3,c"), Files.readAllLines(file));
+    }
+
+    @Test
+    @DisplayName("Should replace a file through a synced temp file in sync modes")
+    void testReplaceSynced() throws IOException {
+        Path file = tempDir.resolve("rows.csv");
+        Files.write(file, "id\n1\n".getBytes(StandardCharsets.UTF_8));
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.SYNC_PER_RECORD)) {
+            GroupCommitWriter.await(writer.replace(file, "id\n2\n"));
+        }
+
+        assertEquals(Arrays.asList("id", "2"), Files.readAllLines(file));
+        assertFalse(Files.exists(tempDir.resolve("rows.csv.tmp")));
+    }
+
+    @Test
+    @DisplayName("Should write everything queued before close and reject later writes")
+    void testCloseDrainsQueue() throws IOException {
+        Path file = tempDir.resolve("rows.csv");
+        GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.NONE);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            writes.add(writer.append(file, "id", i + "\n"));
+        }
+        writer.close();
+        writer.close();
+
+        for (CompletableFuture<Void> write : writes) {
+            assertTrue(write.isDone());
+            assertFalse(write.isCompletedExceptionally());
+        }
+        assertEquals(101, Files.readAllLines(file).size());
+        assertThrows(IOException.class, () -> GroupCommitWriter.await(writer.append(file, "id", "101\n")));
+    }
+
+    @Test
+    @DisplayName("Should keep every row when many threads append at once")
+    void testConcurrentAppends() throws Exception {
+        Path file = tempDir.resolve("rows.csv");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (GroupCommitWriter writer = new GroupCommitWriter(GroupCommitWriter.Durability.SYNC_PER_BATCH)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        GroupCommitWriter.await(writer.append(file, "id", (thread * 1000 + i) + "\n"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("id", lines.get(0));
+        Set<String> rows = new HashSet<>(lines.subList(1, lines.size()));
+        assertEquals(2000, lines.size() - 1);
+        assertEquals(2000, rows.size());
+    }
+
+    // Writes half of the next buffer and then fails, like a disk filling up mid-write
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final AtomicBoolean failNextWrite;
+
+        FailingChannel(FileChannel delegate, AtomicBoolean failNextWrite) {
+            this.delegate = delegate;
+            this.failNextWrite = failNextWrite;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failNextWrite.getAndSet(false)) {
+                ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                int written = delegate.write(half);
+                src.position(src.position() + written);
+                throw new IOException("disk full");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException { return delegate.read(dst); }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException { return delegate.read(dsts, offset, length); }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException { return delegate.write(srcs, offset, length); }
+
+        @Override
+        public long position() throws IOException { return delegate.position(); }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException { return delegate.size(); }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException { delegate.force(metaData); }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException { return delegate.read(dst, position); }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException { return delegate.write(src, position); }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdAllocatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String readFile(Path file) throws IOException {
+        return Files.readAllLines(file).get(0);
+    }
+
+    @Test
+    @DisplayName("Should hand out sequential ids starting at one")
+    void testSequentialIds() {
+        IdAllocator allocator = new IdAllocator(tempDir.resolve("ids.csv"), 10);
+
+        assertEquals(1L, allocator.nextId());
+        assertEquals(2L, allocator.nextId());
+        assertEquals(3L, allocator.nextId());
+    }
+
+    @Test
+    @DisplayName("Should only persist the upper bound of each reserved block")
+    void testPersistsBlockUpperBound() throws IOException {
+        Path idsFile = tempDir.resolve("ids.csv");
+        IdAllocator allocator = new IdAllocator(idsFile, 10);
+
+        allocator.nextId();
+        assertEquals("10", readFile(idsFile));
+
+        Files.delete(idsFile);
+        for (int i = 0; i < 9; i++) {
+            allocator.nextId();
+        }
+        assertFalse(Files.exists(idsFile), "No write expected inside a reserved block");
+
+        assertEquals(11L, allocator.nextId());
+        assertEquals("20", readFile(idsFile));
+        assertEquals(20L, allocator.getReservedUpTo());
+    }
+
+    @Test
+    @DisplayName("Should skip the unused part of a block after a restart")
+    void testRestartSkipsReservedIds() {
+        Path idsFile = tempDir.resolve("ids.csv");
+        IdAllocator first = new IdAllocator(idsFile, 10);
+        first.nextId();
+        first.nextId();
+
+        IdAllocator restarted = new IdAllocator(idsFile, 10);
+        assertEquals(11L, restarted.nextId());
+    }
+
+    @Test
+    @DisplayName("Should continue after an ids file holding the last used id")
+    void testLegacyIdsFile() throws IOException {
+        Path idsFile = tempDir.resolve("ids.csv");
+        Files.write(idsFile, Collections.singletonList("4"));
+
+        IdAllocator allocator = new IdAllocator(idsFile, 10);
+        assertEquals(5L, allocator.nextId());
+        assertEquals("14", readFile(idsFile));
+    }
+
+    @Test
+    @DisplayName("Should start from zero when the ids file is corrupted")
+    void testCorruptedIdsFile() throws IOException {
+        Path idsFile = tempDir.resolve("ids.csv");
+        Files.write(idsFile, Collections.singletonList("not-a-number"));
+
+        assertEquals(1L, new IdAllocator(idsFile, 10).nextId());
+    }
+
+    @Test
+    @DisplayName("Should skip ids found in the data after an empty ids file")
+    void testEmptyIdsFile() throws IOException {
+        Path idsFile = tempDir.resolve("ids.csv");
+        Files.write(idsFile, new byte[0]);
+
+        IdAllocator allocator = new IdAllocator(idsFile, 10);
+        allocator.advancePast(37);
+        assertEquals(38L, allocator.nextId());
+        assertEquals("40", readFile(idsFile));
+    }
+
+    @Test
+    @DisplayName("Should skip ids found in the data after a truncated ids file")
+    void testTruncatedIdsFile() throws IOException {
+        Path idsFile = tempDir.resolve("ids.csv");
+        IdAllocator first = new IdAllocator(idsFile, 100);
+        first.advancePast(1234);
+        assertEquals("1300", readFile(idsFile));
+        Files.write(idsFile, "13".getBytes(StandardCharsets.UTF_8));
+
+        IdAllocator restarted = new IdAllocator(idsFile, 100);
+        restarted.advancePast(1234);
+        assertEquals(1235L, restarted.nextId());
+        assertTrue(Long.parseLong(readFile(idsFile)) >= 1235);
+    }
+
+    @Test
+    @DisplayName("Should keep ids below the reserved bound when advancing past a smaller id")
+    void testAdvancePastReservedId() {
+        IdAllocator allocator = new IdAllocator(tempDir.resolve("ids.csv"), 10);
+        allocator.nextId();
+        allocator.nextId();
+
+        allocator.advancePast(1);
+        assertEquals(3L, allocator.nextId());
+        assertEquals(10L, allocator.getReservedUpTo());
+    }
+
+    @Test
+    @DisplayName("Should replace the ids file without leaving a temporary file behind")
+    void testReplacesIdsFileAtomically() throws IOException {
+        Path idsFile = tempDir.resolve("ids.csv");
+        IdAllocator allocator = new IdAllocator(idsFile, 10);
+        for (int i = 0; i < 25; i++) {
+            allocator.nextId();
+        }
+
+        assertEquals("30", readFile(idsFile));
+        assertFalse(Files.exists(tempDir.resolve("ids.csv.tmp")));
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive block sizes")
+    void testInvalidBlockSize() {
+        assertThrows(IllegalArgumentException.class, () -> new IdAllocator(tempDir.resolve("ids.csv"), 0));
+    }
+
+    @Test
+    @DisplayName("Should never repeat ids across concurrent callers")
+    void testConcurrentUniqueness() throws Exception {
+        IdAllocator allocator = new IdAllocator(tempDir.resolve("ids.csv"), 7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        ids.add(allocator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(8000, ids.size());
+        assertTrue(allocator.getReservedUpTo() >= 8000);
+        assertTrue(Long.parseLong(readFile(tempDir.resolve("ids.csv"))) >= 8000);
+    }
+}
@@ -0,0 +1,473 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.*;
+import com.ordermanagement.enums.ProductCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedStoreTest {
+
+    private IndexedStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IndexedStore();
+    }
+
+    private CustomerDto customer(long id, String email) {
+        CustomerDto customer = new CustomerDto(email, "Customer " + id, "555-000" + id);
+        customer.setId(id);
+        return customer;
+    }
+
+    private OrderDto order(long id, long customerId) {
+        OrderDto order = new OrderDto();
+        order.setId(id);
+        order.setCustomerId(customerId);
+        order.setStatus("PENDING");
+        order.setCreatedAt(LocalDateTime.now());
+        order.setItems(new ArrayList<>());
+        return order;
+    }
+
+    @Test
+    @DisplayName("Should find customers by email and id")
+    void testCustomerIndexes() {
+        store.putCustomer(customer(1L, "one@example.com"));
+        store.putCustomer(customer(2L, "two@example.com"));
+
+        assertEquals(2L, store.findCustomerByEmail("two@example.com").getId());
+        assertEquals("one@example.com", store.findCustomerById(1L).getEmail());
+        assertNull(store.findCustomerByEmail("missing@example.com"));
+        assertNull(store.findCustomerByEmail(null));
+        assertEquals(2, store.customers().size());
+    }
+
+    @Test
+    @DisplayName("Should keep the first customer registered for an email")
+    void testDuplicateEmailKeepsFirst() {
+        store.putCustomer(customer(1L, "same@example.com"));
+        store.putCustomer(customer(2L, "same@example.com"));
+
+        assertEquals(1L, store.findCustomerByEmail("same@example.com").getId());
+    }
+
+    @Test
+    @DisplayName("Should answer unregistered emails from the Bloom filter")
+    void testEmailFilter() {
+        store.putCustomer(customer(1L, "one@example.com"));
+        for (int i = 0; i < 100; i++) {
+            assertNull(store.findCustomerByEmail("new" + i + "@example.com"));
+        }
+        assertNotNull(store.findCustomerByEmail("one@example.com"));
+
+        Map<String, Object> metrics = store.emailFilterMetrics();
+        assertEquals(101L, metrics.get("checks"));
+        assertEquals(100L, (long) metrics.get("definiteNegatives") + (long) metrics.get("falsePositives"));
+        assertTrue((double) metrics.get("observedFalsePositiveRate") < 0.1);
+        assertEquals(1, metrics.get("entries"));
+        assertEquals(0L, metrics.get("rebuilds"));
+    }
+
+    @Test
+    @DisplayName("Should rebuild the email filter when it fills up or goes stale")
+    void testEmailFilterRebuilds() {
+        for (long id = 1; id <= 1025; id++) {
+            store.putCustomer(customer(id, "c" + id + "@example.com"));
+        }
+        Map<String, Object> metrics = store.emailFilterMetrics();
+        assertEquals(1L, metrics.get("rebuilds"));
+        assertEquals(2050, metrics.get("capacity"));
+        assertEquals(1025, metrics.get("entries"));
+
+        // Changed emails leave stale keys behind until the next rebuild
+        for (long id = 1; id <= 1026; id++) {
+            store.putCustomer(customer(id, "changed" + id + "@example.com"));
+        }
+        metrics = store.emailFilterMetrics();
+        assertEquals(2L, metrics.get("rebuilds"));
+        assertTrue((int) metrics.get("staleEntries") < 1025);
+        assertNull(store.findCustomerByEmail("c1@example.com"));
+        assertEquals(1L, store.findCustomerByEmail("changed1@example.com").getId());
+        assertEquals(1026L, store.findCustomerByEmail("changed1026@example.com").getId());
+    }
+
+    @Test
+    @DisplayName("Should replace the product catalog")
+    void testReplaceProducts() {
+        ProductDto burger = new ProductDto("Burger", "Tasty", new BigDecimal("20.00"), "SNACKS");
+        burger.setId(1L);
+        ProductDto soda = new ProductDto("Soda", "Cold", new BigDecimal("5.00"), "BEVERAGES");
+        soda.setId(2L);
+        store.replaceProducts(Arrays.asList(burger, soda));
+        assertEquals("Soda", store.findProductById(2L).getName());
+
+        store.replaceProducts(Arrays.asList(soda));
+        assertNull(store.findProductById(1L));
+        assertEquals(1, store.products().size());
+    }
+
+    @Test
+    @DisplayName("Should keep each product version for stored items and hand out plain copies")
+    void testOrderItemsShareProducts() {
+        ProductDto pizza = new ProductDto("Pizza", "Large", new BigDecimal("45.90"), "FOOD");
+        pizza.setId(1L);
+        store.replaceProducts(Arrays.asList(pizza));
+        for (long id = 10; id <= 11; id++) {
+            OrderDto order = order(id, 1L);
+            order.getItems().add(new OrderItemDto(store.findProductById(1L), 1, null));
+            store.putOrder(order);
+        }
+
+        ProductDto handedOut = store.findOrderById(10L).getItems().get(0).getProduct();
+        assertNotSame(handedOut, store.findOrderById(11L).getItems().get(0).getProduct());
+        assertNotSame(store.productSnapshot(1L), handedOut);
+        // Copies are the caller's to change
+        handedOut.setName("Changed");
+        assertEquals("Pizza", store.findOrderById(10L).getItems().get(0).getProduct().getName());
+        store.findProductById(1L).setName("Changed");
+        assertEquals("Pizza", store.findProductById(1L).getName());
+
+        ProductDto original = store.productSnapshot(1L);
+        ProductDto repriced = store.findProductById(1L);
+        repriced.setPrice(new BigDecimal("49.90"));
+        store.replaceProducts(Arrays.asList(repriced));
+        OrderDto later = order(12L, 1L);
+        later.getItems().add(new OrderItemDto(store.findProductById(1L), 1, null));
+        store.putOrder(later);
+
+        assertEquals(new BigDecimal("45.90"), store.findOrderById(10L).getItems().get(0).getProduct().getPrice());
+        assertEquals(new BigDecimal("49.90"), store.findOrderById(12L).getItems().get(0).getProduct().getPrice());
+        assertNotSame(original, store.productSnapshot(1L));
+        // Going back to the old price reuses the old version
+        store.replaceProducts(Arrays.asList(pizza));
+        assertSame(original, store.productSnapshot(1L));
+    }
+
+    @Test
+    @DisplayName("Should keep only the product versions the catalog or live orders hold")
+    void testDropsUnheldProductVersions() {
+        ProductDto pizza = new ProductDto("Pizza", "Large", new BigDecimal("45.90"), "FOOD");
+        pizza.setId(1L);
+        for (int cents = 0; cents < 100; cents++) {
+            pizza.setPrice(BigDecimal.valueOf(4500 + cents, 2));
+            store.replaceProducts(Arrays.asList(pizza));
+        }
+        assertEquals(1, store.productVersions());
+
+        OrderDto order = order(10L, 1L);
+        order.getItems().add(new OrderItemDto(store.findProductById(1L), 1, null));
+        order.getItems().add(new OrderItemDto(store.findProductById(1L), 2, null));
+        store.putOrder(order);
+        pizza.setPrice(new BigDecimal("52.90"));
+        store.replaceProducts(Arrays.asList(pizza));
+        assertEquals(2, store.productVersions());
+
+        // Once the order no longer points at the old version it is dropped
+        OrderDto repriced = store.findOrderById(10L);
+        repriced.getItems().forEach(item -> item.setProduct(store.findProductById(1L)));
+        store.putOrder(repriced);
+        assertEquals(1, store.productVersions());
+        assertSame(store.productSnapshot(1L), store.productSnapshot(1L));
+
+        store.replaceProducts(Collections.emptyList());
+        assertEquals(1, store.productVersions());
+        store.putOrder(order(10L, 1L));
+        assertEquals(0, store.productVersions());
+    }
+
+    @Test
+    @DisplayName("Should move orders between customers when they are replaced")
+    void testOrderCustomerIndex() {
+        store.putOrder(order(10L, 1L));
+        store.putOrder(order(11L, 1L));
+        store.putOrder(order(12L, 2L));
+        assertEquals(2, store.findOrdersByCustomerId(1L).size());
+
+        store.putOrder(order(11L, 2L));
+
+        assertEquals(1, store.findOrdersByCustomerId(1L).size());
+        assertEquals(2, store.findOrdersByCustomerId(2L).size());
+        assertTrue(store.findOrdersByCustomerId(3L).isEmpty());
+        assertEquals(3, store.orders().size());
+    }
+
+    @Test
+    @DisplayName("Should list a customer's orders by creation time")
+    void testCustomerOrdersByCreationTime() {
+        LocalDateTime base = LocalDateTime.of(2024, 5, 10, 12, 0, 0);
+        OrderDto late = order(10L, 1L);
+        late.setCreatedAt(base.plusHours(2));
+        OrderDto early = order(11L, 1L);
+        early.setCreatedAt(base);
+        OrderDto middle = order(12L, 1L);
+        middle.setCreatedAt(base.plusHours(1));
+        store.putOrder(late);
+        store.putOrder(early);
+        store.putOrder(middle);
+
+        List<OrderDto> orders = store.findOrdersByCustomerId(1L);
+        assertEquals(Arrays.asList(11L, 12L, 10L),
+            Arrays.asList(orders.get(0).getId(), orders.get(1).getId(), orders.get(2).getId()));
+
+        // Updating an order keeps its place
+        early.setStatus("CONFIRMED");
+        store.putOrder(early);
+        assertEquals(11L, store.findOrdersByCustomerId(1L).get(0).getId());
+        assertEquals(3, store.findOrdersByCustomerId(1L).size());
+
+        List<OrderDto> latest = store.findLatestOrdersByCustomerId(1L, 2);
+        assertEquals(2, latest.size());
+        assertEquals(12L, latest.get(0).getId());
+        assertEquals(10L, latest.get(1).getId());
+        assertTrue(store.findLatestOrdersByCustomerId(null, 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should list order summaries without copying items")
+    void testOrderSummaries() {
+        ProductDto product = new ProductDto("Pastel", "Desc", new BigDecimal("7.50"), "SNACKS");
+        product.setId(1L);
+        OrderDto order = order(10L, 1L);
+        order.getItems().add(new OrderItemDto(product, 2, null));
+        order.setDeliveryFee(new BigDecimal("5.00"));
+        store.putOrder(order);
+        store.putOrder(order(11L, 1L));
+
+        List<OrderSummaryDto> summaries = store.findLatestOrderSummariesByCustomerId(1L, 10);
+        assertEquals(2, summaries.size());
+        assertEquals(1, summaries.get(0).getItemCount());
+        assertEquals(0, new BigDecimal("15.00").compareTo(summaries.get(0).getSubtotal()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(summaries.get(0).getTotal()));
+        assertEquals(11L, store.findOrderSummariesByCustomerIdAfter(1L, 10L, 10).get(0).getId());
+        assertEquals(2, store.orderSummaries().size());
+
+        List<OrderSummaryDto> pending = new ArrayList<>();
+        store.forEachOrderSummaryCreatedBetween(null, null, "pending", pending::add);
+        assertEquals(2, pending.size());
+    }
+
+    @Test
+    @DisplayName("Should stream orders created in a time range, optionally by status")
+    void testOrdersCreatedBetween() {
+        LocalDateTime base = LocalDateTime.of(2024, 5, 10, 12, 0, 0);
+        for (long id = 1; id <= 600; id++) {
+            OrderDto order = order(id, id % 7);
+            // Ten orders a minute, newest id first within each minute
+            order.setCreatedAt(base.plusMinutes((id - 1) / 10).plusSeconds(10 - (id - 1) % 10));
+            order.setStatus(id % 3 == 0 ? "CANCELLED" : "PENDING");
+            store.putOrder(order);
+        }
+        OrderDto untimed = order(601L, 1L);
+        untimed.setCreatedAt(null);
+        store.putOrder(untimed);
+
+        List<OrderDto> hour = new ArrayList<>();
+        store.forEachOrderCreatedBetween(base, base.plusHours(1), null, hour::add);
+        assertEquals(600, hour.size());
+        assertEquals(10L, hour.get(0).getId());
+        assertEquals(591L, hour.get(599).getId());
+
+        List<OrderDto> window = new ArrayList<>();
+        store.forEachOrderCreatedBetween(base.plusMinutes(30), base.plusMinutes(31), "cancelled", window::add);
+        assertEquals(Arrays.asList(309L, 306L, 303L), Arrays.asList(window.get(0).getId(), window.get(1).getId(),
+            window.get(2).getId()));
+        assertEquals(3, window.size());
+
+        // Moving an order in time moves it in the index
+        OrderDto moved = store.findOrderById(1L);
+        moved.setCreatedAt(base.minusDays(1));
+        store.putOrder(moved);
+        List<OrderDto> before = new ArrayList<>();
+        store.forEachOrderCreatedBetween(null, base, null, before::add);
+        assertEquals(1, before.size());
+        assertEquals(1L, before.get(0).getId());
+
+        int[] count = new int[1];
+        store.forEachOrderCreatedBetween(null, null, null, order -> count[0]++);
+        assertEquals(600, count[0]);
+
+        store.clear();
+        store.forEachOrderCreatedBetween(null, null, null, order -> count[0]++);
+        assertEquals(600, count[0]);
+    }
+
+    @Test
+    @DisplayName("Should page products by id after a cursor")
+    void testProductsAfter() {
+        List<ProductDto> products = new ArrayList<>();
+        for (long id : new long[] {5L, 1L, 3L, 9L}) {
+            ProductDto product = new ProductDto("Product " + id, "Desc", new BigDecimal("1.00"), "SNACKS");
+            product.setId(id);
+            products.add(product);
+        }
+        store.replaceProducts(products);
+
+        assertEquals(Arrays.asList(1L, 3L), ids(store.productsAfter(null, 2)));
+        assertEquals(Arrays.asList(5L, 9L), ids(store.productsAfter(3L, 2)));
+        assertEquals(Arrays.asList(5L, 9L), ids(store.productsAfter(4L, 10)));
+        assertTrue(store.productsAfter(9L, 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should filter products by category and availability")
+    void testProductsByCategory() {
+        ProductDto burger = new ProductDto("Burger", "Desc", new BigDecimal("1.00"), "SNACKS");
+        burger.setId(2L);
+        ProductDto fries = new ProductDto("Fries", "Desc", new BigDecimal("1.00"), "snacks");
+        fries.setId(1L);
+        fries.setAvailable(false);
+        ProductDto soda = new ProductDto("Soda", "Desc", new BigDecimal("1.00"), "BEVERAGES");
+        soda.setId(3L);
+        ProductDto odd = new ProductDto("Odd", "Desc", new BigDecimal("1.00"), "UNKNOWN");
+        odd.setId(4L);
+        store.replaceProducts(Arrays.asList(burger, fries, soda, odd));
+
+        assertEquals(Arrays.asList(1L, 2L), ids(store.findProductsByCategory(ProductCategory.SNACKS, false)));
+        assertEquals(Arrays.asList(2L), ids(store.findProductsByCategory(ProductCategory.SNACKS, true)));
+        assertTrue(store.findProductsByCategory(ProductCategory.DESSERTS, false).isEmpty());
+
+        store.replaceProducts(Arrays.asList(soda));
+        assertTrue(store.findProductsByCategory(ProductCategory.SNACKS, false).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should search product names and descriptions as the catalog changes")
+    void testSearchProducts() {
+        ProductDto burger = new ProductDto("Hambúrguer", "With cheese", new BigDecimal("1.00"), "SNACKS");
+        burger.setId(1L);
+        ProductDto soda = new ProductDto("Soda", "Cold drink", new BigDecimal("1.00"), "BEVERAGES");
+        soda.setId(2L);
+        store.replaceProducts(Arrays.asList(burger, soda));
+
+        assertEquals(Arrays.asList(1L), ids(store.searchProducts("hamburguer", 10)));
+        assertEquals(Arrays.asList(2L), ids(store.searchProducts("DRINK", 10)));
+
+        ProductDto renamed = new ProductDto("Soda Zero", "No sugar", new BigDecimal("1.00"), "BEVERAGES");
+        renamed.setId(2L);
+        store.replaceProducts(Arrays.asList(renamed));
+        assertTrue(store.searchProducts("cheese", 10).isEmpty());
+        assertTrue(store.searchProducts("drink", 10).isEmpty());
+        assertEquals("Soda Zero", store.searchProducts("zero", 10).get(0).getName());
+
+        store.clear();
+        assertTrue(store.searchProducts("zero", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should suggest products by name prefix, most ordered first")
+    void testSuggestProducts() {
+        ProductDto margherita = new ProductDto("Pizza Margherita", "Desc", new BigDecimal("1.00"), "OTHER");
+        margherita.setId(1L);
+        ProductDto calabresa = new ProductDto("Pizza Calabresa", "Desc", new BigDecimal("1.00"), "OTHER");
+        calabresa.setId(2L);
+        store.replaceProducts(Arrays.asList(margherita, calabresa));
+        assertEquals(Arrays.asList(2L, 1L), ids(store.suggestProducts("piz", 10)));
+
+        OrderDto order = order(1L, 1L);
+        order.getItems().add(new OrderItemDto(margherita, 3, null));
+        store.putOrder(order);
+        assertEquals(Arrays.asList(1L, 2L), ids(store.suggestProducts("piz", 10)));
+        assertEquals(Arrays.asList(1L), ids(store.suggestProducts("piz", 1)));
+
+        // Replacing the order moves its units to the other product
+        order.setItems(new ArrayList<>(List.of(new OrderItemDto(calabresa, 1, null))));
+        store.putOrder(order);
+        assertEquals(Arrays.asList(2L, 1L), ids(store.suggestProducts("pizza", 10)));
+        assertEquals(Arrays.asList(1L), ids(store.suggestProducts("marg", 10)));
+
+        store.replaceProducts(Arrays.asList(margherita));
+        assertEquals(Arrays.asList(1L), ids(store.suggestProducts("piz", 10)));
+    }
+
+    @Test
+    @DisplayName("Should page a customer's orders after a cursor order")
+    void testOrdersAfter() {
+        LocalDateTime base = LocalDateTime.of(2024, 5, 10, 12, 0, 0);
+        for (long id = 1; id <= 5; id++) {
+            OrderDto order = order(id, 1L);
+            order.setCreatedAt(base.plusMinutes(10 - id)); // Newer ids are older orders
+            store.putOrder(order);
+        }
+
+        List<OrderDto> first = store.findOrdersByCustomerIdAfter(1L, null, 2);
+        assertEquals(Arrays.asList(5L, 4L), Arrays.asList(first.get(0).getId(), first.get(1).getId()));
+        List<OrderDto> next = store.findOrdersByCustomerIdAfter(1L, 4L, 2);
+        assertEquals(Arrays.asList(3L, 2L), Arrays.asList(next.get(0).getId(), next.get(1).getId()));
+        assertEquals(1, store.findOrdersByCustomerIdAfter(1L, 2L, 2).size());
+        assertThrows(IllegalArgumentException.class, () -> store.findOrdersByCustomerIdAfter(1L, 99L, 2));
+    }
+
+    private List<Long> ids(List<ProductDto> products) {
+        List<Long> ids = new ArrayList<>();
+        for (ProductDto product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should not expose stored instances to callers")
+    void testDefensiveCopies() {
+        OrderDto original = order(10L, 1L);
+        store.putOrder(original);
+        original.setStatus("CHANGED");
+
+        OrderDto loaded = store.findOrderById(10L);
+        assertEquals("PENDING", loaded.getStatus());
+
+        loaded.getItems().add(new OrderItemDto());
+        loaded.setStatus("CHANGED");
+        assertEquals("PENDING", store.findOrderById(10L).getStatus());
+        assertTrue(store.findOrderById(10L).getItems().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should copy amounts with their scale, in cents or not")
+    void testCopiesKeepAmounts() {
+        OrderDto original = order(10L, 1L);
+        OrderItemDto item = new OrderItemDto();
+        item.setQuantity(2);
+        item.setUnitPrice(new BigDecimal("10"));
+        OrderItemDto precise = new OrderItemDto();
+        precise.setQuantity(1);
+        precise.setUnitPrice(new BigDecimal("0.125"));
+        original.getItems().add(item);
+        original.getItems().add(precise);
+        original.setDeliveryFee(new BigDecimal("4.5"));
+        original.setDiscountAmount(new BigDecimal("0.001"));
+        store.putOrder(original);
+
+        OrderDto loaded = store.findOrderById(10L);
+        assertEquals(new BigDecimal("10"), loaded.getItems().get(0).getUnitPrice());
+        assertEquals(new BigDecimal("0.125"), loaded.getItems().get(1).getUnitPrice());
+        assertEquals(new BigDecimal("4.5"), loaded.getDeliveryFee());
+        assertEquals(new BigDecimal("0.001"), loaded.getDiscountAmount());
+        assertEquals(original.getTotal(), loaded.getTotal());
+    }
+
+    @Test
+    @DisplayName("Should clear all indexes")
+    void testClear() {
+        store.putCustomer(customer(1L, "one@example.com"));
+        store.putOrder(order(10L, 1L));
+
+        store.clear();
+
+        assertNull(store.findCustomerByEmail("one@example.com"));
+        assertNull(store.findOrderById(10L));
+        List<OrderDto> orders = store.findOrdersByCustomerId(1L);
+        assertTrue(orders.isEmpty());
+    }
+}
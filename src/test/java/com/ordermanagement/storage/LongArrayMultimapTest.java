@@ -0,0 +1,66 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongArrayMultimapTest {
+
+    private LongArrayMultimap multimap;
+
+    @BeforeEach
+    void setUp() {
+        multimap = new LongArrayMultimap();
+    }
+
+    @Test
+    @DisplayName("Should keep values per key in insertion order")
+    void testPutAndGet() {
+        multimap.put(1L, 10L);
+        multimap.put(1L, 11L);
+        multimap.put(1L, 10L);
+        multimap.put(2L, 20L);
+
+        assertArrayEquals(new long[] {10L, 11L, 10L}, multimap.get(1L));
+        assertArrayEquals(new long[] {20L}, multimap.get(2L));
+        assertEquals(0, multimap.get(3L).length);
+        assertEquals(3, multimap.valueCount(1L));
+        assertEquals(2, multimap.size());
+    }
+
+    @Test
+    @DisplayName("Should remove single values and drop empty keys")
+    void testRemove() {
+        multimap.put(1L, 10L);
+        multimap.put(1L, 11L);
+        multimap.put(1L, 10L);
+
+        assertTrue(multimap.remove(1L, 10L));
+        assertArrayEquals(new long[] {11L, 10L}, multimap.get(1L));
+        assertFalse(multimap.remove(1L, 99L));
+        assertFalse(multimap.remove(2L, 10L));
+
+        multimap.remove(1L, 11L);
+        multimap.remove(1L, 10L);
+        assertFalse(multimap.containsKey(1L));
+        assertEquals(0, multimap.size());
+    }
+
+    @Test
+    @DisplayName("Should remove all values of a key and clear")
+    void testRemoveAllAndClear() {
+        for (long value = 0; value < 100; value++) {
+            multimap.put(7L, value);
+        }
+        multimap.put(8L, 1L);
+        long[] removed = multimap.removeAll(7L);
+        assertEquals(100, removed.length);
+        assertEquals(99L, removed[99]);
+        assertEquals(0, multimap.removeAll(7L).length);
+
+        multimap.clear();
+        assertFalse(multimap.containsKey(8L));
+    }
+}
@@ -0,0 +1,135 @@
+package com.ordermanagement.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares heap footprint and lookup time of LongObjectMap and
+ * LongArrayMultimap against HashMap<Long, ...> with 1M keys.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class LongMapBenchmark {
+
+    private static final int KEYS = 1_000_000;
+    private static final int VALUES_PER_KEY = 4;
+    private static final int LOOKUPS = 10_000_000;
+    private static final Object VALUE = new Object();
+
+    public static void main(String[] args) {
+        long[] keys = new long[KEYS];
+        Random random = new Random(42);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = random.nextLong() & Long.MAX_VALUE;
+        }
+        long[] probes = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            probes[i] = keys[random.nextInt(KEYS)];
+        }
+
+        long base = usedHeap();
+        Map<Long, Object> boxed = new HashMap<>();
+        for (long key : keys) {
+            boxed.put(key, VALUE);
+        }
+        long boxedBytes = usedHeap() - base;
+        long boxedNanos = timeBoxed(boxed, probes);
+        boxed = null;
+
+        base = usedHeap();
+        LongObjectMap<Object> primitive = new LongObjectMap<>();
+        for (long key : keys) {
+            primitive.put(key, VALUE);
+        }
+        long primitiveBytes = usedHeap() - base;
+        long primitiveNanos = timePrimitive(primitive, probes);
+        primitive = null;
+
+        base = usedHeap();
+        Map<Long, List<Long>> boxedMulti = new HashMap<>();
+        for (long key : keys) {
+            for (int v = 0; v < VALUES_PER_KEY; v++) {
+                boxedMulti.computeIfAbsent(key, k -> new ArrayList<>()).add(key + v * 1_000_003L);
+            }
+        }
+        long boxedMultiBytes = usedHeap() - base;
+        boxedMulti = null;
+
+        base = usedHeap();
+        LongArrayMultimap multimap = new LongArrayMultimap();
+        for (long key : keys) {
+            for (int v = 0; v < VALUES_PER_KEY; v++) {
+                multimap.put(key, key + v * 1_000_003L);
+            }
+        }
+        long multimapBytes = usedHeap() - base;
+        if (multimap.size() != KEYS) {
+            throw new IllegalStateException("lost keys");
+        }
+
+        System.out.printf("%,d keys, %,d random lookups%n"
+                + "HashMap<Long, Object>:       %,6d MB, %.1f ns/lookup%n"
+                + "LongObjectMap<Object>:       %,6d MB, %.1f ns/lookup%n"
+                + "HashMap<Long, List<Long>> x%d: %,5d MB%n"
+                + "LongArrayMultimap x%d:        %,5d MB%n",
+            KEYS, LOOKUPS,
+            boxedBytes >> 20, boxedNanos / (double) LOOKUPS,
+            primitiveBytes >> 20, primitiveNanos / (double) LOOKUPS,
+            VALUES_PER_KEY, boxedMultiBytes >> 20,
+            VALUES_PER_KEY, multimapBytes >> 20);
+    }
+
+    private static long timeBoxed(Map<Long, Object> map, long[] probes) {
+        for (int warmup = 0; warmup < 2; warmup++) {
+            lookupBoxed(map, probes);
+        }
+        long start = System.nanoTime();
+        lookupBoxed(map, probes);
+        return System.nanoTime() - start;
+    }
+
+    private static void lookupBoxed(Map<Long, Object> map, long[] probes) {
+        int found = 0;
+        for (long probe : probes) {
+            if (map.get(probe) != null) {
+                found++;
+            }
+        }
+        if (found != probes.length) {
+            throw new IllegalStateException("missed lookups");
+        }
+    }
+
+    private static long timePrimitive(LongObjectMap<Object> map, long[] probes) {
+        for (int warmup = 0; warmup < 2; warmup++) {
+            lookupPrimitive(map, probes);
+        }
+        long start = System.nanoTime();
+        lookupPrimitive(map, probes);
+        return System.nanoTime() - start;
+    }
+
+    private static void lookupPrimitive(LongObjectMap<Object> map, long[] probes) {
+        int found = 0;
+        for (long probe : probes) {
+            if (map.get(probe) != null) {
+                found++;
+            }
+        }
+        if (found != probes.length) {
+            throw new IllegalStateException("missed lookups");
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
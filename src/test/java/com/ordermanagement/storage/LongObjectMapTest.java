@@ -0,0 +1,114 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectMapTest {
+
+    private LongObjectMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new LongObjectMap<>();
+    }
+
+    @Test
+    @DisplayName("Should put, get and replace values")
+    void testPutAndGet() {
+        assertNull(map.put(1L, "one"));
+        assertNull(map.put(-5L, "minus five"));
+        assertNull(map.put(Long.MAX_VALUE, "max"));
+        assertEquals("one", map.put(1L, "uno"));
+
+        assertEquals("uno", map.get(1L));
+        assertEquals("minus five", map.get(-5L));
+        assertEquals("max", map.get(Long.MAX_VALUE));
+        assertNull(map.get(2L));
+        assertTrue(map.containsKey(-5L));
+        assertEquals(3, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(7L, null));
+    }
+
+    @Test
+    @DisplayName("Should iterate in insertion order, moving re-added keys to the end")
+    void testInsertionOrder() {
+        map.put(30L, "c");
+        map.put(10L, "a");
+        map.put(20L, "b");
+        map.put(10L, "a2");
+        assertArrayEquals(new long[] {30L, 10L, 20L}, map.keys());
+        assertEquals(List.of("c", "a2", "b"), new ArrayList<>(map.values()));
+
+        map.remove(30L);
+        map.put(30L, "c2");
+        List<Long> keys = new ArrayList<>();
+        map.forEach((key, value) -> keys.add(key));
+        assertEquals(List.of(10L, 20L, 30L), keys);
+    }
+
+    @Test
+    @DisplayName("Should remove keys and reuse the space")
+    void testRemove() {
+        for (long i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+        }
+        for (long i = 0; i < 100; i += 2) {
+            assertEquals("v" + i, map.remove(i));
+        }
+        assertNull(map.remove(0L));
+        assertEquals(50, map.size());
+        assertNull(map.get(10L));
+        assertEquals("v11", map.get(11L));
+
+        // Churn far past the initial capacity
+        for (long round = 0; round < 10_000; round++) {
+            map.put(1000 + round, "x");
+            map.remove(1000 + round);
+        }
+        assertEquals(50, map.size());
+        assertEquals(50, map.values().size());
+        assertEquals("v99", map.get(99L));
+    }
+
+    @Test
+    @DisplayName("Should behave like a HashMap under random operations")
+    void testAgainstHashMap() {
+        Random random = new Random(7);
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should compute absent values once and clear everything")
+    void testComputeIfAbsentAndClear() {
+        assertEquals("k4", map.computeIfAbsent(4L, key -> "k" + key));
+        assertEquals("k4", map.computeIfAbsent(4L, key -> "other"));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(4L));
+        assertEquals(0, map.keys().length);
+        assertFalse(map.values().iterator().hasNext());
+    }
+}
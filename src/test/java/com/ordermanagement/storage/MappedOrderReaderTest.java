@@ -0,0 +1,412 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedOrderReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path ordersFile;
+    private Path itemsFile;
+    private GroupCommitWriter writer;
+    private OrderLog orderLog;
+    private final Map<Long, ProductDto> products = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ordersFile = tempDir.resolve("orders.csv");
+        itemsFile = tempDir.resolve("order_items.csv");
+        writer = new GroupCommitWriter(GroupCommitWriter.Durability.NONE);
+        orderLog = new OrderLog(ordersFile, itemsFile, writer);
+        for (long id = 1; id <= 3; id++) {
+            ProductDto product = new ProductDto("Product " + id, "Desc", new BigDecimal("10.00"), "SNACKS");
+            product.setId(id);
+            products.put(id, product);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    // Small chunks so rows regularly straddle two mappings
+    private MappedOrderReader reader() throws IOException {
+        MappedOrderReader reader = new MappedOrderReader(ordersFile, itemsFile, products::get, 64);
+        reader.refresh();
+        return reader;
+    }
+
+    private OrderDto order(long id, long customerId) {
+        OrderDto order = new OrderDto();
+        order.setId(id);
+        order.setCustomerId(customerId);
+        order.setCustomerName("Mapped Customer");
+        order.setStatus("WAITING");
+        order.setDeliveryFee(new BigDecimal("5.00"));
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, 0));
+        order.setDeliveryAddress(new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000"));
+        order.setItems(new ArrayList<>());
+        return order;
+    }
+
+    private OrderItemDto item(long productId, String observations) {
+        return new OrderItemDto(products.get(productId), 2, observations);
+    }
+
+    @Test
+    @DisplayName("Should decode the latest version of an order with its items")
+    void testDecodesLatestVersion() throws IOException {
+        OrderDto order = order(1L, 10L);
+        order.getItems().add(item(1L, null));
+        orderLog.append(order, () -> {});
+        order.setStatus("CONFIRMED");
+        order.getItems().add(item(2L, "No onions, \"please\"\nthanks"));
+        orderLog.append(order, () -> {});
+        orderLog.append(order(2L, 10L), () -> {});
+
+        MappedOrderReader reader = reader();
+        assertEquals(2, reader.size());
+
+        OrderDto loaded = reader.findOrderById(1L);
+        assertEquals("CONFIRMED", loaded.getStatus());
+        assertEquals(new BigDecimal("5.00"), loaded.getDeliveryFee());
+        assertEquals("Recife", loaded.getDeliveryAddress().getCity());
+        assertEquals(2, loaded.getItems().size());
+        assertEquals("Product 2", loaded.getItems().get(1).getProduct().getName());
+        assertEquals("No onions, \"please\"\nthanks", loaded.getItems().get(1).getObservations());
+        assertNull(reader.findOrderById(99L));
+        assertNull(reader.findOrderById(null));
+    }
+
+    @Test
+    @DisplayName("Should report versions and dead rows for the order log")
+    void testForEachOrder() throws IOException {
+        OrderDto order = order(1L, 10L);
+        order.getItems().add(item(1L, null));
+        orderLog.append(order, () -> {});
+        orderLog.append(order, () -> {});
+
+        MappedOrderReader reader = reader();
+        Map<Long, long[]> visited = new HashMap<>();
+        reader.forEachOrder((id, version, itemCount) -> visited.put(id, new long[] {version, itemCount}));
+
+        assertArrayEquals(new long[] {2L, 1L}, visited.get(1L));
+        assertEquals(4, reader.getRowCount());
+    }
+
+    @Test
+    @DisplayName("Should pick up appended rows on refresh")
+    void testRefreshIndexesAppendedRows() throws IOException {
+        orderLog.append(order(1L, 10L), () -> {});
+        MappedOrderReader reader = reader();
+        assertEquals(1, reader.size());
+
+        OrderDto second = order(2L, 20L);
+        second.getItems().add(item(3L, null));
+        orderLog.append(second, () -> {});
+        assertNull(reader.findOrderById(2L));
+
+        reader.refresh();
+        assertEquals(2, reader.size());
+        assertEquals(1, reader.findOrderById(2L).getItems().size());
+    }
+
+    @Test
+    @DisplayName("Should attach items indexed before their order row")
+    void testItemsBeforeOrderRow() throws IOException {
+        orderLog.append(order(1L, 10L), () -> {});
+        MappedOrderReader reader = reader();
+
+        // Version 2 items are on disk, the order row is not yet
+        Files.write(itemsFile, (OrderLog.ORDER_ITEMS_HEADER + "\n1,1,\"Product 1\",3,10.00,,2\n")
+            .getBytes(StandardCharsets.UTF_8));
+        reader.refresh();
+        assertTrue(reader.findOrderById(1L).getItems().isEmpty());
+
+        Files.write(ordersFile, ("1,10,\"Mapped Customer\",CONFIRMED,5.00,,2024-05-10 12:30:00,,\"\",2\n")
+            .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        reader.refresh();
+        OrderDto loaded = reader.findOrderById(1L);
+        assertEquals("CONFIRMED", loaded.getStatus());
+        assertEquals(1, loaded.getItems().size());
+        assertEquals(3, loaded.getItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("30.00"), reader.findOrderSummaryById(1L).getSubtotal());
+    }
+
+    @Test
+    @DisplayName("Should leave a partially written row for the next refresh")
+    void testIgnoresIncompleteRow() throws IOException {
+        orderLog.append(order(1L, 10L), () -> {});
+        Files.write(ordersFile, "2,10,\"Mapped Customer\",WAITING".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+
+        MappedOrderReader reader = reader();
+        assertEquals(1, reader.size());
+
+        Files.write(ordersFile, ",5.00,,2024-05-10 12:30:00,,\"\",1\n".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+        reader.refresh();
+        assertEquals(2, reader.size());
+        assertEquals("WAITING", reader.findOrderById(2L).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should re-index after the files are compacted")
+    void testReindexAfterCompaction() throws IOException {
+        OrderDto order = order(1L, 10L);
+        order.getItems().add(item(1L, null));
+        orderLog.append(order, () -> {});
+        order.setStatus("DELIVERED");
+        orderLog.append(order, () -> {});
+        orderLog.append(order(2L, 10L), () -> {});
+
+        MappedOrderReader reader = reader();
+        orderLog.compact(reader::orders);
+        reader.refresh();
+
+        assertEquals(2, reader.size());
+        assertEquals(3, reader.getRowCount());
+        assertEquals("DELIVERED", reader.findOrderById(1L).getStatus());
+        assertEquals(1, reader.findOrderById(1L).getItems().size());
+    }
+
+    @Test
+    @DisplayName("Should find orders by customer and iterate all orders lazily")
+    void testCustomerLookupAndIteration() throws IOException {
+        orderLog.append(order(1L, 10L), () -> {});
+        orderLog.append(order(2L, 20L), () -> {});
+        orderLog.append(order(3L, 10L), () -> {});
+
+        MappedOrderReader reader = reader();
+        List<OrderDto> customerOrders = reader.findOrdersByCustomerId(10L);
+        assertEquals(2, customerOrders.size());
+        assertEquals(1L, customerOrders.get(0).getId());
+        assertEquals(3L, customerOrders.get(1).getId());
+
+        assertEquals(1, reader.findLatestOrdersByCustomerId(10L, 1).size());
+        assertEquals(3L, reader.findLatestOrdersByCustomerId(10L, 1).get(0).getId());
+
+        List<Long> ids = new ArrayList<>();
+        for (OrderDto order : reader.orders()) {
+            ids.add(order.getId());
+        }
+        assertEquals(List.of(1L, 2L, 3L), ids);
+    }
+
+    @Test
+    @DisplayName("Should order a customer's orders by creation time, not file position")
+    void testCustomerOrdersByCreationTime() throws IOException {
+        OrderDto late = order(1L, 10L);
+        late.setCreatedAt(LocalDateTime.of(2024, 5, 12, 9, 0, 0));
+        OrderDto early = order(2L, 10L);
+        early.setCreatedAt(LocalDateTime.of(2024, 5, 11, 23, 59, 59));
+        orderLog.append(late, () -> {});
+        orderLog.append(early, () -> {});
+
+        MappedOrderReader reader = reader();
+        List<OrderDto> orders = reader.findOrdersByCustomerId(10L);
+        assertEquals(2L, orders.get(0).getId());
+        assertEquals(1L, orders.get(1).getId());
+
+        assertEquals(1L, reader.findOrdersByCustomerIdAfter(10L, 2L, 5).get(0).getId());
+        assertTrue(reader.findOrdersByCustomerIdAfter(10L, 1L, 5).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> reader.findOrdersByCustomerIdAfter(10L, 99L, 5));
+
+        // Moving an order to another customer updates both lists
+        late.setCustomerId(20L);
+        orderLog.append(late, () -> {});
+        reader.refresh();
+        assertEquals(1, reader.findOrdersByCustomerId(10L).size());
+        assertEquals(1L, reader.findOrdersByCustomerId(20L).get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should stream orders created in a time range, following updates")
+    void testOrdersCreatedBetween() throws IOException {
+        LocalDateTime base = LocalDateTime.of(2024, 5, 10, 23, 0, 0);
+        for (long id = 1; id <= 300; id++) {
+            OrderDto order = order(id, id % 4);
+            order.setCreatedAt(base.plusSeconds(30 * (300 - id)));
+            order.setStatus(id % 2 == 0 ? "DELIVERED" : "WAITING");
+            orderLog.append(order, () -> {});
+        }
+
+        MappedOrderReader reader = reader();
+        List<OrderDto> all = new ArrayList<>();
+        reader.forEachOrderCreatedBetween(null, null, null, all::add);
+        assertEquals(300, all.size());
+        assertEquals(300L, all.get(0).getId());
+        assertEquals(1L, all.get(299).getId());
+
+        // Crosses midnight; bounds inside a second start from the next one
+        List<OrderDto> window = new ArrayList<>();
+        reader.forEachOrderCreatedBetween(base.plusMinutes(59).plusSeconds(30).plusNanos(1),
+            base.plusMinutes(62), "delivered", window::add);
+        assertEquals(2, window.size());
+        assertEquals(180L, window.get(0).getId());
+        assertEquals(178L, window.get(1).getId());
+
+        OrderDto moved = order(1L, 1L);
+        moved.setCreatedAt(base.minusHours(5));
+        orderLog.append(moved, () -> {});
+        reader.refresh();
+        List<OrderDto> early = new ArrayList<>();
+        reader.forEachOrderCreatedBetween(null, base, null, early::add);
+        assertEquals(1, early.size());
+        assertEquals(1L, early.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should summarize orders from the order row and the scanned item amounts")
+    void testOrderSummaries() throws IOException {
+        OrderDto order = order(1L, 10L);
+        OrderItemDto cheap = item(1L, "Quoted, \"3.99\" note");
+        cheap.setUnitPrice(new BigDecimal("12.35"));
+        cheap.setQuantity(3);
+        order.getItems().add(cheap);
+        order.getItems().add(item(2L, null));
+        orderLog.append(order, () -> {});
+        OrderDto other = order(2L, 10L);
+        other.getItems().add(item(3L, null));
+        orderLog.append(other, () -> {});
+
+        MappedOrderReader reader = reader();
+        OrderSummaryDto summary = reader.findOrderSummaryById(1L);
+        OrderDto full = reader.findOrderById(1L);
+        assertEquals(2, summary.getItemCount());
+        assertEquals(new BigDecimal("57.05"), summary.getSubtotal());
+        assertEquals(0, full.getTotal().compareTo(summary.getTotal()));
+        assertEquals("WAITING", summary.getStatus());
+        assertEquals(full.getVersion(), summary.getVersion());
+        assertNull(reader.findOrderSummaryById(99L));
+
+        // A new version replaces the items; unknown products are left out
+        order.getItems().remove(0);
+        order.setStatus("CONFIRMED");
+        orderLog.append(order, () -> {});
+        reader.refresh();
+        products.remove(3L);
+        assertEquals(new BigDecimal("20.00"), reader.findOrderSummaryById(1L).getSubtotal());
+        assertEquals(0, reader.findOrderSummaryById(2L).getItemCount());
+        assertEquals(0, reader.findOrderSummaryById(2L).getSubtotal().signum());
+
+        List<OrderSummaryDto> latest = reader.findLatestOrderSummariesByCustomerId(10L, 5);
+        assertEquals(2, latest.size());
+        assertEquals("CONFIRMED", latest.get(0).getStatus());
+        assertEquals(2L, reader.findOrderSummariesByCustomerIdAfter(10L, 1L, 5).get(0).getId());
+        assertEquals(2, reader.orderSummaries().size());
+        List<OrderSummaryDto> confirmed = new ArrayList<>();
+        reader.forEachOrderSummaryCreatedBetween(null, null, "confirmed", confirmed::add);
+        assertEquals(1, confirmed.size());
+    }
+
+    @Test
+    @DisplayName("Should keep the sign of item prices and skip rows whose numbers overflow")
+    void testSignedAndOverflowingAmounts() throws IOException {
+        OrderDto order = order(1L, 10L);
+        order.getItems().add(item(1L, null));
+        orderLog.append(order, () -> {});
+        for (long id = 2; id <= 3; id++) {
+            Files.write(ordersFile, OrderLog.encodeOrderRow(new CsvRowEncoder(), order(id, 10L), 1,
+                CsvDataManager.TimestampFormat.TEXT).toByteArray(), StandardOpenOption.APPEND);
+        }
+        String items = "2,1,\"Product 1\",3,-1.50,,1\n"
+            + "2,2,\"Product 2\",-1,2.00,,1\n"
+            + "3,1,\"Product 1\",2,99999999999999999999.99,,1\n"
+            + "3,2,\"Product 2\",3000000000,1.00,,1\n"
+            + "3,3,\"Product 3\",2000000000,99999999999.99,,1\n"
+            + "3,1,\"Product 1\",1,10.00,,1\n";
+        Files.write(itemsFile, items.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        MappedOrderReader reader = reader();
+        assertEquals(new BigDecimal("-6.50"), reader.findOrderSummaryById(2L).getSubtotal());
+        assertEquals(0, reader.findOrderById(2L).getSubtotal().compareTo(new BigDecimal("-6.50")));
+
+        OrderSummaryDto summary = reader.findOrderSummaryById(3L);
+        assertEquals(1, summary.getItemCount());
+        assertEquals(new BigDecimal("10.00"), summary.getSubtotal());
+        assertEquals(1, reader.findOrderById(3L).getItems().size());
+        assertEquals(3, reader.getMalformedRows());
+        assertEquals(new BigDecimal("20.00"), reader.findOrderSummaryById(1L).getSubtotal());
+    }
+
+    @Test
+    @DisplayName("Should parse quoted, comma-decimal and signed prices the scan cannot decode")
+    void testPricesTheScanCannotDecode() throws IOException {
+        OrderDto order = order(1L, 10L);
+        order.getItems().add(item(1L, null));
+        orderLog.append(order, () -> {});
+        Files.write(ordersFile, OrderLog.encodeOrderRow(new CsvRowEncoder(), order(2L, 10L), 1,
+            CsvDataManager.TimestampFormat.TEXT).toByteArray(), StandardOpenOption.APPEND);
+        String items = "2,1,\"Product 1\",2,\"12.50\",,1\n"
+            + "2,2,\"Product 2\",1,\"7,25\",,1\n"
+            + "2,3,\"Product 3\",\"3\",+1.999,,1\n"
+            + "2,1,\"Product 1\",1,abc,,1\n";
+        Files.write(itemsFile, items.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        MappedOrderReader reader = reader();
+        OrderSummaryDto summary = reader.findOrderSummaryById(2L);
+        assertEquals(3, summary.getItemCount());
+        assertEquals(new BigDecimal("38.22"), summary.getSubtotal());
+        assertEquals(0, reader.findOrderById(2L).getSubtotal().compareTo(new BigDecimal("38.247")));
+        assertEquals(1, reader.getMalformedRows());
+        assertEquals(new BigDecimal("20.00"), reader.findOrderSummaryById(1L).getSubtotal());
+    }
+
+    @Test
+    @DisplayName("Should place epoch 0 at 1970-01-01 and leave the old placeholder out of time")
+    void testEpochZeroCreatedAt() throws IOException {
+        OrderDto epoch = order(1L, 10L);
+        epoch.setCreatedAt(LocalDateTime.of(1970, 1, 1, 0, 0));
+        String row = new String(OrderLog.encodeOrderRow(new CsvRowEncoder(), epoch, 1,
+            CsvDataManager.TimestampFormat.EPOCH_MILLIS).toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(row.contains(",,0,"), row);
+        String placeholder = row.replaceFirst("^1,", "2,").replace(",,0,", ",,00,");
+        Files.write(ordersFile, (OrderLog.ORDERS_HEADER + "\n" + row + placeholder).getBytes(StandardCharsets.UTF_8));
+        orderLog.append(order(3L, 10L), () -> {});
+
+        MappedOrderReader reader = reader();
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), reader.findOrderById(1L).getCreatedAt());
+        List<Long> early = new ArrayList<>();
+        reader.forEachOrderCreatedBetween(null, LocalDateTime.of(1971, 1, 1, 0, 0), null, o -> early.add(o.getId()));
+        assertEquals(Arrays.asList(1L), early);
+        List<Long> all = new ArrayList<>();
+        reader.forEachOrderCreatedBetween(null, null, null, o -> all.add(o.getId()));
+        assertEquals(Arrays.asList(1L, 3L), all);
+        assertNotNull(reader.findOrderById(2L));
+    }
+
+    @Test
+    @DisplayName("Should skip items whose product no longer exists")
+    void testSkipsUnknownProducts() throws IOException {
+        OrderDto order = order(1L, 10L);
+        order.getItems().add(item(1L, null));
+        order.getItems().add(item(2L, null));
+        orderLog.append(order, () -> {});
+        products.remove(2L);
+
+        assertEquals(1, reader().findOrderById(1L).getItems().size());
+    }
+}
@@ -0,0 +1,120 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.OrderDto;
+import com.ordermanagement.dto.OrderItemDto;
+import com.ordermanagement.dto.ProductDto;
+import com.ordermanagement.model.Money;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares order totals summed as BigDecimal, the way OrderDto used to, with
+ * the cents arithmetic behind Money, and the item rows written from BigDecimal
+ * prices with those written from prices loaded as cents.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class MoneyBenchmark {
+
+    private static final int ORDERS = 1_000_000;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        List<OrderDto> decimalOrders = new ArrayList<>(ORDERS);
+        List<OrderDto> centOrders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            decimalOrders.add(order(i, false));
+            centOrders.add(order(i, true));
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            report("total BigDecimal", round, () -> legacyTotals(decimalOrders));
+            report("total cents", round, () -> totals(decimalOrders));
+            report("rows BigDecimal", round, () -> itemRows(decimalOrders));
+            report("rows cents", round, () -> itemRows(centOrders));
+        }
+    }
+
+    // Prices set as BigDecimal like the API does, or as cents like OrderRowParser does
+    private static OrderDto order(int i, boolean cents) {
+        OrderDto order = new OrderDto();
+        order.setId((long) i);
+        List<OrderItemDto> items = new ArrayList<>(ITEMS_PER_ORDER);
+        for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+            ProductDto product = new ProductDto("Product", "desc", null, "FOOD");
+            product.setId((long) j);
+            OrderItemDto item = new OrderItemDto();
+            item.setProduct(product);
+            item.setQuantity(1 + (i + j) % 3);
+            long priceCents = 500 + (i * 7L + j * 131) % 9000;
+            if (cents) {
+                item.setUnitPriceMoney(Money.ofCents(priceCents));
+            } else {
+                item.setUnitPrice(BigDecimal.valueOf(priceCents, 2));
+            }
+            items.add(item);
+        }
+        order.setItems(items);
+        if (cents) {
+            order.setDeliveryFeeMoney(Money.ofCents(590));
+        } else {
+            order.setDeliveryFee(new BigDecimal("5.90"));
+        }
+        order.setDiscountAmount(BigDecimal.ZERO);
+        return order;
+    }
+
+    private interface Run {
+        long run();
+    }
+
+    private static void report(String name, int round, Run run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf("round %d %-17s %,6d ms  %,5d ns/order  %,5d B/order  (checksum %d)%n",
+            round, name, nanos / 1_000_000, nanos / ORDERS, bytes / ORDERS, checksum);
+    }
+
+    private static long legacyTotals(List<OrderDto> orders) {
+        long checksum = 0;
+        for (OrderDto order : orders) {
+            BigDecimal subtotal = order.getItems().stream()
+                .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal total = subtotal.add(order.getDeliveryFee()).subtract(order.getDiscountAmount());
+            checksum += total.unscaledValue().longValue();
+        }
+        return checksum;
+    }
+
+    private static long totals(List<OrderDto> orders) {
+        long checksum = 0;
+        for (OrderDto order : orders) {
+            checksum += order.getTotal().unscaledValue().longValue();
+        }
+        return checksum;
+    }
+
+    private static long itemRows(List<OrderDto> orders) {
+        long checksum = 0;
+        CsvRowEncoder encoder = new CsvRowEncoder();
+        for (OrderDto order : orders) {
+            for (OrderItemDto item : order.getItems()) {
+                OrderLog.encodeItemRow(encoder, order.getId(), item, 1);
+            }
+            checksum += encoder.size();
+            encoder.reset();
+        }
+        return checksum;
+    }
+}
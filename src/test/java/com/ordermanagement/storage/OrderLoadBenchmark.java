@@ -0,0 +1,80 @@
+package com.ordermanagement.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Compares the one-pass order loader with the previous per-order rescans.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars).
+ */
+public class OrderLoadBenchmark {
+
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int PRODUCTS = 200;
+    // The rescanning loader is quadratic, so it is timed on a sample and extrapolated
+    private static final int LEGACY_SAMPLE = 500;
+
+    public static void main(String[] args) throws IOException {
+        for (int orders : new int[] {10_000, 100_000}) {
+            Path dir = Files.createTempDirectory("order-load-bench");
+            writeData(dir, orders);
+
+            long start = System.nanoTime();
+            CsvDataManager manager = new CsvDataManager(dir.toString());
+            long onePassMillis = (System.nanoTime() - start) / 1_000_000;
+            int loaded = manager.loadOrders().size();
+            manager.close();
+
+            start = System.nanoTime();
+            legacyLoad(dir, LEGACY_SAMPLE);
+            double legacyMillis = (System.nanoTime() - start) / 1_000_000.0 * orders / LEGACY_SAMPLE;
+
+            System.out.printf("%,d orders: one-pass load %,d ms (%,d orders), per-order rescans ~%,.0f ms (extrapolated), %.0fx%n",
+                orders, onePassMillis, loaded, legacyMillis, legacyMillis / Math.max(1, onePassMillis));
+        }
+    }
+
+    static void writeData(Path dir, int orders) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve("products.csv"), StandardCharsets.UTF_8)) {
+            writer.write("id,name,description,price,category,seller_name\n");
+            for (int p = 1; p <= PRODUCTS; p++) {
+                writer.write(p + ",\"Product " + p + "\",\"Description " + p + "\",12.50,SNACKS,\"Seller\"\n");
+            }
+        }
+        try (BufferedWriter orderWriter = Files.newBufferedWriter(dir.resolve("orders.csv"), StandardCharsets.UTF_8);
+             BufferedWriter itemWriter = Files.newBufferedWriter(dir.resolve("order_items.csv"), StandardCharsets.UTF_8)) {
+            orderWriter.write(OrderLog.ORDERS_HEADER + "\n");
+            itemWriter.write(OrderLog.ORDER_ITEMS_HEADER + "\n");
+            for (int o = 1; o <= orders; o++) {
+                orderWriter.write(o + "," + (o % 1000 + 1) + ",Customer,CONFIRMED,5.00,PIX,2024-05-10 12:30:00,,"
+                    + "\"Street|1|Center|City|ST|12345\",1\n");
+                for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                    itemWriter.write(o + "," + ((o + i) % PRODUCTS + 1) + ",Product,2,12.50,,1\n");
+                }
+            }
+        }
+    }
+
+    // Mirrors the previous loader: every order re-reads order_items.csv and every item re-reads products.csv
+    private static void legacyLoad(Path dir, int orders) throws IOException {
+        for (int o = 1; o <= orders; o++) {
+            String orderId = String.valueOf(o);
+            for (String line : Files.readAllLines(dir.resolve("order_items.csv"))) {
+                String[] parts = line.split(",", -1);
+                if (parts[0].equals(orderId)) {
+                    List<String> products = Files.readAllLines(dir.resolve("products.csv"));
+                    for (String product : products) {
+                        if (product.startsWith(parts[1] + ",")) {
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GroupCommitWriter writer;
+    private OrderLog orderLog;
+    private Path ordersFile;
+    private Path itemsFile;
+
+    @BeforeEach
+    void setUp() {
+        ordersFile = tempDir.resolve("orders.csv");
+        itemsFile = tempDir.resolve("order_items.csv");
+        writer = new GroupCommitWriter(GroupCommitWriter.Durability.NONE);
+        orderLog = new OrderLog(ordersFile, itemsFile, writer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    private OrderDto order(long id) {
+        OrderDto order = new OrderDto();
+        order.setId(id);
+        order.setCustomerId(1L);
+        order.setCustomerName("Log Customer");
+        order.setStatus("PENDING");
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, 0));
+        order.setItems(new ArrayList<>());
+        return order;
+    }
+
+    private OrderItemDto item(long productId) {
+        ProductDto product = new ProductDto("Product " + productId, "Desc", new BigDecimal("10.00"), "SNACKS");
+        product.setId(productId);
+        return new OrderItemDto(product, 1, null);
+    }
+
+    @Test
+    @DisplayName("Should append one new version per update")
+    void testAppendIncrementsVersion() throws IOException {
+        OrderDto order = order(1L);
+        assertEquals(1L, orderLog.append(order, () -> {}));
+
+        order.getItems().add(item(7L));
+        assertEquals(2L, orderLog.append(order, () -> {}));
+
+        List<String> orderLines = Files.readAllLines(ordersFile);
+        assertEquals(OrderLog.ORDERS_HEADER, orderLines.get(0));
+        assertEquals(3, orderLines.size());
+        assertTrue(orderLines.get(2).endsWith(",2"));
+        assertEquals(2, Files.readAllLines(itemsFile).size());
+
+        assertEquals(2L, orderLog.getVersion(1L));
+        assertEquals(1, orderLog.getDeadRows());
+        assertEquals(2, orderLog.getLiveRows());
+    }
+
+    @Test
+    @DisplayName("Should only append when the order is still at the expected version")
+    void testAppendIfVersion() throws IOException {
+        OrderDto order = order(1L);
+        List<Long> callbacks = new ArrayList<>();
+
+        assertEquals(1L, orderLog.appendIfVersion(order, 0L, () -> callbacks.add(order.getVersion())));
+        assertEquals(1L, order.getVersion());
+
+        OrderDto stale = order(1L);
+        stale.setStatus("CANCELLED");
+        assertEquals(-1L, orderLog.appendIfVersion(stale, 0L, () -> callbacks.add(-1L)));
+        assertNull(stale.getVersion());
+
+        order.setStatus("CONFIRMED");
+        assertEquals(2L, orderLog.appendIfVersion(order, 1L, () -> callbacks.add(order.getVersion())));
+        assertEquals(Arrays.asList(1L, 2L), callbacks);
+        assertEquals(2L, orderLog.getVersion(1L));
+        assertFalse(new String(Files.readAllBytes(ordersFile)).contains("CANCELLED"));
+        assertThrows(IllegalArgumentException.class, () -> orderLog.appendIfVersion(order, -1L, () -> {}));
+    }
+
+    // A writer that cannot open the orders file, so appends write their item rows only
+    private GroupCommitWriter ordersFailingWriter(Path failingFile) {
+        return new GroupCommitWriter(GroupCommitWriter.Durability.NONE) {
+            @Override
+            FileChannel open(Path file) throws IOException {
+                if (file.equals(failingFile)) {
+                    throw new IOException("disk full");
+                }
+                return super.open(file);
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Should keep the previous version when an append fails and never reuse its number")
+    void testFailedAppendKeepsVersion() throws IOException {
+        GroupCommitWriter failing = ordersFailingWriter(ordersFile);
+        OrderLog failingLog = new OrderLog(ordersFile, itemsFile, failing);
+        OrderDto order = order(1L);
+        order.getItems().add(item(7L));
+        List<Long> callbacks = new ArrayList<>();
+
+        assertThrows(IOException.class, () -> failingLog.appendIfVersion(order, 0L, () -> callbacks.add(1L)));
+        assertNull(order.getVersion());
+        assertEquals(0L, failingLog.getVersion(1L));
+        assertEquals(0, failingLog.getLiveRows());
+        assertTrue(callbacks.isEmpty());
+        failing.close();
+
+        // The orphan item row of version 1 stays in the file
+        orderLog.recordOrphanedItems(1L, 1L);
+        assertEquals(2L, orderLog.appendIfVersion(order, 0L, () -> callbacks.add(order.getVersion())));
+        assertEquals(Arrays.asList(2L), callbacks);
+        assertTrue(Files.readAllLines(ordersFile).get(1).endsWith(",2"));
+        assertEquals(3, Files.readAllLines(itemsFile).size());
+    }
+
+    @Test
+    @DisplayName("Should skip the versions of orphaned item rows after a reload")
+    void testReloadSkipsOrphanedVersions() throws IOException {
+        for (CsvDataManager.ReadMode mode : CsvDataManager.ReadMode.values()) {
+            Path dataDir = tempDir.resolve("orphans-" + mode.name());
+            Files.createDirectories(dataDir);
+            Path orders = dataDir.resolve("orders.csv");
+            Path items = dataDir.resolve("order_items.csv");
+            OrderDto order = order(1L);
+            order.getItems().add(item(1L));
+            new OrderLog(orders, items, writer).append(order, () -> {});
+
+            GroupCommitWriter failing = ordersFailingWriter(orders);
+            OrderDto update = order(1L);
+            update.getItems().addAll(Arrays.asList(item(1L), item(2L)));
+            OrderLog failingLog = new OrderLog(orders, items, failing);
+            failingLog.recordLoaded(1L, 1L, 1);
+            assertThrows(IOException.class, () -> failingLog.append(update, () -> {}));
+            failing.close();
+
+            CsvDataManager manager = new CsvDataManager(dataDir.toString(), GroupCommitWriter.Durability.NONE, mode);
+            OrderDto loaded = manager.findOrderById(1L);
+            assertEquals(1, loaded.getItems().size(), mode.name());
+            loaded.setStatus("CONFIRMED");
+            assertTrue(manager.updateOrderIfVersion(loaded, 1L), mode.name());
+            assertEquals(3L, loaded.getVersion(), mode.name());
+            manager.close();
+
+            CsvDataManager reloaded = new CsvDataManager(dataDir.toString(), GroupCommitWriter.Durability.NONE, mode);
+            assertEquals("CONFIRMED", reloaded.findOrderById(1L).getStatus(), mode.name());
+            assertEquals(1, reloaded.findOrderById(1L).getItems().size(), mode.name());
+            reloaded.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should run the callback after the rows are written")
+    void testCallbackRunsAfterAppend() throws IOException {
+        List<Long> sizes = new ArrayList<>();
+        orderLog.append(order(1L), () -> {
+            try {
+                sizes.add(Files.size(ordersFile));
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+        assertEquals(1, sizes.size());
+        assertTrue(sizes.get(0) > 0);
+    }
+
+    @Test
+    @DisplayName("Should keep only the latest version when compacting")
+    void testCompact() throws IOException {
+        OrderDto order = order(1L);
+        orderLog.append(order, () -> {});
+        order.getItems().add(item(7L));
+        orderLog.append(order, () -> {});
+        order.getItems().add(item(8L));
+        orderLog.append(order, () -> {});
+
+        orderLog.compact(() -> Arrays.asList(order));
+
+        List<String> orderLines = Files.readAllLines(ordersFile);
+        assertEquals(2, orderLines.size());
+        assertTrue(orderLines.get(1).endsWith(",3"));
+        List<String> itemLines = Files.readAllLines(itemsFile);
+        assertEquals(OrderLog.ORDER_ITEMS_HEADER, itemLines.get(0));
+        assertEquals(3, itemLines.size());
+        assertEquals(0, orderLog.getDeadRows());
+        assertFalse(Files.exists(tempDir.resolve("orders.csv.compact")));
+    }
+
+    @Test
+    @DisplayName("Should only ask for compaction once dead rows dominate")
+    void testNeedsCompaction() throws IOException {
+        OrderDto order = order(1L);
+        orderLog.append(order, () -> {});
+        orderLog.append(order, () -> {});
+        assertFalse(orderLog.needsCompaction());
+
+        orderLog.recordDeadRows(5000);
+        assertTrue(orderLog.needsCompaction());
+    }
+
+    @Test
+    @DisplayName("Should resolve reloaded orders to their latest version")
+    void testReloadResolvesLatestVersion() {
+        String dataDir = tempDir.resolve("data").toString();
+        CsvDataManager manager = new CsvDataManager(dataDir);
+        ProductDto product = manager.loadProducts().get(0);
+
+        OrderDto order = order(manager.generateOrderId());
+        manager.saveOrder(order);
+        order.getItems().add(new OrderItemDto(product, 2, "No onions"));
+        manager.updateOrder(order);
+        order.setStatus("CONFIRMED");
+        manager.updateOrder(order);
+        manager.close();
+
+        CsvDataManager reloaded = new CsvDataManager(dataDir);
+        OrderDto loaded = reloaded.findOrderById(order.getId());
+        assertEquals("CONFIRMED", loaded.getStatus());
+        assertEquals(1, loaded.getItems().size());
+        assertEquals(2, loaded.getItems().get(0).getQuantity());
+        assertEquals(1, reloaded.loadOrders().size());
+
+        reloaded.compactOrderLog();
+        CsvDataManager compacted = new CsvDataManager(dataDir);
+        assertEquals("CONFIRMED", compacted.findOrderById(order.getId()).getStatus());
+        assertEquals(1, compacted.findOrderById(order.getId()).getItems().size());
+        reloaded.close();
+        compacted.close();
+    }
+
+    @Test
+    @DisplayName("Should migrate order files written before the order log")
+    void testLegacyFilesAreMigrated() throws IOException {
+        Path dataDir = tempDir.resolve("legacy");
+        Files.createDirectories(dataDir);
+        Files.write(dataDir.resolve("orders.csv"), Arrays.asList(
+            "id,customer_id,customer_name,status,delivery_fee,payment_method,created_at,cancellation_reason,delivery_address",
+            "1,1,Legacy,PENDING,0.00,,2024-05-10 12:30:00,,\"Street|1|Center|City|ST|12345\""));
+        Files.write(dataDir.resolve("order_items.csv"), Arrays.asList(
+            "order_id,product_id,product_name,quantity,unit_price,observations",
+            "1,1,X-Burger Artesanal,3,25.90,"));
+
+        CsvDataManager manager = new CsvDataManager(dataDir.toString());
+        OrderDto loaded = manager.findOrderById(1L);
+        assertNotNull(loaded);
+        assertEquals(1, loaded.getItems().size());
+        assertEquals(3, loaded.getItems().get(0).getQuantity());
+        assertEquals(OrderLog.ORDERS_HEADER, Files.readAllLines(dataDir.resolve("orders.csv")).get(0));
+        manager.close();
+    }
+}
@@ -0,0 +1,91 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTimeIndexTest {
+
+    private static final long MIN = Long.MIN_VALUE;
+    private static final long MAX = Long.MAX_VALUE;
+
+    private OrderTimeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Buckets of 100 time units
+        index = new OrderTimeIndex(100);
+    }
+
+    @Test
+    @DisplayName("Should return orders in a range by time across buckets")
+    void testRangeAcrossBuckets() {
+        index.add(1L, 250L);
+        index.add(2L, 20L);
+        index.add(3L, 199L);
+        index.add(4L, 200L);
+        index.add(5L, 510L);
+        index.add(6L, 200L);
+
+        assertArrayEquals(new long[] {2L, 3L, 4L, 6L, 1L, 5L}, index.orderIdsBetween(MIN, MAX, MIN, MIN, 10));
+        assertArrayEquals(new long[] {3L, 4L, 6L}, index.orderIdsBetween(100L, 250L, MIN, MIN, 10));
+        assertArrayEquals(new long[] {4L, 6L, 1L}, index.orderIdsBetween(200L, 251L, MIN, MIN, 10));
+        assertArrayEquals(new long[0], index.orderIdsBetween(300L, 500L, MIN, MIN, 10));
+        assertArrayEquals(new long[0], index.orderIdsBetween(250L, 250L, MIN, MIN, 10));
+        assertEquals(6, index.size());
+        assertEquals(4, index.bucketCount());
+    }
+
+    @Test
+    @DisplayName("Should read a range in chunks after a cursor")
+    void testCursor() {
+        for (long id = 1; id <= 10; id++) {
+            index.add(id, id * 40);
+        }
+
+        assertArrayEquals(new long[] {2L, 3L, 4L}, index.orderIdsBetween(50L, 400L, MIN, MIN, 3));
+        assertArrayEquals(new long[] {5L, 6L, 7L}, index.orderIdsBetween(50L, 400L, 160L, 4L, 3));
+        assertArrayEquals(new long[] {8L, 9L}, index.orderIdsBetween(50L, 400L, 280L, 7L, 3));
+        assertArrayEquals(new long[0], index.orderIdsBetween(50L, 400L, 360L, 9L, 3));
+
+        // Ties on time continue by id
+        index.add(11L, 160L);
+        assertArrayEquals(new long[] {11L, 5L}, index.orderIdsBetween(50L, 400L, 160L, 4L, 2));
+    }
+
+    @Test
+    @DisplayName("Should remove orders and drop empty buckets")
+    void testRemove() {
+        index.add(1L, 150L);
+        index.add(2L, 160L);
+        index.add(2L, 160L);
+        assertEquals(2, index.size());
+
+        index.remove(1L, 150L);
+        index.remove(1L, 150L);
+        index.remove(2L, 999L);
+        assertArrayEquals(new long[] {2L}, index.orderIdsBetween(MIN, MAX, MIN, MIN, 10));
+
+        index.remove(2L, 160L);
+        assertEquals(0, index.size());
+        assertEquals(0, index.bucketCount());
+    }
+
+    @Test
+    @DisplayName("Should bucket negative time keys and clear")
+    void testNegativeKeysAndClear() {
+        index.add(1L, -1L);
+        index.add(2L, -101L);
+        index.add(3L, 0L);
+
+        assertArrayEquals(new long[] {2L, 1L}, index.orderIdsBetween(-150L, 0L, MIN, MIN, 10));
+        assertEquals(3, index.bucketCount());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertArrayEquals(new long[0], index.orderIdsBetween(MIN, MAX, MIN, MIN, 10));
+        assertThrows(IllegalArgumentException.class, () -> new OrderTimeIndex(0));
+    }
+}
@@ -0,0 +1,124 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.OrderDto;
+import com.ordermanagement.dto.OrderItemDto;
+import com.ordermanagement.dto.ProductDto;
+import com.ordermanagement.model.Money;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares reading the total of large orders by summing their items, the way
+ * OrderDto did before its item list kept a running subtotal, with getTotal,
+ * both for finished orders and for an order totalled after every added item.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class OrderTotalsBenchmark {
+
+    private static final int ORDERS = 1_000;
+    private static final int ITEMS_PER_ORDER = 5_000;
+    private static final int READS_PER_ORDER = 100;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        List<OrderDto> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            OrderDto order = new OrderDto();
+            order.setId((long) i);
+            List<OrderItemDto> items = new ArrayList<>(ITEMS_PER_ORDER);
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                items.add(item(i, j));
+            }
+            order.setItems(items);
+            order.setDeliveryFee(new BigDecimal("5.90"));
+            order.setDiscountAmount(BigDecimal.ZERO);
+            orders.add(order);
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            report("read summing", round, ORDERS * READS_PER_ORDER, () -> summedReads(orders));
+            report("read running", round, ORDERS * READS_PER_ORDER, () -> runningReads(orders));
+            report("build summing", round, ITEMS_PER_ORDER, () -> build(true));
+            report("build running", round, ITEMS_PER_ORDER, () -> build(false));
+        }
+    }
+
+    private static OrderItemDto item(int i, int j) {
+        ProductDto product = new ProductDto("Product", "desc", null, "FOOD");
+        product.setId((long) j);
+        OrderItemDto item = new OrderItemDto();
+        item.setProduct(product);
+        item.setQuantity(1 + (i + j) % 3);
+        item.setUnitPrice(BigDecimal.valueOf(500 + (i * 7L + j * 131) % 9000, 2));
+        return item;
+    }
+
+    private interface Run {
+        long run();
+    }
+
+    private static void report(String name, int round, int operations, Run run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf("round %d %-14s %,6d ms  %,9d ns/total  %,5d B/total  (checksum %d)%n",
+            round, name, nanos / 1_000_000, nanos / operations, bytes / operations, checksum);
+    }
+
+    // The per-item cents loop getTotal ran before the running subtotal
+    private static BigDecimal summedTotal(OrderDto order) {
+        long cents = 0;
+        int scale = 0;
+        for (OrderItemDto item : order.getItems()) {
+            Money price = item.getUnitPriceMoney();
+            cents = Math.addExact(cents, Math.multiplyExact(price.cents(), item.getQuantity()));
+            scale = Math.max(scale, item.unitPriceScale());
+        }
+        cents += order.getDeliveryFeeMoney().cents();
+        return Money.ofCents(cents).toBigDecimal(Math.max(scale, order.getDeliveryFee().scale()));
+    }
+
+    private static long summedReads(List<OrderDto> orders) {
+        long checksum = 0;
+        for (OrderDto order : orders) {
+            for (int r = 0; r < READS_PER_ORDER; r++) {
+                checksum += summedTotal(order).unscaledValue().longValue();
+            }
+        }
+        return checksum;
+    }
+
+    private static long runningReads(List<OrderDto> orders) {
+        long checksum = 0;
+        for (OrderDto order : orders) {
+            for (int r = 0; r < READS_PER_ORDER; r++) {
+                checksum += order.getTotal().unscaledValue().longValue();
+            }
+        }
+        return checksum;
+    }
+
+    // A cart shown with its total after every item added, quadratic when totals sum the items
+    private static long build(boolean summing) {
+        OrderDto order = new OrderDto();
+        order.setItems(new ArrayList<>());
+        order.setDeliveryFee(new BigDecimal("5.90"));
+        order.setDiscountAmount(BigDecimal.ZERO);
+        long checksum = 0;
+        for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+            order.getItems().add(item(0, j));
+            BigDecimal total = summing ? summedTotal(order) : order.getTotal();
+            checksum += total.unscaledValue().longValue();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ordermanagement.storage;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares trigram-index search with a linear substring scan over 1M
+ * product names and descriptions.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class ProductSearchBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int LIMIT = 50;
+    private static final int ROUNDS = 2_000;
+
+    private static final String[] WORDS = {
+        "pizza", "burger", "sushi", "salad", "pasta", "taco", "curry", "soup", "steak", "wrap",
+        "cheese", "bacon", "tomato", "basil", "chicken", "beef", "tofu", "rice", "lemon", "mango",
+        "spicy", "smoked", "grilled", "fresh", "crispy", "vegan", "classic", "house", "double", "mini"
+    };
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        String[] names = new String[PRODUCTS];
+        String[] descriptions = new String[PRODUCTS];
+        TrigramIndex index = new TrigramIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < PRODUCTS; i++) {
+            names[i] = word(random) + " " + word(random) + " #" + i;
+            descriptions[i] = "With " + word(random) + ", " + word(random) + " and " + word(random);
+            index.put(i, names[i], descriptions[i]);
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // A selective query, a common one and one that matches nothing
+        String[] queries = {"#123456", "smoked bacon", "grilled tofu #99", "caviar"};
+        for (String query : queries) {
+            long indexed = 0;
+            int found = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                start = System.nanoTime();
+                found = index.search(query, LIMIT).length;
+                indexed += System.nanoTime() - start;
+            }
+
+            String needle = query.toLowerCase(Locale.ROOT);
+            start = System.nanoTime();
+            int scanned = 0;
+            for (int i = 0; i < PRODUCTS && scanned < LIMIT; i++) {
+                if (names[i].toLowerCase(Locale.ROOT).contains(needle)
+                        || descriptions[i].toLowerCase(Locale.ROOT).contains(needle)) {
+                    scanned++;
+                }
+            }
+            long scanNanos = System.nanoTime() - start;
+
+            System.out.printf("%-18s index %,8.1f us (%d hits), scan %,10.1f us (%d hits)%n",
+                "\"" + query + "\"", indexed / (double) ROUNDS / 1_000, found, scanNanos / 1_000.0, scanned);
+        }
+
+        // Incremental updates: rename 100k products
+        start = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            index.put(i, "renamed " + word(random) + " #" + i, descriptions[i]);
+        }
+        long updateMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("built %,d products in %,d ms; 100,000 updates in %,d ms%n",
+            PRODUCTS, buildMillis, updateMillis);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
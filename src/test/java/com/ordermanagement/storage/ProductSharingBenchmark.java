@@ -0,0 +1,87 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.OrderItemDto;
+import com.ordermanagement.dto.ProductDto;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares order items holding a product copy each, as the orders handed
+ * out by the store do, with the shared snapshots of productSnapshot that
+ * stored order items point at, and the heap each set of items keeps.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class ProductSharingBenchmark {
+
+    private static final int PRODUCTS = 500;
+    private static final int ITEMS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    // Keeps the resolved items reachable while the heap is measured
+    private static List<OrderItemDto> held;
+
+    public static void main(String[] args) {
+        IndexedStore store = new IndexedStore();
+        List<ProductDto> catalog = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductDto product = new ProductDto("Product " + i, "A fairly long description of product " + i,
+                new BigDecimal((i % 90) + ".90"), "FOOD");
+            product.setId((long) i);
+            catalog.add(product);
+        }
+        store.replaceProducts(catalog);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            report("copy per item", round, () -> resolve(store, true));
+            report("shared snapshot", round, () -> resolve(store, false));
+        }
+    }
+
+    private interface Run {
+        List<OrderItemDto> run();
+    }
+
+    private static void report(String name, int round, Run run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        held = run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        int count = held.size();
+        // The heap with the items, less the heap once they are dropped
+        long withItems = usedHeap();
+        held = null;
+        long retained = withItems - usedHeap();
+        System.out.printf("round %d %-16s %,6d ms  %,5d ns/item  %,5d B/item allocated  %,5d B/item retained  (%d items)%n",
+            round, name, nanos / 1_000_000, nanos / ITEMS, bytes / ITEMS, retained / ITEMS, count);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static List<OrderItemDto> resolve(IndexedStore store, boolean copy) {
+        List<OrderItemDto> items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            long productId = (i * 31L) % PRODUCTS;
+            ProductDto product = copy ? store.findProductById(productId) : store.productSnapshot(productId);
+            OrderItemDto item = new OrderItemDto();
+            item.setProduct(product);
+            item.setQuantity(1 + i % 3);
+            item.setUnitPrice(product.getPrice());
+            items.add(item);
+        }
+        return items;
+    }
+}
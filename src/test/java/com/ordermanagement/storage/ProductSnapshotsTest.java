@@ -0,0 +1,105 @@
+package com.ordermanagement.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.dto.ProductDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSnapshotsTest {
+
+    private static ProductDto product(long id, String name, String price) {
+        ProductDto product = new ProductDto(name, "desc", new BigDecimal(price), "FOOD");
+        product.setId(id);
+        product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return product;
+    }
+
+    @Test
+    @DisplayName("Should share one product per product version")
+    void testSharing() {
+        ProductSnapshots snapshots = new ProductSnapshots();
+        ProductDto first = snapshots.acquire(product(1L, "Pizza", "45.90"));
+        ProductDto again = snapshots.acquire(product(1L, "Pizza", "45.90"));
+        ProductDto other = snapshots.acquire(product(2L, "Soda", "5.00"));
+
+        assertSame(first, again);
+        assertSame(first, snapshots.acquire(first));
+        assertNotSame(first, other);
+        assertEquals(2, snapshots.size());
+        assertNull(snapshots.acquire(null));
+    }
+
+    @Test
+    @DisplayName("Should start a new version only for content not seen among the kept ones")
+    void testVersions() {
+        ProductSnapshots snapshots = new ProductSnapshots();
+        ProductDto v1 = snapshots.acquire(product(1L, "Pizza", "45.90"));
+        ProductDto v2 = snapshots.acquire(product(1L, "Pizza", "49.90"));
+
+        assertEquals(new BigDecimal("45.90"), v1.getPrice());
+        assertSame(v2, snapshots.acquire(product(1L, "Pizza", "49.90")));
+        // Alternating between kept contents reuses their versions
+        for (int i = 0; i < 3; i++) {
+            assertSame(v1, snapshots.acquire(product(1L, "Pizza", "45.90")));
+            assertSame(v2, snapshots.acquire(product(1L, "Pizza", "49.90")));
+        }
+        assertEquals(2, snapshots.size());
+        snapshots.acquire(product(1L, "Pizza", "52.90"));
+        assertEquals(3, snapshots.size());
+    }
+
+    @Test
+    @DisplayName("Should forget a version when its last holder lets go")
+    void testRelease() {
+        ProductSnapshots snapshots = new ProductSnapshots();
+        ProductDto old = snapshots.acquire(product(1L, "Pizza", "45.90"));
+        snapshots.acquire(product(1L, "Pizza", "45.90"));
+        ProductDto current = snapshots.acquire(product(1L, "Pizza", "49.90"));
+
+        snapshots.release(old);
+        assertEquals(2, snapshots.size());
+        assertSame(old, snapshots.acquire(product(1L, "Pizza", "45.90")));
+        snapshots.release(old);
+        snapshots.release(old);
+        assertEquals(1, snapshots.size());
+        assertNotSame(old, snapshots.acquire(product(1L, "Pizza", "45.90")));
+
+        // Products it did not give are ignored
+        snapshots.release(product(1L, "Pizza", "49.90"));
+        snapshots.release(product(3L, "Cake", "9.90"));
+        snapshots.release(null);
+        assertEquals(2, snapshots.size());
+        snapshots.release(current);
+        assertEquals(1, snapshots.size());
+    }
+
+    @Test
+    @DisplayName("Should copy the source, so later changes to it do not reach the shared product")
+    void testCopiesSource() {
+        ProductDto source = product(1L, "Pizza", "45.90");
+        ProductSnapshots snapshots = new ProductSnapshots();
+        ProductDto shared = snapshots.acquire(source);
+        source.setName("Changed");
+
+        assertEquals("Pizza", shared.getName());
+        assertNotSame(shared, snapshots.acquire(source));
+        ProductDto noId = product(1L, "Pizza", "45.90");
+        noId.setId(null);
+        assertNotSame(snapshots.acquire(noId), snapshots.acquire(noId));
+        assertEquals(2, snapshots.size());
+    }
+
+    @Test
+    @DisplayName("Should serialize like the product it was taken from")
+    void testJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        ProductDto source = product(1L, "Pizza", "45.90");
+
+        assertEquals(mapper.writeValueAsString(source), mapper.writeValueAsString(new ProductSnapshots().acquire(source)));
+    }
+}
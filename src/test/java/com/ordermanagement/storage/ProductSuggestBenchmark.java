@@ -0,0 +1,71 @@
+package com.ordermanagement.storage;
+
+import java.util.Random;
+
+/**
+ * Measures autocomplete lookups on 1M product names, both steady state and
+ * right after a burst of popularity changes.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class ProductSuggestBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int LOOKUPS = 100_000;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        SuggestionTrie trie = new SuggestionTrie(10);
+        long start = System.nanoTime();
+        for (int i = 0; i < PRODUCTS; i++) {
+            trie.put(i, word(random) + " " + word(random) + " " + word(random), random.nextInt(1000));
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // The first lookups compute the stale top-k lists
+        start = System.nanoTime();
+        trie.suggest("", 10);
+        long firstMillis = (System.nanoTime() - start) / 1_000_000;
+
+        String[] prefixes = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            prefixes[i] = word(random).substring(0, 1 + random.nextInt(3));
+        }
+        long steady = time(trie, prefixes);
+
+        // Popularity changes from a burst of orders, then lookups again
+        for (int i = 0; i < 10_000; i++) {
+            trie.setWeight(random.nextInt(PRODUCTS), random.nextInt(2000));
+        }
+        long afterUpdates = time(trie, prefixes);
+
+        System.out.printf("built %,d products in %,d ms, first full ranking %,d ms%n"
+                + "lookups: %.2f us steady, %.2f us right after 10,000 weight changes%n",
+            PRODUCTS, buildMillis, firstMillis, steady / (double) LOOKUPS / 1_000,
+            afterUpdates / (double) LOOKUPS / 1_000);
+    }
+
+    private static long time(SuggestionTrie trie, String[] prefixes) {
+        long start = System.nanoTime();
+        long found = 0;
+        for (String prefix : prefixes) {
+            found += trie.suggest(prefix, 10).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found == 0) {
+            throw new IllegalStateException("no suggestions");
+        }
+        return elapsed;
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 3 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package com.ordermanagement.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compares startup with and without a snapshot for 1M orders.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class StartupBenchmark {
+
+    private static final int ORDERS = 1_000_000;
+    // Rows appended after the checkpoint, replayed from the CSV tail
+    private static final int TAIL_ORDERS = 10_000;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("startup-bench");
+        OrderLoadBenchmark.writeData(dir, ORDERS);
+
+        // First load warms up the JIT and writes the snapshot
+        CsvDataManager manager = new CsvDataManager(dir.toString());
+        long start = System.nanoTime();
+        manager.checkpoint();
+        long checkpointMillis = (System.nanoTime() - start) / 1_000_000;
+        long snapshotBytes = Files.size(dir.resolve("snapshot.bin"));
+        long csvBytes = Files.size(dir.resolve("orders.csv")) + Files.size(dir.resolve("order_items.csv"));
+        manager.close();
+        manager = null;
+
+        appendTail(dir);
+        System.gc();
+
+        start = System.nanoTime();
+        manager = new CsvDataManager(dir.toString());
+        long snapshotMillis = (System.nanoTime() - start) / 1_000_000;
+        int loadedFromSnapshot = manager.loadOrders().size();
+        manager = null;
+
+        Files.delete(dir.resolve("snapshot.bin"));
+        System.gc();
+
+        start = System.nanoTime();
+        manager = new CsvDataManager(dir.toString());
+        long csvMillis = (System.nanoTime() - start) / 1_000_000;
+        int loadedFromCsv = manager.loadOrders().size();
+
+        System.out.printf("%,d orders (+%,d after the checkpoint): CSV only %,d ms (%,d orders), "
+                + "snapshot + tail %,d ms (%,d orders), %.1fx%n"
+                + "checkpoint took %,d ms; snapshot %,d bytes vs %,d bytes of order CSV%n",
+            ORDERS, TAIL_ORDERS, csvMillis, loadedFromCsv, snapshotMillis, loadedFromSnapshot,
+            (double) csvMillis / Math.max(1, snapshotMillis), checkpointMillis, snapshotBytes, csvBytes);
+    }
+
+    private static void appendTail(Path dir) throws IOException {
+        try (BufferedWriter orderWriter = Files.newBufferedWriter(dir.resolve("orders.csv"), StandardCharsets.UTF_8,
+                 StandardOpenOption.APPEND);
+             BufferedWriter itemWriter = Files.newBufferedWriter(dir.resolve("order_items.csv"), StandardCharsets.UTF_8,
+                 StandardOpenOption.APPEND)) {
+            for (int o = ORDERS + 1; o <= ORDERS + TAIL_ORDERS; o++) {
+                orderWriter.write(o + ",1,Customer,WAITING,5.00,PIX,2024-05-11 09:00:00,,"
+                    + "\"Street|1|Center|City|ST|12345\",1\n");
+                itemWriter.write(o + ",1,Product,1,12.50,,1\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.ordermanagement.storage;
+
+import com.ordermanagement.dto.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StoreSnapshot.FileMark mark(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return StoreSnapshot.FileMark.of(file);
+    }
+
+    @Test
+    @DisplayName("Should round-trip customers, products and orders")
+    void testRoundTrip() throws IOException {
+        CustomerDto customer = new CustomerDto("joão@example.com", "João \"Jota\"", null);
+        customer.setId(3L);
+        customer.setCreatedAt(LocalDateTime.of(2024, 5, 10, 12, 30, 15));
+
+        ProductDto product = new ProductDto("Açaí", "Bowl, 500ml", new BigDecimal("19.90"), "DESSERTS");
+        product.setId(7L);
+        product.setSellerName("Seller");
+
+        OrderDto order = new OrderDto();
+        order.setId(11L);
+        order.setCustomerId(3L);
+        order.setCustomerName("João \"Jota\"");
+        order.setStatus("CANCELLED");
+        order.setDeliveryFee(new BigDecimal("5.00"));
+        order.setPaymentMethod("PIX");
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 11, 8, 0, 0));
+        order.setCancellationReason("Changed my mind");
+        order.setDeliveryAddress(new AddressDto("Rua A", "10", "Centro", "Recife", "PE", "50000-000"));
+        order.setItems(new ArrayList<>(Arrays.asList(new OrderItemDto(product, 2, "Sem granola"))));
+
+        Map<Long, Long> versions = new HashMap<>();
+        versions.put(11L, 4L);
+        StoreSnapshot snapshot = new StoreSnapshot(
+            mark("customers.csv", "id\n1\n"), mark("products.csv", "id\n"),
+            mark("orders.csv", "id\n1\n2\n"), mark("order_items.csv", ""),
+            Collections.singletonList(customer), Collections.singletonList(product),
+            Collections.singletonList(order), versions, 12L);
+
+        Path file = tempDir.resolve("snapshot.bin");
+        snapshot.write(file);
+        StoreSnapshot loaded = StoreSnapshot.read(file);
+
+        assertEquals(5L, loaded.getCustomersMark().getLength());
+        assertEquals(7L, loaded.getOrdersMark().getLength());
+        assertEquals(0L, loaded.getOrderItemsMark().getLength());
+        assertEquals(12L, loaded.getDeadOrderRows());
+
+        CustomerDto loadedCustomer = loaded.getCustomers().get(0);
+        assertEquals("joão@example.com", loadedCustomer.getEmail());
+        assertEquals("João \"Jota\"", loadedCustomer.getName());
+        assertNull(loadedCustomer.getPhone());
+        assertEquals(customer.getCreatedAt(), loadedCustomer.getCreatedAt());
+
+        ProductDto loadedProduct = loaded.getProducts().get(0);
+        assertEquals(7L, loadedProduct.getId());
+        assertEquals("Açaí", loadedProduct.getName());
+        assertEquals(new BigDecimal("19.90"), loadedProduct.getPrice());
+        assertEquals("DESSERTS", loadedProduct.getCategory());
+        assertEquals("Seller", loadedProduct.getSellerName());
+
+        OrderDto loadedOrder = loaded.getOrders().get(0);
+        assertEquals(4L, loaded.getOrderVersion(11L));
+        assertEquals("CANCELLED", loadedOrder.getStatus());
+        assertEquals(new BigDecimal("5.00"), loadedOrder.getDeliveryFee());
+        assertEquals(order.getCreatedAt(), loadedOrder.getCreatedAt());
+        assertEquals("Changed my mind", loadedOrder.getCancellationReason());
+        assertEquals("50000-000", loadedOrder.getDeliveryAddress().getZipCode());
+        OrderItemDto item = loadedOrder.getItems().get(0);
+        assertEquals(7L, item.getProduct().getId());
+        assertEquals(2, item.getQuantity());
+        assertEquals(new BigDecimal("19.90"), item.getUnitPrice());
+        assertEquals("Sem granola", item.getObservations());
+    }
+
+    @Test
+    @DisplayName("Should keep decimals that do not fit in a long")
+    void testLargeDecimal() throws IOException {
+        ProductDto product = new ProductDto("Big", "Big", new BigDecimal("123456789012345678901234.50"), "SNACKS");
+        product.setId(1L);
+        StoreSnapshot.FileMark empty = StoreSnapshot.FileMark.of(tempDir.resolve("missing.csv"));
+        StoreSnapshot snapshot = new StoreSnapshot(empty, empty, empty, empty,
+            new ArrayList<>(), Collections.singletonList(product), new ArrayList<>(), new HashMap<>(), 0L);
+
+        Path file = tempDir.resolve("snapshot.bin");
+        snapshot.write(file);
+
+        assertEquals(new BigDecimal("123456789012345678901234.50"),
+            StoreSnapshot.read(file).getProducts().get(0).getPrice());
+    }
+
+    private StoreSnapshot customerSnapshot(String name) throws IOException {
+        CustomerDto customer = new CustomerDto("crc@example.com", name, "555-0000");
+        customer.setId(1L);
+        StoreSnapshot.FileMark empty = StoreSnapshot.FileMark.of(tempDir.resolve("missing.csv"));
+        return new StoreSnapshot(empty, empty, empty, empty, Collections.singletonList(customer),
+            new ArrayList<>(), new ArrayList<>(), new HashMap<>(), 0L);
+    }
+
+    @Test
+    @DisplayName("Should verify the checksum across strings larger than the buffer")
+    void testChecksumWithLargeString() throws IOException {
+        String name = String.join("", Collections.nCopies(300_000, "Açaí"));
+        Path file = tempDir.resolve("snapshot.bin");
+        customerSnapshot(name).write(file, GroupCommitWriter.Durability.NONE);
+
+        assertEquals(name, StoreSnapshot.read(file).getCustomers().get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Should reject a snapshot whose body was damaged")
+    void testRejectsDamagedSnapshot() throws IOException {
+        Path file = tempDir.resolve("snapshot.bin");
+        customerSnapshot("Checksum Customer").write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        String content = new String(bytes, StandardCharsets.ISO_8859_1);
+        bytes[content.indexOf("Checksum Customer")] = 'X';
+        Files.write(file, bytes);
+
+        IOException error = assertThrows(IOException.class, () -> StoreSnapshot.read(file));
+        assertTrue(error.getMessage().contains("checksum"));
+    }
+
+    @Test
+    @DisplayName("Should reject a snapshot cut short")
+    void testRejectsTruncatedSnapshot() throws IOException {
+        Path file = tempDir.resolve("snapshot.bin");
+        customerSnapshot("Truncated Customer").write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThrows(IOException.class, () -> StoreSnapshot.read(file));
+    }
+
+    @Test
+    @DisplayName("Should still match a file that was only appended to")
+    void testMarkMatchesAppendedFile() throws IOException {
+        StoreSnapshot.FileMark mark = mark("orders.csv", "id,status\n1,WAITING\n");
+        Path file = tempDir.resolve("orders.csv");
+        Files.write(file, "2,CONFIRMED\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertTrue(mark.matches(file));
+    }
+
+    @Test
+    @DisplayName("Should not match a rewritten, truncated or deleted file")
+    void testMarkRejectsRewrittenFile() throws IOException {
+        StoreSnapshot.FileMark mark = mark("orders.csv", "id,status\n1,WAITING\n");
+        Path file = tempDir.resolve("orders.csv");
+
+        Files.write(file, "id,status\n1,DELIVERD\n2,WAITING\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(mark.matches(file));
+
+        Files.write(file, "id,status\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(mark.matches(file));
+
+        Files.delete(file);
+        assertFalse(mark.matches(file));
+        assertTrue(StoreSnapshot.FileMark.of(file).matches(file));
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not snapshots")
+    void testRejectsForeignFile() throws IOException {
+        Path file = tempDir.resolve("snapshot.bin");
+        Files.write(file, "id,name\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> StoreSnapshot.read(file));
+    }
+}
@@ -0,0 +1,77 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLockTest {
+
+    @Test
+    @DisplayName("Should round the stripe count up to a power of two")
+    void testStripeCount() {
+        assertEquals(StripedLock.DEFAULT_STRIPES, new StripedLock().getStripeCount());
+        assertEquals(1, new StripedLock(1).getStripeCount());
+        assertEquals(16, new StripedLock(10).getStripeCount());
+        assertEquals(16, new StripedLock(16).getStripeCount());
+        assertThrows(IllegalArgumentException.class, () -> new StripedLock(0));
+    }
+
+    @Test
+    @DisplayName("Should always return the same lock for the same key")
+    void testSameKeySameLock() {
+        StripedLock locks = new StripedLock();
+        assertSame(locks.forKey(42L), locks.forKey(42L));
+    }
+
+    @Test
+    @DisplayName("Should spread sequential ids over all stripes")
+    void testSpreadsSequentialIds() {
+        StripedLock locks = new StripedLock(64);
+        Set<Integer> stripes = new HashSet<>();
+        for (long id = 1; id <= 256; id++) {
+            stripes.add(locks.stripe(id));
+        }
+        assertEquals(64, stripes.size());
+    }
+
+    @Test
+    @DisplayName("Should let keys on different stripes be held at the same time")
+    void testDifferentStripesDoNotBlock() throws InterruptedException {
+        StripedLock locks = new StripedLock(64);
+        long other = 2L;
+        while (locks.stripe(other) == locks.stripe(1L)) {
+            other++;
+        }
+        Lock first = locks.forKey(1L);
+        Lock second = locks.forKey(other);
+
+        first.lock();
+        try {
+            AtomicBoolean acquired = new AtomicBoolean();
+            AtomicBoolean blocked = new AtomicBoolean();
+            CountDownLatch done = new CountDownLatch(1);
+            Thread thread = new Thread(() -> {
+                if (second.tryLock()) {
+                    acquired.set(true);
+                    second.unlock();
+                }
+                blocked.set(!first.tryLock());
+                done.countDown();
+            });
+            thread.start();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(acquired.get());
+            assertTrue(blocked.get());
+        } finally {
+            first.unlock();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionTrieTest {
+
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new SuggestionTrie(3);
+        trie.put(1L, "Pizza Margherita", 5);
+        trie.put(2L, "Pizza Calabresa", 9);
+        trie.put(3L, "Pastel de Queijo", 1);
+        trie.put(4L, "Pão de Queijo", 1);
+    }
+
+    @Test
+    @DisplayName("Should suggest names by prefix, most popular first")
+    void testPrefix() {
+        assertArrayEquals(new long[] {2L, 1L}, trie.suggest("piz", 10));
+        assertArrayEquals(new long[] {2L, 1L, 4L}, trie.suggest("p", 10));
+        assertArrayEquals(new long[] {1L}, trie.suggest("Pizza M", 10));
+        assertEquals(0, trie.suggest("pizzas", 10).length);
+        assertEquals(0, trie.suggest("x", 10).length);
+    }
+
+    @Test
+    @DisplayName("Should match any word start, ignoring case and accents")
+    void testWordStarts() {
+        assertArrayEquals(new long[] {1L}, trie.suggest("MARG", 10));
+        // Equal weights fall back to the name
+        assertArrayEquals(new long[] {4L, 3L}, trie.suggest("queijo", 10));
+        assertArrayEquals(new long[] {4L}, trie.suggest("pao", 10));
+        assertEquals(0, trie.suggest("argherita", 10).length);
+    }
+
+    @Test
+    @DisplayName("Should stop at the limit and at k")
+    void testLimit() {
+        assertArrayEquals(new long[] {2L}, trie.suggest("p", 1));
+        assertEquals(3, trie.suggest("", 10).length);
+        assertEquals(0, trie.suggest("p", 0).length);
+    }
+
+    @Test
+    @DisplayName("Should re-rank after weight changes")
+    void testWeights() {
+        trie.suggest("p", 3);
+        trie.setWeight(4L, 20);
+        assertArrayEquals(new long[] {4L, 2L, 1L}, trie.suggest("p", 3));
+        trie.setWeight(99L, 50);
+        assertArrayEquals(new long[] {4L, 3L}, trie.suggest("de", 3));
+    }
+
+    @Test
+    @DisplayName("Should follow renames and removals")
+    void testRenameAndRemove() {
+        trie.suggest("p", 3);
+        trie.put(1L, "Calzone", 5);
+        assertArrayEquals(new long[] {2L}, trie.suggest("pizza", 10));
+        assertArrayEquals(new long[] {1L}, trie.suggest("calz", 10));
+        assertArrayEquals(new long[] {2L}, trie.suggest("cala", 10));
+
+        trie.remove(2L);
+        assertEquals(0, trie.suggest("pizza", 10).length);
+        assertArrayEquals(new long[] {1L}, trie.suggest("ca", 10));
+        assertArrayEquals(new long[] {4L, 3L}, trie.suggest("pa", 10));
+        trie.clear();
+        assertEquals(0, trie.suggest("", 10).length);
+    }
+}
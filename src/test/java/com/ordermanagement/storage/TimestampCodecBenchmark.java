@@ -0,0 +1,88 @@
+package com.ordermanagement.storage;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Compares DateTimeFormatter with TimestampCodec and CsvRowEncoder on the
+ * created_at column: decoding through CsvReader (text and epoch-millis
+ * rows) and encoding to UTF-8 bytes.
+ * Not part of the test suite; run its main method on the test classpath
+ * (target/classes, target/test-classes and the dependency jars) with a
+ * fixed heap of a few gigabytes, e.g. -Xms4g -Xmx4g.
+ */
+public class TimestampCodecBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime[] times = new LocalDateTime[ROWS];
+        StringBuilder text = new StringBuilder();
+        StringBuilder epoch = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            times[i] = start.plusSeconds(i * 37L);
+            text.append(i).append(',').append(times[i].format(TimestampCodec.FORMATTER)).append('\n');
+            epoch.append(i).append(',').append(TimestampCodec.toEpochMillis(times[i])).append('\n');
+        }
+        char[] textChars = text.toString().toCharArray();
+        char[] epochChars = epoch.toString().toCharArray();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            report("parse formatter", round, () -> parse(textChars, true));
+            report("parse codec text", round, () -> parse(textChars, false));
+            report("parse codec epoch", round, () -> parse(epochChars, false));
+            report("format formatter", round, () -> format(times));
+            report("encode text", round, () -> encode(times, CsvDataManager.TimestampFormat.TEXT));
+            report("encode epoch", round, () -> encode(times, CsvDataManager.TimestampFormat.EPOCH_MILLIS));
+        }
+    }
+
+    private interface Run {
+        long run() throws IOException;
+    }
+
+    private static void report(String name, int round, Run run) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf("round %d %-18s %,6d ms  %,5d ns/row  %,5d B/row  (checksum %d)%n",
+            round, name, nanos / 1_000_000, nanos / ROWS, bytes / ROWS, checksum);
+    }
+
+    private static long parse(char[] chars, boolean formatter) throws IOException {
+        long checksum = 0;
+        try (CsvReader csv = new CsvReader(new CharArrayReader(chars))) {
+            while (csv.next()) {
+                LocalDateTime time = formatter ? csv.getTimestamp(1, TimestampCodec.FORMATTER) : csv.getTimestamp(1);
+                checksum += time.getSecond() + time.getDayOfYear();
+            }
+        }
+        return checksum;
+    }
+
+    private static long format(LocalDateTime[] times) {
+        long checksum = 0;
+        for (LocalDateTime time : times) {
+            checksum += time.format(TimestampCodec.FORMATTER).getBytes(StandardCharsets.UTF_8).length;
+        }
+        return checksum;
+    }
+
+    // One pooled encoder per row, as the write paths use it
+    private static long encode(LocalDateTime[] times, CsvDataManager.TimestampFormat format) {
+        long checksum = 0;
+        for (LocalDateTime time : times) {
+            checksum += CsvRowEncoder.pooled().timestamp(time, format).size();
+        }
+        return checksum;
+    }
+}
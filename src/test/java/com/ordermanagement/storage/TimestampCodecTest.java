@@ -0,0 +1,68 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimestampCodecTest {
+
+    @Test
+    @DisplayName("Should parse the text layout like the formatter")
+    void testParseText() {
+        String[] values = {"2024-05-10 12:30:00", "1999-12-31 23:59:59", "0001-01-01 00:00:00", "9999-12-31 23:59:59",
+            "2024-02-29 08:00:01"};
+        for (String value : values) {
+            assertEquals(LocalDateTime.parse(value, TimestampCodec.FORMATTER), TimestampCodec.parse(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("Should defer to the formatter for values the fast path does not take")
+    void testFallback() {
+        // The SMART resolver clamps an invalid day of month
+        assertEquals(LocalDateTime.of(2023, 2, 28, 10, 0), TimestampCodec.parse("2023-02-30 10:00:00"));
+        String[] invalid = {"2024-13-01 00:00:00", "2024-05-10 25:00:00", "0000-01-01 00:00:00", "2024-05-10T12:30:00",
+            "2024-05-10", "", "-1000", "12:30"};
+        for (String value : invalid) {
+            assertThrows(DateTimeParseException.class, () -> TimestampCodec.parse(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("Should read a bare number as epoch milliseconds")
+    void testEpochMillis() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 10, 12, 30, 15, 250_000_000);
+        long millis = TimestampCodec.toEpochMillis(time);
+        assertEquals(1715344215250L, millis);
+        assertEquals(time, TimestampCodec.parse(Long.toString(millis)));
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), TimestampCodec.parse("0"));
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000), TimestampCodec.fromEpochMillis(-1));
+    }
+
+    @Test
+    @DisplayName("Should key epoch milliseconds by the same digits as the text layout")
+    void testDigitKeys() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 10, 12, 30, 15);
+        assertEquals(20240510123015L, TimestampCodec.digitKey(time));
+        assertEquals(20240510123015L, TimestampCodec.epochMillisDigitKey(TimestampCodec.toEpochMillis(time)));
+        assertEquals(19700101000000L, TimestampCodec.epochMillisDigitKey(0));
+        assertEquals(TimestampCodec.digitKey(TimestampCodec.parse("0")), TimestampCodec.epochMillisDigitKey(0));
+        assertEquals(TimestampCodec.NO_TIME, TimestampCodec.epochMillisDigitKey(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Should write EPOCH_MILLIS timestamps as numbers, and times before 1970 as text")
+    void testEncoderFormats() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 10, 12, 30, 15);
+        CsvRowEncoder encoder = new CsvRowEncoder()
+            .timestamp(time, CsvDataManager.TimestampFormat.EPOCH_MILLIS)
+            .timestamp(time, CsvDataManager.TimestampFormat.TEXT)
+            .timestamp(LocalDateTime.of(1960, 1, 1, 0, 0), CsvDataManager.TimestampFormat.EPOCH_MILLIS)
+            .timestamp(null, CsvDataManager.TimestampFormat.EPOCH_MILLIS);
+        assertEquals("1715344215000,2024-05-10 12:30:15,1960-01-01 00:00:00,", new String(encoder.toByteArray()));
+    }
+}
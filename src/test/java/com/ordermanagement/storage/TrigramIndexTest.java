@@ -0,0 +1,102 @@
+package com.ordermanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.put(1L, "Pizza Margherita", "Traditional pizza with tomato sauce");
+        index.put(2L, "Hambúrguer Artesanal", "Burger with cheese and bacon");
+        index.put(3L, "Açaí na Tigela", "Açaí with banana and granola");
+    }
+
+    @Test
+    @DisplayName("Should find documents by a substring of any field")
+    void testSubstringSearch() {
+        assertArrayEquals(new long[] {1L}, index.search("margher", 10));
+        assertArrayEquals(new long[] {1L, 2L, 3L}, index.search("with", 10));
+        assertArrayEquals(new long[] {2L}, index.search("bacon", 10));
+        assertEquals(0, index.search("sushi", 10).length);
+    }
+
+    @Test
+    @DisplayName("Should ignore case and accents")
+    void testNormalization() {
+        assertArrayEquals(new long[] {3L}, index.search("ACAI", 10));
+        assertArrayEquals(new long[] {2L}, index.search("hamburguer", 10));
+        assertArrayEquals(new long[] {2L}, index.search("  Hambúrguer ", 10));
+    }
+
+    @Test
+    @DisplayName("Should reject candidates whose trigrams match out of order")
+    void testVerifiesCandidates() {
+        index.put(4L, "abcd xbcy");
+        index.put(5L, "abc bcd");
+        // Both trigrams of "abcy" occur in 4, just not next to each other
+        assertEquals(0, index.search("abcy", 10).length);
+        assertArrayEquals(new long[] {4L}, index.search("abcd", 10));
+    }
+
+    @Test
+    @DisplayName("Should scan for queries shorter than a trigram")
+    void testShortQueries() {
+        assertArrayEquals(new long[] {1L}, index.search("pi", 10));
+        assertArrayEquals(new long[] {1L, 2L, 3L}, index.search("a", 10));
+        assertEquals(0, index.search("", 10).length);
+        assertEquals(0, index.search(null, 10).length);
+    }
+
+    @Test
+    @DisplayName("Should stop after the limit")
+    void testLimit() {
+        assertArrayEquals(new long[] {1L, 2L}, index.search("with", 2));
+        assertArrayEquals(new long[] {1L}, index.search("a", 1));
+        assertEquals(0, index.search("with", 0).length);
+    }
+
+    @Test
+    @DisplayName("Should replace and remove documents")
+    void testUpdateAndRemove() {
+        index.put(1L, "Pizza Calabresa", null);
+        assertEquals(0, index.search("margherita", 10).length);
+        // The updated document now comes last
+        assertArrayEquals(new long[] {2L, 3L, 1L}, index.search("a", 10));
+        assertArrayEquals(new long[] {1L}, index.search("calabresa", 10));
+
+        index.remove(2L);
+        assertEquals(0, index.search("bacon", 10).length);
+        assertEquals(2, index.size());
+        index.remove(99L);
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Should keep answering correctly after many updates")
+    void testRebuildAfterManyUpdates() {
+        for (int round = 0; round < 5000; round++) {
+            index.put(1L, "Pizza round " + round);
+        }
+        assertEquals(3, index.size());
+        assertArrayEquals(new long[] {1L}, index.search("round 4999", 10));
+        assertEquals(0, index.search("round 4998", 10).length);
+        assertArrayEquals(new long[] {3L}, index.search("granola", 10));
+    }
+
+    @Test
+    @DisplayName("Should clear everything")
+    void testClear() {
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(0, index.search("pizza", 10).length);
+        index.put(7L, "Pizza");
+        assertArrayEquals(new long[] {7L}, index.search("pizza", 10));
+    }
+}